@@ -0,0 +1,35 @@
+-- =============================================================
+-- V001: Punto de control del inventario de asientos en memoria
+-- -------------------------------------------------------------
+-- Las migraciones se aplican en orden (V001, V002, ...) sobre la
+-- base creada con script_bd.sql. Cada script registra su versión
+-- en HistorialMigraciones y no hace nada si ya estaba aplicado.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF OBJECT_ID('dbo.HistorialMigraciones', 'U') IS NULL
+BEGIN
+    CREATE TABLE dbo.HistorialMigraciones (
+        version       INT           NOT NULL PRIMARY KEY,
+        descripcion   NVARCHAR(200) NOT NULL,
+        fecha_aplicada DATETIME2    NOT NULL DEFAULT SYSDATETIME()
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 1)
+BEGIN
+    -- Última entrada del diario local ya aplicada a Vuelo.asientos_disponibles.
+    -- Se actualiza en la misma transacción que el lote de deltas, de modo que
+    -- al recuperar tras una caída solo se reaplican las entradas posteriores.
+    CREATE TABLE dbo.InventarioCheckpoint (
+        id               INT    NOT NULL PRIMARY KEY CHECK (id = 1),
+        ultima_secuencia BIGINT NOT NULL
+    );
+    INSERT INTO dbo.InventarioCheckpoint (id, ultima_secuencia) VALUES (1, 0);
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (1, 'Punto de control del inventario de asientos en memoria');
+END
+GO
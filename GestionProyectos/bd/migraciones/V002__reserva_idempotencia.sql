@@ -0,0 +1,25 @@
+-- =============================================================
+-- V002: Claves de idempotencia de reservas
+-- -------------------------------------------------------------
+-- Guarda qué reserva creó cada solicitud del cliente. Un reintento
+-- con la misma clave devuelve la reserva original en lugar de
+-- descontar asientos otra vez. Solo se registran reservas exitosas.
+-- Las claves antiguas se pueden purgar sin riesgo pasado el plazo
+-- de reintentos de los clientes, p. ej.:
+--   DELETE FROM ReservaIdempotencia WHERE fecha_creacion < DATEADD(DAY, -7, SYSDATETIME());
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 2)
+BEGIN
+    CREATE TABLE dbo.ReservaIdempotencia (
+        clave          NVARCHAR(64) NOT NULL PRIMARY KEY,
+        id_reserva     INT          NOT NULL REFERENCES dbo.Reserva (id_reserva),
+        fecha_creacion DATETIME2    NOT NULL DEFAULT SYSDATETIME()
+    );
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (2, 'Claves de idempotencia de reservas');
+END
+GO
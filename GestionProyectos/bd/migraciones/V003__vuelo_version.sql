@@ -0,0 +1,20 @@
+-- =============================================================
+-- V003: Versión de fila en Vuelo para control optimista
+-- -------------------------------------------------------------
+-- Toda operación que cambia asientos_disponibles incrementa
+-- version. Un cliente que leyó el vuelo puede actualizarlo con
+-- "WHERE id_vuelo = ? AND version = ?" y reintentar si no afectó
+-- ninguna fila, en lugar de mantener bloqueos entre viajes.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 3)
+BEGIN
+    ALTER TABLE dbo.Vuelo
+        ADD version INT NOT NULL CONSTRAINT DF_Vuelo_version DEFAULT 0;
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (3, 'Versión de fila en Vuelo para control optimista');
+END
+GO
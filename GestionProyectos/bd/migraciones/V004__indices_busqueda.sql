@@ -0,0 +1,37 @@
+-- =============================================================
+-- V004: Índices de cobertura para la búsqueda de vuelos
+-- -------------------------------------------------------------
+-- VueloDAO.buscarVuelos filtra con prefijo en origen/destino
+-- (LIKE 'x%') y un rango semiabierto en fecha_salida, así que
+-- puede buscar por índice en lugar de recorrer toda la tabla.
+-- Los INCLUDE cubren todas las columnas que devuelve la consulta
+-- para no volver a la tabla por cada fila.
+--
+-- IX_Vuelo_fecha_salida sirve las búsquedas solo por fecha
+-- (sin origen), que son las que hace la pantalla al abrirse.
+-- IX_Reserva_usuario_estado sirve "Mis reservas" ya ordenadas
+-- por fecha_reserva y la comprobación de reserva duplicada.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 4)
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_Vuelo_ruta_fecha
+        ON dbo.Vuelo (origen, destino, fecha_salida)
+        INCLUDE (id_aerolinea, numero_vuelo, fecha_llegada, asientos_totales,
+                 asientos_disponibles, precio, escalas, estado, version);
+
+    CREATE NONCLUSTERED INDEX IX_Vuelo_fecha_salida
+        ON dbo.Vuelo (fecha_salida)
+        INCLUDE (id_aerolinea, numero_vuelo, origen, destino, fecha_llegada,
+                 asientos_totales, asientos_disponibles, precio, escalas, estado, version);
+
+    CREATE NONCLUSTERED INDEX IX_Reserva_usuario_estado
+        ON dbo.Reserva (id_usuario, estado, fecha_reserva DESC)
+        INCLUDE (id_vuelo, cantidad_asientos);
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (4, 'Índices de cobertura para la búsqueda de vuelos y reservas por usuario');
+END
+GO
@@ -0,0 +1,35 @@
+-- =============================================================
+-- V005: Aeronave de OpenSky asociada a cada vuelo importado
+-- -------------------------------------------------------------
+-- La ingesta de OpenSky (servicio.IngestaOpenSky) identifica cada
+-- aeronave por su dirección ICAO de 24 bits. Un vuelo importado
+-- guarda esa dirección para que la siguiente pasada lo actualice
+-- en lugar de duplicarlo; los vuelos creados a mano la dejan en
+-- NULL, por eso el índice único es filtrado.
+--
+-- IX_Aerolinea_codigo sirve la búsqueda de aerolínea por código
+-- que hace el MERGE de cada pasada.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 5)
+BEGIN
+    ALTER TABLE dbo.Vuelo
+        ADD icao24 VARCHAR(6) NULL;
+END
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 5)
+BEGIN
+    CREATE UNIQUE NONCLUSTERED INDEX UX_Vuelo_icao24
+        ON dbo.Vuelo (icao24)
+        WHERE icao24 IS NOT NULL;
+
+    CREATE NONCLUSTERED INDEX IX_Aerolinea_codigo
+        ON dbo.Aerolinea (codigo);
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (5, 'Aeronave de OpenSky (icao24) en los vuelos importados');
+END
+GO
@@ -0,0 +1,31 @@
+-- =============================================================
+-- V006: Secuencia del inventario en memoria en cada reserva
+-- -------------------------------------------------------------
+-- El inventario de asientos (servicio.InventarioAsientos) aparta
+-- los asientos en su diario local antes de guardar la reserva. La
+-- reserva guarda la secuencia de ese apartado para que, si la
+-- aplicación cae entre el diario y la base, al iniciar se cuenten
+-- solo los apartados cuya reserva llegó a guardarse. Las reservas
+-- hechas sin el inventario la dejan en NULL, por eso el índice es
+-- filtrado.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 6)
+BEGIN
+    ALTER TABLE dbo.Reserva
+        ADD secuencia_inventario BIGINT NULL;
+END
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 6)
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_Reserva_secuencia_inventario
+        ON dbo.Reserva (secuencia_inventario)
+        WHERE secuencia_inventario IS NOT NULL;
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (6, 'Secuencia del inventario de asientos en las reservas');
+END
+GO
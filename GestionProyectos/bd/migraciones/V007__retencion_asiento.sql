@@ -0,0 +1,34 @@
+-- =============================================================
+-- V007: Retenciones de asientos
+-- -------------------------------------------------------------
+-- Una retención (servicio.RetencionAsientos) descuenta asientos
+-- mientras el cliente termina la compra. Cada retención activa
+-- queda aquí con su vencimiento, en la misma transacción que el
+-- descuento, para que sobreviva a un reinicio: al iniciar, las
+-- vencidas se liberan y las demás se vuelven a programar.
+--
+-- secuencia_inventario es la del apartado del inventario en
+-- memoria (NULL si los asientos se descontaron en la tabla
+-- Vuelo); al confirmar pasa a la fila de Reserva.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 7)
+BEGIN
+    CREATE TABLE dbo.RetencionAsiento (
+        id_retencion         BIGINT    IDENTITY(1,1) PRIMARY KEY,
+        id_vuelo             INT       NOT NULL REFERENCES dbo.Vuelo (id_vuelo),
+        cantidad             INT       NOT NULL CHECK (cantidad > 0),
+        vence                DATETIME2 NOT NULL,
+        secuencia_inventario BIGINT    NULL
+    );
+
+    CREATE NONCLUSTERED INDEX IX_RetencionAsiento_secuencia_inventario
+        ON dbo.RetencionAsiento (secuencia_inventario)
+        WHERE secuencia_inventario IS NOT NULL;
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (7, 'Retenciones de asientos con vencimiento');
+END
+GO
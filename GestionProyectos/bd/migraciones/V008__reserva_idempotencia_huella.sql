@@ -0,0 +1,21 @@
+-- =============================================================
+-- V008: Huella de la solicitud en las claves de idempotencia
+-- -------------------------------------------------------------
+-- Guarda el SHA-256 (hexadecimal) de usuario, vuelo y cantidad de
+-- la solicitud que registró cada clave. Un reintento con la misma
+-- clave pero con otros datos se rechaza en lugar de devolver la
+-- reserva original. Las claves anteriores a esta migración quedan
+-- sin huella y se aceptan como antes.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 8)
+BEGIN
+    ALTER TABLE dbo.ReservaIdempotencia
+        ADD huella CHAR(64) NULL;
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (8, 'Huella de la solicitud en las claves de idempotencia');
+END
+GO
@@ -0,0 +1,40 @@
+-- =============================================================
+-- V009: Quita la versión de fila de Vuelo
+-- -------------------------------------------------------------
+-- La columna version (V003) solo se incrementaba: ninguna
+-- sentencia la comparaba. Las reservas ya se deciden con una
+-- actualización condicional sobre el propio contador
+-- (asientos_disponibles >= cantidad), que no choca con cambios
+-- ajenos a los asientos, así que la columna se elimina.
+--
+-- Los índices de cobertura de V004 la incluían: se recrean sin
+-- ella antes de quitarla (SQL Server no deja borrar una columna
+-- que un índice usa).
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 9)
+BEGIN
+    IF COL_LENGTH('dbo.Vuelo', 'version') IS NOT NULL
+    BEGIN
+        CREATE NONCLUSTERED INDEX IX_Vuelo_ruta_fecha
+            ON dbo.Vuelo (origen, destino, fecha_salida)
+            INCLUDE (id_aerolinea, numero_vuelo, fecha_llegada, asientos_totales,
+                     asientos_disponibles, precio, escalas, estado)
+            WITH (DROP_EXISTING = ON);
+
+        CREATE NONCLUSTERED INDEX IX_Vuelo_fecha_salida
+            ON dbo.Vuelo (fecha_salida)
+            INCLUDE (id_aerolinea, numero_vuelo, origen, destino, fecha_llegada,
+                     asientos_totales, asientos_disponibles, precio, escalas, estado)
+            WITH (DROP_EXISTING = ON);
+
+        ALTER TABLE dbo.Vuelo DROP CONSTRAINT DF_Vuelo_version;
+        ALTER TABLE dbo.Vuelo DROP COLUMN version;
+    END
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (9, 'Sin versión de fila en Vuelo');
+END
+GO
@@ -0,0 +1,37 @@
+-- =============================================================
+-- V010: Búsqueda de origen y destino sin distinguir tildes
+-- -------------------------------------------------------------
+-- VueloDAO.buscarVuelos filtra por prefijo de origen/destino.
+-- Con la intercalación de la base (sensible a tildes) "bogota"
+-- no encontraba "Bogotá". origen_busqueda y destino_busqueda son
+-- las mismas columnas con una intercalación que no distingue
+-- tildes ni mayúsculas; al ser columnas calculadas se pueden
+-- indexar, así que el LIKE 'x%' sigue buscando por índice (un
+-- COLLATE en la propia consulta obligaría a recorrer la tabla).
+--
+-- IX_Vuelo_busqueda_fecha reemplaza a IX_Vuelo_ruta_fecha para
+-- las búsquedas; este se conserva para las consultas que
+-- comparan origen y destino exactos.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 10)
+BEGIN
+    ALTER TABLE dbo.Vuelo
+        ADD origen_busqueda AS (origen COLLATE Latin1_General_CI_AI),
+            destino_busqueda AS (destino COLLATE Latin1_General_CI_AI);
+END
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 10)
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_Vuelo_busqueda_fecha
+        ON dbo.Vuelo (origen_busqueda, destino_busqueda, fecha_salida)
+        INCLUDE (id_aerolinea, numero_vuelo, origen, destino, fecha_llegada,
+                 asientos_totales, asientos_disponibles, precio, escalas, estado);
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (10, 'Columnas de búsqueda sin tildes para origen y destino');
+END
+GO
@@ -0,0 +1,34 @@
+-- =============================================================
+-- V011: Un vuelo por viaje de cada aeronave de OpenSky
+-- -------------------------------------------------------------
+-- Hasta ahora cada aeronave (icao24) tenía una sola fila, que la
+-- ingesta reescribía con el indicativo, la ruta y la salida de
+-- su siguiente viaje, aunque tuviera reservas. Ahora un viaje es
+-- (icao24, numero_vuelo): al cambiar el indicativo se finaliza la
+-- fila anterior y se inserta otra, así que una aeronave acumula
+-- filas finalizadas y solo puede tener un viaje abierto a la vez.
+-- UX_Vuelo_icao24_abierto lo garantiza y sirve el MERGE de cada
+-- pasada, que solo busca entre los viajes abiertos.
+--
+-- IX_Reserva_vuelo_estado sirve la comprobación de reservas
+-- vigentes antes de tocar la ruta de un vuelo en vivo.
+-- =============================================================
+USE SistemaReservasVuelo;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM dbo.HistorialMigraciones WHERE version = 11)
+BEGIN
+    DROP INDEX UX_Vuelo_icao24 ON dbo.Vuelo;
+
+    CREATE UNIQUE NONCLUSTERED INDEX UX_Vuelo_icao24_abierto
+        ON dbo.Vuelo (icao24)
+        INCLUDE (numero_vuelo, origen, destino, id_aerolinea)
+        WHERE icao24 IS NOT NULL AND estado <> 'Finalizado';
+
+    CREATE NONCLUSTERED INDEX IX_Reserva_vuelo_estado
+        ON dbo.Reserva (id_vuelo, estado);
+
+    INSERT INTO dbo.HistorialMigraciones (version, descripcion)
+    VALUES (11, 'Un vuelo por viaje (icao24, indicativo) en la ingesta de OpenSky');
+END
+GO
@@ -0,0 +1,386 @@
+// herramientas/ConvertidorNaturalEarth.java
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Genera {@code paises.txt} a partir de los límites de países de Natural
+ * Earth (admin 0, escala 1:110m o 1:50m), que son de dominio público:
+ * https://www.naturalearthdata.com/downloads/
+ *
+ * Lee el GeoJSON de ne_110m_admin_0_countries o ne_50m_admin_0_countries
+ * (por ejemplo el de https://github.com/nvkelso/natural-earth-vector/tree/master/geojson)
+ * y escribe un polígono por línea con el contorno exterior de cada parte,
+ * simplificado con Douglas-Peucker a la tolerancia pedida. El nombre es
+ * NAME_ES si viene, si no NAME. Se omite la Antártida.
+ *
+ * GeocodificadorPaises no maneja huecos: da el primer polígono que
+ * contiene el punto. Por eso las líneas salen ordenadas de menor a mayor
+ * área, y un enclave (Lesoto, San Marino) queda antes que el país que lo
+ * rodea.
+ *
+ * No forma parte de la aplicación (está fuera de src para que no vaya en el
+ * jar): se ejecuta suelto, desde GestionProyectos, con
+ * {@code java herramientas/ConvertidorNaturalEarth.java <entrada.geojson> src/util/paises.txt [tolerancia en grados, 0.05]}
+ */
+public final class ConvertidorNaturalEarth {
+
+    private static final double TOLERANCIA = 0.05;
+
+    private ConvertidorNaturalEarth() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: java herramientas/ConvertidorNaturalEarth.java <entrada.geojson> <paises.txt> [tolerancia]");
+            System.exit(2);
+        }
+        Path entrada = Paths.get(args[0]);
+        Path salida = Paths.get(args[1]);
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) : TOLERANCIA;
+
+        String texto = Files.readString(entrada, StandardCharsets.UTF_8);
+        String generado = convertir(texto, entrada.getFileName().toString(), tolerancia);
+        Files.writeString(salida, generado, StandardCharsets.UTF_8);
+        System.out.println("✅ " + salida + " generado desde " + entrada.getFileName());
+    }
+
+    /**
+     * @param fuente Nombre del archivo de origen, para el encabezado
+     * @return El contenido de paises.txt
+     */
+    static String convertir(String geojson, String fuente, double tolerancia) throws IOException {
+        Object raiz = new Json(geojson).valor();
+        List<Poligono> poligonos = new ArrayList<>();
+        for (Object elemento : lista(mapa(raiz).get("features"))) {
+            Map<String, Object> feature = mapa(elemento);
+            Map<String, Object> propiedades = mapa(feature.get("properties"));
+            String nombre = nombre(propiedades);
+            if (nombre == null || "Antarctica".equals(propiedades.get("ADMIN"))
+                    || "Antarctica".equals(propiedades.get("NAME"))) {
+                continue;
+            }
+            Map<String, Object> geometria = mapa(feature.get("geometry"));
+            if (geometria == null) {
+                continue;
+            }
+            Object coordenadas = geometria.get("coordinates");
+            switch (String.valueOf(geometria.get("type"))) {
+                case "Polygon" -> agregar(poligonos, nombre, lista(coordenadas), tolerancia);
+                case "MultiPolygon" -> {
+                    for (Object parte : lista(coordenadas)) {
+                        agregar(poligonos, nombre, lista(parte), tolerancia);
+                    }
+                }
+                default -> {
+                    // Otras geometrías no delimitan un país
+                }
+            }
+        }
+        poligonos.sort(Comparator.comparingDouble(Poligono::area));
+
+        StringWriter texto = new StringWriter();
+        PrintWriter salida = new PrintWriter(texto);
+        salida.println("# Contornos de países para GeocodificadorPaises.");
+        salida.println("#");
+        salida.println("# Un polígono por línea: \"País: lon lat, lon lat, ...\" (grados, WGS84).");
+        salida.println("# Generado con herramientas/ConvertidorNaturalEarth.java desde " + fuente);
+        salida.println("# (Natural Earth, dominio público), contornos exteriores simplificados");
+        salida.println("# con Douglas-Peucker a " + tolerancia + "°. De menor a mayor área, así los");
+        salida.println("# enclaves van antes que el país que los rodea.");
+        salida.println();
+        for (Poligono p : poligonos) {
+            StringBuilder linea = new StringBuilder(p.pais()).append(':');
+            for (int i = 0; i < p.puntos().length; i += 2) {
+                linea.append(i == 0 ? " " : ", ")
+                        .append(String.format(Locale.ROOT, "%.3f %.3f", p.puntos()[i], p.puntos()[i + 1]));
+            }
+            salida.println(linea);
+        }
+        salida.flush();
+        return texto.toString();
+    }
+
+    private record Poligono(String pais, double[] puntos, double area) {
+    }
+
+    private static String nombre(Map<String, Object> propiedades) {
+        if (propiedades == null) {
+            return null;
+        }
+        Object nombre = propiedades.get("NAME_ES");
+        if (!(nombre instanceof String) || ((String) nombre).isBlank()) {
+            nombre = propiedades.get("NAME");
+        }
+        // Los dos puntos separan el país de los vértices
+        return nombre instanceof String s && !s.isBlank() ? s.replace(':', ' ').trim() : null;
+    }
+
+    /**
+     * Agrega el anillo exterior (el primero) de un polígono GeoJSON.
+     */
+    private static void agregar(List<Poligono> poligonos, String pais, List<Object> anillos, double tolerancia) {
+        if (anillos.isEmpty()) {
+            return;
+        }
+        List<Object> anillo = lista(anillos.get(0));
+        int n = anillo.size();
+        // GeoJSON repite el primer punto al final; paises.txt cierra el polígono solo
+        if (n > 1 && anillo.get(0).equals(anillo.get(n - 1))) {
+            n--;
+        }
+        double[] puntos = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            List<Object> punto = lista(anillo.get(i));
+            puntos[2 * i] = ((Number) punto.get(0)).doubleValue();
+            puntos[2 * i + 1] = ((Number) punto.get(1)).doubleValue();
+        }
+        double[] simplificado = simplificar(puntos, tolerancia);
+        if (simplificado.length >= 6) {
+            poligonos.add(new Poligono(pais, simplificado, Math.abs(area(simplificado))));
+        }
+    }
+
+    /**
+     * Douglas-Peucker sobre un anillo: se parte en el vértice más lejano al
+     * primero para no depender de por dónde empieza.
+     */
+    static double[] simplificar(double[] puntos, double tolerancia) {
+        int n = puntos.length / 2;
+        if (n <= 3 || tolerancia <= 0) {
+            return puntos;
+        }
+        int lejano = 0;
+        double maxima = -1;
+        for (int i = 1; i < n; i++) {
+            double dx = puntos[2 * i] - puntos[0];
+            double dy = puntos[2 * i + 1] - puntos[1];
+            if (dx * dx + dy * dy > maxima) {
+                maxima = dx * dx + dy * dy;
+                lejano = i;
+            }
+        }
+        boolean[] conservar = new boolean[n + 1];
+        conservar[0] = true;
+        conservar[lejano] = true;
+        conservar[n] = true;
+        marcar(puntos, 0, lejano, tolerancia, conservar);
+        marcar(puntos, lejano, n, tolerancia, conservar);
+
+        List<Double> quedan = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (conservar[i]) {
+                quedan.add(puntos[2 * i]);
+                quedan.add(puntos[2 * i + 1]);
+            }
+        }
+        double[] resultado = new double[quedan.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = quedan.get(i);
+        }
+        return resultado;
+    }
+
+    // El índice n es de nuevo el punto 0 (cierre del anillo)
+    private static void marcar(double[] puntos, int desde, int hasta, double tolerancia, boolean[] conservar) {
+        int n = puntos.length / 2;
+        double ax = puntos[2 * desde];
+        double ay = puntos[2 * desde + 1];
+        double bx = puntos[2 * (hasta % n)];
+        double by = puntos[2 * (hasta % n) + 1];
+        int peor = -1;
+        double maxima = tolerancia;
+        for (int i = desde + 1; i < hasta; i++) {
+            double d = distancia(puntos[2 * i], puntos[2 * i + 1], ax, ay, bx, by);
+            if (d > maxima) {
+                maxima = d;
+                peor = i;
+            }
+        }
+        if (peor >= 0) {
+            conservar[peor] = true;
+            marcar(puntos, desde, peor, tolerancia, conservar);
+            marcar(puntos, peor, hasta, tolerancia, conservar);
+        }
+    }
+
+    private static double distancia(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double largo = dx * dx + dy * dy;
+        double t = largo == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / largo));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return Math.sqrt(cx * cx + cy * cy);
+    }
+
+    // Fórmula del área de Gauss, en grados cuadrados (solo para ordenar)
+    private static double area(double[] puntos) {
+        int n = puntos.length / 2;
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            suma += puntos[2 * i] * puntos[2 * j + 1] - puntos[2 * j] * puntos[2 * i + 1];
+        }
+        return suma / 2;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mapa(Object valor) {
+        return valor instanceof Map ? (Map<String, Object>) valor : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> lista(Object valor) {
+        return valor instanceof List ? (List<Object>) valor : List.of();
+    }
+
+    /**
+     * Lector JSON mínimo para el GeoJSON de Natural Earth: objetos como
+     * LinkedHashMap, arreglos como ArrayList, números como Double.
+     */
+    private static final class Json {
+        private final String texto;
+        private int pos = 0;
+
+        Json(String texto) {
+            this.texto = texto;
+        }
+
+        Object valor() throws IOException {
+            saltarBlancos();
+            if (pos >= texto.length()) {
+                throw error("fin inesperado");
+            }
+            char c = texto.charAt(pos);
+            return switch (c) {
+                case '{' -> objeto();
+                case '[' -> arreglo();
+                case '"' -> cadena();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> numero();
+            };
+        }
+
+        private Map<String, Object> objeto() throws IOException {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            saltarBlancos();
+            if (texto.charAt(pos) == '}') {
+                pos++;
+                return mapa;
+            }
+            while (true) {
+                saltarBlancos();
+                String clave = cadena();
+                saltarBlancos();
+                esperar(':');
+                mapa.put(clave, valor());
+                saltarBlancos();
+                if (texto.charAt(pos) == '}') {
+                    pos++;
+                    return mapa;
+                }
+                esperar(',');
+            }
+        }
+
+        private List<Object> arreglo() throws IOException {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            saltarBlancos();
+            if (texto.charAt(pos) == ']') {
+                pos++;
+                return lista;
+            }
+            while (true) {
+                lista.add(valor());
+                saltarBlancos();
+                if (texto.charAt(pos) == ']') {
+                    pos++;
+                    return lista;
+                }
+                esperar(',');
+            }
+        }
+
+        private String cadena() throws IOException {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = texto.charAt(pos++);
+                switch (e) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'r' -> sb.append('\r');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(e);
+                }
+            }
+            throw error("cadena sin cerrar");
+        }
+
+        private Double numero() throws IOException {
+            int inicio = pos;
+            while (pos < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(texto.substring(inicio, pos));
+            } catch (NumberFormatException e) {
+                throw error("número mal formado");
+            }
+        }
+
+        private Object literal(String palabra, Object valor) throws IOException {
+            if (!texto.startsWith(palabra, pos)) {
+                throw error("se esperaba " + palabra);
+            }
+            pos += palabra.length();
+            return valor;
+        }
+
+        private void esperar(char c) throws IOException {
+            if (pos >= texto.length() || texto.charAt(pos) != c) {
+                throw error("se esperaba '" + c + "'");
+            }
+            pos++;
+        }
+
+        private void saltarBlancos() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IOException error(String mensaje) {
+            return new IOException("GeoJSON: " + mensaje + " en la posición " + pos);
+        }
+    }
+}
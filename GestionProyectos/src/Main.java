@@ -1,5 +1,11 @@
 // Main.java
+import java.nio.file.Paths;
 import javax.swing.SwingUtilities;
+import servicio.CacheBusquedaVuelos;
+import servicio.IndiceRutas;
+import servicio.IngestaOpenSky;
+import servicio.InventarioAsientos;
+import servicio.RetencionAsientos;
 import vista.LoginDialog;
 import vista.VuelosGUI;
 
@@ -9,6 +15,31 @@ import vista.VuelosGUI;
  */
 public class Main {
     public static void main(String[] args) {
+        // Inventario de asientos en memoria para ventas masivas (-Dinventario.memoria=true)
+        if (Boolean.getBoolean("inventario.memoria")) {
+            InventarioAsientos.iniciar(Paths.get(System.getProperty("inventario.diario", "diario-asientos")),
+                    Long.getLong("inventario.volcadoMs", 500));
+            Runtime.getRuntime().addShutdownHook(new Thread(InventarioAsientos::detener));
+        }
+
+        // Retenciones que quedaron de la ejecución anterior: libera las vencidas
+        RetencionAsientos.getInstancia();
+
+        // Índice de rutas en memoria para las búsquedas (se desactiva con -Dindice.rutas=false)
+        if (Boolean.parseBoolean(System.getProperty("indice.rutas", "true"))) {
+            IndiceRutas.iniciar(Long.getLong("indice.recargaMs", 300_000));
+        }
+
+        // Al salir se informa cuánto sirvió la caché de búsquedas
+        CacheBusquedaVuelos cacheBusquedas = CacheBusquedaVuelos.getInstancia();
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                System.out.println("📊 Caché de búsquedas: " + cacheBusquedas.getMetricas())));
+
+        // Importación periódica del feed completo de OpenSky (-Dopensky.ingesta=true)
+        if (Boolean.getBoolean("opensky.ingesta")) {
+            IngestaOpenSky.iniciar(Long.getLong("opensky.intervaloMs", 60_000));
+        }
+
         SwingUtilities.invokeLater(() -> {
             LoginDialog login = new LoginDialog(null); 
             login.setVisible(true);
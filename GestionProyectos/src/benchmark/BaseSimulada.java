@@ -0,0 +1,239 @@
+// benchmark/BaseSimulada.java
+package benchmark;
+
+import dao.ReservaDAO;
+import dao.ResultadoReserva;
+import dao.VueloDAO;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sustituto en memoria de SQL Server para las pruebas de carga.
+ *
+ * Reproduce la semántica del lote de reserva de {@code ReservaDAO}: cada
+ * vuelo es una "fila" con su propio bloqueo, el descuento es condicional
+ * ({@code asientos_disponibles >= @cantidad}) y no se admite una segunda
+ * reserva del mismo usuario en el mismo vuelo. Cada llamada simula además
+ * un viaje de ida y vuelta a la base con la latencia configurada, fuera del
+ * bloqueo de la fila, como ocurre con la red real.
+ */
+public class BaseSimulada {
+
+    private final Fila[] vuelos;
+    private final long latenciaNanos;
+    private final Set<Long> reservasPorPar = ConcurrentHashMap.newKeySet();
+    private final AtomicLong secuenciaReserva = new AtomicLong();
+    private volatile long puntoControl = 0;
+
+    /**
+     * @param numVuelos Vuelos creados, con id de 1 a {@code numVuelos}
+     * @param asientosPorVuelo Asientos totales de cada vuelo
+     * @param latenciaMicros Latencia simulada por viaje a la base
+     */
+    public BaseSimulada(int numVuelos, int asientosPorVuelo, long latenciaMicros) {
+        this.vuelos = new Fila[numVuelos];
+        for (int i = 0; i < numVuelos; i++) {
+            vuelos[i] = new Fila(asientosPorVuelo);
+        }
+        this.latenciaNanos = TimeUnit.MICROSECONDS.toNanos(latenciaMicros);
+    }
+
+    /**
+     * Equivalente a ejecutar {@code SQL_RESERVAR}: descuenta e inserta en un solo viaje.
+     */
+    public ResultadoReserva reservar(int idUsuario, int idVuelo, int cantidad) {
+        viajeRedondo();
+        Fila fila = fila(idVuelo);
+        if (fila == null) {
+            return ResultadoReserva.NO_ENCONTRADO;
+        }
+        synchronized (fila) {
+            if (fila.disponibles < cantidad) {
+                return ResultadoReserva.AGOTADO;
+            }
+            if (!reservasPorPar.add(par(idUsuario, idVuelo))) {
+                return ResultadoReserva.DUPLICADA;
+            }
+            fila.disponibles -= cantidad;
+            fila.vendidos += cantidad;
+        }
+        secuenciaReserva.incrementAndGet();
+        return ResultadoReserva.OK;
+    }
+
+    /**
+     * Equivalente a {@code SQL_INSERTAR_RESERVA}: inserta sin tocar la fila
+     * del vuelo, porque los asientos ya se descontaron en el inventario en memoria.
+     */
+    public ResultadoReserva insertarReserva(int idUsuario, int idVuelo, int cantidad) {
+        viajeRedondo();
+        Fila fila = fila(idVuelo);
+        if (fila == null) {
+            return ResultadoReserva.NO_ENCONTRADO;
+        }
+        if (!reservasPorPar.add(par(idUsuario, idVuelo))) {
+            return ResultadoReserva.DUPLICADA;
+        }
+        synchronized (fila) {
+            fila.vendidos += cantidad;
+        }
+        secuenciaReserva.incrementAndGet();
+        return ResultadoReserva.OK;
+    }
+
+    /**
+     * @return Reservas confirmadas en total
+     */
+    public long getReservas() {
+        return secuenciaReserva.get();
+    }
+
+    /**
+     * Comprueba, vuelo por vuelo, que vendidos + disponibles = totales.
+     *
+     * @return Número de vuelos que no cumplen la invariante
+     */
+    public int contarVuelosInconsistentes() {
+        int errores = 0;
+        for (int i = 0; i < vuelos.length; i++) {
+            Fila fila = vuelos[i];
+            synchronized (fila) {
+                if (fila.vendidos + fila.disponibles != fila.totales || fila.disponibles < 0) {
+                    System.err.println("❌ Vuelo " + (i + 1) + ": vendidos=" + fila.vendidos
+                            + " disponibles=" + fila.disponibles + " totales=" + fila.totales);
+                    errores++;
+                }
+            }
+        }
+        return errores;
+    }
+
+    /**
+     * @return Asientos vendidos y disponibles sumados en todos los vuelos: {vendidos, disponibles, totales}
+     */
+    public long[] totales() {
+        long vendidos = 0, disponibles = 0, totales = 0;
+        for (Fila fila : vuelos) {
+            synchronized (fila) {
+                vendidos += fila.vendidos;
+                disponibles += fila.disponibles;
+                totales += fila.totales;
+            }
+        }
+        return new long[]{vendidos, disponibles, totales};
+    }
+
+    /**
+     * {@link ReservaDAO} real cuyos viajes a la base van a esta base simulada,
+     * para medir todo el camino de {@code reservarAsientos} (validaciones,
+     * inventario en memoria si está iniciado, reintentos) sin SQL Server.
+     */
+    public ReservaDAO crearReservaDAO() {
+        return new ReservaDAO() {
+            @Override
+            protected Intento ejecutarLoteReserva(boolean descontarEnBase, int idUsuario, int idVuelo,
+                                                  int cantidadAsientos, String claveIdempotencia,
+                                                  Long secuencia, String huella) {
+                ResultadoReserva resultado = descontarEnBase
+                        ? reservar(idUsuario, idVuelo, cantidadAsientos)
+                        : insertarReserva(idUsuario, idVuelo, cantidadAsientos);
+                int idReserva = resultado == ResultadoReserva.OK ? (int) secuenciaReserva.get() : 0;
+                return new Intento(resultado, idReserva, false);
+            }
+        };
+    }
+
+    /**
+     * DAO de vuelos que lee y escribe en esta base simulada, para que el
+     * inventario en memoria pueda precargar y volcar sin SQL Server.
+     */
+    public VueloDAO crearVueloDAO() {
+        return new VueloDAO() {
+            @Override
+            public Map<Integer, Integer> obtenerAsientosDisponibles() {
+                Map<Integer, Integer> asientos = new HashMap<>();
+                for (int i = 0; i < vuelos.length; i++) {
+                    synchronized (vuelos[i]) {
+                        asientos.put(i + 1, vuelos[i].disponibles);
+                    }
+                }
+                return asientos;
+            }
+
+            @Override
+            public long obtenerSecuenciaInventario() {
+                return puntoControl;
+            }
+
+            @Override
+            public boolean aplicarDeltasAsientos(Map<Integer, Integer> deltas, long secuencia) {
+                viajeRedondo();
+                if (puntoControl >= secuencia) {
+                    return true;    // Lote ya aplicado
+                }
+                for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+                    Fila fila = fila(delta.getKey());
+                    if (fila != null) {
+                        synchronized (fila) {
+                            fila.disponibles += delta.getValue();
+                        }
+                    }
+                }
+                puntoControl = secuencia;
+                return true;
+            }
+
+            @Override
+            public Set<Long> filtrarSecuenciasGuardadas(Collection<Long> secuencias) {
+                // Cada corrida empieza con un diario vacío: no hay nada que reconciliar
+                return Set.of();
+            }
+
+            @Override
+            public Set<Long> filtrarSecuenciasRetenidas(Collection<Long> secuencias) {
+                return Set.of();
+            }
+        };
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    private Fila fila(int idVuelo) {
+        return idVuelo >= 1 && idVuelo <= vuelos.length ? vuelos[idVuelo - 1] : null;
+    }
+
+    private static long par(int idUsuario, int idVuelo) {
+        return ((long) idUsuario << 32) | (idVuelo & 0xFFFFFFFFL);
+    }
+
+    private void viajeRedondo() {
+        if (latenciaNanos <= 0) {
+            return;
+        }
+        long fin = System.nanoTime() + latenciaNanos;
+        long resta;
+        while ((resta = fin - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(resta);
+        }
+    }
+
+    /**
+     * Fila de la tabla Vuelo; se protege con su propio monitor (bloqueo de fila).
+     */
+    private static final class Fila {
+        private final int totales;
+        private int disponibles;
+        private int vendidos;
+
+        private Fila(int totales) {
+            this.totales = totales;
+            this.disponibles = totales;
+        }
+    }
+}
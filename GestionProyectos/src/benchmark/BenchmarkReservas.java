@@ -0,0 +1,467 @@
+// benchmark/BenchmarkReservas.java
+package benchmark;
+
+import dao.ReservaDAO;
+import dao.ResultadoReserva;
+import dao.VueloDAO;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import modelo.Reserva;
+import modelo.Usuario;
+import modelo.Vuelo;
+import servicio.InventarioAsientos;
+
+/**
+ * Prueba de carga de reservas concurrentes sobre pocos vuelos (caso de
+ * venta relámpago).
+ *
+ * Lanza N hilos de reserva (de plataforma, virtuales o ambos) contra M vuelos,
+ * eligiendo el vuelo con una distribución Zipf de sesgo configurable: con
+ * sesgo 0 todos los vuelos reciben la misma carga y con sesgo alto casi todo
+ * va al vuelo 1. Mide el rendimiento y las latencias p50/p99/p999, comprueba
+ * al final que vendidos + disponibles = asientos_totales en cada vuelo y
+ * escribe los resultados en JSON.
+ *
+ * Modos:
+ * Todos los modos reservan con {@link ReservaDAO#reservarAsientos(Reserva)}:
+ * <ul>
+ *   <li>{@code simulada}: los lotes de reserva van a {@link BaseSimulada} (bloqueo por fila).</li>
+ *   <li>{@code inventario}: igual, con {@link InventarioAsientos} iniciado delante de la base simulada.</li>
+ *   <li>{@code jdbc}: contra la base de {@code -Dbd.url}.
+ *       Los vuelos ({@code --ids-vuelo}) y los usuarios 1..{@code --usuarios} deben existir.</li>
+ * </ul>
+ * Mientras se mide, los mensajes de consola de cada reserva se descartan
+ * para no medir la escritura en consola.
+ *
+ * Ejemplo:
+ * <pre>
+ * java -cp ... benchmark.BenchmarkReservas --modo=simulada --hilos=200 --vuelos=4 \
+ *      --sesgo=1.2 --operaciones=200000 --salida=resultado.json
+ * </pre>
+ */
+public class BenchmarkReservas {
+
+    private final Map<String, String> opciones;
+    private final String modo;
+    private final int hilos;
+    private final int numVuelos;
+    private final int asientos;
+    private final int operaciones;
+    private final int calentamiento;
+    private final int usuarios;
+    private final int maxCantidad;
+    private final double sesgo;
+    private final long latenciaMicros;
+    private final int[] idsVuelo;
+
+    private BenchmarkReservas(Map<String, String> opciones) {
+        this.opciones = opciones;
+        this.modo = opciones.getOrDefault("modo", "simulada");
+        this.hilos = entero("hilos", 200);
+        this.asientos = entero("asientos", 10_000);
+        this.operaciones = entero("operaciones", 100_000);
+        this.calentamiento = entero("calentamiento", operaciones / 10);
+        this.usuarios = entero("usuarios", 1_000_000);
+        this.maxCantidad = entero("cantidad", 1);
+        this.sesgo = Double.parseDouble(opciones.getOrDefault("sesgo", "1.0"));
+        this.latenciaMicros = Long.parseLong(opciones.getOrDefault("latencia-us", "200"));
+
+        if (opciones.containsKey("ids-vuelo")) {
+            this.idsVuelo = Arrays.stream(opciones.get("ids-vuelo").split(","))
+                    .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        } else {
+            int m = entero("vuelos", 4);
+            this.idsVuelo = new int[m];
+            for (int i = 0; i < m; i++) {
+                idsVuelo[i] = i + 1;
+            }
+        }
+        this.numVuelos = idsVuelo.length;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                System.err.println("❌ Argumento no reconocido: " + arg);
+                System.exit(2);
+            }
+            int igual = arg.indexOf('=');
+            if (igual < 0) {
+                opciones.put(arg.substring(2), "true");
+            } else {
+                opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+
+        BenchmarkReservas benchmark = new BenchmarkReservas(opciones);
+        String tipos = opciones.getOrDefault("tipo-hilo", "ambos");
+        List<Resultado> resultados = new ArrayList<>();
+        if (!tipos.equals("virtual")) {
+            resultados.add(benchmark.ejecutar(false));
+        }
+        if (!tipos.equals("plataforma")) {
+            resultados.add(benchmark.ejecutar(true));
+        }
+
+        String json = benchmark.aJson(resultados);
+        System.out.println(json);
+        if (opciones.containsKey("salida")) {
+            Files.writeString(Paths.get(opciones.get("salida")), json, StandardCharsets.UTF_8);
+        }
+
+        boolean invarianteOk = resultados.stream().allMatch(r -> r.vuelosInconsistentes == 0);
+        System.exit(invarianteOk ? 0 : 1);
+    }
+
+    /**
+     * Ejecuta un escenario completo (con calentamiento previo si el modo lo permite).
+     */
+    private Resultado ejecutar(boolean virtuales) throws Exception {
+        // El calentamiento consume asientos: solo se hace con bases desechables
+        if (calentamiento > 0 && !modo.equals("jdbc")) {
+            try (Objetivo objetivo = crearObjetivo()) {
+                medir(objetivo, virtuales, calentamiento);
+            }
+        }
+
+        try (Objetivo objetivo = crearObjetivo()) {
+            Resultado resultado = medir(objetivo, virtuales, operaciones);
+            objetivo.finalizar();
+            resultado.vuelosInconsistentes = objetivo.contarVuelosInconsistentes();
+            System.err.println((resultado.vuelosInconsistentes == 0 ? "✅ " : "❌ ")
+                    + (virtuales ? "Hilos virtuales" : "Hilos de plataforma") + ": "
+                    + String.format(Locale.ROOT, "%.0f", resultado.porSegundo()) + " reservas/s, "
+                    + resultado.vuelosInconsistentes + " vuelos inconsistentes");
+            return resultado;
+        }
+    }
+
+    private Resultado medir(Objetivo objetivo, boolean virtuales, int total) throws Exception {
+        double[] distribucion = distribucionZipf(numVuelos, sesgo);
+        int porHilo = Math.max(1, total / hilos);
+        long[][] latencias = new long[hilos][];
+        List<EnumMap<ResultadoReserva, Integer>> conteos = new ArrayList<>();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService ejecutor = virtuales
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int indice = h;
+            EnumMap<ResultadoReserva, Integer> conteo = new EnumMap<>(ResultadoReserva.class);
+            conteos.add(conteo);
+            tareas.add(ejecutor.submit(() -> {
+                long[] propias = new long[porHilo];
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                salida.await();
+                for (int i = 0; i < porHilo; i++) {
+                    int idVuelo = idsVuelo[elegir(distribucion, azar.nextDouble())];
+                    int idUsuario = 1 + azar.nextInt(usuarios);
+                    int cantidad = 1 + azar.nextInt(maxCantidad);
+                    long inicio = System.nanoTime();
+                    ResultadoReserva r = objetivo.reservar(idUsuario, idVuelo, cantidad);
+                    propias[i] = System.nanoTime() - inicio;
+                    conteo.merge(r, 1, Integer::sum);
+                }
+                latencias[indice] = propias;
+                return null;
+            }));
+        }
+
+        PrintStream salidaOriginal = System.out;
+        PrintStream erroresOriginal = System.err;
+        PrintStream descarte = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(descarte);
+        System.setErr(descarte);
+        long inicio = System.nanoTime();
+        long duracion;
+        try {
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            duracion = System.nanoTime() - inicio;
+        } finally {
+            System.setOut(salidaOriginal);
+            System.setErr(erroresOriginal);
+        }
+        ejecutor.shutdown();
+
+        Resultado resultado = new Resultado();
+        resultado.virtuales = virtuales;
+        resultado.operaciones = (long) porHilo * hilos;
+        resultado.duracionNanos = duracion;
+        for (EnumMap<ResultadoReserva, Integer> conteo : conteos) {
+            conteo.forEach((k, v) -> resultado.resultados.merge(k, (long) v, Long::sum));
+        }
+
+        long[] todas = new long[(int) resultado.operaciones];
+        int pos = 0;
+        for (long[] propias : latencias) {
+            System.arraycopy(propias, 0, todas, pos, propias.length);
+            pos += propias.length;
+        }
+        Arrays.sort(todas);
+        resultado.p50 = percentil(todas, 0.50);
+        resultado.p99 = percentil(todas, 0.99);
+        resultado.p999 = percentil(todas, 0.999);
+        resultado.maxima = todas.length > 0 ? todas[todas.length - 1] : 0;
+        return resultado;
+    }
+
+    // --- Objetivos de la prueba ---
+
+    private Objetivo crearObjetivo() throws IOException {
+        switch (modo) {
+            case "simulada":
+                return new ObjetivoSimulado(new BaseSimulada(numVuelos, asientos, latenciaMicros));
+            case "inventario":
+                return new ObjetivoInventario(new BaseSimulada(numVuelos, asientos, latenciaMicros));
+            case "jdbc":
+                return new ObjetivoJdbc();
+            default:
+                throw new IllegalArgumentException("Modo desconocido: " + modo);
+        }
+    }
+
+    /**
+     * Sistema sobre el que se reserva durante la prueba.
+     */
+    private interface Objetivo extends AutoCloseable {
+        ResultadoReserva reservar(int idUsuario, int idVuelo, int cantidad);
+
+        /** Deja los asientos de todos los vuelos en su estado definitivo. */
+        default void finalizar() {
+        }
+
+        int contarVuelosInconsistentes();
+
+        @Override
+        default void close() {
+        }
+    }
+
+    /**
+     * Reserva como lo hace la aplicación: con {@link ReservaDAO#reservarAsientos(Reserva)}.
+     */
+    private static ResultadoReserva reservarCon(ReservaDAO reservaDAO, int idUsuario, int idVuelo, int cantidad) {
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(idUsuario);
+        Vuelo vuelo = new Vuelo();
+        vuelo.setIdVuelo(idVuelo);
+
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setVuelo(vuelo);
+        reserva.setCantidadAsientos(cantidad);
+        return reservaDAO.reservarAsientos(reserva);
+    }
+
+    private static final class ObjetivoSimulado implements Objetivo {
+        private final BaseSimulada base;
+        private final ReservaDAO reservaDAO;
+
+        ObjetivoSimulado(BaseSimulada base) {
+            this.base = base;
+            this.reservaDAO = base.crearReservaDAO();
+        }
+
+        @Override
+        public ResultadoReserva reservar(int idUsuario, int idVuelo, int cantidad) {
+            return reservarCon(reservaDAO, idUsuario, idVuelo, cantidad);
+        }
+
+        @Override
+        public int contarVuelosInconsistentes() {
+            return base.contarVuelosInconsistentes();
+        }
+    }
+
+    /**
+     * {@link ReservaDAO} con el inventario activo: aparta en memoria, inserta
+     * la reserva en la base simulada y confirma o anula el apartado.
+     */
+    private final class ObjetivoInventario implements Objetivo {
+        private final BaseSimulada base;
+        private final ReservaDAO reservaDAO;
+        private final Path diario;
+        private InventarioAsientos inventario;
+
+        ObjetivoInventario(BaseSimulada base) throws IOException {
+            this.base = base;
+            this.reservaDAO = base.crearReservaDAO();
+            this.diario = Files.createTempDirectory("benchmark-diario");
+            this.inventario = InventarioAsientos.iniciar(diario,
+                    Long.parseLong(opciones.getOrDefault("volcado-ms", "500")), base.crearVueloDAO());
+            if (inventario == null) {
+                throw new IOException("No se pudo iniciar el inventario de asientos.");
+            }
+        }
+
+        @Override
+        public ResultadoReserva reservar(int idUsuario, int idVuelo, int cantidad) {
+            return reservarCon(reservaDAO, idUsuario, idVuelo, cantidad);
+        }
+
+        @Override
+        public void finalizar() {
+            // Detener vuelca a la base todo lo pendiente
+            close();
+        }
+
+        @Override
+        public int contarVuelosInconsistentes() {
+            return base.contarVuelosInconsistentes();
+        }
+
+        @Override
+        public void close() {
+            if (inventario == null) {
+                return;
+            }
+            inventario = null;
+            InventarioAsientos.detener();
+            try (var archivos = Files.list(diario)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+                Files.deleteIfExists(diario);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private final class ObjetivoJdbc implements Objetivo {
+        private final ReservaDAO reservaDAO = new ReservaDAO();
+        private final VueloDAO vueloDAO = new VueloDAO();
+
+        @Override
+        public ResultadoReserva reservar(int idUsuario, int idVuelo, int cantidad) {
+            return reservarCon(reservaDAO, idUsuario, idVuelo, cantidad);
+        }
+
+        @Override
+        public int contarVuelosInconsistentes() {
+            List<Integer> ids = new ArrayList<>();
+            for (int id : idsVuelo) {
+                ids.add(id);
+            }
+            return vueloDAO.contarVuelosInconsistentes(ids);
+        }
+    }
+
+    // --- Distribución y estadísticas ---
+
+    /**
+     * Función de distribución acumulada de una Zipf con exponente {@code sesgo}.
+     */
+    private static double[] distribucionZipf(int n, double sesgo) {
+        double[] acumulada = new double[n];
+        double suma = 0;
+        for (int k = 0; k < n; k++) {
+            suma += 1.0 / Math.pow(k + 1, sesgo);
+            acumulada[k] = suma;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulada[k] /= suma;
+        }
+        return acumulada;
+    }
+
+    private static int elegir(double[] acumulada, double u) {
+        int i = Arrays.binarySearch(acumulada, u);
+        i = i >= 0 ? i : -i - 1;
+        return Math.min(i, acumulada.length - 1);
+    }
+
+    private static long percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(rango, ordenadas.length - 1))];
+    }
+
+    private int entero(String clave, int porDefecto) {
+        String valor = opciones.get(clave);
+        return valor != null ? Integer.parseInt(valor) : porDefecto;
+    }
+
+    // --- Salida ---
+
+    private static final class Resultado {
+        boolean virtuales;
+        long operaciones;
+        long duracionNanos;
+        long p50;
+        long p99;
+        long p999;
+        long maxima;
+        int vuelosInconsistentes;
+        final Map<ResultadoReserva, Long> resultados = new EnumMap<>(ResultadoReserva.class);
+
+        double porSegundo() {
+            return operaciones * 1e9 / Math.max(1, duracionNanos);
+        }
+    }
+
+    private String aJson(List<Resultado> resultados) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"modo\": \"").append(modo).append("\",\n");
+        sb.append("  \"hilos\": ").append(hilos).append(",\n");
+        sb.append("  \"vuelos\": ").append(numVuelos).append(",\n");
+        sb.append("  \"asientosPorVuelo\": ").append(asientos).append(",\n");
+        sb.append("  \"sesgo\": ").append(sesgo).append(",\n");
+        sb.append("  \"latenciaSimuladaUs\": ").append(latenciaMicros).append(",\n");
+        sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        sb.append("  \"escenarios\": [");
+        for (int i = 0; i < resultados.size(); i++) {
+            Resultado r = resultados.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\n");
+            sb.append("      \"tipoHilo\": \"").append(r.virtuales ? "virtual" : "plataforma").append("\",\n");
+            sb.append("      \"operaciones\": ").append(r.operaciones).append(",\n");
+            sb.append("      \"duracionMs\": ").append(r.duracionNanos / 1_000_000).append(",\n");
+            sb.append("      \"reservasPorSegundo\": ")
+                    .append(String.format(Locale.ROOT, "%.1f", r.porSegundo())).append(",\n");
+            sb.append("      \"latenciaUs\": {\"p50\": ").append(r.p50 / 1_000)
+                    .append(", \"p99\": ").append(r.p99 / 1_000)
+                    .append(", \"p999\": ").append(r.p999 / 1_000)
+                    .append(", \"max\": ").append(r.maxima / 1_000).append("},\n");
+            sb.append("      \"resultados\": {");
+            boolean primero = true;
+            for (ResultadoReserva tipo : ResultadoReserva.values()) {
+                sb.append(primero ? "" : ", ").append('"').append(tipo.name()).append("\": ")
+                        .append(r.resultados.getOrDefault(tipo, 0L));
+                primero = false;
+            }
+            sb.append("},\n");
+            sb.append("      \"invarianteOk\": ").append(r.vuelosInconsistentes == 0).append(",\n");
+            sb.append("      \"vuelosInconsistentes\": ").append(r.vuelosInconsistentes).append('\n');
+            sb.append("    }");
+        }
+        sb.append("\n  ]\n}");
+        return sb.toString();
+    }
+}
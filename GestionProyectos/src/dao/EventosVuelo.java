@@ -0,0 +1,112 @@
+// dao/EventosVuelo.java
+package dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import modelo.Vuelo;
+
+/**
+ * Avisos de cambios en vuelos hechos a través de los DAO.
+ *
+ * Los DAO publican después de confirmar cada cambio en la base, para que las
+ * estructuras en memoria (índices, cachés) se actualicen sin volver a
+ * consultar. Solo se conocen los cambios hechos por esta aplicación; los que
+ * otros procesos hagan directamente en la base no se avisan.
+ */
+public final class EventosVuelo {
+
+    /**
+     * Recibe los cambios. Se llama en el hilo que hizo el cambio, así que
+     * debe ser rápido y no lanzar excepciones.
+     */
+    public interface Oyente {
+
+        /**
+         * @param cambio Asientos sumados (positivo) o descontados (negativo)
+         */
+        default void asientosCambiados(int idVuelo, int cambio) {
+        }
+
+        /**
+         * @param vuelo Vuelo recién insertado, ya con su ID
+         */
+        default void vueloInsertado(Vuelo vuelo) {
+        }
+
+        /**
+         * @param estado Estado nuevo del vuelo
+         */
+        default void estadoCambiado(int idVuelo, String estado) {
+        }
+
+        /**
+         * Cambiaron datos del vuelo que no son asientos (indicativo,
+         * aerolínea, origen, destino, salida o precio). Quien no pueda mover
+         * el vuelo en sitio puede marcarse para recargar.
+         *
+         * @param vuelo Vuelo con todos sus datos ya actualizados
+         */
+        default void vueloActualizado(Vuelo vuelo) {
+        }
+    }
+
+    private static final List<Oyente> OYENTES = new CopyOnWriteArrayList<>();
+
+    private EventosVuelo() {
+    }
+
+    public static void suscribir(Oyente oyente) {
+        OYENTES.add(oyente);
+    }
+
+    public static void cancelarSuscripcion(Oyente oyente) {
+        OYENTES.remove(oyente);
+    }
+
+    static void publicarCambioAsientos(int idVuelo, int cambio) {
+        if (cambio == 0) {
+            return;
+        }
+        for (Oyente oyente : OYENTES) {
+            try {
+                oyente.asientosCambiados(idVuelo, cambio);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al avisar del cambio de asientos del vuelo " + idVuelo + ":");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void publicarVueloInsertado(Vuelo vuelo) {
+        for (Oyente oyente : OYENTES) {
+            try {
+                oyente.vueloInsertado(vuelo);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al avisar del vuelo insertado " + vuelo.getIdVuelo() + ":");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void publicarVueloActualizado(Vuelo vuelo) {
+        for (Oyente oyente : OYENTES) {
+            try {
+                oyente.vueloActualizado(vuelo);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al avisar del vuelo actualizado " + vuelo.getIdVuelo() + ":");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    static void publicarCambioEstado(int idVuelo, String estado) {
+        for (Oyente oyente : OYENTES) {
+            try {
+                oyente.estadoCambiado(idVuelo, estado);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al avisar del cambio de estado del vuelo " + idVuelo + ":");
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+// dao/OrdenVuelos.java
+package dao;
+
+import java.time.ZoneOffset;
+import modelo.Vuelo;
+
+/**
+ * Criterio de orden para las búsquedas de los K mejores vuelos
+ * ({@link VueloDAO#buscarMejores}). Los empates se deshacen por id_vuelo.
+ */
+public enum OrdenVuelos {
+    PRECIO("v.precio ASC"),
+    SALIDA("v.fecha_salida ASC"),
+    ASIENTOS("v.asientos_disponibles DESC");
+
+    private final String ordenSql;
+
+    OrdenVuelos(String ordenSql) {
+        this.ordenSql = ordenSql;
+    }
+
+    /**
+     * @return Expresión para el ORDER BY (sin el desempate)
+     */
+    String getOrdenSql() {
+        return ordenSql;
+    }
+
+    /**
+     * Valor por el que se ordena en memoria: menor va primero.
+     *
+     * @param asientos Asientos disponibles vigentes del vuelo
+     */
+    public double clave(Vuelo vuelo, int asientos) {
+        return switch (this) {
+            case PRECIO -> vuelo.getPrecio();
+            case SALIDA -> vuelo.getFechaSalida().toEpochSecond(ZoneOffset.UTC);
+            case ASIENTOS -> -asientos;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+// dao/PaginaVuelos.java
+package dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import modelo.Vuelo;
+
+/**
+ * Una página de resultados de búsqueda de vuelos, ordenados por
+ * (fecha_salida, id_vuelo).
+ *
+ * La página siguiente se pide con {@link #getSiguiente()}: la consulta
+ * continúa justo después del último vuelo devuelto (paginación por clave),
+ * así que pedir la página 1000 cuesta lo mismo que pedir la primera.
+ */
+public final class PaginaVuelos {
+
+    /**
+     * Posición de un vuelo en el orden (fecha_salida, id_vuelo).
+     */
+    public record Cursor(LocalDateTime fechaSalida, int idVuelo) {
+
+        public static Cursor de(Vuelo vuelo) {
+            return new Cursor(vuelo.getFechaSalida(), vuelo.getIdVuelo());
+        }
+
+        /**
+         * @return true si el vuelo va después de este cursor
+         */
+        public boolean precedeA(Vuelo vuelo) {
+            int comparacion = vuelo.getFechaSalida().compareTo(fechaSalida);
+            return comparacion > 0 || (comparacion == 0 && vuelo.getIdVuelo() > idVuelo);
+        }
+    }
+
+    private final List<Vuelo> vuelos;
+    private final boolean hayMas;
+
+    public PaginaVuelos(List<Vuelo> vuelos, boolean hayMas) {
+        this.vuelos = vuelos;
+        this.hayMas = hayMas;
+    }
+
+    public List<Vuelo> getVuelos() {
+        return vuelos;
+    }
+
+    public boolean hayMas() {
+        return hayMas;
+    }
+
+    /**
+     * @return Cursor para pedir la página siguiente, o null si esta es la última
+     */
+    public Cursor getSiguiente() {
+        return hayMas && !vuelos.isEmpty() ? Cursor.de(vuelos.get(vuelos.size() - 1)) : null;
+    }
+}
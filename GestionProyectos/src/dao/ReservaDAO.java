@@ -2,11 +2,26 @@
 package dao;
 
 import java.sql.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import modelo.*;
+import servicio.InventarioAsientos;
+import util.CacheLRU;
 import util.ConexionBD;
+import util.PoliticaReintentos;
 
 /**
  * Clase DAO para gestionar operaciones relacionadas con Reservas en la base de datos.
@@ -16,22 +31,302 @@ import util.ConexionBD;
  */
 public class ReservaDAO {
 
+    /**
+     * Lote T-SQL que reserva en un solo viaje al servidor: descuenta los
+     * asientos solo si alcanzan, comprueba duplicados e inserta la reserva.
+     * El UPDATE condicional bloquea la fila del vuelo, así que dos reservas
+     * concurrentes no pueden pasar ambas la validación.
+     * 
+     * Si llega una clave de idempotencia ya registrada, devuelve la reserva
+     * original sin volver a descontar asientos, siempre que la huella de la
+     * solicitud (usuario, vuelo y cantidad) coincida con la registrada; si no,
+     * la rechaza como CLAVE_REUTILIZADA.
+     */
+    private static final String SQL_RESERVAR = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idUsuario INT = ?, @idVuelo INT = ?, @cantidad INT = ?, @clave NVARCHAR(64) = ?,
+                @secuencia BIGINT = ?, @huella CHAR(64) = ?;
+        DECLARE @resultado VARCHAR(20), @idReserva INT = NULL, @repetida BIT = 0, @huellaPrevia CHAR(64);
+
+        BEGIN TRANSACTION;
+
+        IF @clave IS NOT NULL
+            SELECT @idReserva = id_reserva, @huellaPrevia = huella
+              FROM ReservaIdempotencia WITH (UPDLOCK, HOLDLOCK)
+             WHERE clave = @clave;
+
+        IF @idReserva IS NOT NULL AND @huellaPrevia <> @huella
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SELECT @resultado = 'CLAVE_REUTILIZADA', @idReserva = NULL;
+        END
+        ELSE IF @idReserva IS NOT NULL
+        BEGIN
+            COMMIT TRANSACTION;
+            SELECT @resultado = 'OK', @repetida = 1;
+        END
+        ELSE
+        BEGIN
+            UPDATE Vuelo
+               SET asientos_disponibles = asientos_disponibles - @cantidad
+             WHERE id_vuelo = @idVuelo AND asientos_disponibles >= @cantidad;
+
+            IF @@ROWCOUNT = 0
+            BEGIN
+                ROLLBACK TRANSACTION;
+                SET @resultado = CASE WHEN EXISTS (SELECT 1 FROM Vuelo WHERE id_vuelo = @idVuelo)
+                                      THEN 'AGOTADO' ELSE 'NO_ENCONTRADO' END;
+            END
+            ELSE IF EXISTS (SELECT 1 FROM Reserva WHERE id_usuario = @idUsuario AND id_vuelo = @idVuelo)
+            BEGIN
+                ROLLBACK TRANSACTION;
+                SET @resultado = 'DUPLICADA';
+            END
+            ELSE
+            BEGIN
+                INSERT INTO Reserva (id_usuario, id_vuelo, fecha_reserva, estado, cantidad_asientos, secuencia_inventario)
+                VALUES (@idUsuario, @idVuelo, GETDATE(), 'Confirmada', @cantidad, @secuencia);
+                SET @idReserva = CAST(SCOPE_IDENTITY() AS INT);
+                IF @clave IS NOT NULL
+                    INSERT INTO ReservaIdempotencia (clave, id_reserva, huella) VALUES (@clave, @idReserva, @huella);
+                COMMIT TRANSACTION;
+                SET @resultado = 'OK';
+            END
+        END
+
+        SELECT @resultado AS resultado, @idReserva AS id_reserva, @repetida AS repetida;
+        """;
+
+    /**
+     * Lote T-SQL para cuando los asientos ya se descontaron (inventario en
+     * memoria): solo se comprueba el duplicado y se
+     * inserta la reserva, sin tocar la fila del vuelo. Respeta la clave de
+     * idempotencia igual que {@link #SQL_RESERVAR}. Con el inventario en
+     * memoria, @secuencia es la del apartado, para reconciliar tras una caída.
+     */
+    private static final String SQL_INSERTAR_RESERVA = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idUsuario INT = ?, @idVuelo INT = ?, @cantidad INT = ?, @clave NVARCHAR(64) = ?,
+                @secuencia BIGINT = ?, @huella CHAR(64) = ?;
+        DECLARE @resultado VARCHAR(20), @idReserva INT = NULL, @repetida BIT = 0, @huellaPrevia CHAR(64);
+
+        BEGIN TRANSACTION;
+
+        IF @clave IS NOT NULL
+            SELECT @idReserva = id_reserva, @huellaPrevia = huella
+              FROM ReservaIdempotencia WITH (UPDLOCK, HOLDLOCK)
+             WHERE clave = @clave;
+
+        IF @idReserva IS NOT NULL AND @huellaPrevia <> @huella
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SELECT @resultado = 'CLAVE_REUTILIZADA', @idReserva = NULL;
+        END
+        ELSE IF @idReserva IS NOT NULL
+        BEGIN
+            COMMIT TRANSACTION;
+            SELECT @resultado = 'OK', @repetida = 1;
+        END
+        ELSE IF EXISTS (SELECT 1 FROM Reserva WITH (UPDLOCK, HOLDLOCK)
+                        WHERE id_usuario = @idUsuario AND id_vuelo = @idVuelo)
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SET @resultado = 'DUPLICADA';
+        END
+        ELSE
+        BEGIN
+            INSERT INTO Reserva (id_usuario, id_vuelo, fecha_reserva, estado, cantidad_asientos, secuencia_inventario)
+            VALUES (@idUsuario, @idVuelo, GETDATE(), 'Confirmada', @cantidad, @secuencia);
+            SET @idReserva = CAST(SCOPE_IDENTITY() AS INT);
+            IF @clave IS NOT NULL
+                INSERT INTO ReservaIdempotencia (clave, id_reserva, huella) VALUES (@clave, @idReserva, @huella);
+            COMMIT TRANSACTION;
+            SET @resultado = 'OK';
+        END
+
+        SELECT @resultado AS resultado, @idReserva AS id_reserva, @repetida AS repetida;
+        """;
+
+    /**
+     * Lote T-SQL de retención: descuenta los asientos (salvo que ya estén
+     * apartados en el inventario en memoria, @secuencia no nula) y guarda la
+     * retención con su vencimiento, en una transacción.
+     */
+    private static final String SQL_RETENER = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idVuelo INT = ?, @cantidad INT = ?, @vence DATETIME2 = ?, @secuencia BIGINT = ?;
+        DECLARE @resultado VARCHAR(20), @idRetencion BIGINT = NULL, @filas INT = 1;
+
+        BEGIN TRANSACTION;
+
+        IF @secuencia IS NULL
+        BEGIN
+            UPDATE Vuelo
+               SET asientos_disponibles = asientos_disponibles - @cantidad
+             WHERE id_vuelo = @idVuelo AND asientos_disponibles >= @cantidad;
+            SET @filas = @@ROWCOUNT;
+        END
+
+        IF @filas = 0
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SET @resultado = CASE WHEN EXISTS (SELECT 1 FROM Vuelo WHERE id_vuelo = @idVuelo)
+                                  THEN 'AGOTADO' ELSE 'NO_ENCONTRADO' END;
+        END
+        ELSE
+        BEGIN
+            INSERT INTO RetencionAsiento (id_vuelo, cantidad, vence, secuencia_inventario)
+            VALUES (@idVuelo, @cantidad, @vence, @secuencia);
+            SET @idRetencion = CAST(SCOPE_IDENTITY() AS BIGINT);
+            COMMIT TRANSACTION;
+            SET @resultado = 'OK';
+        END
+
+        SELECT @resultado AS resultado, @idRetencion AS id_retencion;
+        """;
+
+    /**
+     * Lote T-SQL que borra una retención y, si @devolverEnBase = 1, devuelve
+     * sus asientos a la tabla Vuelo en la misma transacción. Solo una
+     * liberación (o confirmación) puede borrarla.
+     */
+    private static final String SQL_LIBERAR_RETENCION = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idRetencion BIGINT = ?, @devolverEnBase BIT = ?;
+        DECLARE @borrada TABLE (id_vuelo INT, cantidad INT, secuencia_inventario BIGINT);
+
+        BEGIN TRANSACTION;
+
+        DELETE FROM RetencionAsiento
+        OUTPUT deleted.id_vuelo, deleted.cantidad, deleted.secuencia_inventario INTO @borrada
+         WHERE id_retencion = @idRetencion;
+
+        IF @devolverEnBase = 1
+            UPDATE v
+               SET asientos_disponibles = v.asientos_disponibles + b.cantidad
+              FROM Vuelo v
+             INNER JOIN @borrada b ON v.id_vuelo = b.id_vuelo;
+
+        COMMIT TRANSACTION;
+
+        SELECT (SELECT TOP 1 id_vuelo FROM @borrada) AS id_vuelo,
+               (SELECT TOP 1 cantidad FROM @borrada) AS cantidad,
+               (SELECT TOP 1 secuencia_inventario FROM @borrada) AS secuencia_inventario;
+        """;
+
+    /**
+     * Lote T-SQL que convierte una retención en reserva: borra la retención e
+     * inserta la reserva con su misma secuencia del inventario, en una
+     * transacción. Si el usuario ya tiene reserva en el vuelo, la retención queda.
+     */
+    private static final String SQL_CONFIRMAR_RETENCION = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idRetencion BIGINT = ?, @idUsuario INT = ?;
+        DECLARE @borrada TABLE (id_vuelo INT, cantidad INT, secuencia_inventario BIGINT);
+        DECLARE @resultado VARCHAR(20), @idReserva INT = NULL;
+        DECLARE @idVuelo INT, @cantidad INT, @secuencia BIGINT;
+
+        BEGIN TRANSACTION;
+
+        DELETE FROM RetencionAsiento
+        OUTPUT deleted.id_vuelo, deleted.cantidad, deleted.secuencia_inventario INTO @borrada
+         WHERE id_retencion = @idRetencion;
+        SELECT @idVuelo = id_vuelo, @cantidad = cantidad, @secuencia = secuencia_inventario FROM @borrada;
+
+        IF @idVuelo IS NULL
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SET @resultado = 'NO_ENCONTRADO';
+        END
+        ELSE IF EXISTS (SELECT 1 FROM Reserva WITH (UPDLOCK, HOLDLOCK)
+                        WHERE id_usuario = @idUsuario AND id_vuelo = @idVuelo)
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SET @resultado = 'DUPLICADA';
+        END
+        ELSE
+        BEGIN
+            INSERT INTO Reserva (id_usuario, id_vuelo, fecha_reserva, estado, cantidad_asientos, secuencia_inventario)
+            VALUES (@idUsuario, @idVuelo, GETDATE(), 'Confirmada', @cantidad, @secuencia);
+            SET @idReserva = CAST(SCOPE_IDENTITY() AS INT);
+            COMMIT TRANSACTION;
+            SET @resultado = 'OK';
+        END
+
+        SELECT @resultado AS resultado, @idReserva AS id_reserva,
+               @idVuelo AS id_vuelo, @cantidad AS cantidad, @secuencia AS secuencia_inventario;
+        """;
+
+    // Reintentos ante interbloqueos y tiempos de espera de bloqueo
+    private static final PoliticaReintentos REINTENTOS = new PoliticaReintentos(5, 20, 1_000);
+
+    // Intentos para deshacer los tramos de un itinerario que no se completó
+    private static final int INTENTOS_COMPENSACION = 3;
+    private static final long ESPERA_COMPENSACION_MS = 500;
+
+    // Claves de idempotencia recientes, para responder reintentos sin ir a la base
+    private static final CacheLRU<String, ClaveRegistrada> CLAVES_RECIENTES = new CacheLRU<>(10_000);
+
+    /**
+     * Reserva creada con una clave de idempotencia y la huella de su solicitud.
+     */
+    private record ClaveRegistrada(int idReserva, String huella) {
+    }
+
     /**
      * Registra una nueva reserva si hay asientos disponibles y no existe duplicado.
-     * Usa transacción para mantener consistencia: reserva + actualización de asientos.
      * 
      * @param reserva Objeto Reserva con usuario, vuelo y cantidad de asientos
      * @return true si la reserva fue exitosa, false si falló por validación o error
      */
     public boolean crearReserva(Reserva reserva) {
-        Connection conn = null;
-        CallableStatement cstmt = null;
-        boolean exito = false;
+        return reservarAsientos(reserva).esExitoso();
+    }
+
+    /**
+     * Registra una nueva reserva con clave de idempotencia.
+     * 
+     * @see #reservarAsientos(Reserva, String)
+     */
+    public boolean crearReserva(Reserva reserva, String claveIdempotencia) {
+        return reservarAsientos(reserva, claveIdempotencia).esExitoso();
+    }
 
+    /**
+     * Registra una nueva reserva de forma atómica y en un solo viaje al servidor.
+     * Si tiene éxito, completa el ID, la fecha y el estado de la reserva.
+     * 
+     * @param reserva Objeto Reserva con usuario, vuelo y cantidad de asientos
+     * @return Resultado detallado de la operación
+     */
+    public ResultadoReserva reservarAsientos(Reserva reserva) {
+        return reservarAsientos(reserva, null);
+    }
+
+    /**
+     * Registra una nueva reserva de forma atómica e idempotente.
+     * 
+     * Si ya se confirmó antes una reserva con la misma clave (por ejemplo, el
+     * cliente reintenta tras un tiempo de espera agotado), devuelve OK con el
+     * ID de la reserva original sin volver a descontar asientos. Si la clave
+     * se usó con otro usuario, vuelo o cantidad, devuelve CLAVE_REUTILIZADA.
+     * La clave se busca antes de apartar asientos en el inventario en memoria,
+     * así un reintento no los aparta para luego devolverlos.
+     * 
+     * @param reserva Objeto Reserva con usuario, vuelo y cantidad de asientos
+     * @param claveIdempotencia Clave única de la solicitud del cliente (máx. 64 caracteres), o null
+     * @return Resultado detallado de la operación
+     */
+    public ResultadoReserva reservarAsientos(Reserva reserva, String claveIdempotencia) {
         // Validación básica
         if (reserva == null || reserva.getUsuario() == null || reserva.getVuelo() == null) {
             System.err.println("❌ Datos de reserva incompletos.");
-            return false;
+            return ResultadoReserva.INVALIDA;
         }
 
         int idUsuario = reserva.getUsuario().getIdUsuario();
@@ -40,76 +335,384 @@ public class ReservaDAO {
 
         if (cantidadAsientos <= 0) {
             System.err.println("❌ Cantidad de asientos inválida: " + cantidadAsientos);
-            return false;
+            return ResultadoReserva.INVALIDA;
+        }
+        if (claveIdempotencia != null && (claveIdempotencia.isBlank() || claveIdempotencia.length() > 64)) {
+            System.err.println("❌ Clave de idempotencia inválida.");
+            return ResultadoReserva.INVALIDA;
         }
 
-        try {
-            conn = ConexionBD.getConnection();
-            conn.setAutoCommit(false); // Iniciar transacción
+        String huella = claveIdempotencia != null ? huellaSolicitud(idUsuario, idVuelo, cantidadAsientos) : null;
+
+        // Reintento reciente: se responde desde memoria
+        ClaveRegistrada previa = claveIdempotencia != null ? CLAVES_RECIENTES.get(claveIdempotencia) : null;
+        if (previa != null) {
+            return responderRepetida(reserva, previa, huella);
+        }
 
-            // Verificar si ya existe una reserva para este usuario y vuelo
-            if (existeReserva(conn, idUsuario, idVuelo)) {
-                System.err.println("❌ Ya tienes una reserva para este vuelo.");
-                conn.rollback();
-                return false;
+        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+        if (inventario != null && inventario.gestiona(idVuelo) && claveIdempotencia != null) {
+            // Antes de apartar asientos en memoria: ¿la clave ya está en la base?
+            previa = buscarClave(claveIdempotencia);
+            if (previa != null) {
+                CLAVES_RECIENTES.put(claveIdempotencia, previa);
+                return responderRepetida(reserva, previa, huella);
             }
+        }
 
-            // Verificar disponibilidad de asientos
-            int asientosDisponibles = obtenerAsientosDisponibles(conn, idVuelo);
-            if (asientosDisponibles < cantidadAsientos) {
-                System.err.println("❌ No hay suficientes asientos disponibles. Disponibles: " + asientosDisponibles);
-                conn.rollback();
-                return false;
+        if (inventario == null || !inventario.gestiona(idVuelo)) {
+            Intento intento = ejecutarReserva(true, reserva, idUsuario, idVuelo, cantidadAsientos,
+                    claveIdempotencia, null);
+            if (intento.resultado() == ResultadoReserva.OK && !intento.repetida()) {
+                EventosVuelo.publicarCambioAsientos(idVuelo, -cantidadAsientos);
             }
+            return intento.resultado();
+        }
+
+        // Vuelo con inventario en memoria: se decide sin bloquear la fila en SQL Server
+        InventarioAsientos.Apartado apartado = inventario.reservar(idVuelo, cantidadAsientos);
+        if (apartado.resultado() != ResultadoReserva.OK) {
+            System.err.println(apartado.resultado().getMensaje() + " (vuelo " + idVuelo + ")");
+            return apartado.resultado();
+        }
+        Intento intento = ejecutarReserva(false, reserva, idUsuario, idVuelo,
+                cantidadAsientos, claveIdempotencia, apartado.secuencia());
+        if (intento.resultado() == ResultadoReserva.ERROR) {
+            // Puede que la reserva se haya guardado y solo se perdiera la respuesta
+            resolverSegunBase(inventario, List.of(apartado));
+        } else if (intento.resultado() != ResultadoReserva.OK || intento.repetida()) {
+            // No se creó una reserva nueva: los asientos apartados en memoria sobran
+            inventario.anular(apartado);
+        } else {
+            inventario.confirmar(apartado);
+            EventosVuelo.publicarCambioAsientos(idVuelo, -cantidadAsientos);
+        }
+        return intento.resultado();
+    }
+
+    /**
+     * Retención guardada en RetencionAsiento.
+     *
+     * @param resultado OK si se retuvo; si no, por qué (los demás campos no valen)
+     */
+    public record Retenidos(ResultadoReserva resultado, long idRetencion, int idVuelo, int cantidad,
+                            LocalDateTime vence) {
+    }
+
+    /**
+     * Descuenta asientos de un vuelo sin crear todavía la reserva (retención
+     * temporal mientras el cliente termina de confirmar). La retención se
+     * guarda con su vencimiento en la misma transacción que el descuento, así
+     * que sobrevive a un reinicio (ver {@link #obtenerRetenciones()}).
+     *
+     * @return La retención con su ID, o el motivo: AGOTADO, NO_ENCONTRADO o ERROR
+     */
+    public Retenidos retenerAsientos(int idVuelo, int cantidad, LocalDateTime vence) {
+        if (cantidad <= 0) {
+            return new Retenidos(ResultadoReserva.INVALIDA, 0, idVuelo, cantidad, vence);
+        }
 
-            // Insertar la reserva mediante procedimiento almacenado
-            String sqlInsert = "{CALL sp_insertar_reserva(?, ?, ?, ?)}";
-            cstmt = conn.prepareCall(sqlInsert);
-            cstmt.setInt(1, idUsuario);
-            cstmt.setInt(2, idVuelo);
-            cstmt.setInt(3, cantidadAsientos);
-            cstmt.registerOutParameter(4, Types.INTEGER); // ID generado
+        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+        InventarioAsientos.Apartado apartado = null;
+        if (inventario != null && inventario.gestiona(idVuelo)) {
+            // El apartado queda abierto mientras dure la retención
+            apartado = inventario.reservar(idVuelo, cantidad);
+            if (apartado.resultado() != ResultadoReserva.OK) {
+                return new Retenidos(apartado.resultado(), 0, idVuelo, cantidad, vence);
+            }
+        }
+        Long secuencia = apartado != null ? apartado.secuencia() : null;
 
-            cstmt.execute();
-            int idGenerado = cstmt.getInt(4);
+        try {
+            Retenidos retenidos = REINTENTOS.ejecutar(() -> {
+                try (Connection conn = ConexionBD.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(SQL_RETENER)) {
 
-            // Actualizar asientos disponibles del vuelo
-            if (!actualizarAsientosDisponibles(conn, idVuelo, -cantidadAsientos)) {
-                conn.rollback();
-                return false;
+                    stmt.setInt(1, idVuelo);
+                    stmt.setInt(2, cantidad);
+                    stmt.setTimestamp(3, Timestamp.valueOf(vence));
+                    stmt.setObject(4, secuencia, Types.BIGINT);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return new Retenidos(ResultadoReserva.ERROR, 0, idVuelo, cantidad, vence);
+                        }
+                        return new Retenidos(ResultadoReserva.valueOf(rs.getString("resultado")),
+                                rs.getLong("id_retencion"), idVuelo, cantidad, vence);
+                    }
+                }
+            });
+            if (retenidos.resultado() == ResultadoReserva.OK) {
+                EventosVuelo.publicarCambioAsientos(idVuelo, -cantidad);
+            } else if (apartado != null) {
+                inventario.anular(apartado);
             }
+            return retenidos;
+        } catch (SQLException e) {
+            System.err.println("❌ Error al retener asientos del vuelo " + idVuelo + ":");
+            e.printStackTrace();
+            if (apartado != null) {
+                resolverSegunBase(inventario, List.of(apartado));
+            }
+            return new Retenidos(ResultadoReserva.ERROR, 0, idVuelo, cantidad, vence);
+        }
+    }
 
-            // Confirmar transacción
-            conn.commit();
-            reserva.setIdReserva(idGenerado);
-            reserva.setFechaReserva(LocalDateTime.now());
-            reserva.setEstado("Confirmada");
-            exito = true;
+    /**
+     * Borra una retención que no llegó a reservarse (liberada o vencida) y
+     * devuelve sus asientos al vuelo.
+     *
+     * @return true si la retención existía y se devolvieron los asientos
+     */
+    public boolean liberarRetencion(long idRetencion) {
+        try {
+            return REINTENTOS.ejecutar(() -> {
+                try (Connection conn = ConexionBD.getConnection()) {
+                    // Con el inventario en memoria, sus vuelos no se tocan en la base
+                    InventarioAsientos inventario = InventarioAsientos.getInstancia();
+                    boolean enMemoria = false;
+                    if (inventario != null) {
+                        int idVuelo = obtenerVueloDeRetencion(conn, idRetencion);
+                        enMemoria = idVuelo > 0 && inventario.gestiona(idVuelo);
+                    }
 
-            System.out.println("✅ Reserva creada con éxito. ID: " + idGenerado);
+                    try (PreparedStatement stmt = conn.prepareStatement(SQL_LIBERAR_RETENCION)) {
+                        stmt.setLong(1, idRetencion);
+                        stmt.setBoolean(2, !enMemoria);
 
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            if (!rs.next() || rs.getObject("id_vuelo") == null) {
+                                return false;   // Ya se confirmó o se liberó
+                            }
+                            int idVuelo = rs.getInt("id_vuelo");
+                            int cantidad = rs.getInt("cantidad");
+                            long secuencia = rs.getLong("secuencia_inventario");
+                            if (enMemoria) {
+                                InventarioAsientos.Apartado apartado = rs.wasNull() ? null : inventario.getApartado(secuencia);
+                                if (apartado != null) {
+                                    inventario.anular(apartado);
+                                } else {
+                                    inventario.liberar(idVuelo, cantidad);
+                                }
+                            }
+                            EventosVuelo.publicarCambioAsientos(idVuelo, cantidad);
+                            return true;
+                        }
+                    }
+                }
+            });
         } catch (SQLException e) {
-            System.err.println("❌ Error en la base de datos durante la reserva:");
+            System.err.println("❌ Error al liberar la retención " + idRetencion + ":");
             e.printStackTrace();
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Convierte en reserva una retención hecha con {@link #retenerAsientos}:
+     * en una sola transacción borra la retención e inserta la reserva, sin
+     * volver a descontar asientos. Si no devuelve OK, la retención sigue
+     * activa y el llamador debe liberarla.
+     *
+     * @param reserva Reserva con usuario y vuelo; la cantidad se toma de la retención
+     * @return OK, DUPLICADA, NO_ENCONTRADO (la retención ya no existe), INVALIDA o ERROR
+     */
+    public ResultadoReserva confirmarRetencion(long idRetencion, Reserva reserva) {
+        if (reserva == null || reserva.getUsuario() == null || reserva.getVuelo() == null) {
+            return ResultadoReserva.INVALIDA;
+        }
+
+        try {
+            return REINTENTOS.ejecutar(() -> {
+                try (Connection conn = ConexionBD.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement(SQL_CONFIRMAR_RETENCION)) {
+
+                    stmt.setLong(1, idRetencion);
+                    stmt.setInt(2, reserva.getUsuario().getIdUsuario());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return ResultadoReserva.ERROR;
+                        }
+                        ResultadoReserva resultado = ResultadoReserva.valueOf(rs.getString("resultado"));
+                        if (resultado != ResultadoReserva.OK) {
+                            System.err.println(resultado.getMensaje() + " (retención " + idRetencion + ")");
+                            return resultado;
+                        }
+                        reserva.getVuelo().setIdVuelo(rs.getInt("id_vuelo"));
+                        reserva.setCantidadAsientos(rs.getInt("cantidad"));
+                        completarReserva(reserva, rs.getInt("id_reserva"));
+
+                        long secuencia = rs.getLong("secuencia_inventario");
+                        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+                        if (!rs.wasNull() && inventario != null) {
+                            InventarioAsientos.Apartado apartado = inventario.getApartado(secuencia);
+                            if (apartado != null) {
+                                inventario.confirmar(apartado);
+                            }
+                        }
+                        System.out.println("✅ Reserva creada con éxito. ID: " + reserva.getIdReserva());
+                        return ResultadoReserva.OK;
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ Error en la base de datos al confirmar la retención " + idRetencion + ":");
+            e.printStackTrace();
+            return ResultadoReserva.ERROR;
+        }
+    }
+
+    /**
+     * Todas las retenciones guardadas, vencidas o no, para retomarlas al
+     * iniciar la aplicación.
+     *
+     * @return Lista de retenciones (vacía si no hay ninguna), o null si hubo error
+     */
+    public List<Retenidos> obtenerRetenciones() {
+        String sql = "SELECT id_retencion, id_vuelo, cantidad, vence FROM RetencionAsiento";
+        List<Retenidos> retenciones = new ArrayList<>();
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                retenciones.add(new Retenidos(ResultadoReserva.OK, rs.getLong("id_retencion"),
+                        rs.getInt("id_vuelo"), rs.getInt("cantidad"), rs.getTimestamp("vence").toLocalDateTime()));
             }
-        } finally {
-            // Cerrar recursos
-            try {
-                if (cstmt != null) cstmt.close();
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
+            return retenciones;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al obtener las retenciones de asientos:");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Tamaño de grupo por defecto para {@link #crearReservas(List)}.
+     */
+    public static final int TAMANO_GRUPO_POR_DEFECTO = 500;
+
+    // SQL Server admite como máximo 2100 parámetros por sentencia
+    private static final int MAX_PARES_POR_CONSULTA = 1000;
+
+    /**
+     * Registra muchas reservas a la vez con el tamaño de grupo por defecto.
+     * 
+     * @see #crearReservas(List, int)
+     */
+    public List<ResultadoReserva> crearReservas(List<Reserva> reservas) {
+        return crearReservas(reservas, TAMANO_GRUPO_POR_DEFECTO);
+    }
+
+    /**
+     * Registra muchas reservas a la vez. Las reservas se procesan en grupos:
+     * cada grupo descuenta asientos e inserta reservas con sentencias por lotes
+     * (JDBC batch) y se confirma en una sola transacción, en vez de una
+     * transacción y varias llamadas por reserva.
+     * 
+     * Las reservas exitosas quedan con su ID, fecha y estado completados.
+     * Si un grupo falla por un error de base de datos, se revierte completo
+     * y todas sus reservas se marcan como ERROR; los demás grupos no se ven afectados.
+     * 
+     * @param reservas Reservas a registrar
+     * @param tamanoGrupo Cuántas reservas se confirman por transacción
+     * @return Resultado de cada reserva, en el mismo orden que la lista recibida
+     */
+    public List<ResultadoReserva> crearReservas(List<Reserva> reservas, int tamanoGrupo) {
+        if (tamanoGrupo <= 0) {
+            throw new IllegalArgumentException("Tamaño de grupo inválido: " + tamanoGrupo);
+        }
+
+        ResultadoReserva[] resultados = new ResultadoReserva[reservas.size()];
+        Set<Long> paresVistos = new HashSet<>();
+        List<Integer> grupo = new ArrayList<>(tamanoGrupo);
+        int exitosas = 0;
+
+        for (int i = 0; i < reservas.size(); i++) {
+            Reserva reserva = reservas.get(i);
+            if (reserva == null || reserva.getUsuario() == null || reserva.getVuelo() == null
+                    || reserva.getCantidadAsientos() <= 0) {
+                resultados[i] = ResultadoReserva.INVALIDA;
+                continue;
+            }
+            // Duplicados dentro del mismo lote
+            if (!paresVistos.add(clavePar(reserva))) {
+                resultados[i] = ResultadoReserva.DUPLICADA;
+                continue;
+            }
+
+            grupo.add(i);
+            if (grupo.size() == tamanoGrupo) {
+                exitosas += procesarGrupo(reservas, grupo, resultados);
+                grupo.clear();
+            }
+        }
+        if (!grupo.isEmpty()) {
+            exitosas += procesarGrupo(reservas, grupo, resultados);
+        }
+
+        System.out.println("✅ Lote de reservas procesado: " + exitosas + " de " + reservas.size() + " confirmadas.");
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Reserva todos los tramos de un itinerario con escalas, en orden.
+     * Cada tramo se reserva con {@link #reservarAsientos(Reserva)}; si uno
+     * falla, se cancelan los tramos ya reservados para no dejar el viaje a
+     * medias. Una cancelación que falla se reintenta; si aun así no se puede,
+     * se devuelve TRAMOS_SIN_CANCELAR y esas reservas van en {@code reservasCreadas}.
+     *
+     * @param itinerario Itinerario a reservar
+     * @param usuario Usuario que reserva
+     * @param cantidadAsientos Asientos por tramo
+     * @param reservasCreadas Si no es null, recibe las reservas que quedaron
+     *        confirmadas: todos los tramos, o los que no se pudieron cancelar
+     * @return OK si se reservaron todos los tramos, TRAMOS_SIN_CANCELAR si
+     *         quedaron tramos reservados, o el resultado del tramo que falló
+     */
+    public ResultadoReserva reservarItinerario(Itinerario itinerario, Usuario usuario, int cantidadAsientos,
+                                               List<Reserva> reservasCreadas) {
+        if (itinerario == null) {
+            System.err.println("❌ Datos de reserva incompletos.");
+            return ResultadoReserva.INVALIDA;
+        }
+
+        List<Reserva> confirmadas = new ArrayList<>();
+        for (Vuelo tramo : itinerario.getTramos()) {
+            Reserva reserva = new Reserva();
+            reserva.setUsuario(usuario);
+            reserva.setVuelo(tramo);
+            reserva.setCantidadAsientos(cantidadAsientos);
+
+            ResultadoReserva resultado = reservarAsientos(reserva);
+            if (!resultado.esExitoso()) {
+                System.err.println(resultado.getMensaje() + " (tramo " + tramo.getNumeroVuelo()
+                        + "); se cancelan " + confirmadas.size() + " tramos ya reservados.");
+                List<Reserva> sinCancelar = new ArrayList<>();
+                for (Reserva previa : confirmadas) {
+                    if (!cancelarTramo(previa.getIdReserva())) {
+                        sinCancelar.add(previa);
+                    }
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
+                if (!sinCancelar.isEmpty()) {
+                    System.err.println("❌ Quedaron reservados " + sinCancelar.size()
+                            + " tramos del itinerario " + itinerario + "; hay que cancelarlos a mano.");
+                    if (reservasCreadas != null) {
+                        reservasCreadas.addAll(sinCancelar);
+                    }
+                    return ResultadoReserva.TRAMOS_SIN_CANCELAR;
+                }
+                return resultado;
             }
+            confirmadas.add(reserva);
         }
 
-        return exito;
+        if (reservasCreadas != null) {
+            reservasCreadas.addAll(confirmadas);
+        }
+        System.out.println("✅ Itinerario reservado: " + itinerario);
+        return ResultadoReserva.OK;
     }
 
     /**
@@ -191,90 +794,499 @@ public class ReservaDAO {
         return reservas;
     }
 
+    /**
+     * Lote T-SQL de cancelación. El cambio de estado es un compare-and-set
+     * (solo pasa de 'Confirmada' a 'Cancelada' una vez), y en el mismo viaje
+     * se devuelven los asientos al vuelo, sin bloqueos entre viajes.
+     */
+    private static final String SQL_CANCELAR = """
+        SET NOCOUNT ON;
+        SET XACT_ABORT ON;
+        DECLARE @idReserva INT = ?, @devolverEnBase BIT = ?;
+        DECLARE @cancelada TABLE (id_vuelo INT, cantidad_asientos INT);
+        DECLARE @claves TABLE (clave NVARCHAR(64));
+        DECLARE @resultado VARCHAR(20);
+
+        BEGIN TRANSACTION;
+
+        UPDATE Reserva
+           SET estado = 'Cancelada'
+        OUTPUT deleted.id_vuelo, deleted.cantidad_asientos INTO @cancelada
+         WHERE id_reserva = @idReserva AND estado = 'Confirmada';
+
+        IF NOT EXISTS (SELECT 1 FROM @cancelada)
+        BEGIN
+            ROLLBACK TRANSACTION;
+            SET @resultado = CASE WHEN EXISTS (SELECT 1 FROM Reserva WHERE id_reserva = @idReserva)
+                                  THEN 'YA_CANCELADA' ELSE 'NO_ENCONTRADA' END;
+        END
+        ELSE
+        BEGIN
+            IF @devolverEnBase = 1
+                UPDATE v
+                   SET asientos_disponibles = v.asientos_disponibles + c.cantidad_asientos
+                  FROM Vuelo v
+                 INNER JOIN @cancelada c ON v.id_vuelo = c.id_vuelo;
+            -- La clave queda libre: un reintento no debe devolver una reserva cancelada
+            DELETE FROM ReservaIdempotencia
+            OUTPUT deleted.clave INTO @claves
+             WHERE id_reserva = @idReserva;
+            COMMIT TRANSACTION;
+            SET @resultado = 'OK';
+        END
+
+        SELECT @resultado AS resultado,
+               (SELECT TOP 1 id_vuelo FROM @cancelada) AS id_vuelo,
+               (SELECT TOP 1 cantidad_asientos FROM @cancelada) AS cantidad_asientos,
+               (SELECT TOP 1 clave FROM @claves) AS clave;
+        """;
+
     /**
      * Cancela una reserva confirmada y devuelve los asientos al vuelo.
+     * Reintenta si la base elige esta operación como víctima de un interbloqueo.
+     * Si la reserva se creó con clave de idempotencia, la clave queda libre.
      * 
      * @param idReserva ID de la reserva a cancelar
      * @return true si se canceló con éxito, false si falló
      */
     public boolean cancelarReserva(int idReserva) {
-        Connection conn = null;
-        PreparedStatement stmtReserva = null;
-        PreparedStatement stmtVuelo = null;
-        ResultSet rs = null;
-        boolean exito = false;
+        try {
+            return REINTENTOS.ejecutar(() -> {
+                try (Connection conn = ConexionBD.getConnection()) {
+                    // Con el inventario en memoria, sus vuelos no se tocan en la base
+                    InventarioAsientos inventario = InventarioAsientos.getInstancia();
+                    boolean enMemoria = false;
+                    if (inventario != null) {
+                        int idVuelo = obtenerVueloDeReserva(conn, idReserva);
+                        enMemoria = idVuelo > 0 && inventario.gestiona(idVuelo);
+                    }
+
+                    try (PreparedStatement stmt = conn.prepareStatement(SQL_CANCELAR)) {
+                        stmt.setInt(1, idReserva);
+                        stmt.setBoolean(2, !enMemoria);
+
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            rs.next();
+                            String resultado = rs.getString("resultado");
+                            if ("NO_ENCONTRADA".equals(resultado)) {
+                                System.err.println("❌ Reserva no encontrada: " + idReserva);
+                                return false;
+                            }
+                            if ("YA_CANCELADA".equals(resultado)) {
+                                System.err.println("❌ La reserva ya está cancelada.");
+                                return false;
+                            }
+
+                            int idVuelo = rs.getInt("id_vuelo");
+                            int cantidadAsientos = rs.getInt("cantidad_asientos");
+                            String clave = rs.getString("clave");
+                            if (clave != null) {
+                                CLAVES_RECIENTES.remove(clave);
+                            }
+                            if (enMemoria) {
+                                inventario.liberar(idVuelo, cantidadAsientos);
+                            }
+                            EventosVuelo.publicarCambioAsientos(idVuelo, cantidadAsientos);
+                            System.out.println("✅ Reserva " + idReserva + " cancelada. Se devolvieron "
+                                    + cantidadAsientos + " asientos.");
+                            return true;
+                        }
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ Error al cancelar la reserva:");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    /**
+     * Cancela un tramo de un itinerario que no se pudo completar. Además de
+     * los reintentos de {@link #cancelarReserva}, vuelve a intentarlo tras una
+     * pausa por si la base no estaba disponible.
+     *
+     * @return true si el tramo quedó cancelado
+     */
+    private boolean cancelarTramo(int idReserva) {
+        for (int intento = 1; intento <= INTENTOS_COMPENSACION; intento++) {
+            if (cancelarReserva(idReserva)) {
+                return true;
+            }
+            if (intento < INTENTOS_COMPENSACION) {
+                System.out.println("🔁 Reintentando cancelar la reserva " + idReserva + "...");
+                try {
+                    Thread.sleep(ESPERA_COMPENSACION_MS * intento);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return ID del vuelo de la reserva, o 0 si la reserva no existe
+     */
+    private int obtenerVueloDeReserva(Connection conn, int idReserva) throws SQLException {
+        String sql = "SELECT id_vuelo FROM Reserva WHERE id_reserva = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, idReserva);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("id_vuelo") : 0;
+            }
+        }
+    }
+
+    /**
+     * @return ID del vuelo de la retención, o 0 si ya no existe
+     */
+    private int obtenerVueloDeRetencion(Connection conn, long idRetencion) throws SQLException {
+        String sql = "SELECT id_vuelo FROM RetencionAsiento WHERE id_retencion = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, idRetencion);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("id_vuelo") : 0;
+            }
+        }
+    }
 
+    /**
+     * Resultado de ejecutar un lote de reserva. {@code repetida} indica que la
+     * clave de idempotencia ya existía y no se creó una reserva nueva.
+     *
+     * @param idReserva ID de la reserva creada (o de la original si es repetida); 0 si no es OK
+     */
+    public record Intento(ResultadoReserva resultado, int idReserva, boolean repetida) {
+    }
+
+    /**
+     * Ejecuta uno de los lotes de reserva y completa la reserva si tuvo éxito.
+     */
+    private Intento ejecutarReserva(boolean descontarEnBase, Reserva reserva, int idUsuario, int idVuelo,
+                                    int cantidadAsientos, String claveIdempotencia, Long secuencia) {
+        String huella = claveIdempotencia != null ? huellaSolicitud(idUsuario, idVuelo, cantidadAsientos) : null;
         try {
-            conn = ConexionBD.getConnection();
-            conn.setAutoCommit(false); // Iniciar transacción
+            Intento intento = REINTENTOS.ejecutar(() -> ejecutarLoteReserva(descontarEnBase, idUsuario, idVuelo,
+                    cantidadAsientos, claveIdempotencia, secuencia, huella));
 
-            // Verificar que la reserva exista y esté confirmada
-            String sqlSelect = """
-                SELECT r.cantidad_asientos, r.estado, v.id_vuelo 
-                FROM Reserva r
-                INNER JOIN Vuelo v ON r.id_vuelo = v.id_vuelo
-                WHERE r.id_reserva = ?
-                """;
+            if (intento.resultado() == ResultadoReserva.OK) {
+                completarReserva(reserva, intento.idReserva());
+                if (claveIdempotencia != null) {
+                    CLAVES_RECIENTES.put(claveIdempotencia, new ClaveRegistrada(reserva.getIdReserva(), huella));
+                }
+                System.out.println(intento.repetida()
+                        ? "🔁 Solicitud repetida; reserva original: " + reserva.getIdReserva()
+                        : "✅ Reserva creada con éxito. ID: " + reserva.getIdReserva());
+            } else {
+                System.err.println(intento.resultado().getMensaje() + " (vuelo " + idVuelo + ")");
+            }
+            return intento;
 
-            stmtReserva = conn.prepareStatement(sqlSelect);
-            stmtReserva.setInt(1, idReserva);
-            rs = stmtReserva.executeQuery();
+        } catch (SQLException e) {
+            System.err.println("❌ Error en la base de datos durante la reserva:");
+            e.printStackTrace();
+            return new Intento(ResultadoReserva.ERROR, 0, false);
+        }
+    }
+
+    /**
+     * Un viaje a la base con {@link #SQL_RESERVAR} o, si los asientos ya se
+     * apartaron en el inventario en memoria, con {@link #SQL_INSERTAR_RESERVA}.
+     * Es lo único de {@link #reservarAsientos(Reserva, String)} que toca la
+     * base; las pruebas de carga lo sustituyen por una base simulada.
+     *
+     * @param descontarEnBase true si el lote debe descontar los asientos en Vuelo
+     */
+    protected Intento ejecutarLoteReserva(boolean descontarEnBase, int idUsuario, int idVuelo,
+                                          int cantidadAsientos, String claveIdempotencia,
+                                          Long secuencia, String huella) throws SQLException {
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(descontarEnBase ? SQL_RESERVAR : SQL_INSERTAR_RESERVA)) {
+
+            stmt.setInt(1, idUsuario);
+            stmt.setInt(2, idVuelo);
+            stmt.setInt(3, cantidadAsientos);
+            stmt.setString(4, claveIdempotencia);
+            stmt.setObject(5, secuencia, Types.BIGINT);
+            stmt.setString(6, huella);
 
-            if (!rs.next()) {
-                System.err.println("❌ Reserva no encontrada: " + idReserva);
-                conn.rollback();
-                return false;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new Intento(ResultadoReserva.ERROR, 0, false);
+                }
+                return new Intento(ResultadoReserva.valueOf(rs.getString("resultado")),
+                        rs.getInt("id_reserva"), rs.getBoolean("repetida"));
             }
+        }
+    }
+
+    private void completarReserva(Reserva reserva, int idReserva) {
+        reserva.setIdReserva(idReserva);
+        reserva.setFechaReserva(LocalDateTime.now());
+        reserva.setEstado("Confirmada");
+    }
 
-            if (!"Confirmada".equals(rs.getString("estado"))) {
-                System.err.println("❌ La reserva ya está cancelada.");
-                conn.rollback();
-                return false;
+    /**
+     * Responde a una solicitud cuya clave ya estaba registrada.
+     */
+    private ResultadoReserva responderRepetida(Reserva reserva, ClaveRegistrada previa, String huella) {
+        if (previa.huella() != null && !previa.huella().equals(huella)) {
+            System.err.println(ResultadoReserva.CLAVE_REUTILIZADA.getMensaje() + " (reserva " + previa.idReserva() + ")");
+            return ResultadoReserva.CLAVE_REUTILIZADA;
+        }
+        completarReserva(reserva, previa.idReserva());
+        System.out.println("🔁 Solicitud repetida; reserva original: " + previa.idReserva());
+        return ResultadoReserva.OK;
+    }
+
+    /**
+     * @return La reserva registrada con esa clave, o null si no hay (o si la
+     *         consulta falla: el lote de reserva la vuelve a comprobar)
+     */
+    private ClaveRegistrada buscarClave(String clave) {
+        String sql = "SELECT id_reserva, huella FROM ReservaIdempotencia WHERE clave = ?";
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, clave);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new ClaveRegistrada(rs.getInt("id_reserva"), rs.getString("huella")) : null;
             }
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar la clave de idempotencia:");
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            int cantidadAsientos = rs.getInt("cantidad_asientos");
-            int idVuelo = rs.getInt("id_vuelo");
-            rs.close();
+    /**
+     * Huella SHA-256 (en hexadecimal) de los datos de una solicitud, para
+     * detectar una clave de idempotencia reutilizada con otros datos.
+     */
+    private static String huellaSolicitud(int idUsuario, int idVuelo, int cantidadAsientos) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] datos = (idUsuario + "|" + idVuelo + "|" + cantidadAsientos).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(sha.digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // Toda JVM incluye SHA-256
+        }
+    }
 
-            // Actualizar estado de la reserva
-            String sqlUpdateReserva = "UPDATE Reserva SET estado = 'Cancelada' WHERE id_reserva = ?";
-            stmtReserva = conn.prepareStatement(sqlUpdateReserva);
-            stmtReserva.setInt(1, idReserva);
-            int filasReserva = stmtReserva.executeUpdate();
+    /**
+     * Resuelve apartados del inventario cuya reserva terminó con error y no se
+     * sabe si llegó a guardarse: se confirman los que están en la base y se
+     * anulan los demás. Si tampoco se puede consultar, quedan abiertos y se
+     * reconcilian al próximo inicio.
+     */
+    private void resolverSegunBase(InventarioAsientos inventario,
+                                   Collection<InventarioAsientos.Apartado> apartados) {
+        List<Long> secuencias = new ArrayList<>();
+        for (InventarioAsientos.Apartado apartado : apartados) {
+            secuencias.add(apartado.secuencia());
+        }
+        Set<Long> guardadas = new VueloDAO().filtrarSecuenciasGuardadas(secuencias);
+        if (guardadas == null) {
+            System.err.println("⚠️ " + apartados.size() + " apartados de asientos quedan sin resolver hasta el próximo inicio.");
+            return;
+        }
+        for (InventarioAsientos.Apartado apartado : apartados) {
+            if (guardadas.contains(apartado.secuencia())) {
+                inventario.confirmar(apartado);
+            } else {
+                inventario.anular(apartado);
+            }
+        }
+    }
 
-            if (filasReserva == 0) {
-                throw new SQLException("No se pudo actualizar la reserva.");
+    /**
+     * Procesa un grupo de reservas ya validadas en una sola transacción.
+     * 
+     * @param indices Posiciones (en {@code reservas}) de las reservas del grupo
+     * @return Cuántas reservas del grupo quedaron confirmadas
+     */
+    private int procesarGrupo(List<Reserva> reservas, List<Integer> indices, ResultadoReserva[] resultados) {
+        String sqlDescontar = "UPDATE Vuelo SET asientos_disponibles = asientos_disponibles - ? "
+                + "WHERE id_vuelo = ? AND asientos_disponibles >= ?";
+        String sqlDevolver = "UPDATE Vuelo SET asientos_disponibles = asientos_disponibles + ? WHERE id_vuelo = ?";
+        String sqlInsertar = """
+            INSERT INTO Reserva (id_usuario, id_vuelo, fecha_reserva, estado, cantidad_asientos, secuencia_inventario)
+            SELECT ?, ?, GETDATE(), 'Confirmada', ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM Reserva WITH (UPDLOCK, HOLDLOCK)
+                              WHERE id_usuario = ? AND id_vuelo = ?)
+            """;
+
+        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+        List<Integer> enBase = new ArrayList<>();
+        Map<Integer, InventarioAsientos.Apartado> enMemoria = new HashMap<>();
+        List<Integer> aceptadas = new ArrayList<>();
+
+        // 1. Vuelos con inventario en memoria: se deciden sin ir a la base,
+        //    con una sola escritura del diario para todo el grupo
+        List<Integer> paraMemoria = new ArrayList<>();
+        for (int i : indices) {
+            int idVuelo = reservas.get(i).getVuelo().getIdVuelo();
+            if (inventario != null && inventario.gestiona(idVuelo)) {
+                paraMemoria.add(i);
+            } else {
+                enBase.add(i);
+            }
+        }
+        if (!paraMemoria.isEmpty()) {
+            int[] idsVuelo = new int[paraMemoria.size()];
+            int[] cantidades = new int[paraMemoria.size()];
+            for (int k = 0; k < paraMemoria.size(); k++) {
+                Reserva r = reservas.get(paraMemoria.get(k));
+                idsVuelo[k] = r.getVuelo().getIdVuelo();
+                cantidades[k] = r.getCantidadAsientos();
+            }
+            InventarioAsientos.Apartado[] apartados = inventario.reservarTodos(idsVuelo, cantidades);
+            for (int k = 0; k < apartados.length; k++) {
+                int i = paraMemoria.get(k);
+                resultados[i] = apartados[k].resultado();
+                if (apartados[k].resultado() == ResultadoReserva.OK) {
+                    enMemoria.put(i, apartados[k]);
+                }
             }
+        }
+        // Mismo orden de filas en todas las transacciones: evita interbloqueos entre grupos
+        enBase.sort(Comparator.comparingInt(i -> reservas.get(i).getVuelo().getIdVuelo()));
+
+        Connection conn = null;
+        boolean confirmando = false;
+        boolean resuelto = false;
+        try {
+            conn = ConexionBD.getConnection();
+            conn.setAutoCommit(false);
 
-            // Devolver asientos al vuelo
-            String sqlUpdateVuelo = "UPDATE Vuelo SET asientos_disponibles = asientos_disponibles + ? WHERE id_vuelo = ?";
-            stmtVuelo = conn.prepareStatement(sqlUpdateVuelo);
-            stmtVuelo.setInt(1, cantidadAsientos);
-            stmtVuelo.setInt(2, idVuelo);
-            int filasVuelo = stmtVuelo.executeUpdate();
+            // 2. Descuento condicional de asientos en un solo lote
+            List<Integer> sinAsientos = new ArrayList<>();
+            if (!enBase.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlDescontar)) {
+                    for (int i : enBase) {
+                        Reserva r = reservas.get(i);
+                        stmt.setInt(1, r.getCantidadAsientos());
+                        stmt.setInt(2, r.getVuelo().getIdVuelo());
+                        stmt.setInt(3, r.getCantidadAsientos());
+                        stmt.addBatch();
+                    }
+                    int[] filas = stmt.executeBatch();
+                    for (int k = 0; k < filas.length; k++) {
+                        if (filas[k] > 0) {
+                            aceptadas.add(enBase.get(k));
+                        } else {
+                            sinAsientos.add(enBase.get(k));
+                        }
+                    }
+                }
+                clasificarSinAsientos(conn, reservas, sinAsientos, resultados);
+            }
+            aceptadas.addAll(enMemoria.keySet());
 
-            if (filasVuelo == 0) {
-                throw new SQLException("No se pudo actualizar el vuelo.");
+            // 3. Inserción de reservas en un solo lote (omite duplicados ya en la base)
+            Set<Integer> duplicadas = new HashSet<>();
+            if (!aceptadas.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlInsertar)) {
+                    for (int i : aceptadas) {
+                        Reserva r = reservas.get(i);
+                        int idUsuario = r.getUsuario().getIdUsuario();
+                        int idVuelo = r.getVuelo().getIdVuelo();
+                        stmt.setInt(1, idUsuario);
+                        stmt.setInt(2, idVuelo);
+                        stmt.setInt(3, r.getCantidadAsientos());
+                        InventarioAsientos.Apartado apartado = enMemoria.get(i);
+                        stmt.setObject(4, apartado != null ? apartado.secuencia() : null, Types.BIGINT);
+                        stmt.setInt(5, idUsuario);
+                        stmt.setInt(6, idVuelo);
+                        stmt.addBatch();
+                    }
+                    int[] filas = stmt.executeBatch();
+                    for (int k = 0; k < filas.length; k++) {
+                        if (filas[k] == 0) {
+                            duplicadas.add(aceptadas.get(k));
+                        }
+                    }
+                }
             }
 
-            // Confirmar transacción
+            // 4. Devolver los asientos descontados en la base para los duplicados
+            List<Integer> devolverEnBase = new ArrayList<>();
+            for (int i : duplicadas) {
+                resultados[i] = ResultadoReserva.DUPLICADA;
+                if (!enMemoria.containsKey(i)) {
+                    devolverEnBase.add(i);
+                }
+            }
+            devolverEnBase.sort(Comparator.comparingInt(i -> reservas.get(i).getVuelo().getIdVuelo()));
+            if (!devolverEnBase.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlDevolver)) {
+                    for (int i : devolverEnBase) {
+                        stmt.setInt(1, reservas.get(i).getCantidadAsientos());
+                        stmt.setInt(2, reservas.get(i).getVuelo().getIdVuelo());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            aceptadas.removeAll(duplicadas);
+
+            // 5. Recuperar los IDs generados y confirmar el grupo
+            asignarIds(conn, reservas, aceptadas);
+            confirmando = true;
             conn.commit();
-            System.out.println("✅ Reserva " + idReserva + " cancelada. Se devolvieron " + cantidadAsientos + " asientos.");
-            exito = true;
+
+            Map<Integer, Integer> cambios = new HashMap<>();
+            for (int i : aceptadas) {
+                resultados[i] = ResultadoReserva.OK;
+                Reserva r = reservas.get(i);
+                cambios.merge(r.getVuelo().getIdVuelo(), -r.getCantidadAsientos(), Integer::sum);
+            }
+            cambios.forEach(EventosVuelo::publicarCambioAsientos);
+            for (Map.Entry<Integer, InventarioAsientos.Apartado> apartado : enMemoria.entrySet()) {
+                if (duplicadas.contains(apartado.getKey())) {
+                    inventario.anular(apartado.getValue());
+                } else {
+                    inventario.confirmar(apartado.getValue());
+                }
+            }
+            resuelto = true;
+            return aceptadas.size();
 
         } catch (SQLException e) {
-            System.err.println("❌ Error al cancelar la reserva:");
+            System.err.println("❌ Error en la base de datos durante el lote de reservas:");
             e.printStackTrace();
             try {
                 if (conn != null) conn.rollback();
             } catch (SQLException rollbackEx) {
                 rollbackEx.printStackTrace();
             }
+            if (confirmando) {
+                // El commit pudo llegar a aplicarse: decide lo que quedó en la base
+                resolverSegunBase(inventario, enMemoria.values());
+            } else {
+                enMemoria.values().forEach(inventario::anular);
+            }
+            resuelto = true;
+            for (int i : indices) {
+                if (resultados[i] == null || resultados[i] == ResultadoReserva.OK) {
+                    resultados[i] = ResultadoReserva.ERROR;
+                }
+            }
+            return 0;
         } finally {
+            if (!resuelto && !enMemoria.isEmpty()) {
+                // Error inesperado: los asientos apartados no se pierden
+                if (confirmando) {
+                    resolverSegunBase(inventario, enMemoria.values());
+                } else {
+                    enMemoria.values().forEach(inventario::anular);
+                }
+            }
             try {
-                if (rs != null) rs.close();
-                if (stmtReserva != null) stmtReserva.close();
-                if (stmtVuelo != null) stmtVuelo.close();
                 if (conn != null) {
                     conn.setAutoCommit(true);
                     conn.close();
@@ -283,50 +1295,81 @@ public class ReservaDAO {
                 e.printStackTrace();
             }
         }
-
-        return exito;
     }
 
-    // --- Métodos privados auxiliares ---
-
     /**
-     * Verifica si ya existe una reserva para este usuario y vuelo.
+     * Distingue, con una sola consulta, si una reserva rechazada fue por falta
+     * de asientos o porque el vuelo no existe.
      */
-    private boolean existeReserva(Connection conn, int idUsuario, int idVuelo) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Reserva WHERE id_usuario = ? AND id_vuelo = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, idUsuario);
-            stmt.setInt(2, idVuelo);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+    private void clasificarSinAsientos(Connection conn, List<Reserva> reservas, List<Integer> indices,
+                                       ResultadoReserva[] resultados) throws SQLException {
+        if (indices.isEmpty()) {
+            return;
+        }
+        Set<Integer> existentes = new HashSet<>();
+        for (int desde = 0; desde < indices.size(); desde += MAX_PARES_POR_CONSULTA) {
+            List<Integer> parte = indices.subList(desde, Math.min(indices.size(), desde + MAX_PARES_POR_CONSULTA));
+            String sql = "SELECT id_vuelo FROM Vuelo WHERE id_vuelo IN ("
+                    + String.join(",", Collections.nCopies(parte.size(), "?")) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int k = 0; k < parte.size(); k++) {
+                    stmt.setInt(k + 1, reservas.get(parte.get(k)).getVuelo().getIdVuelo());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existentes.add(rs.getInt(1));
+                    }
+                }
+            }
+        }
+        for (int i : indices) {
+            resultados[i] = existentes.contains(reservas.get(i).getVuelo().getIdVuelo())
+                    ? ResultadoReserva.AGOTADO : ResultadoReserva.NO_ENCONTRADO;
         }
     }
 
     /**
-     * Obtiene los asientos disponibles del vuelo.
+     * Completa ID, fecha y estado de las reservas insertadas. Como solo puede
+     * haber una reserva por usuario y vuelo, el par identifica cada fila.
      */
-    private int obtenerAsientosDisponibles(Connection conn, int idVuelo) throws SQLException {
-        String sql = "SELECT asientos_disponibles FROM Vuelo WHERE id_vuelo = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, idVuelo);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("asientos_disponibles");
-            } else {
-                throw new SQLException("❌ Vuelo no encontrado: " + idVuelo);
+    private void asignarIds(Connection conn, List<Reserva> reservas, List<Integer> indices) throws SQLException {
+        Map<Long, Reserva> porPar = new HashMap<>();
+        for (int i : indices) {
+            porPar.put(clavePar(reservas.get(i)), reservas.get(i));
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int desde = 0; desde < indices.size(); desde += MAX_PARES_POR_CONSULTA) {
+            List<Integer> parte = indices.subList(desde, Math.min(indices.size(), desde + MAX_PARES_POR_CONSULTA));
+            String sql = "SELECT r.id_reserva, r.id_usuario, r.id_vuelo FROM Reserva r "
+                    + "INNER JOIN (VALUES " + String.join(",", Collections.nCopies(parte.size(), "(?, ?)"))
+                    + ") AS p (id_usuario, id_vuelo) "
+                    + "ON r.id_usuario = p.id_usuario AND r.id_vuelo = p.id_vuelo";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int n = 1;
+                for (int i : parte) {
+                    stmt.setInt(n++, reservas.get(i).getUsuario().getIdUsuario());
+                    stmt.setInt(n++, reservas.get(i).getVuelo().getIdVuelo());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Reserva r = porPar.get(clavePar(rs.getInt("id_usuario"), rs.getInt("id_vuelo")));
+                        if (r != null) {
+                            r.setIdReserva(rs.getInt("id_reserva"));
+                            r.setFechaReserva(ahora);
+                            r.setEstado("Confirmada");
+                        }
+                    }
+                }
             }
         }
     }
 
-    /**
-     * Actualiza los asientos disponibles (positivo: sumar, negativo: restar).
-     */
-    private boolean actualizarAsientosDisponibles(Connection conn, int idVuelo, int cambio) throws SQLException {
-        String sql = "UPDATE Vuelo SET asientos_disponibles = asientos_disponibles + ? WHERE id_vuelo = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, cambio);
-            stmt.setInt(2, idVuelo);
-            return stmt.executeUpdate() > 0;
-        }
+    private static long clavePar(Reserva reserva) {
+        return clavePar(reserva.getUsuario().getIdUsuario(), reserva.getVuelo().getIdVuelo());
+    }
+
+    private static long clavePar(int idUsuario, int idVuelo) {
+        return ((long) idUsuario << 32) | (idVuelo & 0xFFFFFFFFL);
     }
 }
\ No newline at end of file
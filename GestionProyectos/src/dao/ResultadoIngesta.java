@@ -0,0 +1,24 @@
+// dao/ResultadoIngesta.java
+package dao;
+
+/**
+ * Filas afectadas por una pasada de ingesta de vuelos en vivo.
+ *
+ * @param insertados Vuelos nuevos
+ * @param actualizados Vuelos existentes que cambiaron
+ * @param omitidos Estados descartados (sin indicativo, repetidos) o sin cambios
+ * @param exitoso false si la pasada falló y no se guardó nada
+ */
+public record ResultadoIngesta(int insertados, int actualizados, int omitidos, boolean exitoso) {
+
+    public static ResultadoIngesta fallido(int recibidos) {
+        return new ResultadoIngesta(0, 0, recibidos, false);
+    }
+
+    @Override
+    public String toString() {
+        return exitoso
+                ? insertados + " insertados, " + actualizados + " actualizados, " + omitidos + " omitidos"
+                : "falló (" + omitidos + " omitidos)";
+    }
+}
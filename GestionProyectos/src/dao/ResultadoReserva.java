@@ -0,0 +1,31 @@
+// dao/ResultadoReserva.java
+package dao;
+
+/**
+ * Resultado de un intento de reserva de asientos.
+ * Permite a la interfaz distinguir por qué no se pudo reservar.
+ */
+public enum ResultadoReserva {
+    OK("✅ Reserva exitosa."),
+    AGOTADO("❌ No hay suficientes asientos disponibles."),
+    DUPLICADA("❌ Ya tienes una reserva para este vuelo."),
+    NO_ENCONTRADO("❌ El vuelo no existe."),
+    INVALIDA("❌ Datos de reserva incompletos o inválidos."),
+    CLAVE_REUTILIZADA("❌ La clave de la solicitud ya se usó con otros datos de reserva."),
+    TRAMOS_SIN_CANCELAR("❌ Falló un tramo del itinerario y no se pudieron cancelar los ya reservados; revisa tus reservas."),
+    ERROR("❌ Error al reservar.");
+
+    private final String mensaje;
+
+    ResultadoReserva(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public boolean esExitoso() {
+        return this == OK;
+    }
+}
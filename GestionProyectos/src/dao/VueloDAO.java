@@ -9,18 +9,35 @@ package dao;
  * @author jh599
  */
 // dao/VueloDAO.java
-import java.beans.Statement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.Normalizer;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import modelo.Aerolinea;
+import modelo.TarifaDia;
 import modelo.Vuelo;
 import java.sql.Date;
+import servicio.CacheBusquedaVuelos;
+import servicio.CatalogoColumnar;
+import servicio.CatalogoParticionado;
+import servicio.IndiceRutas;
+import servicio.InventarioAsientos;
 import util.ConexionBD; 
 
 /**
@@ -30,51 +47,125 @@ import util.ConexionBD;
  */
 public class VueloDAO {
 
+    // Columnas que se leen en cada consulta de vuelos (ver leerVuelo)
+    private static final String COLUMNAS_VUELO = """
+                v.id_vuelo, v.numero_vuelo, v.origen, v.destino,
+                v.fecha_salida, v.fecha_llegada, v.asientos_totales,
+                v.asientos_disponibles, v.precio, v.escalas, v.estado,
+                a.id_aerolinea, a.nombre AS nombre_aerolinea, a.codigo
+            """;
+
+    // Cuántas veces k se piden a la base cuando hay que volver a filtrar con el inventario
+    private static final int SOBREPEDIDO_MEJORES = 4;
+
+    // Tildes y diéresis que se quitan de los lugares buscados
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
     /**
      * Busca vuelos disponibles según origen, destino y fecha de salida.
      * 
+     * Si el índice de rutas en memoria está cargado y cubre la fecha, se
+     * responde desde él sin consultar la base; si no, se consulta SQL Server.
+     * 
      * @param origen Origen del vuelo (ej: "Bogotá"). Puede ser null para omitir.
      * @param destino Destino del vuelo (ej: "Medellín"). Puede ser null para omitir.
      * @param fecha Fecha de salida (sin hora). Puede ser null para omitir.
      * @return Lista de vuelos que cumplen con los filtros.
      */
     public List<Vuelo> buscarVuelos(String origen, String destino, LocalDate fecha) {
+        // Búsquedas repetidas se sirven desde la caché; las que faltan, del índice o de la base
+        return CacheBusquedaVuelos.getInstancia().obtener(origen, destino, fecha, () -> {
+            IndiceRutas indice = IndiceRutas.getInstancia();
+            if (indice != null && indice.cubre(fecha)) {
+                return indice.buscar(origen, destino, fecha);
+            }
+            return consultarVuelos(origen, destino, fecha);
+        });
+    }
+
+    /**
+     * Igual que {@link #buscarVuelos} pero siempre consultando SQL Server.
+     * Los filtros de origen y destino son por prefijo.
+     */
+    public List<Vuelo> buscarVuelosEnBase(String origen, String destino, LocalDate fecha) {
+        try {
+            return consultarVuelos(origen, destino, fecha);
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar vuelos:");
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca los vuelos que salen entre {@code desde} y {@code hasta} (ambos
+     * días incluidos). Si el rango empieza hoy o después, se reparte por días
+     * entre varios hilos sobre el catálogo en memoria; si no, se consulta SQL
+     * Server. En ambos casos el orden es (fecha_salida, id_vuelo).
+     *
+     * @param origen Prefijo del origen, o null para omitir
+     * @param destino Prefijo del destino, o null para omitir
+     * @return Vuelos del rango (vacía si hubo error)
+     */
+    public List<Vuelo> buscarVuelosEntre(String origen, String destino, LocalDate desde, LocalDate hasta) {
+        if (!desde.isBefore(LocalDate.now())) {
+            CatalogoParticionado catalogo = CatalogoParticionado.getInstancia();
+            return catalogo.buscar(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay(),
+                    catalogo.filtro().origenEmpiezaPor(origen).destinoEmpiezaPor(destino));
+        }
+
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS_VUELO + """
+            FROM Vuelo v
+            INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+            WHERE v.fecha_salida >= ? AND v.fecha_salida < ?
+            """;
+        params.add(Timestamp.valueOf(desde.atStartOfDay()));
+        params.add(Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        sql += filtrosBusqueda(origen, destino, null, params) + " ORDER BY v.fecha_salida, v.id_vuelo";
+
+        List<Vuelo> vuelos = new ArrayList<>();
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vuelos.add(leerVuelo(rs, inventario));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar vuelos entre " + desde + " y " + hasta + ":");
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        return vuelos;
+    }
+
+    private List<Vuelo> consultarVuelos(String origen, String destino, LocalDate fecha) throws SQLException {
         List<Vuelo> vuelos = new ArrayList<>();
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
 
         // Consulta SQL con filtros opcionales
-        String sql = """
-            SELECT 
-                v.id_vuelo, v.numero_vuelo, v.origen, v.destino,
-                v.fecha_salida, v.fecha_llegada, v.asientos_totales,
-                v.asientos_disponibles, v.precio, v.escalas, v.estado,
-                a.id_aerolinea, a.nombre AS nombre_aerolinea, a.codigo
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS_VUELO + """
             FROM Vuelo v
             INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
             WHERE 1=1
-            """;
-
-        // Construcción dinámica de condiciones
-        List<Object> params = new ArrayList<>();
-
-        if (origen != null && !origen.trim().isEmpty()) {
-            sql += " AND v.origen LIKE ?";
-            params.add("%" + origen.trim() + "%");
-        }
-        if (destino != null && !destino.trim().isEmpty()) {
-            sql += " AND v.destino LIKE ?";
-            params.add("%" + destino.trim() + "%");
-        }
-        if (fecha != null) {
-            sql += " AND CAST(v.fecha_salida AS DATE) = ?";
-            params.add(Date.valueOf(fecha)); // Convertir LocalDate a SQL Date
-        }
-        sql += " ORDER BY v.fecha_salida";
+            """ + filtrosBusqueda(origen, destino, fecha, params) + " ORDER BY v.fecha_salida";
 
         try {
-        conn = ConexionBD.getConnection();
+            conn = ConexionBD.getConnection();
+            if (conn == null) {
+                throw new SQLException("No hay conexión con la base de datos.");
+            }
             stmt = conn.prepareStatement(sql);
 
             // Asignar parámetros dinámicamente
@@ -83,35 +174,12 @@ public class VueloDAO {
             }
 
             rs = stmt.executeQuery();
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
 
             while (rs.next()) {
-                Aerolinea aerolinea = new Aerolinea(
-                    rs.getInt("id_aerolinea"),
-                    rs.getString("nombre_aerolinea"),
-                    rs.getString("codigo")
-                );
-
-                Vuelo vuelo = new Vuelo(
-                    rs.getInt("id_vuelo"),
-                    aerolinea,
-                    rs.getString("numero_vuelo"),
-                    rs.getString("origen"),
-                    rs.getString("destino"),
-                    rs.getTimestamp("fecha_salida").toLocalDateTime(),
-                    rs.getTimestamp("fecha_llegada").toLocalDateTime(),
-                    rs.getInt("asientos_totales"),
-                    rs.getInt("asientos_disponibles"),
-                    rs.getDouble("precio"),
-                    rs.getInt("escalas"),
-                    rs.getString("estado")
-                );
-
-                vuelos.add(vuelo);
+                vuelos.add(leerVuelo(rs, inventario));
             }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Error al buscar vuelos:");
-            e.printStackTrace();
         } finally {
             // Cerrar recursos
             try {
@@ -125,13 +193,493 @@ public class VueloDAO {
 
         return vuelos;
     }
+
+    /**
+     * Devuelve una página de la búsqueda, ordenada por (fecha_salida, id_vuelo)
+     * y empezando justo después de {@code despues}. Se sirve del índice de rutas
+     * si cubre la fecha; si no, con una consulta TOP por clave en SQL Server
+     * que no depende de cuántas páginas se hayan leído antes.
+     * 
+     * @param despues Cursor de la página anterior, o null para la primera
+     * @param tamano Número máximo de vuelos de la página
+     * @return La página (vacía y sin más páginas si hubo error)
+     */
+    public PaginaVuelos buscarPagina(String origen, String destino, LocalDate fecha,
+                                     PaginaVuelos.Cursor despues, int tamano) {
+        IndiceRutas indice = IndiceRutas.getInstancia();
+        if (indice != null && indice.cubre(fecha)) {
+            return indice.buscarPagina(origen, destino, fecha, despues, tamano);
+        }
+
+        List<Object> params = new ArrayList<>();
+        params.add(tamano + 1); // Una fila de más indica si hay otra página
+        String sql = "SELECT TOP (?) " + COLUMNAS_VUELO + """
+            FROM Vuelo v
+            INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+            WHERE 1=1
+            """ + filtrosBusqueda(origen, destino, fecha, params);
+        if (despues != null) {
+            sql += " AND (v.fecha_salida > ? OR (v.fecha_salida = ? AND v.id_vuelo > ?))";
+            params.add(Timestamp.valueOf(despues.fechaSalida()));
+            params.add(Timestamp.valueOf(despues.fechaSalida()));
+            params.add(despues.idVuelo());
+        }
+        sql += " ORDER BY v.fecha_salida, v.id_vuelo";
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            List<Vuelo> vuelos = new ArrayList<>(tamano);
+            boolean hayMas = false;
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (vuelos.size() == tamano) {
+                        hayMas = true;
+                        break;
+                    }
+                    vuelos.add(leerVuelo(rs, inventario));
+                }
+            }
+            return new PaginaVuelos(vuelos, hayMas);
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar la página de vuelos:");
+            e.printStackTrace();
+            return new PaginaVuelos(new ArrayList<>(), false);
+        }
+    }
+
+    /**
+     * Los {@code k} mejores vuelos de la búsqueda según {@code orden}, sin
+     * ordenar todos los que coinciden: el índice de rutas usa un montículo
+     * acotado a k y SQL Server resuelve el TOP (k) con su propio orden parcial.
+     * Sin fecha solo se consideran los vuelos que aún no han salido.
+     *
+     * Con el inventario en memoria, la columna asientos_disponibles puede ir
+     * por detrás de sus cuentas (en ambos sentidos), así que no se filtra por
+     * ella: se piden más filas de las necesarias, se filtran (y, por asientos,
+     * se ordenan) con las cuentas del inventario, y si no alcanzan se vuelve
+     * a pedir con un TOP mayor.
+     *
+     * @param minAsientos Asientos libres que debe tener cada vuelo
+     * @param k Número máximo de vuelos
+     * @return Vuelos del mejor al peor (vacía si hubo error)
+     */
+    public List<Vuelo> buscarMejores(String origen, String destino, LocalDate fecha, OrdenVuelos orden,
+                                     int minAsientos, int k) {
+        LocalDateTime ahora = LocalDateTime.now();
+        IndiceRutas indice = IndiceRutas.getInstancia();
+        if (indice != null && (fecha == null || indice.cubre(fecha))) {
+            return indice.buscarMejores(origen, destino, fecha, orden, minAsientos, ahora, k);
+        }
+
+        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+        if (inventario == null) {
+            List<Vuelo> vuelos = consultarMejores(origen, destino, fecha, orden, minAsientos, ahora, k, null);
+            return vuelos != null ? vuelos : new ArrayList<>();
+        }
+
+        for (int pedir = k * SOBREPEDIDO_MEJORES; ; pedir *= SOBREPEDIDO_MEJORES) {
+            List<Vuelo> leidos = consultarMejores(origen, destino, fecha, orden, null, ahora, pedir, inventario);
+            if (leidos == null) {
+                return new ArrayList<>();
+            }
+            List<Vuelo> vuelos = new ArrayList<>(Math.min(leidos.size(), k));
+            for (Vuelo vuelo : leidos) {
+                if (vuelo.getAsientosDisponibles() >= minAsientos) {
+                    vuelos.add(vuelo);
+                }
+            }
+            if (orden == OrdenVuelos.ASIENTOS) {
+                vuelos.sort(Comparator.comparingInt(Vuelo::getAsientosDisponibles).reversed()
+                        .thenComparingInt(Vuelo::getIdVuelo));
+            }
+            // Por precio o salida el orden de la base ya es el definitivo: basta con k válidos
+            if (vuelos.size() >= k || leidos.size() < pedir || orden == OrdenVuelos.ASIENTOS) {
+                return vuelos.size() > k ? new ArrayList<>(vuelos.subList(0, k)) : vuelos;
+            }
+        }
+    }
+
+    /**
+     * TOP ({@code k}) de la búsqueda en el orden pedido.
+     *
+     * @param minAsientos Filtro sobre la columna asientos_disponibles, o null para no filtrar
+     * @return Vuelos con los asientos del inventario si lo hay, o null si hubo error
+     */
+    private List<Vuelo> consultarMejores(String origen, String destino, LocalDate fecha, OrdenVuelos orden,
+                                         Integer minAsientos, LocalDateTime ahora, int k,
+                                         InventarioAsientos inventario) {
+        List<Object> params = new ArrayList<>();
+        params.add(k);
+        String sql = "SELECT TOP (?) " + COLUMNAS_VUELO + """
+            FROM Vuelo v
+            INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+            WHERE 1 = 1
+            """;
+        if (minAsientos != null) {
+            sql += " AND v.asientos_disponibles >= ?";
+            params.add(minAsientos);
+        }
+        sql += filtrosBusqueda(origen, destino, fecha, params);
+        if (fecha == null) {
+            sql += " AND v.fecha_salida >= ?";
+            params.add(Timestamp.valueOf(ahora));
+        }
+        sql += " ORDER BY " + orden.getOrdenSql() + ", v.id_vuelo";
+
+        List<Vuelo> vuelos = new ArrayList<>(k);
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vuelos.add(leerVuelo(rs, inventario));
+                }
+            }
+            return vuelos;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar los mejores vuelos:");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Recorre todos los resultados de la búsqueda página a página y entrega
+     * cada una al consumidor en cuanto llega. En memoria solo hay una página
+     * a la vez, sin importar cuántos vuelos coincidan.
+     * 
+     * @param tamanoPagina Vuelos por página
+     * @param consumidor Recibe cada página; devuelve false para dejar de recorrer
+     * @return Número de vuelos entregados
+     */
+    public int recorrerVuelos(String origen, String destino, LocalDate fecha, int tamanoPagina,
+                              Predicate<List<Vuelo>> consumidor) {
+        int entregados = 0;
+        PaginaVuelos.Cursor cursor = null;
+        do {
+            PaginaVuelos pagina = buscarPagina(origen, destino, fecha, cursor, tamanoPagina);
+            if (pagina.getVuelos().isEmpty()) {
+                break;
+            }
+            entregados += pagina.getVuelos().size();
+            if (!consumidor.test(pagina.getVuelos())) {
+                break;
+            }
+            cursor = pagina.getSiguiente();
+        } while (cursor != null);
+        return entregados;
+    }
+
+    /**
+     * Calendario de tarifas de una ruta: para cada día de [desde, hasta], el
+     * precio más bajo y los asientos libres entre los vuelos que aún tienen
+     * asientos. Se resuelve en una sola pasada por el índice de rutas o con
+     * una sola consulta agrupada por día, en vez de una búsqueda por día.
+     *
+     * @param origen Prefijo del origen, o null para cualquiera
+     * @param destino Prefijo del destino, o null para cualquiera
+     * @return Un elemento por día de la ventana, en orden (vacía si hubo error)
+     */
+    public List<TarifaDia> calendarioTarifas(String origen, String destino, LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            return new ArrayList<>();
+        }
+        IndiceRutas indice = IndiceRutas.getInstancia();
+        if (indice != null && indice.cubre(desde)) {
+            return indice.calendarioTarifas(origen, destino, desde, hasta);
+        }
+
+        int dias = (int) (hasta.toEpochDay() - desde.toEpochDay()) + 1;
+        double[] minimos = new double[dias];
+        int[] asientos = new int[dias];
+        int[] vuelos = new int[dias];
+
+        // Con el inventario en memoria los asientos de la base pueden no ser
+        // los vigentes: se leen los vuelos (solo columnas necesarias) y se
+        // agrupan aquí; si no, SQL Server agrupa y devuelve una fila por día
+        InventarioAsientos inventario = InventarioAsientos.getInstancia();
+        List<Object> params = new ArrayList<>();
+        String filtros = filtrosBusqueda(origen, destino, null, params)
+                + " AND v.fecha_salida >= ? AND v.fecha_salida < ?";
+        params.add(Timestamp.valueOf(desde.atStartOfDay()));
+        params.add(Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        String sql = inventario != null
+                ? "SELECT v.id_vuelo, v.fecha_salida, v.precio, v.asientos_disponibles FROM Vuelo v WHERE 1=1" + filtros
+                : """
+                  SELECT CAST(v.fecha_salida AS DATE) AS dia, MIN(v.precio) AS precio_minimo,
+                         SUM(v.asientos_disponibles) AS asientos, COUNT(*) AS vuelos
+                  FROM Vuelo v
+                  WHERE v.asientos_disponibles > 0
+                  """ + filtros + " GROUP BY CAST(v.fecha_salida AS DATE)";
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (inventario == null) {
+                        int i = (int) (rs.getDate("dia").toLocalDate().toEpochDay() - desde.toEpochDay());
+                        minimos[i] = rs.getDouble("precio_minimo");
+                        asientos[i] = rs.getInt("asientos");
+                        vuelos[i] = rs.getInt("vuelos");
+                        continue;
+                    }
+                    int libres = inventario.getDisponibles(rs.getInt("id_vuelo"), rs.getInt("asientos_disponibles"));
+                    if (libres <= 0) {
+                        continue;
+                    }
+                    int i = (int) (rs.getTimestamp("fecha_salida").toLocalDateTime().toLocalDate().toEpochDay()
+                            - desde.toEpochDay());
+                    double precio = rs.getDouble("precio");
+                    if (vuelos[i] == 0 || precio < minimos[i]) {
+                        minimos[i] = precio;
+                    }
+                    asientos[i] += libres;
+                    vuelos[i]++;
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al consultar el calendario de tarifas:");
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        List<TarifaDia> calendario = new ArrayList<>(dias);
+        for (int i = 0; i < dias; i++) {
+            LocalDate fecha = desde.plusDays(i);
+            calendario.add(vuelos[i] == 0 ? TarifaDia.sinVuelos(fecha)
+                    : new TarifaDia(fecha, minimos[i], asientos[i], vuelos[i]));
+        }
+        return calendario;
+    }
+
+    /**
+     * Agrega a la consulta los filtros de búsqueda y sus parámetros.
+     * Solo usa condiciones que pueden aprovechar IX_Vuelo_busqueda_fecha (ver
+     * V010): prefijo en origen/destino y rango semiabierto en la fecha, nunca
+     * comodín inicial ni funciones sobre la columna. El prefijo se compara con
+     * las columnas origen_busqueda/destino_busqueda, que no distinguen tildes.
+     */
+    private String filtrosBusqueda(String origen, String destino, LocalDate fecha, List<Object> params) {
+        String sql = "";
+        String prefijoOrigen = normalizarLugar(origen);
+        String prefijoDestino = normalizarLugar(destino);
+
+        if (prefijoOrigen != null) {
+            sql += " AND v.origen_busqueda LIKE ? ESCAPE '\\'";
+            params.add(escaparLike(prefijoOrigen) + "%");
+        }
+        if (prefijoDestino != null) {
+            sql += " AND v.destino_busqueda LIKE ? ESCAPE '\\'";
+            params.add(escaparLike(prefijoDestino) + "%");
+        }
+        if (fecha != null) {
+            sql += " AND v.fecha_salida >= ? AND v.fecha_salida < ?";
+            params.add(Timestamp.valueOf(fecha.atStartOfDay()));
+            params.add(Timestamp.valueOf(fecha.plusDays(1).atStartOfDay()));
+        }
+        return sql;
+    }
+
+    /**
+     * Carga todos los vuelos que salen desde el inicio de {@code desde} en
+     * adelante. Se usa para construir el índice de rutas en memoria.
+     * 
+     * @return Vuelos ordenados por fecha de salida, o null si hubo error
+     */
+    public List<Vuelo> cargarVuelosDesde(LocalDate desde) {
+        List<Vuelo> vuelos = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS_VUELO + """
+            FROM Vuelo v
+            INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+            WHERE v.fecha_salida >= ?
+            ORDER BY v.fecha_salida, v.id_vuelo
+            """;
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(desde.atStartOfDay()));
+            stmt.setFetchSize(1000);
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vuelos.add(leerVuelo(rs, inventario));
+                }
+            }
+            return vuelos;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al cargar los vuelos desde " + desde + ":");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Lee los vuelos que salen desde {@code desde} directo a las columnas del
+     * catálogo, sin crear un Vuelo por fila. Las aerolíneas se crean una vez
+     * por aerolínea distinta.
+     *
+     * @return true si se leyeron todos los vuelos
+     */
+    public boolean cargarCatalogo(LocalDate desde, CatalogoColumnar.Cargador cargador) {
+        String sql = "SELECT " + COLUMNAS_VUELO + """
+            FROM Vuelo v
+            INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+            WHERE v.fecha_salida >= ?
+            ORDER BY v.fecha_salida, v.id_vuelo
+            """;
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(desde.atStartOfDay()));
+            stmt.setFetchSize(1000);
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            Map<Integer, Aerolinea> aerolineas = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int idVuelo = rs.getInt("id_vuelo");
+                    int disponibles = rs.getInt("asientos_disponibles");
+                    if (inventario != null) {
+                        disponibles = inventario.getDisponibles(idVuelo, disponibles);
+                    }
+                    int idAerolinea = rs.getInt("id_aerolinea");
+                    Aerolinea aerolinea = aerolineas.get(idAerolinea);
+                    if (aerolinea == null) {
+                        aerolinea = new Aerolinea(idAerolinea, rs.getString("nombre_aerolinea"), rs.getString("codigo"));
+                        aerolineas.put(idAerolinea, aerolinea);
+                    }
+                    cargador.agregar(idVuelo, aerolinea, rs.getString("numero_vuelo"),
+                            rs.getString("origen"), rs.getString("destino"),
+                            rs.getTimestamp("fecha_salida").toLocalDateTime(),
+                            rs.getTimestamp("fecha_llegada").toLocalDateTime(),
+                            rs.getInt("asientos_totales"), disponibles, rs.getDouble("precio"),
+                            rs.getInt("escalas"), rs.getString("estado"));
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al cargar el catálogo desde " + desde + ":");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Cuenta en cuántos vuelos aparece cada lugar, como origen o como destino.
+     * Se usa para construir el índice de lugares.
+     *
+     * @return Lugar → número de vuelos (vacío si hubo error)
+     */
+    public Map<String, Integer> contarLugares() {
+        Map<String, Integer> lugares = new HashMap<>();
+        String sql = """
+            SELECT lugar, COUNT(*) AS usos
+            FROM (SELECT origen AS lugar FROM Vuelo UNION ALL SELECT destino FROM Vuelo) l
+            WHERE lugar IS NOT NULL
+            GROUP BY lugar
+            """;
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                lugares.put(rs.getString("lugar"), rs.getInt("usos"));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al contar los lugares de los vuelos:");
+            e.printStackTrace();
+        }
+        return lugares;
+    }
+
+    /**
+     * Construye un Vuelo (con su aerolínea) a partir de la fila actual de una
+     * consulta que seleccione {@link #COLUMNAS_VUELO}.
+     */
+    private Vuelo leerVuelo(ResultSet rs, InventarioAsientos inventario) throws SQLException {
+        Aerolinea aerolinea = new Aerolinea(
+            rs.getInt("id_aerolinea"),
+            rs.getString("nombre_aerolinea"),
+            rs.getString("codigo")
+        );
+
+        Vuelo vuelo = new Vuelo(
+            rs.getInt("id_vuelo"),
+            aerolinea,
+            rs.getString("numero_vuelo"),
+            rs.getString("origen"),
+            rs.getString("destino"),
+            rs.getTimestamp("fecha_salida").toLocalDateTime(),
+            rs.getTimestamp("fecha_llegada").toLocalDateTime(),
+            rs.getInt("asientos_totales"),
+            rs.getInt("asientos_disponibles"),
+            rs.getDouble("precio"),
+            rs.getInt("escalas"),
+            rs.getString("estado")
+        );
+
+        // Con el inventario en memoria activo, sus asientos son los vigentes
+        if (inventario != null) {
+            vuelo.setAsientosDisponibles(
+                inventario.getDisponibles(vuelo.getIdVuelo(), vuelo.getAsientosDisponibles()));
+        }
+        return vuelo;
+    }
+
+    /**
+     * Normaliza un origen o destino escrito por el usuario: quita tildes y
+     * espacios sobrantes y colapsa los internos ("  San   José " → "San Jose").
+     *
+     * @return El texto normalizado, o null si queda vacío
+     */
+    static String normalizarLugar(String lugar) {
+        if (lugar == null) {
+            return null;
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(lugar, Normalizer.Form.NFD)).replaceAll("");
+        String normalizado = sinMarcas.trim().replaceAll("\\s+", " ");
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    /**
+     * Escapa los comodines de LIKE para que el texto se compare literalmente.
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_")
+                    .replace("[", "\\[");
+    }
+
     public boolean insertarVuelo(Vuelo vuelo) {
     String sql = "INSERT INTO Vuelo (id_aerolinea, numero_vuelo, origen, destino, " +
                  "fecha_salida, fecha_llegada, asientos_totales, asientos_disponibles, " +
                  "precio, escalas, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     try (Connection conn = ConexionBD.getConnection();
-         PreparedStatement stmt = conn.prepareStatement(sql)) {
+         PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
         stmt.setInt(1, vuelo.getAerolinea().getIdAerolinea());
         stmt.setString(2, vuelo.getNumeroVuelo());
@@ -145,13 +693,531 @@ public class VueloDAO {
         stmt.setInt(10, 0);
         stmt.setString(11, "Activo");
 
-        return stmt.executeUpdate() > 0;
+        if (stmt.executeUpdate() == 0) {
+            return false;
+        }
+
+        // Dejar el objeto igual que la fila insertada y avisar a los índices en memoria
+        try (ResultSet claves = stmt.getGeneratedKeys()) {
+            if (claves.next()) {
+                vuelo.setIdVuelo(claves.getInt(1));
+            }
+        }
+        vuelo.setFechaLlegada(vuelo.getFechaSalida().plusHours(2));
+        vuelo.setAsientosTotales(vuelo.getAsientosDisponibles());
+        vuelo.setEscalas(0);
+        vuelo.setEstado("Activo");
+        if (vuelo.getIdVuelo() > 0) {
+            EventosVuelo.publicarVueloInsertado(vuelo);
+        }
+        return true;
 
     } catch (SQLException e) {
         e.printStackTrace();
         return false;
     }
 }
+
+    /**
+     * Cambia el estado de un vuelo (por ejemplo "Activo", "Retrasado",
+     * "Cancelado") y avisa a los índices en memoria.
+     *
+     * @return true si el vuelo existía y se actualizó
+     */
+    public boolean actualizarEstado(int idVuelo, String estado) {
+        String sql = "UPDATE Vuelo SET estado = ? WHERE id_vuelo = ?";
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, estado);
+            stmt.setInt(2, idVuelo);
+            if (stmt.executeUpdate() == 0) {
+                System.err.println("❌ Vuelo no encontrado: " + idVuelo);
+                return false;
+            }
+            EventosVuelo.publicarCambioEstado(idVuelo, estado);
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al actualizar el estado del vuelo " + idVuelo + ":");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Obtiene los asientos disponibles de todos los vuelos.
+     * Se usa para precargar el inventario de asientos en memoria.
+     * 
+     * @return Mapa id_vuelo → asientos disponibles (vacío si hubo error)
+     */
+    public Map<Integer, Integer> obtenerAsientosDisponibles() {
+        Map<Integer, Integer> asientos = new HashMap<>();
+        String sql = "SELECT id_vuelo, asientos_disponibles FROM Vuelo";
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                asientos.put(rs.getInt("id_vuelo"), rs.getInt("asientos_disponibles"));
+            }
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al cargar los asientos disponibles:");
+            e.printStackTrace();
+        }
+
+        return asientos;
+    }
+
+    /**
+     * Obtiene la última secuencia del diario de asientos ya aplicada en la base.
+     * 
+     * @return Secuencia aplicada, 0 si nunca se aplicó ninguna, -1 si hubo error
+     */
+    public long obtenerSecuenciaInventario() {
+        String sql = "SELECT ultima_secuencia FROM InventarioCheckpoint WHERE id = 1";
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getLong("ultima_secuencia") : 0;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al leer el punto de control del inventario:");
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Aplica en lote los cambios de asientos acumulados en memoria y avanza
+     * el punto de control del diario, todo en una misma transacción. Reenviar
+     * un lote ya aplicado (misma secuencia) no cambia nada.
+     * 
+     * @param deltas Mapa id_vuelo → cambio de asientos (positivo: sumar, negativo: restar)
+     * @param secuencia Última secuencia del diario incluida en los deltas
+     * @return true si se confirmó la transacción
+     */
+    public boolean aplicarDeltasAsientos(Map<Integer, Integer> deltas, long secuencia) {
+        String sqlVuelo = "UPDATE Vuelo SET asientos_disponibles = asientos_disponibles + ? WHERE id_vuelo = ?";
+        String sqlCheckpoint = "UPDATE InventarioCheckpoint SET ultima_secuencia = ? WHERE id = 1 AND ultima_secuencia < ?";
+        Connection conn = null;
+
+        try {
+            conn = ConexionBD.getConnection();
+            conn.setAutoCommit(false);
+
+            // El punto de control va primero: si ya llegó a esta secuencia, el
+            // lote se aplicó antes (p. ej. se perdió la respuesta del commit)
+            try (PreparedStatement stmt = conn.prepareStatement(sqlCheckpoint)) {
+                stmt.setLong(1, secuencia);
+                stmt.setLong(2, secuencia);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return true;
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlVuelo)) {
+                for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+                    stmt.setInt(1, delta.getValue());
+                    stmt.setInt(2, delta.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al volcar los asientos a la base de datos:");
+            e.printStackTrace();
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            return false;
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * De las secuencias de asientos apartados en el inventario, indica cuáles
+     * tienen una reserva guardada (las demás nunca llegaron a la base).
+     *
+     * @param secuencias Secuencias del diario sin resolver
+     * @return Las que aparecen en alguna reserva, o null si hubo error
+     */
+    public Set<Long> filtrarSecuenciasGuardadas(Collection<Long> secuencias) {
+        return filtrarSecuencias("Reserva", secuencias);
+    }
+
+    /**
+     * Igual que {@link #filtrarSecuenciasGuardadas} pero con las retenciones
+     * que siguen activas en RetencionAsiento.
+     */
+    public Set<Long> filtrarSecuenciasRetenidas(Collection<Long> secuencias) {
+        return filtrarSecuencias("RetencionAsiento", secuencias);
+    }
+
+    private Set<Long> filtrarSecuencias(String tabla, Collection<Long> secuencias) {
+        List<Long> pendientes = new ArrayList<>(secuencias);
+        Set<Long> encontradas = new HashSet<>();
+
+        try (Connection conn = ConexionBD.getConnection()) {
+            for (int desde = 0; desde < pendientes.size(); desde += 1000) {
+                List<Long> lote = pendientes.subList(desde, Math.min(desde + 1000, pendientes.size()));
+                String sql = "SELECT secuencia_inventario FROM " + tabla + " WHERE secuencia_inventario IN ("
+                        + String.join(", ", Collections.nCopies(lote.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < lote.size(); i++) {
+                        stmt.setLong(i + 1, lote.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            encontradas.add(rs.getLong(1));
+                        }
+                    }
+                }
+            }
+            return encontradas;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al reconciliar los asientos apartados:");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda de una vez los vuelos en vivo de OpenSky. Cada viaje es una fila
+     * identificada por la aeronave (icao24) y su indicativo (numero_vuelo), y
+     * cada aeronave tiene a lo sumo un viaje abierto (no finalizado). Se
+     * cargan en lotes a una tabla temporal y, en una transacción y con pocos
+     * viajes a la base sin importar cuántos sean: un MERGE crea las
+     * aerolíneas que falten, se finalizan los viajes abiertos cuyo indicativo
+     * cambió y otro MERGE inserta o actualiza los viajes.
+     *
+     * Un indicativo nuevo o una aeronave sin viaje abierto (también la que
+     * vuelve a aparecer tras finalizar) crean una fila nueva. De un viaje
+     * abierto solo cambian la aerolínea y los lugares, y estos únicamente si
+     * no tiene reservas vigentes; la salida, el precio y los asientos no se
+     * tocan. Se avisa a los índices en memoria de los vuelos insertados,
+     * actualizados y finalizados.
+     *
+     * @param porIcao24 icao24 → vuelo, con aerolínea (nombre y código), origen,
+     *                  destino, salida, precio y asientos. Los insertados y
+     *                  actualizados quedan como sus filas (ID, precio, asientos...)
+     * @return Insertados, actualizados y sin cambios (omitidos)
+     */
+    public ResultadoIngesta guardarVuelosEnVivo(Map<String, Vuelo> porIcao24) {
+        String sqlTemporal = """
+            IF OBJECT_ID('tempdb..#VuelosEnVivo') IS NOT NULL DROP TABLE #VuelosEnVivo;
+            CREATE TABLE #VuelosEnVivo (
+                icao24           VARCHAR(6)    NOT NULL PRIMARY KEY,
+                codigo_aerolinea NVARCHAR(10)  NOT NULL,
+                nombre_aerolinea NVARCHAR(100) NOT NULL,
+                numero_vuelo     NVARCHAR(20)  NOT NULL,
+                origen           NVARCHAR(100) NOT NULL,
+                destino          NVARCHAR(100) NOT NULL,
+                fecha_salida     DATETIME2     NOT NULL,
+                precio           DECIMAL(10,2) NOT NULL,
+                asientos         INT           NOT NULL
+            )
+            """;
+        String sqlCargar = "INSERT INTO #VuelosEnVivo VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sqlAerolineas = """
+            MERGE Aerolinea WITH (HOLDLOCK) AS a
+            USING (SELECT codigo_aerolinea, MIN(nombre_aerolinea) AS nombre
+                   FROM #VuelosEnVivo GROUP BY codigo_aerolinea) AS s
+            ON a.codigo = s.codigo_aerolinea
+            WHEN NOT MATCHED THEN
+                INSERT (nombre, codigo) VALUES (s.nombre, s.codigo_aerolinea);
+            """;
+        // El viaje anterior de una aeronave que cambió de indicativo se cierra antes del MERGE
+        String sqlFinalizarAnteriores = """
+            UPDATE v SET estado = 'Finalizado'
+            OUTPUT inserted.id_vuelo
+            FROM Vuelo v WITH (HOLDLOCK)
+            INNER JOIN #VuelosEnVivo s ON v.icao24 = s.icao24
+            WHERE v.estado <> 'Finalizado' AND v.numero_vuelo <> s.numero_vuelo;
+            """;
+        // Solo los viajes abiertos pueden coincidir; la ruta de uno con reservas vigentes no se toca
+        String sqlVuelos = """
+            MERGE Vuelo WITH (HOLDLOCK) AS v
+            USING (SELECT s.*, (SELECT MIN(a.id_aerolinea) FROM Aerolinea a
+                                WHERE a.codigo = s.codigo_aerolinea) AS id_aerolinea
+                   FROM #VuelosEnVivo s) AS s
+            ON v.icao24 = s.icao24 AND v.numero_vuelo = s.numero_vuelo AND v.estado <> 'Finalizado'
+            WHEN MATCHED AND (v.id_aerolinea <> s.id_aerolinea
+                              OR ((v.origen <> s.origen OR v.destino <> s.destino)
+                                  AND NOT EXISTS (SELECT 1 FROM Reserva r
+                                                  WHERE r.id_vuelo = v.id_vuelo
+                                                    AND r.estado <> 'Cancelada'))) THEN
+                UPDATE SET id_aerolinea = s.id_aerolinea,
+                           origen = CASE WHEN EXISTS (SELECT 1 FROM Reserva r
+                                                      WHERE r.id_vuelo = v.id_vuelo
+                                                        AND r.estado <> 'Cancelada')
+                                         THEN v.origen ELSE s.origen END,
+                           destino = CASE WHEN EXISTS (SELECT 1 FROM Reserva r
+                                                       WHERE r.id_vuelo = v.id_vuelo
+                                                         AND r.estado <> 'Cancelada')
+                                          THEN v.destino ELSE s.destino END
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (id_aerolinea, numero_vuelo, origen, destino, fecha_salida, fecha_llegada,
+                        asientos_totales, asientos_disponibles, precio, escalas, estado, icao24)
+                VALUES (s.id_aerolinea, s.numero_vuelo, s.origen, s.destino, s.fecha_salida,
+                        DATEADD(HOUR, 2, s.fecha_salida), s.asientos, s.asientos, s.precio, 0, 'Activo', s.icao24)
+            OUTPUT $action AS accion, inserted.id_vuelo, inserted.id_aerolinea, inserted.icao24,
+                   inserted.origen, inserted.destino, inserted.fecha_salida, inserted.fecha_llegada, inserted.asientos_totales,
+                   inserted.asientos_disponibles, inserted.precio, inserted.escalas, inserted.estado;
+            """;
+        Connection conn = null;
+        int insertados = 0;
+        int actualizados = 0;
+        List<Vuelo> nuevos = new ArrayList<>();
+        List<Vuelo> cambiados = new ArrayList<>();
+        List<Integer> finalizados = new ArrayList<>();
+
+        try {
+            conn = ConexionBD.getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sqlTemporal);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlCargar)) {
+                int enLote = 0;
+                for (Map.Entry<String, Vuelo> entrada : porIcao24.entrySet()) {
+                    Vuelo v = entrada.getValue();
+                    stmt.setString(1, entrada.getKey());
+                    stmt.setString(2, v.getAerolinea().getCodigo());
+                    stmt.setString(3, v.getAerolinea().getNombre());
+                    stmt.setString(4, v.getNumeroVuelo());
+                    stmt.setString(5, v.getOrigen());
+                    stmt.setString(6, v.getDestino());
+                    stmt.setTimestamp(7, Timestamp.valueOf(v.getFechaSalida()));
+                    stmt.setDouble(8, v.getPrecio());
+                    stmt.setInt(9, v.getAsientosDisponibles());
+                    stmt.addBatch();
+                    if (++enLote == 1000) {
+                        stmt.executeBatch();
+                        enLote = 0;
+                    }
+                }
+                if (enLote > 0) {
+                    stmt.executeBatch();
+                }
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(sqlAerolineas);
+                try (ResultSet rs = stmt.executeQuery(sqlFinalizarAnteriores)) {
+                    while (rs.next()) {
+                        finalizados.add(rs.getInt(1));
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery(sqlVuelos)) {
+                    while (rs.next()) {
+                        boolean insertado = "INSERT".equals(rs.getString("accion"));
+                        if (insertado) {
+                            insertados++;
+                        } else {
+                            actualizados++;
+                        }
+                        // Dejar el vuelo igual que su fila (en las actualizaciones se conservan salida, precio,
+                        // asientos y, si hay reservas, la ruta)
+                        Vuelo v = porIcao24.get(rs.getString("icao24"));
+                        if (v != null) {
+                            v.setIdVuelo(rs.getInt("id_vuelo"));
+                            v.getAerolinea().setIdAerolinea(rs.getInt("id_aerolinea"));
+                            v.setOrigen(rs.getString("origen"));
+                            v.setDestino(rs.getString("destino"));
+                            v.setFechaSalida(rs.getTimestamp("fecha_salida").toLocalDateTime());
+                            v.setFechaLlegada(rs.getTimestamp("fecha_llegada").toLocalDateTime());
+                            v.setAsientosTotales(rs.getInt("asientos_totales"));
+                            v.setAsientosDisponibles(rs.getInt("asientos_disponibles"));
+                            v.setPrecio(rs.getDouble("precio"));
+                            v.setEscalas(rs.getInt("escalas"));
+                            v.setEstado(rs.getString("estado"));
+                            (insertado ? nuevos : cambiados).add(v);
+                        }
+                    }
+                }
+                stmt.execute("DROP TABLE #VuelosEnVivo");
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al guardar los vuelos en vivo:");
+            e.printStackTrace();
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
+            return ResultadoIngesta.fallido(porIcao24.size());
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Avisar a los índices en memoria
+        for (int idVuelo : finalizados) {
+            EventosVuelo.publicarCambioEstado(idVuelo, "Finalizado");
+        }
+        for (Vuelo v : nuevos) {
+            EventosVuelo.publicarVueloInsertado(v);
+        }
+        for (Vuelo v : cambiados) {
+            EventosVuelo.publicarVueloActualizado(v);
+        }
+        return new ResultadoIngesta(insertados, actualizados, porIcao24.size() - insertados - actualizados, true);
+    }
+
+    /**
+     * Vuelos en vivo que siguen activos (no finalizados), para retomar la
+     * ingesta de OpenSky donde quedó.
+     *
+     * @return Mapa icao24 → vuelo (vacío si hubo error)
+     */
+    public Map<String, Vuelo> obtenerVuelosEnVivo() {
+        String sql = "SELECT " + COLUMNAS_VUELO + """
+                , v.icao24
+                FROM Vuelo v
+                INNER JOIN Aerolinea a ON v.id_aerolinea = a.id_aerolinea
+                WHERE v.icao24 IS NOT NULL AND v.estado <> 'Finalizado'
+                """;
+        Map<String, Vuelo> porIcao24 = new HashMap<>();
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            while (rs.next()) {
+                porIcao24.put(rs.getString("icao24"), leerVuelo(rs, inventario));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error al obtener los vuelos en vivo:");
+            e.printStackTrace();
+            return new HashMap<>();
+        }
+        return porIcao24;
+    }
+
+    /**
+     * Marca como finalizados los vuelos en vivo de las aeronaves que dejaron
+     * de aparecer en OpenSky y avisa a los índices en memoria. Va en lotes de
+     * 1000 aeronaves por sentencia.
+     *
+     * @return Vuelos finalizados, -1 si hubo error
+     */
+    public int finalizarVuelosEnVivo(Collection<String> icao24) {
+        List<String> pendientes = new ArrayList<>(icao24);
+        List<Integer> finalizados = new ArrayList<>();
+
+        try (Connection conn = ConexionBD.getConnection()) {
+            for (int desde = 0; desde < pendientes.size(); desde += 1000) {
+                List<String> lote = pendientes.subList(desde, Math.min(desde + 1000, pendientes.size()));
+                String sql = "UPDATE Vuelo SET estado = 'Finalizado' "
+                        + "OUTPUT inserted.id_vuelo "
+                        + "WHERE estado <> 'Finalizado' AND icao24 IN ("
+                        + String.join(", ", Collections.nCopies(lote.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < lote.size(); i++) {
+                        stmt.setString(i + 1, lote.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            finalizados.add(rs.getInt(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error al finalizar los vuelos en vivo:");
+            e.printStackTrace();
+            return -1;
+        } finally {
+            // Los lotes ya guardados se avisan aunque alguno posterior falle
+            for (int idVuelo : finalizados) {
+                EventosVuelo.publicarCambioEstado(idVuelo, "Finalizado");
+            }
+        }
+        return finalizados.size();
+    }
+
+    /**
+     * Comprueba que en cada vuelo los asientos vendidos (reservas confirmadas)
+     * más los disponibles sumen los asientos totales.
+     *
+     * @param idsVuelo Vuelos a comprobar
+     * @return Número de vuelos que no cumplen la invariante, -1 si hubo error
+     */
+    public int contarVuelosInconsistentes(List<Integer> idsVuelo) {
+        String sql = """
+                SELECT v.id_vuelo, v.asientos_totales, v.asientos_disponibles,
+                       ISNULL(SUM(r.cantidad_asientos), 0) AS vendidos
+                FROM Vuelo v
+                LEFT JOIN Reserva r ON r.id_vuelo = v.id_vuelo AND r.estado = 'Confirmada'
+                WHERE v.id_vuelo = ?
+                GROUP BY v.id_vuelo, v.asientos_totales, v.asientos_disponibles
+                """;
+        int errores = 0;
+
+        try (Connection conn = ConexionBD.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int idVuelo : idsVuelo) {
+                stmt.setInt(1, idVuelo);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                    int totales = rs.getInt("asientos_totales");
+                    int disponibles = InventarioAsientos.getInstancia() != null
+                            ? InventarioAsientos.getInstancia().getDisponibles(idVuelo, rs.getInt("asientos_disponibles"))
+                            : rs.getInt("asientos_disponibles");
+                    int vendidos = rs.getInt("vendidos");
+                    if (vendidos + disponibles != totales) {
+                        System.err.println("❌ Vuelo " + idVuelo + ": vendidos=" + vendidos
+                                + " disponibles=" + disponibles + " totales=" + totales);
+                        errores++;
+                    }
+                }
+            }
+            return errores;
+
+        } catch (SQLException e) {
+            System.err.println("❌ Error al comprobar los asientos de los vuelos:");
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
    private int obtenerOCrearAerolinea(String nombre) {
     String sqlSelect = "SELECT id_aerolinea FROM Aerolinea WHERE nombre = ?";
     String sqlInsert = "INSERT INTO Aerolinea (nombre, codigo) VALUES (?, ?); SELECT SCOPE_IDENTITY();";
@@ -0,0 +1,88 @@
+package modelo;
+
+// modelo/Itinerario.java
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Viaje de origen a destino formado por uno o más vuelos (tramos) en orden.
+ * Con un solo tramo es un vuelo directo; con dos o tres tiene escalas.
+ */
+public class Itinerario {
+    private final List<Vuelo> tramos;
+
+    public Itinerario(List<Vuelo> tramos) {
+        if (tramos == null || tramos.isEmpty()) {
+            throw new IllegalArgumentException("Un itinerario necesita al menos un vuelo.");
+        }
+        this.tramos = Collections.unmodifiableList(new ArrayList<>(tramos));
+    }
+
+    public List<Vuelo> getTramos() {
+        return tramos;
+    }
+
+    public Vuelo getPrimerTramo() {
+        return tramos.get(0);
+    }
+
+    public Vuelo getUltimoTramo() {
+        return tramos.get(tramos.size() - 1);
+    }
+
+    public String getOrigen() {
+        return getPrimerTramo().getOrigen();
+    }
+
+    public String getDestino() {
+        return getUltimoTramo().getDestino();
+    }
+
+    public LocalDateTime getSalida() {
+        return getPrimerTramo().getFechaSalida();
+    }
+
+    public LocalDateTime getLlegada() {
+        return getUltimoTramo().getFechaLlegada();
+    }
+
+    // Tiempo total de puerta a puerta, incluidas las esperas en escalas
+    public Duration getDuracion() {
+        return Duration.between(getSalida(), getLlegada());
+    }
+
+    public int getEscalas() {
+        return tramos.size() - 1;
+    }
+
+    public double getPrecioTotal() {
+        double total = 0;
+        for (Vuelo tramo : tramos) {
+            total += tramo.getPrecio();
+        }
+        return total;
+    }
+
+    // Asientos que se pueden reservar en todo el itinerario (el tramo más lleno manda)
+    public int getAsientosDisponibles() {
+        int minimo = Integer.MAX_VALUE;
+        for (Vuelo tramo : tramos) {
+            minimo = Math.min(minimo, tramo.getAsientosDisponibles());
+        }
+        return minimo;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ruta = new StringBuilder(getOrigen());
+        for (Vuelo tramo : tramos) {
+            ruta.append(" → ").append(tramo.getDestino());
+        }
+        return ruta + " (" + getEscalas() + " escalas, " + getDuracion().toMinutes() + " min, "
+                + String.format("%.2f", getPrecioTotal()) + ")";
+    }
+}
@@ -0,0 +1,57 @@
+package modelo;
+
+// modelo/TarifaDia.java
+
+import java.time.LocalDate;
+
+/**
+ * Resumen de un día en el calendario de tarifas de una ruta: el precio más
+ * bajo entre los vuelos con asientos libres y cuántos asientos quedan en total.
+ */
+public class TarifaDia {
+    private final LocalDate fecha;
+    private final double precioMinimo;
+    private final int asientosDisponibles;
+    private final int vuelos;
+
+    public TarifaDia(LocalDate fecha, double precioMinimo, int asientosDisponibles, int vuelos) {
+        this.fecha = fecha;
+        this.precioMinimo = precioMinimo;
+        this.asientosDisponibles = asientosDisponibles;
+        this.vuelos = vuelos;
+    }
+
+    // Día sin vuelos con asientos libres
+    public static TarifaDia sinVuelos(LocalDate fecha) {
+        return new TarifaDia(fecha, 0, 0, 0);
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    // Solo tiene sentido si hayVuelos()
+    public double getPrecioMinimo() {
+        return precioMinimo;
+    }
+
+    public int getAsientosDisponibles() {
+        return asientosDisponibles;
+    }
+
+    // Vuelos del día que aún tienen asientos
+    public int getVuelos() {
+        return vuelos;
+    }
+
+    public boolean hayVuelos() {
+        return vuelos > 0;
+    }
+
+    @Override
+    public String toString() {
+        return hayVuelos()
+                ? fecha + ": desde " + String.format("%.2f", precioMinimo) + " (" + asientosDisponibles + " asientos)"
+                : fecha + ": sin vuelos";
+    }
+}
@@ -47,6 +47,16 @@ public class Vuelo {
         this.estado = estado;
     }
 
+    // Constructor de copia (la aerolínea también se copia)
+    public Vuelo(Vuelo otro) {
+        this(otro.idVuelo,
+             otro.aerolinea != null
+                 ? new Aerolinea(otro.aerolinea.getIdAerolinea(), otro.aerolinea.getNombre(), otro.aerolinea.getCodigo())
+                 : null,
+             otro.numeroVuelo, otro.origen, otro.destino, otro.fechaSalida, otro.fechaLlegada,
+             otro.asientosTotales, otro.asientosDisponibles, otro.precio, otro.escalas, otro.estado);
+    }
+
     // Getters y Setters
     public int getIdVuelo() {
         return idVuelo;
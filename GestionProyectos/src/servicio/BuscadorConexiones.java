@@ -0,0 +1,491 @@
+// servicio/BuscadorConexiones.java
+package servicio;
+
+import dao.EventosVuelo;
+import dao.VueloDAO;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import modelo.Itinerario;
+import modelo.Vuelo;
+
+/**
+ * Búsqueda de itinerarios con escalas (hasta dos) entre dos ciudades.
+ *
+ * Los vuelos se organizan como un grafo expandido en el tiempo: para cada
+ * ciudad, sus salidas ordenadas por hora, y para cada tramo (origen, destino)
+ * lo mismo. Desde la llegada de un vuelo, las conexiones válidas son las
+ * salidas de esa ciudad dentro de la ventana [llegada + escala mínima,
+ * llegada + escala máxima], que se localizan con búsqueda binaria. Así cada
+ * consulta solo toca los vuelos que realmente pueden conectar.
+ *
+ * Los datos se guardan en arreglos paralelos (hora, ciudad, precio) para
+ * recorrerlos rápido; los asientos se actualizan con los avisos de
+ * {@link EventosVuelo}. Cada día de una ventana de varios días se busca en
+ * paralelo y los mejores resultados se combinan al final.
+ */
+public class BuscadorConexiones implements EventosVuelo.Oyente {
+
+    /**
+     * Criterio para ordenar los itinerarios encontrados.
+     */
+    public enum Orden {
+        DURACION, PRECIO
+    }
+
+    public static final Duration ESCALA_MINIMA = Duration.ofMinutes(45);
+    public static final Duration ESCALA_MAXIMA = Duration.ofHours(6);
+    public static final int MAX_ESCALAS = 2;
+
+    // Cada cuánto se reconstruye el grafo aunque no haya vuelos nuevos
+    private static final long VIDA_MS = Long.getLong("conexiones.vidaMs", 300_000);
+
+    private static BuscadorConexiones instancia = null;
+    private static long construidoEn = 0;
+    private static boolean reconstruyendo = false;
+
+    // Cambios que obligan a reconstruir, contados aunque lleguen durante una reconstrucción
+    private static final AtomicLong CAMBIOS_ESTRUCTURA = new AtomicLong();
+
+    private static final ExecutorService RECONSTRUCTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "conexiones-reconstruccion");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Vuelo[] vuelos;  // Se reemplaza en sitio si cambian datos que no mueven el vuelo
+    private final int[] salida;     // minutos desde la época
+    private final int[] llegada;
+    private final int[] origen;     // id de ciudad
+    private final int[] destino;
+    private final double[] precio;
+    private final AtomicIntegerArray asientos;
+    private final Map<Integer, Integer> posicionPorId = new HashMap<>();
+    private final Map<String, Integer> ciudades = new HashMap<>();
+    private final int[][] salidasPorCiudad;
+    private final Map<Long, int[]> salidasPorTramo = new HashMap<>();
+    private volatile boolean obsoleto = false;
+
+    /**
+     * Construye el grafo con los vuelos indicados. Se ignoran los que no
+     * tienen origen, destino u horarios.
+     */
+    public BuscadorConexiones(List<Vuelo> lista) {
+        List<Vuelo> validos = new ArrayList<>(lista.size());
+        for (Vuelo v : lista) {
+            if (v.getOrigen() != null && !v.getOrigen().isBlank()
+                    && v.getDestino() != null && !v.getDestino().isBlank()
+                    && v.getFechaSalida() != null && v.getFechaLlegada() != null
+                    && !v.getFechaLlegada().isBefore(v.getFechaSalida())) {
+                validos.add(v);
+            }
+        }
+        validos.sort(Comparator.comparing(Vuelo::getFechaSalida).thenComparingInt(Vuelo::getIdVuelo));
+
+        int n = validos.size();
+        vuelos = validos.toArray(new Vuelo[0]);
+        salida = new int[n];
+        llegada = new int[n];
+        origen = new int[n];
+        destino = new int[n];
+        precio = new double[n];
+        asientos = new AtomicIntegerArray(n);
+
+        // Los nombres se repiten mucho: se normaliza cada texto distinto una sola vez
+        Map<String, Integer> idPorTexto = new HashMap<>();
+        Map<Integer, List<Integer>> porCiudad = new HashMap<>();
+        Map<Long, List<Integer>> porTramo = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Vuelo v = vuelos[i];
+            salida[i] = minutos(v.getFechaSalida());
+            llegada[i] = minutos(v.getFechaLlegada());
+            origen[i] = idPorTexto.computeIfAbsent(v.getOrigen(), t -> idCiudad(TrieLugares.normalizar(t)));
+            destino[i] = idPorTexto.computeIfAbsent(v.getDestino(), t -> idCiudad(TrieLugares.normalizar(t)));
+            precio[i] = v.getPrecio();
+            asientos.set(i, v.getAsientosDisponibles());
+            posicionPorId.put(v.getIdVuelo(), i);
+            porCiudad.computeIfAbsent(origen[i], k -> new ArrayList<>()).add(i);
+            porTramo.computeIfAbsent(tramo(origen[i], destino[i]), k -> new ArrayList<>()).add(i);
+        }
+
+        // Las listas ya quedan ordenadas por salida porque los vuelos lo están
+        salidasPorCiudad = new int[ciudades.size()][];
+        for (int c = 0; c < salidasPorCiudad.length; c++) {
+            List<Integer> salidas = porCiudad.get(c);
+            salidasPorCiudad[c] = salidas == null ? new int[0] : aArreglo(salidas);
+        }
+        porTramo.forEach((clave, salidas) -> salidasPorTramo.put(clave, aArreglo(salidas)));
+    }
+
+    /**
+     * Grafo compartido construido con los vuelos de hoy en adelante (del
+     * índice de rutas si está cargado, si no de la base).
+     *
+     * Los asientos, precios y datos que no cambian la ruta ni el horario se
+     * actualizan en sitio. Un vuelo nuevo o movido solo marca el grafo como
+     * obsoleto: la siguiente llamada lanza una reconstrucción en segundo plano
+     * (una sola a la vez, aunque lleguen muchos vuelos) y sigue devolviendo el
+     * grafo anterior hasta que termina. También se reconstruye cada
+     * {@code -Dconexiones.vidaMs}. Solo la primera llamada espera a construirlo.
+     */
+    public static synchronized BuscadorConexiones getInstancia() {
+        long ahora = System.currentTimeMillis();
+        if (instancia == null) {
+            long cambios = CAMBIOS_ESTRUCTURA.get();
+            publicar(construir(), cambios, ahora);
+        } else if ((instancia.obsoleto || ahora - construidoEn > VIDA_MS) && !reconstruyendo) {
+            reconstruyendo = true;
+            RECONSTRUCTOR.execute(BuscadorConexiones::reconstruir);
+        }
+        return instancia;
+    }
+
+    /**
+     * Mejores itinerarios para un día, con hasta dos escalas y las escalas por defecto.
+     */
+    public List<Itinerario> buscar(String origen, String destino, LocalDate fecha, int pasajeros,
+                                   Orden orden, int limite) {
+        return buscar(origen, destino, fecha, fecha, pasajeros, MAX_ESCALAS,
+                ESCALA_MINIMA, ESCALA_MAXIMA, orden, limite);
+    }
+
+    /**
+     * Busca itinerarios cuyo primer vuelo sale entre {@code desde} y {@code hasta}
+     * (ambos incluidos). Cada día de la ventana se busca en paralelo.
+     *
+     * @param origen Ciudad de origen (sin distinguir mayúsculas)
+     * @param destino Ciudad de destino
+     * @param pasajeros Asientos que debe tener libres cada tramo
+     * @param maxEscalas 0 (solo directos), 1 o 2
+     * @param escalaMinima Tiempo mínimo entre llegar y volver a salir
+     * @param escalaMaxima Tiempo máximo de espera en una escala
+     * @param orden Criterio de orden de los resultados
+     * @param limite Número máximo de itinerarios a devolver
+     * @return Itinerarios ordenados del mejor al peor (vacío si no hay)
+     */
+    public List<Itinerario> buscar(String origen, String destino, LocalDate desde, LocalDate hasta,
+                                   int pasajeros, int maxEscalas, Duration escalaMinima,
+                                   Duration escalaMaxima, Orden orden, int limite) {
+        Integer o = ciudades.get(TrieLugares.normalizar(origen));
+        Integer d = ciudades.get(TrieLugares.normalizar(destino));
+        if (o == null || d == null || o.equals(d) || hasta.isBefore(desde) || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        Consulta consulta = new Consulta(o, d, Math.max(1, pasajeros), Math.min(maxEscalas, MAX_ESCALAS),
+                (int) escalaMinima.toMinutes(), (int) escalaMaxima.toMinutes(), orden, limite);
+        int dias = (int) (hasta.toEpochDay() - desde.toEpochDay()) + 1;
+
+        IntStream rango = IntStream.range(0, dias);
+        if (dias > 1) {
+            rango = rango.parallel();
+        }
+        List<Candidato> mejores = rango
+                .mapToObj(i -> buscarDia(consulta, desde.plusDays(i)))
+                .flatMap(List::stream)
+                .sorted(consulta.comparador)
+                .limit(limite)
+                .toList();
+
+        List<Itinerario> itinerarios = new ArrayList<>(mejores.size());
+        for (Candidato candidato : mejores) {
+            List<Vuelo> tramos = new ArrayList<>(candidato.tramos.length);
+            for (int pos : candidato.tramos) {
+                Vuelo copia = new Vuelo(vuelos[pos]);
+                copia.setAsientosDisponibles(asientos.get(pos));
+                tramos.add(copia);
+            }
+            itinerarios.add(new Itinerario(tramos));
+        }
+        return itinerarios;
+    }
+
+    /**
+     * @return Número de vuelos en el grafo
+     */
+    public int getVuelos() {
+        return vuelos.length;
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void asientosCambiados(int idVuelo, int cambio) {
+        Integer pos = posicionPorId.get(idVuelo);
+        if (pos != null) {
+            asientos.addAndGet(pos, cambio);
+        }
+    }
+
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        // Uno sin horarios o que ya salió no entraría en el grafo
+        if (vuelo.getFechaSalida() != null && vuelo.getFechaLlegada() != null
+                && !vuelo.getFechaSalida().toLocalDate().isBefore(LocalDate.now())) {
+            marcarObsoleto();
+        }
+    }
+
+    @Override
+    public void vueloActualizado(Vuelo vuelo) {
+        Integer pos = posicionPorId.get(vuelo.getIdVuelo());
+        if (pos == null) {
+            vueloInsertado(vuelo);
+            return;
+        }
+        // Mismo tramo y mismo horario: el vuelo no se mueve en el grafo
+        Integer o = vuelo.getOrigen() != null ? ciudades.get(TrieLugares.normalizar(vuelo.getOrigen())) : null;
+        Integer d = vuelo.getDestino() != null ? ciudades.get(TrieLugares.normalizar(vuelo.getDestino())) : null;
+        if (o != null && o == origen[pos] && d != null && d == destino[pos]
+                && vuelo.getFechaSalida() != null && minutos(vuelo.getFechaSalida()) == salida[pos]
+                && vuelo.getFechaLlegada() != null && minutos(vuelo.getFechaLlegada()) == llegada[pos]) {
+            precio[pos] = vuelo.getPrecio();
+            vuelos[pos] = new Vuelo(vuelo);
+        } else {
+            marcarObsoleto();
+        }
+    }
+
+    // --- Búsqueda ---
+
+    /**
+     * Explora los itinerarios cuyo primer vuelo sale en {@code dia} y se queda
+     * con los {@code limite} mejores.
+     */
+    private List<Candidato> buscarDia(Consulta c, LocalDate dia) {
+        // Montículo con el peor candidato arriba, para descartarlo al llenarse
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(c.comparador.reversed());
+        int inicio = minutos(dia.atStartOfDay());
+        int fin = minutos(dia.plusDays(1).atStartOfDay());
+
+        int[] primeros = salidasPorCiudad[c.origen];
+        for (int k = primeraDesde(primeros, inicio); k < primeros.length && salida[primeros[k]] < fin; k++) {
+            int v1 = primeros[k];
+            if (asientos.get(v1) < c.pasajeros) {
+                continue;
+            }
+            int h1 = destino[v1];
+            if (h1 == c.destino) {
+                ofrecer(c, mejores, new int[]{v1});
+                continue;
+            }
+            if (c.maxEscalas < 1 || h1 == c.origen || podar(c, mejores, v1, llegada[v1])) {
+                continue;
+            }
+
+            // Una escala: directo de h1 al destino
+            conectar(c, mejores, salidasPorTramo.get(tramo(h1, c.destino)), v1, llegada[v1], new int[]{v1});
+
+            if (c.maxEscalas < 2) {
+                continue;
+            }
+            // Dos escalas: cualquier salida de h1 y luego directo al destino
+            int[] segundos = salidasPorCiudad[h1];
+            int desdeSalida = llegada[v1] + c.escalaMinima;
+            int hastaSalida = llegada[v1] + c.escalaMaxima;
+            for (int j = primeraDesde(segundos, desdeSalida); j < segundos.length && salida[segundos[j]] <= hastaSalida; j++) {
+                int v2 = segundos[j];
+                int h2 = destino[v2];
+                if (h2 == c.destino || h2 == c.origen || h2 == h1 || asientos.get(v2) < c.pasajeros
+                        || podar(c, mejores, v1, llegada[v2], v2)) {
+                    continue;
+                }
+                conectar(c, mejores, salidasPorTramo.get(tramo(h2, c.destino)), v1, llegada[v2], new int[]{v1, v2});
+            }
+        }
+        return new ArrayList<>(mejores);
+    }
+
+    /**
+     * Agrega los itinerarios que terminan con una salida de {@code ultimos}
+     * dentro de la ventana de escala tras {@code llegadaPrevia}.
+     */
+    private void conectar(Consulta c, PriorityQueue<Candidato> mejores, int[] ultimos,
+                          int v1, int llegadaPrevia, int[] previos) {
+        if (ultimos == null) {
+            return;
+        }
+        int desdeSalida = llegadaPrevia + c.escalaMinima;
+        int hastaSalida = llegadaPrevia + c.escalaMaxima;
+        for (int j = primeraDesde(ultimos, desdeSalida); j < ultimos.length && salida[ultimos[j]] <= hastaSalida; j++) {
+            int v = ultimos[j];
+            if (asientos.get(v) < c.pasajeros) {
+                continue;
+            }
+            int[] tramos = Arrays.copyOf(previos, previos.length + 1);
+            tramos[previos.length] = v;
+            ofrecer(c, mejores, tramos);
+        }
+    }
+
+    /**
+     * Descarta una rama si, con lo recorrido hasta ahora, ya no puede superar
+     * al peor de los mejores (la duración y el precio solo crecen al añadir tramos).
+     */
+    private boolean podar(Consulta c, PriorityQueue<Candidato> mejores, int v1, int llegadaParcial, int... otros) {
+        if (mejores.size() < c.limite) {
+            return false;
+        }
+        Candidato peor = mejores.peek();
+        if (c.orden == Orden.DURACION) {
+            return llegadaParcial - salida[v1] > peor.puntaje;
+        }
+        double parcial = precio[v1];
+        for (int v : otros) {
+            parcial += precio[v];
+        }
+        return parcial > peor.puntaje;
+    }
+
+    private void ofrecer(Consulta c, PriorityQueue<Candidato> mejores, int[] tramos) {
+        int primero = tramos[0];
+        int ultimo = tramos[tramos.length - 1];
+        int duracion = llegada[ultimo] - salida[primero];
+        double total = 0;
+        for (int v : tramos) {
+            total += precio[v];
+        }
+        Candidato candidato = new Candidato(tramos, c.orden == Orden.DURACION ? duracion : total,
+                c.orden == Orden.DURACION ? total : duracion, salida[primero]);
+
+        if (mejores.size() < c.limite) {
+            mejores.add(candidato);
+        } else if (c.comparador.compare(candidato, mejores.peek()) < 0) {
+            mejores.poll();
+            mejores.add(candidato);
+        }
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    private void marcarObsoleto() {
+        CAMBIOS_ESTRUCTURA.incrementAndGet();
+        obsoleto = true;
+    }
+
+    private static BuscadorConexiones construir() {
+        IndiceRutas indice = IndiceRutas.getInstancia();
+        List<Vuelo> lista = indice != null ? indice.getVuelos() : new VueloDAO().cargarVuelosDesde(LocalDate.now());
+        return new BuscadorConexiones(lista != null ? lista : new ArrayList<>());
+    }
+
+    private static void reconstruir() {
+        long ahora = System.currentTimeMillis();
+        long cambios = CAMBIOS_ESTRUCTURA.get();
+        BuscadorConexiones nuevo = null;
+        try {
+            nuevo = construir();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al reconstruir el grafo de conexiones; se mantiene el anterior:");
+            e.printStackTrace();
+        } finally {
+            synchronized (BuscadorConexiones.class) {
+                if (nuevo != null) {
+                    publicar(nuevo, cambios, ahora);
+                }
+                reconstruyendo = false;
+            }
+        }
+    }
+
+    /**
+     * Reemplaza el grafo compartido. Si llegaron vuelos nuevos mientras se
+     * construía, queda obsoleto desde ya. Debe llamarse con el monitor de la clase.
+     */
+    private static void publicar(BuscadorConexiones nuevo, long cambiosAlLeer, long construido) {
+        if (instancia != null) {
+            EventosVuelo.cancelarSuscripcion(instancia);
+        }
+        EventosVuelo.suscribir(nuevo);
+        nuevo.obsoleto = CAMBIOS_ESTRUCTURA.get() != cambiosAlLeer;
+        instancia = nuevo;
+        construidoEn = construido;
+    }
+
+    /**
+     * @return Posición de la primera salida en {@code minuto} o después
+     */
+    private int primeraDesde(int[] salidas, int minuto) {
+        int desde = 0;
+        int hasta = salidas.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (salida[salidas[medio]] < minuto) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    private int idCiudad(String ciudad) {
+        return ciudades.computeIfAbsent(ciudad, k -> ciudades.size());
+    }
+
+    private static long tramo(int origen, int destino) {
+        return ((long) origen << 32) | (destino & 0xFFFFFFFFL);
+    }
+
+    private static int minutos(LocalDateTime momento) {
+        return (int) (momento.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static int[] aArreglo(List<Integer> lista) {
+        int[] arreglo = new int[lista.size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = lista.get(i);
+        }
+        return arreglo;
+    }
+
+    /**
+     * Parámetros de una búsqueda ya resueltos a ids de ciudad y minutos.
+     */
+    private static final class Consulta {
+        final int origen;
+        final int destino;
+        final int pasajeros;
+        final int maxEscalas;
+        final int escalaMinima;
+        final int escalaMaxima;
+        final Orden orden;
+        final int limite;
+        final Comparator<Candidato> comparador;
+
+        Consulta(int origen, int destino, int pasajeros, int maxEscalas, int escalaMinima,
+                 int escalaMaxima, Orden orden, int limite) {
+            this.origen = origen;
+            this.destino = destino;
+            this.pasajeros = pasajeros;
+            this.maxEscalas = maxEscalas;
+            this.escalaMinima = escalaMinima;
+            this.escalaMaxima = escalaMaxima;
+            this.orden = orden;
+            this.limite = limite;
+            this.comparador = Comparator.comparingDouble((Candidato x) -> x.puntaje)
+                    .thenComparingDouble(x -> x.desempate)
+                    .thenComparingInt(x -> x.tramos.length)
+                    .thenComparingInt(x -> x.salida);
+        }
+    }
+
+    /**
+     * Itinerario candidato: posiciones de sus vuelos en los arreglos del grafo.
+     */
+    private record Candidato(int[] tramos, double puntaje, double desempate, int salida) {
+    }
+}
@@ -0,0 +1,352 @@
+// servicio/CacheBusquedaVuelos.java
+package servicio;
+
+import dao.EventosVuelo;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import modelo.Vuelo;
+
+/**
+ * Caché de resultados de búsqueda de vuelos por (origen, destino, fecha).
+ *
+ * <ul>
+ *   <li>Acotada por tamaño (se descarta la menos usada) y por tiempo de vida.</li>
+ *   <li>Invalidación precisa: un cambio de asientos descarta solo las búsquedas
+ *       cuyo resultado contiene ese vuelo, y un vuelo nuevo solo las búsquedas
+ *       cuyos filtros lo incluirían.</li>
+ *   <li>Si varios hilos buscan lo mismo a la vez y no está en caché, solo uno
+ *       consulta; los demás esperan ese mismo resultado.</li>
+ * </ul>
+ *
+ * Los resultados se entregan como copias, así que quien los recibe puede
+ * modificarlos sin alterar la caché.
+ */
+public class CacheBusquedaVuelos implements EventosVuelo.Oyente {
+
+    private static CacheBusquedaVuelos instancia = null;
+
+    private final int maximoEntradas;
+    private final long vidaNanos;
+
+    // Protegidos por "entradas": LRU por orden de acceso y su índice inverso id_vuelo → claves
+    private final LinkedHashMap<Clave, Entrada> entradas;
+    private final Map<Integer, Set<Clave>> clavesPorVuelo = new HashMap<>();
+
+    // Consultas en curso, para unir búsquedas iguales simultáneas
+    private final Map<Clave, Carga> enCurso = new ConcurrentHashMap<>();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder unidas = new LongAdder();
+    private final LongAdder desalojosTamano = new LongAdder();
+    private final LongAdder desalojosTiempo = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * @param maximoEntradas Número máximo de búsquedas guardadas
+     * @param vidaMs Tiempo máximo que se sirve un resultado sin volver a consultar
+     */
+    public CacheBusquedaVuelos(int maximoEntradas, long vidaMs) {
+        this.maximoEntradas = maximoEntradas;
+        this.vidaNanos = vidaMs * 1_000_000L;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> mayor) {
+                if (size() > CacheBusquedaVuelos.this.maximoEntradas) {
+                    quitarDelIndice(mayor.getKey(), mayor.getValue());
+                    desalojosTamano.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Caché compartida, configurable con -Dcache.busquedas.maximo y -Dcache.busquedas.vidaMs.
+     */
+    public static synchronized CacheBusquedaVuelos getInstancia() {
+        if (instancia == null) {
+            instancia = new CacheBusquedaVuelos(Integer.getInteger("cache.busquedas.maximo", 1_000),
+                    Long.getLong("cache.busquedas.vidaMs", 30_000));
+            EventosVuelo.suscribir(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Devuelve el resultado guardado para estos filtros o, si no hay uno
+     * vigente, lo obtiene con {@code consulta} y lo guarda.
+     *
+     * @return Copia de los vuelos encontrados (vacía si la consulta falló)
+     */
+    public List<Vuelo> obtener(String origen, String destino, LocalDate fecha,
+                               Callable<List<Vuelo>> consulta) {
+        Clave clave = new Clave(TrieLugares.normalizar(origen), TrieLugares.normalizar(destino), fecha);
+
+        List<Vuelo> guardados = null;
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.creada < vidaNanos) {
+                    guardados = entrada.vuelos;
+                } else {
+                    entradas.remove(clave);
+                    quitarDelIndice(clave, entrada);
+                    desalojosTiempo.increment();
+                }
+            }
+        }
+        if (guardados != null) {
+            aciertos.increment();
+            return copiar(guardados); // La lista guardada no cambia: se copia fuera del bloqueo
+        }
+
+        Carga nueva = new Carga(clave);
+        Carga existente = enCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            unidas.increment();
+            return esperar(existente);
+        }
+
+        fallos.increment();
+        try {
+            List<Vuelo> vuelos = consulta.call();
+            guardar(nueva, vuelos);
+            nueva.resultado.complete(vuelos);
+        } catch (Exception e) {
+            nueva.resultado.completeExceptionally(e);
+        } finally {
+            enCurso.remove(clave, nueva);
+        }
+        return esperar(nueva);
+    }
+
+    /**
+     * Descarta todas las búsquedas guardadas.
+     */
+    public void limpiar() {
+        synchronized (entradas) {
+            for (Carga carga : enCurso.values()) {
+                carga.invalidada = true;
+            }
+            entradas.clear();
+            clavesPorVuelo.clear();
+        }
+    }
+
+    /**
+     * @return Contadores de uso de la caché desde que se creó
+     */
+    public Metricas getMetricas() {
+        int tamano;
+        synchronized (entradas) {
+            tamano = entradas.size();
+        }
+        return new Metricas(aciertos.sum(), fallos.sum(), unidas.sum(),
+                desalojosTamano.sum(), desalojosTiempo.sum(), invalidaciones.sum(), tamano);
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void asientosCambiados(int idVuelo, int cambio) {
+        invalidarVuelo(idVuelo);
+    }
+
+    @Override
+    public void estadoCambiado(int idVuelo, String estado) {
+        invalidarVuelo(idVuelo);
+    }
+
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        synchronized (entradas) {
+            // Antes de desalojar, para que guardar() no cuele un resultado viejo entre medias
+            for (Carga carga : enCurso.values()) {
+                if (carga.clave.incluye(vuelo)) {
+                    carga.invalidada = true;
+                }
+            }
+            List<Clave> afectadas = new ArrayList<>();
+            for (Clave clave : entradas.keySet()) {
+                if (clave.incluye(vuelo)) {
+                    afectadas.add(clave);
+                }
+            }
+            for (Clave clave : afectadas) {
+                quitarDelIndice(clave, entradas.remove(clave));
+                invalidaciones.increment();
+            }
+        }
+    }
+
+    @Override
+    public void vueloActualizado(Vuelo vuelo) {
+        // Sale de las búsquedas donde estaba y puede entrar en las de su ruta nueva
+        invalidarVuelo(vuelo.getIdVuelo());
+        vueloInsertado(vuelo);
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    /**
+     * Descarta las búsquedas cuyo resultado contiene el vuelo.
+     */
+    private void invalidarVuelo(int idVuelo) {
+        synchronized (entradas) {
+            // Una consulta en curso pudo leer el valor anterior; se marca con el
+            // mismo monitor que toma guardar() para que no lo guarde después
+            for (Carga carga : enCurso.values()) {
+                carga.vuelosCambiados.add(idVuelo);
+            }
+            Set<Clave> claves = clavesPorVuelo.remove(idVuelo);
+            if (claves != null) {
+                for (Clave clave : claves) {
+                    Entrada entrada = entradas.remove(clave);
+                    if (entrada != null) {
+                        quitarDelIndice(clave, entrada);
+                        invalidaciones.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Guarda el resultado salvo que algo de lo que contiene haya cambiado
+     * mientras se consultaba.
+     */
+    private void guardar(Carga carga, List<Vuelo> vuelos) {
+        Set<Integer> ids = new HashSet<>();
+        for (Vuelo vuelo : vuelos) {
+            ids.add(vuelo.getIdVuelo());
+        }
+        synchronized (entradas) {
+            if (carga.invalidada) {
+                return;
+            }
+            for (Integer id : carga.vuelosCambiados) {
+                if (ids.contains(id)) {
+                    return;
+                }
+            }
+            Entrada entrada = new Entrada(copiar(vuelos), ids, System.nanoTime());
+            Entrada anterior = entradas.put(carga.clave, entrada);
+            if (anterior != null) {
+                quitarDelIndice(carga.clave, anterior);
+            }
+            for (Integer id : ids) {
+                clavesPorVuelo.computeIfAbsent(id, k -> new HashSet<>()).add(carga.clave);
+            }
+        }
+    }
+
+    /**
+     * Debe llamarse con el monitor de {@code entradas} tomado.
+     */
+    private void quitarDelIndice(Clave clave, Entrada entrada) {
+        if (entrada == null) {
+            return;
+        }
+        for (Integer id : entrada.ids) {
+            Set<Clave> claves = clavesPorVuelo.get(id);
+            if (claves != null) {
+                claves.remove(clave);
+                if (claves.isEmpty()) {
+                    clavesPorVuelo.remove(id);
+                }
+            }
+        }
+    }
+
+    private static List<Vuelo> esperar(Carga carga) {
+        try {
+            return copiar(carga.resultado.get());
+        } catch (ExecutionException e) {
+            System.err.println("❌ Error al buscar vuelos:");
+            e.getCause().printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new ArrayList<>();
+    }
+
+    private static List<Vuelo> copiar(List<Vuelo> vuelos) {
+        List<Vuelo> copia = new ArrayList<>(vuelos.size());
+        for (Vuelo vuelo : vuelos) {
+            copia.add(new Vuelo(vuelo));
+        }
+        return copia;
+    }
+
+    /**
+     * Filtros normalizados de una búsqueda.
+     */
+    private record Clave(String origen, String destino, LocalDate fecha) {
+
+        /**
+         * @return true si el vuelo cumpliría estos filtros
+         */
+        boolean incluye(Vuelo vuelo) {
+            String o = TrieLugares.normalizar(vuelo.getOrigen());
+            String d = TrieLugares.normalizar(vuelo.getDestino());
+            return (origen == null || (o != null && o.startsWith(origen)))
+                    && (destino == null || (d != null && d.startsWith(destino)))
+                    && (fecha == null || (vuelo.getFechaSalida() != null
+                            && vuelo.getFechaSalida().toLocalDate().equals(fecha)));
+        }
+    }
+
+    private record Entrada(List<Vuelo> vuelos, Set<Integer> ids, long creada) {
+    }
+
+    /**
+     * Consulta en curso y lo que cambió mientras tanto.
+     */
+    private static final class Carga {
+        private final Clave clave;
+        private final CompletableFuture<List<Vuelo>> resultado = new CompletableFuture<>();
+        private final Set<Integer> vuelosCambiados = ConcurrentHashMap.newKeySet();
+        private volatile boolean invalidada = false;
+
+        private Carga(Clave clave) {
+            this.clave = clave;
+        }
+    }
+
+    /**
+     * Contadores de la caché.
+     */
+    public record Metricas(long aciertos, long fallos, long unidas, long desalojosPorTamano,
+                           long desalojosPorTiempo, long invalidaciones, int entradas) {
+
+        /**
+         * @return Fracción de búsquedas servidas desde la caché (las unidas cuentan como acierto)
+         */
+        public double tasaAciertos() {
+            long total = aciertos + fallos + unidas;
+            return total == 0 ? 0 : (double) (aciertos + unidas) / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "aciertos=%d fallos=%d unidas=%d tasa=%.1f%% desalojos(tamaño=%d, tiempo=%d) invalidaciones=%d entradas=%d",
+                    aciertos, fallos, unidas, tasaAciertos() * 100, desalojosPorTamano, desalojosPorTiempo,
+                    invalidaciones, entradas);
+        }
+    }
+}
@@ -0,0 +1,811 @@
+// servicio/CatalogoColumnar.java
+package servicio;
+
+import dao.EventosVuelo;
+import dao.VueloDAO;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import modelo.Aerolinea;
+import modelo.Vuelo;
+import util.Diccionario;
+
+/**
+ * Instantánea compacta del catálogo de vuelos para reportes y recorridos
+ * completos.
+ *
+ * En lugar de un objeto {@link Vuelo} por fila (con dos LocalDateTime, varios
+ * String y su propia Aerolinea, cientos de bytes), cada atributo es un arreglo
+ * primitivo: horarios en minutos desde la época, lugares, números de vuelo y
+ * estados como códigos de un {@link Diccionario}, aerolíneas como posición
+ * según su id_aerolinea y precios como float. Queda en unos 50 bytes por
+ * vuelo y un recorrido lee memoria contigua.
+ *
+ * Las filas están ordenadas por (salida, id_vuelo), así que un rango de fechas
+ * se localiza con búsqueda binaria. Recorrer, filtrar y agregar no crea
+ * objetos por fila; solo {@link #aVuelo} materializa un vuelo cuando hace
+ * falta mostrarlo. Los asientos, el estado y los datos de un vuelo que no
+ * cambia de salida se actualizan en sitio con los avisos de
+ * {@link EventosVuelo}; un vuelo nuevo o movido solo marca la instantánea
+ * como obsoleta (ver {@link #getInstancia}).
+ */
+public class CatalogoColumnar implements EventosVuelo.Oyente {
+
+    // Cada cuánto se reconstruye aunque no haya vuelos nuevos
+    private static final long VIDA_MS = Long.getLong("catalogo.vidaMs", 300_000);
+
+    // Los estados se guardan en un byte leído sin signo
+    private static final int MAX_ESTADOS = 256;
+
+    private static CatalogoColumnar instancia = null;
+    private static long construidoEn = 0;
+    private static boolean reconstruyendo = false;
+
+    // Cambios que obligan a reconstruir, contados aunque lleguen durante una reconstrucción
+    private static final AtomicLong CAMBIOS_ESTRUCTURA = new AtomicLong();
+
+    private static final ExecutorService RECONSTRUCTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalogo-reconstruccion");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int vuelos;
+    private final int[] id;
+    private final int[] salida;             // minutos desde la época
+    private final int[] llegada;
+    private final int[] origen;             // código en lugares
+    private final int[] destino;
+    private final int[] aerolinea;          // posición en aerolineas
+    private final int[] numero;             // código en numeros
+    private final float[] precio;
+    private final int[] asientosTotales;
+    private final AtomicIntegerArray asientos;
+    private final byte[] escalas;
+    private final byte[] estado;            // código en estados, sin signo
+    private final int[] idsOrdenados;       // para ubicar la fila de un id
+    private final int[] filaDeId;
+
+    private final Diccionario lugares;
+    private final Diccionario numeros;
+    private final Diccionario estados;
+    private final Map<Integer, Integer> posicionAerolinea;  // por id_aerolinea
+    private volatile Aerolinea[] aerolineas;
+    private volatile boolean obsoleto = false;
+
+    private CatalogoColumnar(Cargador c) {
+        vuelos = c.filas;
+
+        // Orden de las filas por (salida, id_vuelo): el id se reemplaza por su
+        // posición entre los ids para que la clave quepa en un long
+        long[] claves = new long[vuelos];
+        for (int i = 0; i < vuelos; i++) {
+            claves[i] = ((long) c.id[i] << 32) | i;
+        }
+        Arrays.sort(claves);
+        int[] filaDeRango = new int[vuelos];
+        for (int r = 0; r < vuelos; r++) {
+            filaDeRango[r] = (int) claves[r];
+            claves[r] = ((long) c.salida[filaDeRango[r]] << 32) | r;
+        }
+        Arrays.sort(claves);
+        int[] orden = new int[vuelos];
+        for (int i = 0; i < vuelos; i++) {
+            orden[i] = filaDeRango[(int) claves[i]];
+        }
+
+        id = new int[vuelos];
+        salida = new int[vuelos];
+        llegada = new int[vuelos];
+        origen = new int[vuelos];
+        destino = new int[vuelos];
+        aerolinea = new int[vuelos];
+        numero = new int[vuelos];
+        precio = new float[vuelos];
+        asientosTotales = new int[vuelos];
+        asientos = new AtomicIntegerArray(vuelos);
+        escalas = new byte[vuelos];
+        estado = new byte[vuelos];
+        for (int i = 0; i < vuelos; i++) {
+            int f = orden[i];
+            id[i] = c.id[f];
+            salida[i] = c.salida[f];
+            llegada[i] = c.llegada[f];
+            origen[i] = c.origen[f];
+            destino[i] = c.destino[f];
+            aerolinea[i] = c.aerolinea[f];
+            numero[i] = c.numero[f];
+            precio[i] = c.precio[f];
+            asientosTotales[i] = c.asientosTotales[f];
+            asientos.set(i, c.asientos[f]);
+            escalas[i] = c.escalas[f];
+            estado[i] = c.estado[f];
+        }
+
+        long[] porId = new long[vuelos];
+        for (int i = 0; i < vuelos; i++) {
+            porId[i] = ((long) id[i] << 32) | i;
+        }
+        Arrays.sort(porId);
+        idsOrdenados = new int[vuelos];
+        filaDeId = new int[vuelos];
+        for (int i = 0; i < vuelos; i++) {
+            idsOrdenados[i] = (int) (porId[i] >> 32);
+            filaDeId[i] = (int) porId[i];
+        }
+
+        lugares = c.lugares;
+        numeros = c.numeros;
+        estados = c.estados;
+        posicionAerolinea = new HashMap<>(c.posicionAerolinea);
+        aerolineas = c.aerolineas.toArray(new Aerolinea[0]);
+    }
+
+    /**
+     * Catálogo compartido con los vuelos de hoy en adelante, leído de la base
+     * fila a fila sin crear objetos Vuelo.
+     *
+     * Un vuelo nuevo o que cambia de salida solo marca el catálogo como
+     * obsoleto: la siguiente llamada lanza una reconstrucción en segundo plano
+     * (una sola a la vez, aunque lleguen muchos vuelos) y sigue devolviendo el
+     * catálogo anterior hasta que termina. También se reconstruye cada
+     * {@code -Dcatalogo.vidaMs}. Solo la primera llamada espera a construirlo.
+     */
+    public static synchronized CatalogoColumnar getInstancia() {
+        long ahora = System.currentTimeMillis();
+        if (instancia == null) {
+            long cambios = CAMBIOS_ESTRUCTURA.get();
+            publicar(construir(), cambios, ahora);
+        } else if ((instancia.obsoleto || ahora - construidoEn > VIDA_MS) && !reconstruyendo) {
+            reconstruyendo = true;
+            RECONSTRUCTOR.execute(CatalogoColumnar::reconstruir);
+        }
+        return instancia;
+    }
+
+    /**
+     * Construye un catálogo con los vuelos indicados.
+     */
+    public static CatalogoColumnar de(List<Vuelo> lista) {
+        Cargador cargador = new Cargador();
+        for (Vuelo v : lista) {
+            cargador.agregar(v);
+        }
+        return cargador.construir();
+    }
+
+    // --- Recorridos y agregados ---
+
+    /**
+     * Primera fila que sale en {@code momento} o después (o {@link #getVuelos()}).
+     */
+    public int primeraFila(LocalDateTime momento) {
+        return primeraDesde(minutos(momento));
+    }
+
+    /**
+     * Llama a {@code accion} con cada fila que sale en [desde, hasta) y cumple
+     * el filtro, en orden de salida.
+     *
+     * @param desde Inicio del rango, o null para desde la primera fila
+     * @param hasta Fin del rango (excluido), o null hasta la última
+     */
+    public void recorrer(LocalDateTime desde, LocalDateTime hasta, Filtro filtro, IntConsumer accion) {
+        recorrerFilas(inicio(desde), fin(hasta), filtro, accion);
+    }
+
+    /**
+     * @return Vuelos que salen en [desde, hasta) y cumplen el filtro
+     */
+    public int contar(LocalDateTime desde, LocalDateTime hasta, Filtro filtro) {
+        return contarFilas(inicio(desde), fin(hasta), filtro);
+    }
+
+    /**
+     * Cuenta, precios mínimo, máximo y promedio y asientos libres de los
+     * vuelos que salen en [desde, hasta) y cumplen el filtro, en una pasada.
+     */
+    public Resumen resumir(LocalDateTime desde, LocalDateTime hasta, Filtro filtro) {
+        return resumirFilas(inicio(desde), fin(hasta), filtro);
+    }
+
+    /**
+     * @return Vuelos por destino: la posición i cuenta los de {@link #lugar}(i)
+     */
+    public int[] contarPorDestino(LocalDateTime desde, LocalDateTime hasta, Filtro filtro) {
+        return contarPorDestinoFilas(inicio(desde), fin(hasta), filtro);
+    }
+
+    /**
+     * @return Vuelos por aerolínea: la posición i cuenta los de {@link #aerolinea}(i)
+     */
+    public int[] contarPorAerolinea(LocalDateTime desde, LocalDateTime hasta, Filtro filtro) {
+        // Una aerolínea agregada durante el recorrido no se cuenta
+        int[] cuenta = new int[aerolineas.length];
+        recorrer(desde, hasta, filtro, fila -> {
+            if (aerolinea[fila] < cuenta.length) {
+                cuenta[aerolinea[fila]]++;
+            }
+        });
+        return cuenta;
+    }
+
+    // Las mismas operaciones sobre un rango de filas [inicio, fin), para
+    // que el catálogo particionado reparta el trabajo entre hilos
+
+    void recorrerFilas(int inicio, int fin, Filtro filtro, IntConsumer accion) {
+        if (filtro.vacio) {
+            return;
+        }
+        for (int fila = inicio; fila < fin; fila++) {
+            if (filtro.acepta(fila)) {
+                accion.accept(fila);
+            }
+        }
+    }
+
+    int contarFilas(int inicio, int fin, Filtro filtro) {
+        if (filtro.vacio) {
+            return 0;
+        }
+        int total = 0;
+        for (int fila = inicio; fila < fin; fila++) {
+            if (filtro.acepta(fila)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    Resumen resumirFilas(int inicio, int fin, Filtro filtro) {
+        int total = 0;
+        long libres = 0;
+        double suma = 0;
+        float minimo = Float.MAX_VALUE;
+        float maximo = 0;
+        if (!filtro.vacio) {
+            for (int fila = inicio; fila < fin; fila++) {
+                if (!filtro.acepta(fila)) {
+                    continue;
+                }
+                float p = precio[fila];
+                total++;
+                suma += p;
+                libres += asientos.get(fila);
+                minimo = Math.min(minimo, p);
+                maximo = Math.max(maximo, p);
+            }
+        }
+        return total == 0
+                ? Resumen.VACIO
+                : new Resumen(total, libres, minimo, maximo, suma / total);
+    }
+
+    int[] filasQueCumplen(int inicio, int fin, Filtro filtro) {
+        int[] filas = new int[64];
+        int n = 0;
+        if (!filtro.vacio) {
+            for (int fila = inicio; fila < fin; fila++) {
+                if (filtro.acepta(fila)) {
+                    if (n == filas.length) {
+                        filas = Arrays.copyOf(filas, n * 2);
+                    }
+                    filas[n++] = fila;
+                }
+            }
+        }
+        return Arrays.copyOf(filas, n);
+    }
+
+    int[] contarPorDestinoFilas(int inicio, int fin, Filtro filtro) {
+        int[] cuenta = new int[lugares.tamano()];
+        recorrerFilas(inicio, fin, filtro, fila -> {
+            if (destino[fila] < cuenta.length) {
+                cuenta[destino[fila]]++;
+            }
+        });
+        return cuenta;
+    }
+
+    /**
+     * @return Un filtro nuevo que acepta todos los vuelos
+     */
+    public Filtro filtro() {
+        return new Filtro();
+    }
+
+    // --- Acceso por fila ---
+
+    /**
+     * @return La fila del vuelo, o -1 si no está en el catálogo
+     */
+    public int fila(int idVuelo) {
+        int pos = Arrays.binarySearch(idsOrdenados, idVuelo);
+        return pos >= 0 ? filaDeId[pos] : -1;
+    }
+
+    public int getId(int fila) {
+        return id[fila];
+    }
+
+    /**
+     * @return Salida en minutos desde la época (UTC, como los demás horarios)
+     */
+    public int getSalidaMinutos(int fila) {
+        return salida[fila];
+    }
+
+    public int getLlegadaMinutos(int fila) {
+        return llegada[fila];
+    }
+
+    public String getOrigen(int fila) {
+        return lugares.valor(origen[fila]);
+    }
+
+    public String getDestino(int fila) {
+        return lugares.valor(destino[fila]);
+    }
+
+    public Aerolinea getAerolinea(int fila) {
+        return aerolineas[aerolinea[fila]];
+    }
+
+    public float getPrecio(int fila) {
+        return precio[fila];
+    }
+
+    public int getAsientosDisponibles(int fila) {
+        return asientos.get(fila);
+    }
+
+    public String getEstado(int fila) {
+        return estados.valor(estado[fila] & 0xFF);
+    }
+
+    /**
+     * @return Un Vuelo nuevo con los datos de la fila
+     */
+    public Vuelo aVuelo(int fila) {
+        Aerolinea a = aerolineas[aerolinea[fila]];
+        return new Vuelo(id[fila],
+                a != null ? new Aerolinea(a.getIdAerolinea(), a.getNombre(), a.getCodigo()) : null,
+                numeros.valor(numero[fila]), lugares.valor(origen[fila]), lugares.valor(destino[fila]),
+                momento(salida[fila]), momento(llegada[fila]), asientosTotales[fila], asientos.get(fila),
+                precio[fila], escalas[fila], estados.valor(estado[fila] & 0xFF));
+    }
+
+    /**
+     * @return Lugar con ese código (ver {@link #contarPorDestino})
+     */
+    public String lugar(int codigo) {
+        return lugares.valor(codigo);
+    }
+
+    /**
+     * @return Aerolínea con ese código (ver {@link #contarPorAerolinea})
+     */
+    public Aerolinea aerolinea(int codigo) {
+        return aerolineas[codigo];
+    }
+
+    public int getVuelos() {
+        return vuelos;
+    }
+
+    /**
+     * @return Memoria aproximada de las columnas, sin contar los textos de los diccionarios
+     */
+    public long bytesAproximados() {
+        // id, salida, llegada, origen, destino, numero, totales, asientos y los dos del índice por id: 4 bytes;
+        // aerolínea y precio 4, escalas y estado 1
+        return (long) vuelos * (10 * 4 + 4 + 4 + 1 + 1);
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void asientosCambiados(int idVuelo, int cambio) {
+        int fila = fila(idVuelo);
+        if (fila >= 0) {
+            asientos.addAndGet(fila, cambio);
+        }
+    }
+
+    @Override
+    public void estadoCambiado(int idVuelo, String nuevoEstado) {
+        int fila = fila(idVuelo);
+        if (fila >= 0) {
+            estado[fila] = codigoEstado(estados.codificar(nuevoEstado));
+        }
+    }
+
+    /**
+     * Solo los vuelos de hoy en adelante entran en el catálogo; los demás no lo invalidan.
+     */
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        if (vuelo.getFechaSalida() != null && !vuelo.getFechaSalida().toLocalDate().isBefore(LocalDate.now())) {
+            marcarObsoleto();
+        }
+    }
+
+    /**
+     * Si la salida no cambia, la fila sigue en su sitio y se reescriben sus
+     * columnas (salvo los asientos, que llevan los avisos de asientos). Un
+     * recorrido concurrente puede ver la fila a medio actualizar.
+     */
+    @Override
+    public void vueloActualizado(Vuelo vuelo) {
+        int fila = fila(vuelo.getIdVuelo());
+        if (fila < 0 || vuelo.getFechaSalida() == null || minutos(vuelo.getFechaSalida()) != salida[fila]) {
+            vueloInsertado(vuelo);
+            return;
+        }
+        llegada[fila] = vuelo.getFechaLlegada() != null ? minutos(vuelo.getFechaLlegada()) : salida[fila];
+        origen[fila] = lugares.codificar(vuelo.getOrigen());
+        destino[fila] = lugares.codificar(vuelo.getDestino());
+        aerolinea[fila] = posicion(vuelo.getAerolinea());
+        numero[fila] = numeros.codificar(vuelo.getNumeroVuelo());
+        precio[fila] = (float) vuelo.getPrecio();
+        asientosTotales[fila] = vuelo.getAsientosTotales();
+        escalas[fila] = codigoEscalas(vuelo.getEscalas());
+        estado[fila] = codigoEstado(estados.codificar(vuelo.getEstado()));
+    }
+
+    // --- Auxiliares ---
+
+    private void marcarObsoleto() {
+        CAMBIOS_ESTRUCTURA.incrementAndGet();
+        obsoleto = true;
+    }
+
+    /**
+     * Posición de la aerolínea, agregándola al final si el catálogo no la tenía.
+     */
+    private synchronized int posicion(Aerolinea a) {
+        Integer clave = a != null ? a.getIdAerolinea() : null;
+        Integer pos = posicionAerolinea.get(clave);
+        if (pos == null) {
+            Aerolinea[] nuevas = Arrays.copyOf(aerolineas, aerolineas.length + 1);
+            pos = aerolineas.length;
+            nuevas[pos] = a;
+            posicionAerolinea.put(clave, pos);
+            aerolineas = nuevas;
+        }
+        return pos;
+    }
+
+    private static CatalogoColumnar construir() {
+        Cargador cargador = new Cargador();
+        if (!new VueloDAO().cargarCatalogo(LocalDate.now(), cargador)) {
+            cargador = new Cargador();
+        }
+        return cargador.construir();
+    }
+
+    private static void reconstruir() {
+        long ahora = System.currentTimeMillis();
+        long cambios = CAMBIOS_ESTRUCTURA.get();
+        CatalogoColumnar nuevo = null;
+        try {
+            nuevo = construir();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al reconstruir el catálogo de vuelos; se mantiene el anterior:");
+            e.printStackTrace();
+        } finally {
+            synchronized (CatalogoColumnar.class) {
+                if (nuevo != null) {
+                    publicar(nuevo, cambios, ahora);
+                }
+                reconstruyendo = false;
+            }
+        }
+    }
+
+    /**
+     * Reemplaza el catálogo compartido. Si llegaron vuelos nuevos mientras se
+     * construía, queda obsoleto desde ya. Debe llamarse con el monitor de la clase.
+     */
+    private static void publicar(CatalogoColumnar nuevo, long cambiosAlLeer, long construido) {
+        if (instancia != null) {
+            EventosVuelo.cancelarSuscripcion(instancia);
+        }
+        EventosVuelo.suscribir(nuevo);
+        nuevo.obsoleto = CAMBIOS_ESTRUCTURA.get() != cambiosAlLeer;
+        instancia = nuevo;
+        construidoEn = construido;
+    }
+
+    private static byte codigoEstado(int codigo) {
+        if (codigo >= MAX_ESTADOS) {
+            throw new IllegalStateException("El catálogo admite hasta " + MAX_ESTADOS + " estados distintos");
+        }
+        return (byte) codigo;
+    }
+
+    private static byte codigoEscalas(int escalas) {
+        if (escalas < 0 || escalas > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Escalas fuera de rango para el catálogo: " + escalas);
+        }
+        return (byte) escalas;
+    }
+
+    int inicio(LocalDateTime desde) {
+        return desde == null ? 0 : primeraDesde(minutos(desde));
+    }
+
+    int fin(LocalDateTime hasta) {
+        return hasta == null ? vuelos : primeraDesde(minutos(hasta));
+    }
+
+    private int primeraDesde(int minuto) {
+        int desde = 0;
+        int hasta = vuelos;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (salida[medio] < minuto) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    static int minutos(LocalDateTime momento) {
+        return (int) (momento.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static LocalDateTime momento(int minutos) {
+        return LocalDateTime.ofEpochSecond(minutos * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Condiciones sobre las columnas, ya traducidas a códigos de diccionario
+     * para comparar enteros al recorrer. Un valor que no está en el catálogo
+     * hace que el filtro no acepte nada.
+     */
+    public final class Filtro {
+        private int origen = -1;
+        private int destino = -1;
+        private boolean[] origenes = null;   // lugares aceptados por prefijo, por código
+        private boolean[] destinos = null;
+        private boolean[] aerolineasAceptadas = null;  // por posición
+        private int estado = -1;
+        private int minAsientos = Integer.MIN_VALUE;
+        private float precioMaximo = Float.MAX_VALUE;
+        private boolean vacio = false;
+
+        private Filtro() {
+        }
+
+        public Filtro origen(String lugar) {
+            origen = exigir(lugares.codigo(lugar));
+            return this;
+        }
+
+        public Filtro destino(String lugar) {
+            destino = exigir(lugares.codigo(lugar));
+            return this;
+        }
+
+        /**
+         * Origen por prefijo, sin distinguir mayúsculas, como las búsquedas de
+         * {@link dao.VueloDAO}. Null o vacío no filtra.
+         */
+        public Filtro origenEmpiezaPor(String prefijo) {
+            origenes = lugaresConPrefijo(prefijo);
+            return this;
+        }
+
+        /**
+         * Destino por prefijo; ver {@link #origenEmpiezaPor}.
+         */
+        public Filtro destinoEmpiezaPor(String prefijo) {
+            destinos = lugaresConPrefijo(prefijo);
+            return this;
+        }
+
+        /**
+         * Todas las aerolíneas con ese código; distintas aerolíneas pueden compartirlo.
+         *
+         * @param codigo Código de la aerolínea (ej: "AV")
+         */
+        public Filtro aerolinea(String codigo) {
+            Aerolinea[] todas = aerolineas;
+            aerolineasAceptadas = new boolean[todas.length];
+            boolean alguna = false;
+            for (int pos = 0; pos < todas.length; pos++) {
+                aerolineasAceptadas[pos] = todas[pos] != null && codigo != null && codigo.equals(todas[pos].getCodigo());
+                alguna |= aerolineasAceptadas[pos];
+            }
+            if (!alguna) {
+                vacio = true;
+            }
+            return this;
+        }
+
+        public Filtro estado(String valor) {
+            estado = exigir(estados.codigo(valor));
+            if (estado >= MAX_ESTADOS) {
+                vacio = true;
+            }
+            return this;
+        }
+
+        public Filtro conAsientos(int minimo) {
+            minAsientos = minimo;
+            return this;
+        }
+
+        public Filtro precioHasta(double maximo) {
+            precioMaximo = (float) maximo;
+            return this;
+        }
+
+        boolean acepta(int fila) {
+            return (origen < 0 || CatalogoColumnar.this.origen[fila] == origen)
+                    && (destino < 0 || CatalogoColumnar.this.destino[fila] == destino)
+                    && (origenes == null || contiene(origenes, CatalogoColumnar.this.origen[fila]))
+                    && (destinos == null || contiene(destinos, CatalogoColumnar.this.destino[fila]))
+                    && (aerolineasAceptadas == null
+                        || contiene(aerolineasAceptadas, CatalogoColumnar.this.aerolinea[fila]))
+                    && (estado < 0 || (CatalogoColumnar.this.estado[fila] & 0xFF) == estado)
+                    && precio[fila] <= precioMaximo
+                    && (minAsientos == Integer.MIN_VALUE || asientos.get(fila) >= minAsientos);
+        }
+
+        private boolean[] lugaresConPrefijo(String prefijo) {
+            String normalizado = TrieLugares.normalizar(prefijo);
+            if (normalizado == null) {
+                return null;
+            }
+            // Se decide una vez por lugar distinto, no por fila
+            boolean[] aceptados = new boolean[lugares.tamano()];
+            boolean alguno = false;
+            for (int codigo = 0; codigo < aceptados.length; codigo++) {
+                String normalizadoLugar = TrieLugares.normalizar(lugares.valor(codigo));
+                aceptados[codigo] = normalizadoLugar != null && normalizadoLugar.startsWith(normalizado);
+                alguno |= aceptados[codigo];
+            }
+            if (!alguno) {
+                vacio = true;
+            }
+            return aceptados;
+        }
+
+        // Los códigos agregados después de crear el filtro no se aceptan
+        private static boolean contiene(boolean[] aceptados, int codigo) {
+            return codigo < aceptados.length && aceptados[codigo];
+        }
+
+        private int exigir(int codigo) {
+            if (codigo < 0) {
+                vacio = true;
+            }
+            return codigo;
+        }
+    }
+
+    /**
+     * Agregados de un recorrido. Con cero vuelos, los precios son 0.
+     */
+    public record Resumen(int vuelos, long asientosDisponibles, double precioMinimo,
+                          double precioMaximo, double precioPromedio) {
+
+        static final Resumen VACIO = new Resumen(0, 0, 0, 0, 0);
+
+        /**
+         * @return El resumen de los vuelos de ambos recorridos
+         */
+        Resumen sumar(Resumen otro) {
+            if (otro.vuelos == 0) {
+                return this;
+            }
+            if (vuelos == 0) {
+                return otro;
+            }
+            int total = vuelos + otro.vuelos;
+            return new Resumen(total, asientosDisponibles + otro.asientosDisponibles,
+                    Math.min(precioMinimo, otro.precioMinimo), Math.max(precioMaximo, otro.precioMaximo),
+                    (precioPromedio * vuelos + otro.precioPromedio * otro.vuelos) / total);
+        }
+    }
+
+    /**
+     * Acumula las filas de un catálogo en arreglos que crecen según hace falta.
+     */
+    public static final class Cargador {
+        private final Diccionario lugares = new Diccionario();
+        private final Diccionario numeros = new Diccionario();
+        private final Diccionario estados = new Diccionario();
+        private final Map<Integer, Integer> posicionAerolinea = new HashMap<>();
+        private final List<Aerolinea> aerolineas = new ArrayList<>();
+        private int filas = 0;
+        private int[] id = new int[1024];
+        private int[] salida = new int[1024];
+        private int[] llegada = new int[1024];
+        private int[] origen = new int[1024];
+        private int[] destino = new int[1024];
+        private int[] aerolinea = new int[1024];
+        private int[] numero = new int[1024];
+        private float[] precio = new float[1024];
+        private int[] asientosTotales = new int[1024];
+        private int[] asientos = new int[1024];
+        private byte[] escalas = new byte[1024];
+        private byte[] estado = new byte[1024];
+
+        public void agregar(Vuelo v) {
+            agregar(v.getIdVuelo(), v.getAerolinea(), v.getNumeroVuelo(), v.getOrigen(), v.getDestino(),
+                    v.getFechaSalida(), v.getFechaLlegada(), v.getAsientosTotales(), v.getAsientosDisponibles(),
+                    v.getPrecio(), v.getEscalas(), v.getEstado());
+        }
+
+        /**
+         * Agrega una fila. Solo la aerolínea se guarda como objeto, una vez por
+         * id_aerolinea distinto.
+         *
+         * @throws IllegalStateException Si hay más estados distintos de los que caben en un byte
+         * @throws IllegalArgumentException Si las escalas no caben en un byte
+         */
+        public void agregar(int idVuelo, Aerolinea aerolineaVuelo, String numeroVuelo, String origenVuelo,
+                            String destinoVuelo, LocalDateTime fechaSalida, LocalDateTime fechaLlegada,
+                            int totales, int disponibles, double precioVuelo, int escalasVuelo, String estadoVuelo) {
+            if (filas == id.length) {
+                crecer();
+            }
+            int f = filas++;
+            id[f] = idVuelo;
+            salida[f] = minutos(fechaSalida);
+            llegada[f] = fechaLlegada != null ? minutos(fechaLlegada) : salida[f];
+            origen[f] = lugares.codificar(origenVuelo);
+            destino[f] = lugares.codificar(destinoVuelo);
+            numero[f] = numeros.codificar(numeroVuelo);
+            precio[f] = (float) precioVuelo;
+            asientosTotales[f] = totales;
+            asientos[f] = disponibles;
+            escalas[f] = codigoEscalas(escalasVuelo);
+            estado[f] = codigoEstado(estados.codificar(estadoVuelo));
+
+            Integer clave = aerolineaVuelo != null ? aerolineaVuelo.getIdAerolinea() : null;
+            Integer pos = posicionAerolinea.get(clave);
+            if (pos == null) {
+                pos = aerolineas.size();
+                aerolineas.add(aerolineaVuelo);
+                posicionAerolinea.put(clave, pos);
+            }
+            aerolinea[f] = pos;
+        }
+
+        public CatalogoColumnar construir() {
+            return new CatalogoColumnar(this);
+        }
+
+        private void crecer() {
+            int n = id.length * 2;
+            id = Arrays.copyOf(id, n);
+            salida = Arrays.copyOf(salida, n);
+            llegada = Arrays.copyOf(llegada, n);
+            origen = Arrays.copyOf(origen, n);
+            destino = Arrays.copyOf(destino, n);
+            aerolinea = Arrays.copyOf(aerolinea, n);
+            numero = Arrays.copyOf(numero, n);
+            precio = Arrays.copyOf(precio, n);
+            asientosTotales = Arrays.copyOf(asientosTotales, n);
+            asientos = Arrays.copyOf(asientos, n);
+            escalas = Arrays.copyOf(escalas, n);
+            estado = Arrays.copyOf(estado, n);
+        }
+    }
+}
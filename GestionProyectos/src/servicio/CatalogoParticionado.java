@@ -0,0 +1,209 @@
+// servicio/CatalogoParticionado.java
+package servicio;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import modelo.Vuelo;
+
+/**
+ * Consultas sobre el {@link CatalogoColumnar} repartidas por día de salida
+ * entre varios hilos.
+ *
+ * Como las filas del catálogo están ordenadas por salida, cada día es un
+ * rango contiguo de filas: una partición. Una consulta se queda con las
+ * particiones que tocan su rango de fechas y las divide por mitades en un
+ * {@link ForkJoinPool}; los hilos libres roban las mitades pendientes de los
+ * ocupados, así un día con muchos vuelos no deja a los demás esperando.
+ * Un tramo de {@link #FILAS_MINIMAS} filas o menos ya no se divide: una
+ * consulta que toca pocas filas corre entera en un solo hilo del pool.
+ *
+ * Los resultados se combinan en el orden de las particiones, que es el de
+ * salida, así que las listas quedan ordenadas por (fecha_salida, id_vuelo)
+ * igual que en SQL Server. El número de hilos se fija con
+ * {@code -Dcatalogo.hilos} (por defecto, uno por procesador).
+ */
+public class CatalogoParticionado {
+
+    private static final int HILOS = Integer.getInteger("catalogo.hilos", Runtime.getRuntime().availableProcessors());
+
+    // Por debajo de estas filas no compensa dividir más la tarea (ni repartirla entre hilos)
+    static final int FILAS_MINIMAS = 16_384;
+
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, HILOS));
+
+    private static CatalogoParticionado instancia = null;
+
+    private final CatalogoColumnar catalogo;
+    private final ForkJoinPool pool;
+    private final int[] inicioDia;      // fila donde empieza cada día; el último es el total
+
+    /**
+     * @param pool Pool donde se reparten las consultas (su paralelismo fija los hilos)
+     */
+    public CatalogoParticionado(CatalogoColumnar catalogo, ForkJoinPool pool) {
+        this.catalogo = catalogo;
+        this.pool = pool;
+        int vuelos = catalogo.getVuelos();
+        if (vuelos == 0) {
+            inicioDia = new int[]{0, 0};
+            return;
+        }
+        LocalDate primerDia = LocalDate.ofEpochDay(Math.floorDiv(catalogo.getSalidaMinutos(0), MINUTOS_DIA));
+        LocalDate ultimoDia = LocalDate.ofEpochDay(Math.floorDiv(catalogo.getSalidaMinutos(vuelos - 1), MINUTOS_DIA));
+        int dias = (int) (ultimoDia.toEpochDay() - primerDia.toEpochDay()) + 1;
+        inicioDia = new int[dias + 1];
+        for (int d = 0; d < dias; d++) {
+            inicioDia[d] = catalogo.primeraFila(primerDia.plusDays(d).atStartOfDay());
+        }
+        inicioDia[dias] = vuelos;
+    }
+
+    /**
+     * Particiones sobre el catálogo compartido, en el pool de
+     * {@code -Dcatalogo.hilos} hilos. Se rehacen cuando el catálogo se reconstruye.
+     */
+    public static synchronized CatalogoParticionado getInstancia() {
+        CatalogoColumnar catalogo = CatalogoColumnar.getInstancia();
+        if (instancia == null || instancia.catalogo != catalogo) {
+            instancia = new CatalogoParticionado(catalogo, POOL);
+        }
+        return instancia;
+    }
+
+    /**
+     * @return Un filtro nuevo del catálogo, que acepta todos los vuelos
+     */
+    public CatalogoColumnar.Filtro filtro() {
+        return catalogo.filtro();
+    }
+
+    /**
+     * Vuelos que salen en [desde, hasta) y cumplen el filtro.
+     *
+     * @param desde Inicio del rango, o null para desde el primer vuelo
+     * @param hasta Fin del rango (excluido), o null hasta el último
+     * @return Vuelos ordenados por fecha de salida e id
+     */
+    public List<Vuelo> buscar(LocalDateTime desde, LocalDateTime hasta, CatalogoColumnar.Filtro filtro) {
+        int[] filas = repartir(desde, hasta, (inicio, fin) -> catalogo.filasQueCumplen(inicio, fin, filtro),
+                (antes, despues) -> {
+                    int[] unidas = Arrays.copyOf(antes, antes.length + despues.length);
+                    System.arraycopy(despues, 0, unidas, antes.length, despues.length);
+                    return unidas;
+                });
+        List<Vuelo> vuelos = new ArrayList<>(filas.length);
+        for (int fila : filas) {
+            vuelos.add(catalogo.aVuelo(fila));
+        }
+        return vuelos;
+    }
+
+    /**
+     * @return Vuelos que salen en [desde, hasta) y cumplen el filtro
+     */
+    public int contar(LocalDateTime desde, LocalDateTime hasta, CatalogoColumnar.Filtro filtro) {
+        return repartir(desde, hasta, (inicio, fin) -> catalogo.contarFilas(inicio, fin, filtro), Integer::sum);
+    }
+
+    /**
+     * Como {@link CatalogoColumnar#resumir}, repartido entre los hilos.
+     */
+    public CatalogoColumnar.Resumen resumir(LocalDateTime desde, LocalDateTime hasta, CatalogoColumnar.Filtro filtro) {
+        return repartir(desde, hasta, (inicio, fin) -> catalogo.resumirFilas(inicio, fin, filtro),
+                CatalogoColumnar.Resumen::sumar);
+    }
+
+    /**
+     * Como {@link CatalogoColumnar#contarPorDestino}, repartido entre los hilos.
+     */
+    public int[] contarPorDestino(LocalDateTime desde, LocalDateTime hasta, CatalogoColumnar.Filtro filtro) {
+        // Cada mitad dimensiona su cuenta con los lugares de ese momento, que pueden haber crecido
+        return repartir(desde, hasta, (inicio, fin) -> catalogo.contarPorDestinoFilas(inicio, fin, filtro),
+                (antes, despues) -> {
+                    int[] suma = antes.length >= despues.length ? antes : despues;
+                    int[] otra = suma == antes ? despues : antes;
+                    for (int i = 0; i < otra.length; i++) {
+                        suma[i] += otra[i];
+                    }
+                    return suma;
+                });
+    }
+
+    public CatalogoColumnar getCatalogo() {
+        return catalogo;
+    }
+
+    /**
+     * @return Número de particiones (días entre el primer y el último vuelo)
+     */
+    public int getParticiones() {
+        return dias();
+    }
+
+    public int getHilos() {
+        return pool.getParallelism();
+    }
+
+    private int dias() {
+        return inicioDia.length - 1;
+    }
+
+    private <T> T repartir(LocalDateTime desde, LocalDateTime hasta, Hoja<T> hoja, BinaryOperator<T> combinar) {
+        return pool.invoke(new Tarea<>(catalogo.inicio(desde), catalogo.fin(hasta), 0, dias(), hoja, combinar));
+    }
+
+    /**
+     * Operación sobre un rango de filas [inicio, fin) de una sola tarea.
+     */
+    private interface Hoja<T> {
+        T aplicar(int inicio, int fin);
+    }
+
+    /**
+     * Aplica una operación a las filas [inicio, fin) que caen en los días
+     * [primera, ultima) de partición. Divide por días mientras haya más de
+     * uno y bastantes filas; la mitad de antes siempre se combina primero,
+     * así el resultado respeta el orden de salida.
+     */
+    private final class Tarea<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final int inicio;
+        private final int fin;
+        private final int primera;
+        private final int ultima;
+        private final Hoja<T> hoja;
+        private final BinaryOperator<T> combinar;
+
+        Tarea(int inicio, int fin, int primera, int ultima, Hoja<T> hoja, BinaryOperator<T> combinar) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.primera = primera;
+            this.ultima = ultima;
+            this.hoja = hoja;
+            this.combinar = combinar;
+        }
+
+        @Override
+        protected T compute() {
+            if (ultima - primera <= 1 || fin - inicio <= FILAS_MINIMAS) {
+                return hoja.aplicar(inicio, fin);
+            }
+            int medio = (primera + ultima) >>> 1;
+            int corte = Math.max(inicio, Math.min(fin, inicioDia[medio]));
+            Tarea<T> antes = new Tarea<>(inicio, corte, primera, medio, hoja, combinar);
+            Tarea<T> despues = new Tarea<>(corte, fin, medio, ultima, hoja, combinar);
+            antes.fork();
+            T resultadoDespues = despues.compute();
+            return combinar.apply(antes.join(), resultadoDespues);
+        }
+    }
+}
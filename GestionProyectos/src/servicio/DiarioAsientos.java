@@ -0,0 +1,366 @@
+// servicio/DiarioAsientos.java
+package servicio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diario local de solo escritura al final para los cambios de asientos.
+ *
+ * Cada entrada ocupa 28 bytes: secuencia (long), referencia (long), id_vuelo
+ * (int), cambio (int) y tipo (int). Un ajuste (liberación, cancelación) vale
+ * por sí solo. Un descuento para una reserva se escribe como provisional y
+ * luego se resuelve con una entrada que lo confirma o lo anula y que apunta a
+ * él por su secuencia; si la aplicación cae antes de resolverlo, al recuperar
+ * se pregunta a la base si la reserva llegó a guardarse.
+ *
+ * Las escrituras se agrupan: el primer hilo que espera persistencia escribe y
+ * sincroniza con disco todo lo acumulado, y los demás esperan ese mismo fsync.
+ * Así el coste de disco se reparte entre todas las reservas concurrentes.
+ *
+ * El diario se divide en segmentos que se rotan en cada volcado a la base de
+ * datos; un segmento se borra cuando sus cambios ya están confirmados en SQL Server.
+ * Los provisionales sin resolver se copian al segmento nuevo al rotar, para
+ * que borrar los viejos no los pierda.
+ */
+final class DiarioAsientos implements AutoCloseable {
+
+    static final int AJUSTE = 0;
+    static final int PROVISIONAL = 1;
+    static final int CONFIRMADA = 2;
+    static final int ANULADA = 3;
+
+    private static final int TAMANO_ENTRADA = 28;
+    private static final String PREFIJO = "diario-";
+    private static final String EXTENSION = ".log";
+
+    private final Path directorio;
+    private final Object monitor = new Object();
+
+    private FileChannel canal;
+    private Path rutaSegmento;
+    private boolean segmentoVacio = true;
+
+    // Doble búfer: uno recibe entradas mientras el otro se escribe a disco
+    private ByteBuffer activo = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer enEscritura = ByteBuffer.allocate(64 * 1024);
+
+    private long ultimaSecuencia;
+    private long secuenciaPersistida;
+    private boolean escribiendo = false;
+    private IOException error = null;
+
+    DiarioAsientos(Path directorio, long secuenciaInicial) throws IOException {
+        this.directorio = directorio;
+        this.ultimaSecuencia = secuenciaInicial;
+        this.secuenciaPersistida = secuenciaInicial;
+        Files.createDirectories(directorio);
+        abrirSegmento();
+    }
+
+    /**
+     * Añade un ajuste en memoria y devuelve su secuencia.
+     * La entrada no es durable hasta llamar a {@link #esperarPersistencia(long)}.
+     */
+    long agregar(int idVuelo, int cambio) throws IOException {
+        return agregar(AJUSTE, idVuelo, cambio, 0);
+    }
+
+    /**
+     * Añade una entrada del tipo indicado en memoria y devuelve su secuencia.
+     *
+     * @param referencia Secuencia del provisional que resuelve (CONFIRMADA, ANULADA), o 0
+     */
+    long agregar(int tipo, int idVuelo, int cambio, long referencia) throws IOException {
+        synchronized (monitor) {
+            if (error != null) {
+                throw error;
+            }
+            long secuencia = ++ultimaSecuencia;
+            escribirEntrada(secuencia, referencia, idVuelo, cambio, tipo);
+            return secuencia;
+        }
+    }
+
+    /**
+     * Bloquea hasta que la entrada con la secuencia indicada está sincronizada en disco.
+     */
+    void esperarPersistencia(long secuencia) throws IOException {
+        ByteBuffer datos;
+        long hasta;
+        FileChannel destino;
+
+        synchronized (monitor) {
+            while (true) {
+                if (secuenciaPersistida >= secuencia) {
+                    return;
+                }
+                if (error != null) {
+                    throw error;
+                }
+                if (!escribiendo) {
+                    break;
+                }
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrumpido esperando el diario de asientos.");
+                }
+            }
+
+            // Este hilo se encarga de escribir todo lo acumulado hasta ahora
+            escribiendo = true;
+            datos = activo;
+            activo = enEscritura;
+            enEscritura = datos;
+            datos.flip();
+            hasta = ultimaSecuencia;
+            destino = canal;
+        }
+
+        IOException fallo = null;
+        try {
+            while (datos.hasRemaining()) {
+                destino.write(datos);
+            }
+            destino.force(false);
+        } catch (IOException e) {
+            fallo = e;
+        }
+
+        synchronized (monitor) {
+            datos.clear();
+            escribiendo = false;
+            if (fallo == null) {
+                secuenciaPersistida = Math.max(secuenciaPersistida, hasta);
+            } else {
+                error = fallo;
+            }
+            monitor.notifyAll();
+        }
+
+        if (fallo != null) {
+            throw fallo;
+        }
+    }
+
+    long getUltimaSecuencia() {
+        synchronized (monitor) {
+            return ultimaSecuencia;
+        }
+    }
+
+    /**
+     * Cierra el segmento actual (ya sincronizado) y abre uno nuevo, con una
+     * copia de los provisionales que siguen sin resolver. El llamador debe
+     * impedir nuevas entradas mientras rota.
+     *
+     * @param abiertos Provisionales sin resolver
+     * @return Ruta del segmento cerrado, o null si estaba vacío y no se rotó
+     */
+    Path rotar(Collection<InventarioAsientos.Apartado> abiertos) throws IOException {
+        esperarPersistencia(getUltimaSecuencia());
+        synchronized (monitor) {
+            esperarFinEscritura();
+            if (segmentoVacio) {
+                return null;
+            }
+            Path cerrado = rutaSegmento;
+            canal.close();
+            abrirSegmento();
+            escribirProvisionales(abiertos);
+            return cerrado;
+        }
+    }
+
+    /**
+     * Escribe y sincroniza una copia de provisionales que siguen sin resolver
+     * (p. ej. los de retenciones activas al recuperar tras una caída).
+     */
+    void conservar(Collection<InventarioAsientos.Apartado> abiertos) throws IOException {
+        esperarPersistencia(getUltimaSecuencia());
+        synchronized (monitor) {
+            esperarFinEscritura();
+            escribirProvisionales(abiertos);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        esperarPersistencia(getUltimaSecuencia());
+        synchronized (monitor) {
+            esperarFinEscritura();
+            canal.close();
+            if (segmentoVacio) {
+                Files.deleteIfExists(rutaSegmento);
+            }
+        }
+    }
+
+    /**
+     * Espera a que ningún hilo esté escribiendo en el segmento actual.
+     * Debe llamarse con el monitor tomado.
+     */
+    private void esperarFinEscritura() throws InterruptedIOException {
+        while (escribiendo) {
+            try {
+                monitor.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido esperando el diario de asientos.");
+            }
+        }
+    }
+
+    /**
+     * Conservan su secuencia: la confirmación o anulación los busca por ella.
+     * Debe llamarse con el monitor tomado y sin otra escritura en curso.
+     */
+    private void escribirProvisionales(Collection<InventarioAsientos.Apartado> abiertos) throws IOException {
+        for (InventarioAsientos.Apartado apartado : abiertos) {
+            escribirEntrada(apartado.secuencia(), 0, apartado.idVuelo(), -apartado.cantidad(), PROVISIONAL);
+        }
+        if (activo.position() > 0) {
+            escribirAhora();
+        }
+    }
+
+    /**
+     * Debe llamarse con el monitor tomado.
+     */
+    private void escribirEntrada(long secuencia, long referencia, int idVuelo, int cambio, int tipo) {
+        if (activo.remaining() < TAMANO_ENTRADA) {
+            ByteBuffer mayor = ByteBuffer.allocate(activo.capacity() * 2);
+            activo.flip();
+            mayor.put(activo);
+            activo = mayor;
+        }
+        activo.putLong(secuencia).putLong(referencia).putInt(idVuelo).putInt(cambio).putInt(tipo);
+        segmentoVacio = false;
+    }
+
+    /**
+     * Escribe y sincroniza el búfer activo en este hilo. Debe llamarse con el
+     * monitor tomado y sin otra escritura en curso.
+     */
+    private void escribirAhora() throws IOException {
+        activo.flip();
+        try {
+            while (activo.hasRemaining()) {
+                canal.write(activo);
+            }
+            canal.force(false);
+        } finally {
+            activo.clear();
+        }
+    }
+
+    /**
+     * @return Segmento en el que se escribe ahora
+     */
+    Path getRutaSegmento() {
+        synchronized (monitor) {
+            return rutaSegmento;
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        rutaSegmento = directorio.resolve(String.format("%s%020d%s", PREFIJO, ultimaSecuencia + 1, EXTENSION));
+        canal = FileChannel.open(rutaSegmento, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentoVacio = canal.size() == 0;
+    }
+
+    // --- Recuperación ---
+
+    /**
+     * Lee los segmentos existentes y acumula por vuelo los cambios con
+     * secuencia posterior al punto de control. Ignora una última entrada
+     * incompleta (escritura interrumpida por una caída).
+     *
+     * Los provisionales nunca se vuelcan a la base sin resolver: si están
+     * confirmados, cuenta la confirmación (que lleva el mismo cambio); si están
+     * anulados, no cuentan; y los que quedaron sin resolver se devuelven en
+     * {@code sinResolver} para preguntar a la base si su reserva se guardó.
+     *
+     * @param deltas Mapa donde se acumulan los cambios pendientes por vuelo
+     * @param sinResolver Recibe secuencia → {id_vuelo, cambio} de los provisionales sin resolver
+     * @return La mayor secuencia encontrada (o {@code puntoControl} si no hay más)
+     */
+    static long recuperar(Path directorio, long puntoControl, Map<Integer, Integer> deltas,
+                          Map<Long, int[]> sinResolver) throws IOException {
+        long maxima = puntoControl;
+        Map<Long, int[]> provisionales = new HashMap<>();
+        Set<Long> resueltos = new HashSet<>();
+        for (Path segmento : listarSegmentos(directorio)) {
+            ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENTRADA);
+            try (FileChannel lector = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                while (true) {
+                    entrada.clear();
+                    while (entrada.hasRemaining() && lector.read(entrada) != -1) {
+                        // seguir leyendo hasta completar la entrada
+                    }
+                    if (entrada.hasRemaining()) {
+                        break;
+                    }
+                    entrada.flip();
+                    long secuencia = entrada.getLong();
+                    long referencia = entrada.getLong();
+                    int idVuelo = entrada.getInt();
+                    int cambio = entrada.getInt();
+                    int tipo = entrada.getInt();
+                    switch (tipo) {
+                        case PROVISIONAL -> provisionales.put(secuencia, new int[]{idVuelo, cambio});
+                        case CONFIRMADA, ANULADA -> {
+                            resueltos.add(referencia);
+                            if (tipo == CONFIRMADA && secuencia > puntoControl) {
+                                deltas.merge(idVuelo, cambio, Integer::sum);
+                            }
+                        }
+                        default -> {
+                            if (secuencia > puntoControl) {
+                                deltas.merge(idVuelo, cambio, Integer::sum);
+                            }
+                        }
+                    }
+                    maxima = Math.max(maxima, secuencia);
+                }
+            }
+        }
+        provisionales.keySet().removeAll(resueltos);
+        sinResolver.putAll(provisionales);
+        return maxima;
+    }
+
+    /**
+     * Segmentos del diario ordenados por su primera secuencia.
+     */
+    static List<Path> listarSegmentos(Path directorio) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return segmentos;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path p : ds) {
+                segmentos.add(p);
+            }
+        }
+        Collections.sort(segmentos);
+        return segmentos;
+    }
+}
@@ -0,0 +1,451 @@
+// servicio/IndiceFacetas.java
+package servicio;
+
+import dao.EventosVuelo;
+import dao.VueloDAO;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import modelo.Vuelo;
+import util.BitmapComprimido;
+
+/**
+ * Filtros combinables por aerolínea, estado, escalas, banda de precio y
+ * banda de asientos libres sobre los vuelos de hoy en adelante.
+ *
+ * Cada vuelo recibe una posición y, por cada valor de cada atributo, se
+ * guarda un {@link BitmapComprimido} con las posiciones de los vuelos que lo
+ * tienen. Un filtro es la unión (OR) de los valores elegidos dentro de un
+ * atributo y la intersección (AND) entre atributos, y los conteos por faceta
+ * se calculan con el tamaño de intersecciones, sin armar listas de vuelos.
+ *
+ * Origen, destino y día de salida también tienen sus bitmaps para poder
+ * contar las facetas de una búsqueda concreta ({@link Filtro#enRuta}); un
+ * prefijo de lugar es la unión de los lugares que empiezan así, que en el
+ * mapa ordenado quedan seguidos.
+ *
+ * Las reservas, cancelaciones, cambios de estado o de precio y vuelos nuevos
+ * llegan por {@link EventosVuelo} y mueven el vuelo al bitmap de su nuevo valor.
+ */
+public class IndiceFacetas implements EventosVuelo.Oyente {
+
+    /**
+     * Atributos por los que se puede filtrar. Los que no son faceta (origen,
+     * destino, día) solo se usan a través de {@link Filtro#enRuta} y no se
+     * cuentan en {@link #contarFacetas}.
+     */
+    public enum Atributo {
+        AEROLINEA(true), ESTADO(true), ESCALAS(true), PRECIO(true), ASIENTOS(true),
+        ORIGEN(false), DESTINO(false), DIA(false);
+
+        private final boolean faceta;
+
+        Atributo(boolean faceta) {
+            this.faceta = faceta;
+        }
+
+        public boolean esFaceta() {
+            return faceta;
+        }
+    }
+
+    // Límites inferiores de cada banda y su etiqueta, de menor a mayor
+    private static final double[] LIMITES_PRECIO = {0, 100, 250, 500, 1000};
+    private static final String[] BANDAS_PRECIO = {"< 100", "100 - 249", "250 - 499", "500 - 999", "1000+"};
+    private static final int[] LIMITES_ASIENTOS = {0, 1, 10, 50};
+    private static final String[] BANDAS_ASIENTOS = {"Agotado", "1 - 9", "10 - 49", "50+"};
+    private static final String[] BANDAS_ESCALAS = {"Directo", "1 escala", "2+ escalas"};
+
+    private static IndiceFacetas instancia = null;
+
+    private final LocalDate desde;
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    // Protegidos por "cerrojo"
+    private final Map<Atributo, Map<String, BitmapComprimido>> bitmaps = new EnumMap<>(Atributo.class);
+    private final BitmapComprimido todos = new BitmapComprimido();
+    private final Map<Integer, Integer> posicionPorId = new HashMap<>();
+    private Vuelo[] vuelos = new Vuelo[1024];
+    private String[][] etiquetas = new String[1024][];
+    private int tamano = 0;
+
+    /**
+     * @param desde Primer día de salida que se indexa (los vuelos anteriores se ignoran)
+     */
+    public IndiceFacetas(List<Vuelo> lista, LocalDate desde) {
+        this.desde = desde;
+        for (Atributo atributo : Atributo.values()) {
+            Map<String, BitmapComprimido> valores;
+            switch (atributo) {
+                case PRECIO -> valores = bandas(BANDAS_PRECIO);
+                case ASIENTOS -> valores = bandas(BANDAS_ASIENTOS);
+                case ESCALAS -> valores = bandas(BANDAS_ESCALAS);
+                case ORIGEN, DESTINO, DIA -> valores = new TreeMap<>(); // Ya normalizados
+                default -> valores = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            }
+            bitmaps.put(atributo, valores);
+        }
+        for (Vuelo vuelo : lista) {
+            agregar(vuelo);
+        }
+    }
+
+    /**
+     * Índice compartido con los vuelos de hoy en adelante (del índice de
+     * rutas si está cargado, si no de la base). Se reconstruye al cambiar el
+     * día para dejar fuera los vuelos que ya salieron.
+     */
+    public static synchronized IndiceFacetas getInstancia() {
+        LocalDate hoy = LocalDate.now();
+        if (instancia == null || !instancia.desde.equals(hoy)) {
+            IndiceRutas indice = IndiceRutas.getInstancia();
+            List<Vuelo> lista = indice != null ? indice.getVuelos() : new VueloDAO().cargarVuelosDesde(hoy);
+            if (instancia != null) {
+                EventosVuelo.cancelarSuscripcion(instancia);
+            }
+            instancia = new IndiceFacetas(lista != null ? lista : new ArrayList<>(), hoy);
+            EventosVuelo.suscribir(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Vuelos que cumplen el filtro, ordenados por fecha de salida.
+     * Devuelve copias con los asientos y el estado vigentes.
+     */
+    public List<Vuelo> buscar(Filtro filtro) {
+        cerrojo.readLock().lock();
+        try {
+            BitmapComprimido posiciones = aplicar(filtro, null);
+            List<Vuelo> encontrados = new ArrayList<>(posiciones.cardinalidad());
+            posiciones.forEach(pos -> encontrados.add(new Vuelo(vuelos[pos])));
+            encontrados.sort((a, b) -> a.getFechaSalida().compareTo(b.getFechaSalida()));
+            return encontrados;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Número de vuelos que cumplen el filtro
+     */
+    public int contar(Filtro filtro) {
+        cerrojo.readLock().lock();
+        try {
+            return aplicar(filtro, null).cardinalidad();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conteos para mostrar junto a cada opción de filtro: para cada valor de
+     * cada atributo, cuántos vuelos quedarían si se eligiera ese valor
+     * manteniendo los filtros de los demás atributos.
+     *
+     * @return Atributo → valor → número de vuelos (las bandas en orden, el resto
+     *         alfabético), solo de los atributos que son faceta
+     */
+    public Map<Atributo, Map<String, Integer>> contarFacetas(Filtro filtro) {
+        Map<Atributo, Map<String, Integer>> conteos = new EnumMap<>(Atributo.class);
+        cerrojo.readLock().lock();
+        try {
+            Map<Atributo, BitmapComprimido> uniones = uniones(filtro);
+            for (Atributo atributo : Atributo.values()) {
+                if (!atributo.faceta) {
+                    continue;
+                }
+                BitmapComprimido base = combinar(uniones, atributo);
+                Map<String, Integer> porValor = new LinkedHashMap<>();
+                for (Map.Entry<String, BitmapComprimido> valor : bitmaps.get(atributo).entrySet()) {
+                    porValor.put(valor.getKey(), BitmapComprimido.cardinalidadAnd(base, valor.getValue()));
+                }
+                conteos.put(atributo, porValor);
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        return conteos;
+    }
+
+    /**
+     * @return Número de vuelos indexados
+     */
+    public int getVuelos() {
+        cerrojo.readLock().lock();
+        try {
+            return todos.cardinalidad();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void asientosCambiados(int idVuelo, int cambio) {
+        actualizar(idVuelo, vuelo -> vuelo.setAsientosDisponibles(vuelo.getAsientosDisponibles() + cambio));
+    }
+
+    @Override
+    public void estadoCambiado(int idVuelo, String estado) {
+        actualizar(idVuelo, vuelo -> vuelo.setEstado(estado));
+    }
+
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        agregar(vuelo);
+    }
+
+    @Override
+    public void vueloActualizado(Vuelo vuelo) {
+        // Los asientos no se copian: llegan como cambios y la fila pudo leerse antes de alguno
+        actualizar(vuelo.getIdVuelo(), indexado -> {
+            indexado.setAerolinea(vuelo.getAerolinea());
+            indexado.setNumeroVuelo(vuelo.getNumeroVuelo());
+            indexado.setOrigen(vuelo.getOrigen());
+            indexado.setDestino(vuelo.getDestino());
+            indexado.setFechaSalida(vuelo.getFechaSalida());
+            indexado.setFechaLlegada(vuelo.getFechaLlegada());
+            indexado.setPrecio(vuelo.getPrecio());
+            indexado.setEscalas(vuelo.getEscalas());
+            if (vuelo.getEstado() != null) {
+                indexado.setEstado(vuelo.getEstado());
+            }
+        });
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    private void agregar(Vuelo vuelo) {
+        if (vuelo.getFechaSalida() == null || vuelo.getFechaSalida().toLocalDate().isBefore(desde)) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            if (posicionPorId.containsKey(vuelo.getIdVuelo())) {
+                return;
+            }
+            int pos = tamano++;
+            if (pos == vuelos.length) {
+                vuelos = Arrays.copyOf(vuelos, pos * 2);
+                etiquetas = Arrays.copyOf(etiquetas, pos * 2);
+            }
+            vuelos[pos] = new Vuelo(vuelo);
+            etiquetas[pos] = etiquetar(vuelo);
+            posicionPorId.put(vuelo.getIdVuelo(), pos);
+            todos.agregar(pos);
+            for (Atributo atributo : Atributo.values()) {
+                bitmaps.get(atributo).computeIfAbsent(etiquetas[pos][atributo.ordinal()], k -> new BitmapComprimido())
+                        .agregar(pos);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio al vuelo y lo mueve a los bitmaps de sus valores nuevos.
+     */
+    private void actualizar(int idVuelo, Consumer<Vuelo> cambio) {
+        cerrojo.writeLock().lock();
+        try {
+            Integer pos = posicionPorId.get(idVuelo);
+            if (pos == null) {
+                return;
+            }
+            cambio.accept(vuelos[pos]);
+            String[] nuevas = etiquetar(vuelos[pos]);
+            for (Atributo atributo : Atributo.values()) {
+                int i = atributo.ordinal();
+                if (!nuevas[i].equals(etiquetas[pos][i])) {
+                    Map<String, BitmapComprimido> valores = bitmaps.get(atributo);
+                    BitmapComprimido anterior = valores.get(etiquetas[pos][i]);
+                    anterior.quitar(pos);
+                    valores.computeIfAbsent(nuevas[i], k -> new BitmapComprimido()).agregar(pos);
+                }
+            }
+            etiquetas[pos] = nuevas;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Intersección de los atributos del filtro (cada uno, unión de sus
+     * valores). Debe llamarse con el cerrojo tomado.
+     *
+     * @param excepto Atributo que no se aplica (para contar sus facetas), o null
+     */
+    private BitmapComprimido aplicar(Filtro filtro, Atributo excepto) {
+        return combinar(uniones(filtro), excepto);
+    }
+
+    /**
+     * Unión de los valores elegidos de cada atributo del filtro. Con un solo
+     * valor se usa su bitmap tal cual, sin copiarlo (no debe modificarse).
+     */
+    private Map<Atributo, BitmapComprimido> uniones(Filtro filtro) {
+        Map<Atributo, BitmapComprimido> uniones = new EnumMap<>(Atributo.class);
+        for (Map.Entry<Atributo, Set<String>> condicion : filtro.condiciones.entrySet()) {
+            Map<String, BitmapComprimido> valores = bitmaps.get(condicion.getKey());
+            List<BitmapComprimido> elegidos = new ArrayList<>();
+            for (String valor : condicion.getValue()) {
+                BitmapComprimido bitmap = valores.get(valor);
+                if (bitmap != null) {
+                    elegidos.add(bitmap);
+                }
+            }
+            uniones.put(condicion.getKey(), unir(elegidos));
+        }
+        for (Map.Entry<Atributo, String> prefijo : filtro.prefijos.entrySet()) {
+            // Los lugares que empiezan por el prefijo van seguidos en el mapa ordenado
+            NavigableMap<String, BitmapComprimido> valores = (NavigableMap<String, BitmapComprimido>) bitmaps.get(prefijo.getKey());
+            String desdePrefijo = prefijo.getValue();
+            uniones.put(prefijo.getKey(), unir(valores.subMap(desdePrefijo, true, desdePrefijo + Character.MAX_VALUE, false).values()));
+        }
+        return uniones;
+    }
+
+    private static BitmapComprimido unir(Iterable<BitmapComprimido> bitmapsElegidos) {
+        BitmapComprimido union = null;
+        boolean propia = false;
+        for (BitmapComprimido bitmap : bitmapsElegidos) {
+            if (union == null) {
+                union = bitmap;
+            } else {
+                if (!propia) {
+                    union = union.copia();
+                    propia = true;
+                }
+                union.orEn(bitmap);
+            }
+        }
+        return union != null ? union : new BitmapComprimido();
+    }
+
+    /**
+     * Intersección de las uniones salvo la de {@code excepto}.
+     */
+    private BitmapComprimido combinar(Map<Atributo, BitmapComprimido> uniones, Atributo excepto) {
+        List<BitmapComprimido> aplicables = new ArrayList<>(uniones.size());
+        for (Map.Entry<Atributo, BitmapComprimido> union : uniones.entrySet()) {
+            if (union.getKey() != excepto) {
+                aplicables.add(union.getValue());
+            }
+        }
+        if (aplicables.isEmpty()) {
+            return todos;
+        }
+
+        // La primera intersección crea un bitmap propio; las siguientes lo reducen en sitio
+        BitmapComprimido resultado = aplicables.get(0);
+        for (int i = 1; i < aplicables.size() && !resultado.esVacio(); i++) {
+            if (i == 1) {
+                resultado = BitmapComprimido.and(resultado, aplicables.get(i));
+            } else {
+                resultado.andEn(aplicables.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    private static String[] etiquetar(Vuelo vuelo) {
+        String[] etiquetas = new String[Atributo.values().length];
+        etiquetas[Atributo.AEROLINEA.ordinal()] = vuelo.getAerolinea() != null && vuelo.getAerolinea().getNombre() != null
+                ? vuelo.getAerolinea().getNombre() : "Sin aerolínea";
+        etiquetas[Atributo.ESTADO.ordinal()] = vuelo.getEstado() != null ? vuelo.getEstado() : "Sin estado";
+        etiquetas[Atributo.ESCALAS.ordinal()] = BANDAS_ESCALAS[Math.min(Math.max(vuelo.getEscalas(), 0), 2)];
+        etiquetas[Atributo.PRECIO.ordinal()] = BANDAS_PRECIO[banda(LIMITES_PRECIO, vuelo.getPrecio())];
+        etiquetas[Atributo.ASIENTOS.ordinal()] = BANDAS_ASIENTOS[banda(LIMITES_ASIENTOS, vuelo.getAsientosDisponibles())];
+        String origen = TrieLugares.normalizar(vuelo.getOrigen());
+        String destino = TrieLugares.normalizar(vuelo.getDestino());
+        etiquetas[Atributo.ORIGEN.ordinal()] = origen != null ? origen : "";
+        etiquetas[Atributo.DESTINO.ordinal()] = destino != null ? destino : "";
+        etiquetas[Atributo.DIA.ordinal()] = vuelo.getFechaSalida().toLocalDate().toString();
+        return etiquetas;
+    }
+
+    private static int banda(double[] limites, double valor) {
+        int i = limites.length - 1;
+        while (i > 0 && valor < limites[i]) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int banda(int[] limites, int valor) {
+        int i = limites.length - 1;
+        while (i > 0 && valor < limites[i]) {
+            i--;
+        }
+        return i;
+    }
+
+    private static Map<String, BitmapComprimido> bandas(String[] etiquetas) {
+        Map<String, BitmapComprimido> valores = new LinkedHashMap<>();
+        for (String etiqueta : etiquetas) {
+            valores.put(etiqueta, new BitmapComprimido());
+        }
+        return valores;
+    }
+
+    /**
+     * Valores elegidos por atributo. Dentro de un atributo basta con que el
+     * vuelo tenga uno de los valores; entre atributos tiene que cumplirlos todos.
+     */
+    public static final class Filtro {
+        private final Map<Atributo, Set<String>> condiciones = new EnumMap<>(Atributo.class);
+        private final Map<Atributo, String> prefijos = new EnumMap<>(Atributo.class);
+
+        /**
+         * Limita a una búsqueda: origen y destino por prefijo (sin distinguir
+         * tildes ni mayúsculas) y día de salida. Cualquiera puede ser null.
+         */
+        public Filtro enRuta(String origen, String destino, LocalDate fecha) {
+            String prefijoOrigen = TrieLugares.normalizar(origen);
+            String prefijoDestino = TrieLugares.normalizar(destino);
+            if (prefijoOrigen != null) {
+                prefijos.put(Atributo.ORIGEN, prefijoOrigen);
+            }
+            if (prefijoDestino != null) {
+                prefijos.put(Atributo.DESTINO, prefijoDestino);
+            }
+            if (fecha != null) {
+                con(Atributo.DIA, fecha.toString());
+            }
+            return this;
+        }
+
+        /**
+         * @return true si se eligió algún valor de alguna faceta (sin contar la ruta)
+         */
+        public boolean tieneFacetas() {
+            for (Atributo atributo : condiciones.keySet()) {
+                if (atributo.faceta) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Agrega valores aceptados para el atributo (las etiquetas que devuelve
+         * {@link IndiceFacetas#contarFacetas}).
+         */
+        public Filtro con(Atributo atributo, String... valores) {
+            condiciones.computeIfAbsent(atributo, k -> new HashSet<>()).addAll(Arrays.asList(valores));
+            return this;
+        }
+    }
+}
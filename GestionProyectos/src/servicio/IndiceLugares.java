@@ -0,0 +1,422 @@
+// servicio/IndiceLugares.java
+package servicio;
+
+import dao.EventosVuelo;
+import dao.VueloDAO;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import modelo.Vuelo;
+
+/**
+ * Índice de trigramas sobre los nombres de origen y destino para encontrar
+ * lugares aunque el texto tenga tildes distintas, mayúsculas o erratas
+ * ("espana", "Bogta" → "España", "Bogotá").
+ *
+ * Cada nombre se normaliza (sin tildes, minúsculas, solo letras y dígitos) y
+ * se parte en trigramas; para cada trigrama se guarda la lista de lugares que
+ * lo contienen. Una búsqueda solo recorre las listas de los trigramas del
+ * texto buscado y ordena los lugares por similitud (coeficiente de Dice),
+ * sin comparar contra todos los nombres.
+ *
+ * Para autocompletar, un árbol de prefijos guarda en cada nodo los lugares
+ * más usados (por número de vuelos) que empiezan así, ya ordenados: completar
+ * un prefijo es bajar por el árbol y leer esa lista, sin recorrer los
+ * lugares. También se completa desde el inicio de cada palabra ("jose" →
+ * "San José").
+ *
+ * Las variantes de un mismo nombre ("Perú"/"Peru") quedan en una sola
+ * entrada, que se muestra con tildes si alguna variante las tiene. El índice
+ * crece con cada vuelo insertado (avisos de {@link EventosVuelo}).
+ */
+public class IndiceLugares implements EventosVuelo.Oyente {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    /** Similitud mínima para que un lugar se considere coincidencia. */
+    public static final double SIMILITUD_MINIMA = 0.3;
+
+    /** Máximo de lugares que guarda cada nodo del árbol de autocompletado. */
+    public static final int MAX_SUGERENCIAS = 10;
+
+    private static IndiceLugares instancia = null;
+
+    // Contadores de buscar(), uno por hilo: se reutilizan entre consultas
+    private static final ThreadLocal<Contador> CONTADORES = ThreadLocal.withInitial(Contador::new);
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    // Protegidos por "cerrojo"
+    private final Map<String, Integer> idPorClave = new HashMap<>();
+    private final List<String> nombres = new ArrayList<>();
+    private int[] trigramasPorLugar = new int[64];
+    private int[] usosPorLugar = new int[64];
+    private final Map<Long, Lista> lugaresPorTrigrama = new HashMap<>();
+    private final Nodo raiz = new Nodo();
+
+    /**
+     * Índice compartido, cargado con los lugares de todos los vuelos de la
+     * base y suscrito a los vuelos nuevos.
+     */
+    public static synchronized IndiceLugares getInstancia() {
+        if (instancia == null) {
+            IndiceLugares indice = new IndiceLugares();
+            new VueloDAO().contarLugares().forEach(indice::agregar);
+            EventosVuelo.suscribir(indice);
+            instancia = indice;
+        }
+        return instancia;
+    }
+
+    /**
+     * Agrega un lugar o, si ya está (con cualquier variante), suma sus usos.
+     *
+     * @param lugar Nombre tal como se escribió
+     * @param usos Número de vuelos que lo usan (pesa al desempatar)
+     */
+    public void agregar(String lugar, int usos) {
+        String clave = normalizar(lugar);
+        if (clave == null) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            Integer id = idPorClave.get(clave);
+            if (id != null) {
+                usosPorLugar[id] += usos;
+                // Se prefiere mostrar la variante con tildes ("España" antes que "Espana")
+                if (contarNoAscii(lugar) > contarNoAscii(nombres.get(id))) {
+                    nombres.set(id, lugar.trim());
+                }
+                indexarPrefijos(clave, id);
+                return;
+            }
+
+            id = nombres.size();
+            nombres.add(lugar.trim());
+            idPorClave.put(clave, id);
+            if (id == usosPorLugar.length) {
+                usosPorLugar = Arrays.copyOf(usosPorLugar, id * 2);
+                trigramasPorLugar = Arrays.copyOf(trigramasPorLugar, id * 2);
+            }
+            usosPorLugar[id] = usos;
+
+            long[] trigramas = trigramas(clave);
+            trigramasPorLugar[id] = trigramas.length;
+            for (long trigrama : trigramas) {
+                lugaresPorTrigrama.computeIfAbsent(trigrama, k -> new Lista()).agregar(id);
+            }
+            indexarPrefijos(clave, id);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los lugares más parecidos al texto, tolerando tildes, mayúsculas
+     * y erratas.
+     *
+     * @param texto Texto escrito por el usuario
+     * @param limite Número máximo de resultados
+     * @return Coincidencias de la más a la menos parecida (empates: el lugar más usado primero)
+     */
+    public List<Coincidencia> buscar(String texto, int limite) {
+        List<Coincidencia> resultado = new ArrayList<>();
+        String clave = normalizar(texto);
+        if (clave == null || limite <= 0) {
+            return resultado;
+        }
+        long[] buscados = trigramas(clave);
+
+        cerrojo.readLock().lock();
+        try {
+            // Trigramas compartidos por lugar; solo se tocan los lugares que comparten alguno
+            Contador contador = CONTADORES.get();
+            contador.preparar(nombres.size());
+            int[] compartidos = contador.compartidos;
+            int[] tocados = contador.tocados;
+            int totalTocados = 0;
+            try {
+                for (long trigrama : buscados) {
+                    Lista lista = lugaresPorTrigrama.get(trigrama);
+                    if (lista == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < lista.tamano; i++) {
+                        int id = lista.ids[i];
+                        if (compartidos[id]++ == 0) {
+                            tocados[totalTocados++] = id;
+                        }
+                    }
+                }
+
+                for (int i = 0; i < totalTocados; i++) {
+                    int id = tocados[i];
+                    double similitud = 2.0 * compartidos[id] / (buscados.length + trigramasPorLugar[id]);
+                    if (similitud >= SIMILITUD_MINIMA) {
+                        resultado.add(new Coincidencia(nombres.get(id), similitud, usosPorLugar[id]));
+                    }
+                }
+            } finally {
+                // Solo se limpian los lugares tocados, no todo el arreglo
+                for (int i = 0; i < totalTocados; i++) {
+                    compartidos[tocados[i]] = 0;
+                }
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+
+        resultado.sort((a, b) -> a.similitud() != b.similitud()
+                ? Double.compare(b.similitud(), a.similitud())
+                : Integer.compare(b.usos(), a.usos()));
+        return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+    }
+
+    /**
+     * Lugares que empiezan por el texto (o que tienen una palabra que empieza
+     * por él), los más usados primero. Sin tildes ni mayúsculas: "sao" → "São Paulo".
+     *
+     * @param prefijo Texto escrito hasta ahora
+     * @param limite Número máximo de sugerencias (como mucho {@link #MAX_SUGERENCIAS})
+     * @return Nombres de los lugares sugeridos
+     */
+    public List<String> autocompletar(String prefijo, int limite) {
+        List<String> sugerencias = new ArrayList<>();
+        String clave = normalizar(prefijo);
+        if (clave == null || limite <= 0) {
+            return sugerencias;
+        }
+        cerrojo.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            for (int i = 0; i < clave.length() && nodo != null; i++) {
+                nodo = nodo.hijo(clave.charAt(i));
+            }
+            if (nodo != null) {
+                for (int i = 0; i < nodo.tamano && sugerencias.size() < limite; i++) {
+                    sugerencias.add(nombres.get(nodo.mejores[i]));
+                }
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        return sugerencias;
+    }
+
+    /**
+     * @return El lugar más parecido al texto, o null si ninguno es suficientemente parecido
+     */
+    public String mejorCoincidencia(String texto) {
+        List<Coincidencia> coincidencias = buscar(texto, 1);
+        return coincidencias.isEmpty() ? null : coincidencias.get(0).lugar();
+    }
+
+    /**
+     * @return Número de lugares distintos en el índice
+     */
+    public int getLugares() {
+        cerrojo.readLock().lock();
+        try {
+            return nombres.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        agregar(vuelo.getOrigen(), 1);
+        agregar(vuelo.getDestino(), 1);
+    }
+
+    // --- Métodos auxiliares ---
+
+    /**
+     * Forma con la que se comparan los lugares: sin tildes ni diéresis,
+     * minúsculas y con cualquier signo convertido en un espacio
+     * ("  São-Paulo " → "sao paulo").
+     *
+     * @return El texto normalizado, o null si queda vacío
+     */
+    static String normalizar(String lugar) {
+        if (lugar == null) {
+            return null;
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(lugar, Normalizer.Form.NFD)).replaceAll("");
+        String normalizado = SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    /**
+     * Trigramas distintos del texto normalizado. Cada palabra se rellena con
+     * dos espacios al inicio y uno al final, así las palabras cortas y los
+     * comienzos de palabra también cuentan ("sol" → "  s", " so", "sol", "ol ").
+     */
+    private static long[] trigramas(String clave) {
+        List<Long> unicos = new ArrayList<>();
+        for (String palabra : clave.split(" ")) {
+            String relleno = "  " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                long trigrama = ((long) relleno.charAt(i) << 32) | ((long) relleno.charAt(i + 1) << 16)
+                        | relleno.charAt(i + 2);
+                if (!unicos.contains(trigrama)) {
+                    unicos.add(trigrama);
+                }
+            }
+        }
+        long[] resultado = new long[unicos.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = unicos.get(i);
+        }
+        return resultado;
+    }
+
+    /**
+     * Registra el lugar en los nodos de su nombre completo y de cada palabra
+     * que no sea la primera. Debe llamarse con el cerrojo de escritura tomado
+     * y después de actualizar sus usos.
+     */
+    private void indexarPrefijos(String clave, int id) {
+        for (int inicio = 0; inicio < clave.length(); inicio++) {
+            if (inicio > 0 && clave.charAt(inicio - 1) != ' ') {
+                continue;
+            }
+            Nodo nodo = raiz;
+            for (int i = inicio; i < clave.length(); i++) {
+                nodo = nodo.hijoOCrear(clave.charAt(i));
+                nodo.ofrecer(id, usosPorLugar);
+            }
+        }
+    }
+
+    private static int contarNoAscii(String texto) {
+        int cuenta = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 127) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    /**
+     * Trigramas compartidos por lugar en una búsqueda y los lugares tocados.
+     * Entre búsquedas {@code compartidos} queda todo en cero.
+     */
+    private static final class Contador {
+        private int[] compartidos = new int[64];
+        private int[] tocados = new int[64];
+
+        /**
+         * Crece si el índice tiene más lugares que la última vez.
+         */
+        void preparar(int lugares) {
+            if (compartidos.length < lugares) {
+                int tamano = Math.max(lugares, compartidos.length * 2);
+                compartidos = new int[tamano];
+                tocados = new int[tamano];
+            }
+        }
+    }
+
+    /**
+     * Lista creciente de ids de lugar sin cajas de Integer.
+     */
+    private static final class Lista {
+        private int[] ids = new int[4];
+        private int tamano = 0;
+
+        void agregar(int id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            ids[tamano++] = id;
+        }
+    }
+
+    /**
+     * Nodo del árbol de autocompletado con los lugares más usados bajo él,
+     * ordenados de más a menos vuelos. Los hijos van en arreglos ordenados
+     * por carácter (sin mapas ni cajas) para que el árbol ocupe poco.
+     */
+    private static final class Nodo {
+        private static final char[] SIN_LETRAS = new char[0];
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+        private char[] letras = SIN_LETRAS;
+        private Nodo[] hijos = SIN_HIJOS;
+        private int[] mejores = new int[1];
+        private int tamano = 0;
+
+        Nodo hijo(char letra) {
+            int pos = Arrays.binarySearch(letras, letra);
+            return pos >= 0 ? hijos[pos] : null;
+        }
+
+        Nodo hijoOCrear(char letra) {
+            int pos = Arrays.binarySearch(letras, letra);
+            if (pos >= 0) {
+                return hijos[pos];
+            }
+            pos = -pos - 1;
+            char[] nuevasLetras = new char[letras.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, pos);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, pos);
+            System.arraycopy(letras, pos, nuevasLetras, pos + 1, letras.length - pos);
+            System.arraycopy(hijos, pos, nuevosHijos, pos + 1, hijos.length - pos);
+            Nodo nuevo = new Nodo();
+            nuevasLetras[pos] = letra;
+            nuevosHijos[pos] = nuevo;
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+            return nuevo;
+        }
+
+        /**
+         * Coloca el lugar en su posición si está entre los más usados. Como
+         * los usos solo crecen, un lugar que ya está solo puede subir.
+         */
+        void ofrecer(int id, int[] usos) {
+            int pos = -1;
+            for (int i = 0; i < tamano; i++) {
+                if (mejores[i] == id) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                if (tamano < MAX_SUGERENCIAS) {
+                    if (tamano == mejores.length) {
+                        mejores = Arrays.copyOf(mejores, Math.min(tamano * 2, MAX_SUGERENCIAS));
+                    }
+                    pos = tamano++;
+                } else if (usos[id] > usos[mejores[tamano - 1]]) {
+                    pos = tamano - 1;
+                } else {
+                    return;
+                }
+                mejores[pos] = id;
+            }
+            while (pos > 0 && usos[mejores[pos - 1]] < usos[id]) {
+                mejores[pos] = mejores[pos - 1];
+                mejores[--pos] = id;
+            }
+        }
+    }
+
+    /**
+     * Lugar encontrado, su similitud con el texto buscado (0 a 1) y cuántos vuelos lo usan.
+     */
+    public record Coincidencia(String lugar, double similitud, int usos) {
+    }
+}
@@ -0,0 +1,690 @@
+// servicio/IndiceRutas.java
+package servicio;
+
+import dao.EventosVuelo;
+import dao.OrdenVuelos;
+import dao.PaginaVuelos;
+import dao.VueloDAO;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import modelo.TarifaDia;
+import modelo.Vuelo;
+
+/**
+ * Índice en memoria de los vuelos de hoy en adelante para responder las
+ * búsquedas sin ir a SQL Server.
+ *
+ * Los vuelos se agrupan por (origen, destino, día de salida). Origen y destino
+ * se resuelven por prefijo con un {@link TrieLugares}, así que "bog" encuentra
+ * "Bogotá" sin recorrer todos los vuelos ni usar LIKE.
+ *
+ * Los asientos disponibles se mantienen al día con los avisos de
+ * {@link EventosVuelo} que publican los DAO tras cada reserva, retención o
+ * cancelación. Además el índice se recarga entero cada cierto tiempo para
+ * recoger cambios hechos fuera de esta aplicación; los avisos que llegan
+ * mientras se recarga se guardan y se repiten sobre el índice nuevo antes de
+ * publicarlo.
+ */
+public class IndiceRutas implements EventosVuelo.Oyente {
+
+    private static final Comparator<Entrada> POR_SALIDA =
+            Comparator.comparing((Entrada e) -> e.vuelo.getFechaSalida())
+                      .thenComparingInt(e -> e.vuelo.getIdVuelo());
+
+    private static volatile IndiceRutas instancia = null;
+
+    private final VueloDAO vueloDAO;
+    private final ScheduledExecutorService recargador;
+    private volatile Instantanea actual = null;
+
+    // Protege el cambio de instantánea y la cola de avisos de la recarga en curso
+    private final Object cerrojoRecarga = new Object();
+    private List<Consumer<Instantanea>> pendientes = null;
+
+    private IndiceRutas(VueloDAO vueloDAO) {
+        this.vueloDAO = vueloDAO;
+        this.recargador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "indice-rutas-recarga");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Empieza a cargar el índice en segundo plano y lo recarga cada
+     * {@code intervaloRecargaMs}. Hasta que termina la primera carga,
+     * {@link #getInstancia()} devuelve null y las búsquedas van a la base.
+     */
+    public static synchronized void iniciar(long intervaloRecargaMs) {
+        if (instancia != null) {
+            return;
+        }
+        IndiceRutas indice = new IndiceRutas(new VueloDAO());
+        EventosVuelo.suscribir(indice);
+        indice.recargador.scheduleWithFixedDelay(indice::recargar, 0, intervaloRecargaMs, TimeUnit.MILLISECONDS);
+        instancia = indice;
+    }
+
+    /**
+     * @return El índice compartido, o null si no está iniciado o aún no terminó de cargar
+     */
+    public static IndiceRutas getInstancia() {
+        IndiceRutas indice = instancia;
+        return indice != null && indice.actual != null ? indice : null;
+    }
+
+    /**
+     * Deja de usar el índice; las búsquedas vuelven a la base.
+     */
+    public static synchronized void detener() {
+        if (instancia == null) {
+            return;
+        }
+        EventosVuelo.cancelarSuscripcion(instancia);
+        instancia.recargador.shutdownNow();
+        instancia = null;
+    }
+
+    /**
+     * @return true si el índice tiene todos los vuelos de esa fecha
+     */
+    public boolean cubre(LocalDate fecha) {
+        Instantanea indice = actual;
+        return fecha != null && indice != null && !fecha.isBefore(indice.desde);
+    }
+
+    /**
+     * Busca vuelos por prefijo de origen y destino y por día de salida.
+     * Devuelve copias: el llamador puede modificarlas sin afectar al índice.
+     *
+     * @param origen Prefijo del origen, o null para cualquiera
+     * @param destino Prefijo del destino, o null para cualquiera
+     * @param fecha Día de salida, o null para cualquiera
+     * @return Vuelos ordenados por fecha de salida
+     */
+    public List<Vuelo> buscar(String origen, String destino, LocalDate fecha) {
+        List<Entrada> encontradas = encontrar(origen, destino, fecha);
+        List<Vuelo> vuelos = new ArrayList<>(encontradas.size());
+        for (Entrada entrada : encontradas) {
+            vuelos.add(entrada.copiar());
+        }
+        return vuelos;
+    }
+
+    /**
+     * Como {@link #buscar}, pero devuelve solo los {@code tamano} vuelos que
+     * siguen a {@code despues} (o los primeros si es null).
+     *
+     * Cada ruta empieza en el día del cursor y, dentro de ese día, en el primer
+     * vuelo posterior (búsqueda binaria); las rutas se mezclan en orden de
+     * salida y se deja de leer al completar la página. Así cada página cuesta
+     * lo mismo sin importar cuántos vuelos haya antes del cursor.
+     */
+    public PaginaVuelos buscarPagina(String origen, String destino, LocalDate fecha,
+                                     PaginaVuelos.Cursor despues, int tamano) {
+        Instantanea indice = actual;
+        List<Vuelo> vuelos = new ArrayList<>();
+        if (indice == null || tamano <= 0) {
+            return new PaginaVuelos(vuelos, false);
+        }
+
+        PriorityQueue<Recorrido> frente = new PriorityQueue<>(Comparator.comparing(Recorrido::actual, POR_SALIDA));
+        for (NavigableMap<LocalDate, Entrada[]> ruta : rutas(indice, origen, destino)) {
+            NavigableMap<LocalDate, Entrada[]> dias = fecha != null ? ruta.subMap(fecha, true, fecha, true) : ruta;
+            if (despues != null) {
+                dias = dias.tailMap(despues.fechaSalida().toLocalDate(), true);
+            }
+            Recorrido recorrido = new Recorrido(dias.values().iterator(), despues);
+            if (recorrido.hayActual()) {
+                frente.add(recorrido);
+            }
+        }
+
+        while (vuelos.size() < tamano && !frente.isEmpty()) {
+            Recorrido recorrido = frente.poll();
+            vuelos.add(recorrido.actual().copiar());
+            recorrido.avanzar();
+            if (recorrido.hayActual()) {
+                frente.add(recorrido);
+            }
+        }
+        return new PaginaVuelos(vuelos, !frente.isEmpty());
+    }
+
+    /**
+     * Los {@code k} mejores vuelos según {@code orden} con al menos
+     * {@code minAsientos} libres que salen desde {@code desdeMomento}. Usa un
+     * montículo acotado a {@code k}, así que solo se copian y ordenan esos k;
+     * por salida, además, deja de recorrer cada ruta en cuanto sus días ya no
+     * pueden mejorar el resultado.
+     *
+     * @param fecha Día de salida, o null para cualquiera
+     * @return Vuelos del mejor al peor
+     */
+    public List<Vuelo> buscarMejores(String origen, String destino, LocalDate fecha, OrdenVuelos orden,
+                                     int minAsientos, LocalDateTime desdeMomento, int k) {
+        Instantanea indice = actual;
+        List<Vuelo> mejores = new ArrayList<>();
+        if (indice == null || k <= 0) {
+            return mejores;
+        }
+        Comparator<Candidato> comparador = Comparator.comparingDouble(Candidato::clave)
+                .thenComparingInt(c -> c.entrada.vuelo.getIdVuelo());
+        // El peor de los k mejores queda arriba para descartarlo
+        PriorityQueue<Candidato> monticulo = new PriorityQueue<>(k + 1, comparador.reversed());
+
+        for (NavigableMap<LocalDate, Entrada[]> ruta : rutas(indice, origen, destino)) {
+            NavigableMap<LocalDate, Entrada[]> dias = fecha != null
+                    ? ruta.subMap(fecha, true, fecha, true)
+                    : ruta.tailMap(desdeMomento.toLocalDate(), true);
+            for (Entrada[] delDia : dias.values()) {
+                if (orden == OrdenVuelos.SALIDA && monticulo.size() == k
+                        && delDia[0].vuelo.getFechaSalida().isAfter(monticulo.peek().entrada.vuelo.getFechaSalida())) {
+                    break; // Los días siguientes salen aún más tarde
+                }
+                for (Entrada entrada : delDia) {
+                    int libres = entrada.asientos.get();
+                    if (libres < minAsientos || entrada.vuelo.getFechaSalida().isBefore(desdeMomento)) {
+                        continue;
+                    }
+                    double clave = orden.clave(entrada.vuelo, libres);
+                    if (monticulo.size() == k) {
+                        Candidato peor = monticulo.peek();
+                        if (clave > peor.clave || (clave == peor.clave
+                                && entrada.vuelo.getIdVuelo() > peor.entrada.vuelo.getIdVuelo())) {
+                            continue; // Solo se crea el candidato si entra entre los k mejores
+                        }
+                        monticulo.poll();
+                    }
+                    monticulo.add(new Candidato(entrada, libres, clave));
+                }
+            }
+        }
+
+        List<Candidato> ordenados = new ArrayList<>(monticulo);
+        ordenados.sort(comparador);
+        for (Candidato candidato : ordenados) {
+            mejores.add(candidato.entrada.copiar(candidato.asientos));
+        }
+        return mejores;
+    }
+
+    /**
+     * Resume cada día de [desde, hasta] para las rutas que cumplen los
+     * prefijos: precio mínimo y asientos libres entre los vuelos que aún
+     * tienen asientos. Recorre una sola vez los días de la ventana.
+     *
+     * @return Un elemento por día de la ventana, en orden (también los días sin vuelos)
+     */
+    public List<TarifaDia> calendarioTarifas(String origen, String destino, LocalDate desde, LocalDate hasta) {
+        int dias = (int) (hasta.toEpochDay() - desde.toEpochDay()) + 1;
+        double[] minimos = new double[Math.max(dias, 0)];
+        int[] asientos = new int[minimos.length];
+        int[] vuelos = new int[minimos.length];
+
+        Instantanea indice = actual;
+        if (indice != null && dias > 0) {
+            for (NavigableMap<LocalDate, Entrada[]> ruta : rutas(indice, origen, destino)) {
+                for (Map.Entry<LocalDate, Entrada[]> dia : ruta.subMap(desde, true, hasta, true).entrySet()) {
+                    int i = (int) (dia.getKey().toEpochDay() - desde.toEpochDay());
+                    for (Entrada entrada : dia.getValue()) {
+                        int libres = entrada.asientos.get();
+                        if (libres <= 0) {
+                            continue;
+                        }
+                        double precio = entrada.vuelo.getPrecio();
+                        if (vuelos[i] == 0 || precio < minimos[i]) {
+                            minimos[i] = precio;
+                        }
+                        asientos[i] += libres;
+                        vuelos[i]++;
+                    }
+                }
+            }
+        }
+
+        List<TarifaDia> calendario = new ArrayList<>(minimos.length);
+        for (int i = 0; i < minimos.length; i++) {
+            LocalDate fecha = desde.plusDays(i);
+            calendario.add(vuelos[i] == 0 ? TarifaDia.sinVuelos(fecha)
+                    : new TarifaDia(fecha, minimos[i], asientos[i], vuelos[i]));
+        }
+        return calendario;
+    }
+
+    /**
+     * @return Entradas que cumplen los filtros, ordenadas por (salida, id)
+     */
+    private List<Entrada> encontrar(String origen, String destino, LocalDate fecha) {
+        Instantanea indice = actual;
+        List<Entrada> encontradas = new ArrayList<>();
+        if (indice == null) {
+            return encontradas;
+        }
+        for (NavigableMap<LocalDate, Entrada[]> dias : rutas(indice, origen, destino)) {
+            agregarDias(dias, fecha, encontradas);
+        }
+        encontradas.sort(POR_SALIDA);
+        return encontradas;
+    }
+
+    /**
+     * @return Vuelos por día de cada ruta (origen, destino) que cumple los prefijos
+     */
+    private static List<NavigableMap<LocalDate, Entrada[]>> rutas(Instantanea indice, String origen, String destino) {
+        List<NavigableMap<LocalDate, Entrada[]>> rutas = new ArrayList<>();
+        String prefijoOrigen = TrieLugares.normalizar(origen);
+        String prefijoDestino = TrieLugares.normalizar(destino);
+        Collection<String> origenes = prefijoOrigen == null
+                ? indice.rutas.keySet() : indice.origenes.buscarPrefijo(prefijoOrigen);
+        Set<String> destinos = prefijoDestino == null
+                ? null : new HashSet<>(indice.destinos.buscarPrefijo(prefijoDestino));
+        if (destinos != null && destinos.isEmpty()) {
+            return rutas;
+        }
+
+        for (String lugarOrigen : origenes) {
+            Map<String, NavigableMap<LocalDate, Entrada[]>> porDestino = indice.rutas.get(lugarOrigen);
+            if (porDestino == null) {
+                continue;
+            }
+            if (destinos == null) {
+                rutas.addAll(porDestino.values());
+            } else {
+                for (String lugarDestino : destinos) {
+                    NavigableMap<LocalDate, Entrada[]> dias = porDestino.get(lugarDestino);
+                    if (dias != null) {
+                        rutas.add(dias);
+                    }
+                }
+            }
+        }
+        return rutas;
+    }
+
+    /**
+     * @return Copia de todos los vuelos del índice, en ningún orden particular
+     */
+    public List<Vuelo> getVuelos() {
+        Instantanea indice = actual;
+        List<Vuelo> vuelos = new ArrayList<>();
+        if (indice != null) {
+            for (Entrada entrada : indice.porId.values()) {
+                vuelos.add(entrada.copiar());
+            }
+        }
+        return vuelos;
+    }
+
+    /**
+     * @return Número de vuelos en el índice
+     */
+    public int getVuelosIndexados() {
+        Instantanea indice = actual;
+        return indice != null ? indice.porId.size() : 0;
+    }
+
+    // --- Avisos de los DAO ---
+
+    @Override
+    public void asientosCambiados(int idVuelo, int cambio) {
+        Instantanea indice = encolar(nueva -> nueva.reponerAsientos(idVuelo, cambio));
+        if (indice != null) {
+            indice.cambiarAsientos(idVuelo, cambio);
+        }
+    }
+
+    @Override
+    public void estadoCambiado(int idVuelo, String estado) {
+        Consumer<Instantanea> cambio = indice -> indice.cambiarEstado(idVuelo, estado);
+        Instantanea indice = encolar(cambio);
+        if (indice != null) {
+            cambio.accept(indice);
+        }
+    }
+
+    @Override
+    public void vueloInsertado(Vuelo vuelo) {
+        // Cada instantánea crea su propia entrada: compartirla duplicaría los cambios de asientos
+        Vuelo copia = new Vuelo(vuelo);
+        Consumer<Instantanea> cambio = indice -> indice.reemplazar(Entrada.de(copia));
+        Instantanea indice = encolar(cambio);
+        if (indice != null) {
+            cambio.accept(indice);
+        }
+    }
+
+    @Override
+    public void vueloActualizado(Vuelo vuelo) {
+        // Pudo cambiar de ruta o de día: reemplazar lo saca de donde estaba
+        vueloInsertado(vuelo);
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    /**
+     * Si hay una recarga en curso, guarda {@code reponer} para repetirlo sobre
+     * el índice nuevo.
+     *
+     * @return La instantánea a la que aplicar el aviso ahora, o null si aún no hay
+     */
+    private Instantanea encolar(Consumer<Instantanea> reponer) {
+        // Se lee actual con el cerrojo: un aviso encolado nunca se aplica
+        // además directamente sobre la instantánea nueva
+        synchronized (cerrojoRecarga) {
+            if (pendientes != null) {
+                pendientes.add(reponer);
+            }
+            return actual;
+        }
+    }
+
+    private static void agregarDias(NavigableMap<LocalDate, Entrada[]> dias, LocalDate fecha, List<Entrada> destino) {
+        if (fecha != null) {
+            Entrada[] delDia = dias.get(fecha);
+            if (delDia != null) {
+                destino.addAll(Arrays.asList(delDia));
+            }
+        } else {
+            for (Entrada[] delDia : dias.values()) {
+                destino.addAll(Arrays.asList(delDia));
+            }
+        }
+    }
+
+    /**
+     * Construye un índice nuevo desde la base y lo publica de una vez; las
+     * búsquedas en curso terminan con el anterior.
+     */
+    private void recargar() {
+        try {
+            LocalDate hoy = LocalDate.now();
+            // Desde antes de leer la base: lo que cambie durante la lectura se repite después
+            synchronized (cerrojoRecarga) {
+                pendientes = new ArrayList<>();
+            }
+            List<Vuelo> vuelos = vueloDAO.cargarVuelosDesde(hoy);
+            if (vuelos == null) {
+                System.err.println("❌ No se pudo recargar el índice de rutas; se mantiene el anterior.");
+                return;
+            }
+            Instantanea nueva = new Instantanea(hoy, vuelos);
+            boolean primeraCarga;
+            synchronized (cerrojoRecarga) {
+                for (Consumer<Instantanea> aviso : pendientes) {
+                    aviso.accept(nueva);
+                }
+                pendientes = null;
+                primeraCarga = actual == null;
+                actual = nueva;
+            }
+            if (primeraCarga) {
+                System.out.println("✅ Índice de rutas cargado: " + vuelos.size() + " vuelos.");
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las recargas programadas
+            System.err.println("❌ Error al recargar el índice de rutas:");
+            e.printStackTrace();
+        } finally {
+            synchronized (cerrojoRecarga) {
+                pendientes = null;
+            }
+        }
+    }
+
+    /**
+     * Avanza por los vuelos de una ruta en orden de salida, día tras día.
+     */
+    private static final class Recorrido {
+        private final Iterator<Entrada[]> dias;
+        private Entrada[] delDia;
+        private int posicion;
+
+        /**
+         * @param despues Si no es null, se empieza en el primer vuelo posterior a este cursor
+         */
+        Recorrido(Iterator<Entrada[]> dias, PaginaVuelos.Cursor despues) {
+            this.dias = dias;
+            siguienteDia();
+            if (delDia != null && despues != null) {
+                // Solo el primer día puede tener vuelos anteriores al cursor
+                int desde = 0;
+                int hasta = delDia.length;
+                while (desde < hasta) {
+                    int medio = (desde + hasta) >>> 1;
+                    if (despues.precedeA(delDia[medio].vuelo)) {
+                        hasta = medio;
+                    } else {
+                        desde = medio + 1;
+                    }
+                }
+                posicion = desde;
+                if (posicion == delDia.length) {
+                    siguienteDia();
+                }
+            }
+        }
+
+        boolean hayActual() {
+            return delDia != null;
+        }
+
+        Entrada actual() {
+            return delDia[posicion];
+        }
+
+        void avanzar() {
+            if (++posicion == delDia.length) {
+                siguienteDia();
+            }
+        }
+
+        private void siguienteDia() {
+            delDia = null;
+            posicion = 0;
+            while (dias.hasNext()) {
+                Entrada[] siguiente = dias.next();
+                if (siguiente.length > 0) {
+                    delDia = siguiente;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vuelo que compite por entrar en los k mejores, con los asientos leídos al evaluarlo.
+     */
+    private record Candidato(Entrada entrada, int asientos, double clave) {
+    }
+
+    /**
+     * Vuelo indexado con su contador de asientos y su estado, que se
+     * actualizan en sitio. El Vuelo no se modifica después de indexarlo (lo
+     * leen varias búsquedas a la vez); lo que cambia vive en estos campos.
+     */
+    private static final class Entrada {
+        private final Vuelo vuelo;
+        private final AtomicInteger asientos;
+        private volatile String estado;
+
+        private Entrada(Vuelo vuelo) {
+            this.vuelo = vuelo;
+            this.asientos = new AtomicInteger(vuelo.getAsientosDisponibles());
+            this.estado = vuelo.getEstado();
+        }
+
+        /**
+         * El índice guarda su propia copia para no compartir el objeto con el llamador.
+         */
+        static Entrada de(Vuelo vuelo) {
+            return new Entrada(new Vuelo(vuelo));
+        }
+
+        Vuelo copiar() {
+            return copiar(asientos.get());
+        }
+
+        Vuelo copiar(int asientosDisponibles) {
+            Vuelo copia = new Vuelo(vuelo);
+            copia.setAsientosDisponibles(asientosDisponibles);
+            copia.setEstado(estado);
+            return copia;
+        }
+    }
+
+    /**
+     * Estado completo del índice en un momento dado. Crece con los vuelos
+     * insertados y mueve los actualizados; una recarga crea una instantánea
+     * nueva de una vez con {@link #Instantanea(LocalDate, List)}.
+     */
+    private static final class Instantanea {
+        private final LocalDate desde;
+        private final TrieLugares origenes = new TrieLugares();
+        private final TrieLugares destinos = new TrieLugares();
+        // origen → destino → día de salida → vuelos ordenados por salida
+        private final Map<String, Map<String, NavigableMap<LocalDate, Entrada[]>>> rutas = new ConcurrentHashMap<>();
+        private final Map<Integer, Entrada> porId = new ConcurrentHashMap<>();
+
+        /**
+         * Agrupa primero los vuelos por ruta y día y crea cada arreglo una sola
+         * vez, en lugar de copiarlo con cada vuelo agregado.
+         */
+        private Instantanea(LocalDate desde, List<Vuelo> vuelos) {
+            this.desde = desde;
+            Map<String, Map<String, Map<LocalDate, List<Entrada>>>> grupos = new HashMap<>();
+            for (Vuelo vuelo : vuelos) {
+                String origen = TrieLugares.normalizar(vuelo.getOrigen());
+                String destino = TrieLugares.normalizar(vuelo.getDestino());
+                if (origen == null || destino == null || vuelo.getFechaSalida() == null) {
+                    continue;
+                }
+                Entrada entrada = Entrada.de(vuelo);
+                porId.put(vuelo.getIdVuelo(), entrada);
+                grupos.computeIfAbsent(origen, k -> new HashMap<>())
+                      .computeIfAbsent(destino, k -> new HashMap<>())
+                      .computeIfAbsent(vuelo.getFechaSalida().toLocalDate(), k -> new ArrayList<>())
+                      .add(entrada);
+            }
+
+            for (Map.Entry<String, Map<String, Map<LocalDate, List<Entrada>>>> porOrigen : grupos.entrySet()) {
+                origenes.agregar(porOrigen.getKey());
+                Map<String, NavigableMap<LocalDate, Entrada[]>> porDestino = new ConcurrentHashMap<>();
+                for (Map.Entry<String, Map<LocalDate, List<Entrada>>> ruta : porOrigen.getValue().entrySet()) {
+                    destinos.agregar(ruta.getKey());
+                    NavigableMap<LocalDate, Entrada[]> dias = new ConcurrentSkipListMap<>();
+                    for (Map.Entry<LocalDate, List<Entrada>> dia : ruta.getValue().entrySet()) {
+                        Entrada[] delDia = dia.getValue().toArray(new Entrada[0]);
+                        Arrays.sort(delDia, POR_SALIDA);   // La carga llega ordenada: una sola pasada
+                        dias.put(dia.getKey(), delDia);
+                    }
+                    porDestino.put(ruta.getKey(), dias);
+                }
+                rutas.put(porOrigen.getKey(), porDestino);
+            }
+        }
+
+        void cambiarAsientos(int idVuelo, int cambio) {
+            Entrada entrada = porId.get(idVuelo);
+            if (entrada != null) {
+                entrada.asientos.addAndGet(cambio);
+            }
+        }
+
+        /**
+         * Repite un cambio de asientos llegado durante la recarga. Si el vuelo lo
+         * lleva el inventario se toma su cuenta, que ya incluye el cambio; si no,
+         * se suma (la lectura pudo ver o no la fila ya cambiada, y la siguiente
+         * recarga corrige la diferencia).
+         */
+        void reponerAsientos(int idVuelo, int cambio) {
+            Entrada entrada = porId.get(idVuelo);
+            InventarioAsientos inventario = InventarioAsientos.getInstancia();
+            if (entrada != null && inventario != null && inventario.gestiona(idVuelo)) {
+                entrada.asientos.set(inventario.getDisponibles(idVuelo, entrada.asientos.get()));
+            } else {
+                cambiarAsientos(idVuelo, cambio);
+            }
+        }
+
+        void cambiarEstado(int idVuelo, String estado) {
+            Entrada entrada = porId.get(idVuelo);
+            if (entrada != null) {
+                entrada.estado = estado;
+            }
+        }
+
+        /**
+         * Agrega el vuelo, o lo mueve si ya estaba (pudo cambiar de ruta o de día).
+         */
+        void reemplazar(Entrada entrada) {
+            Entrada anterior = porId.get(entrada.vuelo.getIdVuelo());
+            if (anterior != null) {
+                quitar(anterior);
+            }
+            LocalDateTime salida = entrada.vuelo.getFechaSalida();
+            if (salida != null && !salida.toLocalDate().isBefore(desde)) {
+                agregar(entrada);
+            }
+        }
+
+        void agregar(Entrada entrada) {
+            Vuelo vuelo = entrada.vuelo;
+            String origen = TrieLugares.normalizar(vuelo.getOrigen());
+            String destino = TrieLugares.normalizar(vuelo.getDestino());
+            if (origen == null || destino == null || vuelo.getFechaSalida() == null) {
+                return;
+            }
+
+            porId.put(vuelo.getIdVuelo(), entrada);
+            origenes.agregar(origen);
+            destinos.agregar(destino);
+            rutas.computeIfAbsent(origen, k -> new ConcurrentHashMap<>())
+                 .computeIfAbsent(destino, k -> new ConcurrentSkipListMap<>())
+                 .merge(vuelo.getFechaSalida().toLocalDate(), new Entrada[]{entrada}, Instantanea::unir);
+        }
+
+        void quitar(Entrada entrada) {
+            Vuelo vuelo = entrada.vuelo;
+            porId.remove(vuelo.getIdVuelo(), entrada);
+            Map<String, NavigableMap<LocalDate, Entrada[]>> porDestino = rutas.get(TrieLugares.normalizar(vuelo.getOrigen()));
+            NavigableMap<LocalDate, Entrada[]> dias = porDestino != null
+                    ? porDestino.get(TrieLugares.normalizar(vuelo.getDestino())) : null;
+            if (dias != null) {
+                dias.computeIfPresent(vuelo.getFechaSalida().toLocalDate(), (dia, delDia) -> {
+                    Entrada[] quedan = Arrays.stream(delDia).filter(e -> e != entrada).toArray(Entrada[]::new);
+                    return quedan.length > 0 ? quedan : null;
+                });
+            }
+        }
+
+        private static Entrada[] unir(Entrada[] existentes, Entrada[] nuevas) {
+            Entrada[] unidas = Arrays.copyOf(existentes, existentes.length + nuevas.length);
+            System.arraycopy(nuevas, 0, unidas, existentes.length, nuevas.length);
+            // Solo se usa con vuelos insertados uno a uno, que pueden quedar fuera de orden
+            if (POR_SALIDA.compare(unidas[existentes.length - 1], unidas[existentes.length]) > 0) {
+                Arrays.sort(unidas, POR_SALIDA);
+            }
+            return unidas;
+        }
+    }
+}
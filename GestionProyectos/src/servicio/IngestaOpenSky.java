@@ -0,0 +1,296 @@
+// servicio/IngestaOpenSky.java
+package servicio;
+
+import dao.ResultadoIngesta;
+import dao.VueloDAO;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import modelo.Vuelo;
+import util.FuenteOpenSky;
+import util.LectorEstadosOpenSky;
+import util.VueloRealAPI;
+
+/**
+ * Importa a la base el feed completo de OpenSky en segundo plano.
+ *
+ * Cada pasada descarga todos los vectores de estado (no solo los 50 que
+ * muestra la tabla de vuelos en el aire) y se queda con uno por aeronave y
+ * por indicativo. Como el feed trae siempre el mundo entero, se compara con
+ * la pasada anterior (por icao24) y solo viajan los cambios: las aeronaves
+ * nuevas, las que empezaron otro viaje (indicativo nuevo) y las que
+ * cambiaron de aerolínea o de lugares se guardan con
+ * {@link VueloDAO#guardarVuelosEnVivo}, las que desaparecieron se finalizan,
+ * y a los índices y la interfaz les llegan solo esos vuelos. Las que siguen
+ * igual no generan escrituras ni vuelven a sortear precio y asientos.
+ *
+ * La primera pasada parte de los vuelos en vivo que ya hay en la base, así
+ * que al reiniciar la aplicación no se reescriben ni se pierden los que
+ * aterrizaron mientras tanto. Si la base rechaza una pasada, se vuelve a
+ * partir de la base en la siguiente. Si OpenSky no responde y se recibe la
+ * respuesta de respaldo (también con {@code -Dopensky.offline}), la pasada
+ * se omite: es una foto vieja y haría finalizar o crear vuelos que no
+ * cambiaron. Se activa con {@code -Dopensky.ingesta=true}.
+ */
+public class IngestaOpenSky {
+
+    /**
+     * Recibe los cambios de cada pasada ya guardada. Se llama en el hilo de
+     * la ingesta, así que debe ser rápido (la interfaz debe pasar a su hilo).
+     */
+    public interface Oyente {
+        void cambiosAplicados(Cambios cambios);
+    }
+
+    /**
+     * Diferencia entre dos pasadas, por icao24.
+     *
+     * @param nuevos Viajes nuevos: aeronaves que no estaban (o volvieron tras
+     *               finalizar) y las que cambiaron de indicativo
+     * @param cambiados Aeronaves que, con el mismo indicativo, cambiaron de aerolínea o lugares
+     * @param retirados Aeronaves que dejaron de aparecer (con su último vuelo)
+     * @param descartados Estados sin icao24 o indicativo válido, o repetidos
+     */
+    public record Cambios(Map<String, Vuelo> nuevos, Map<String, Vuelo> cambiados,
+                          Map<String, Vuelo> retirados, int descartados) {
+
+        public boolean vacio() {
+            return nuevos.isEmpty() && cambiados.isEmpty() && retirados.isEmpty();
+        }
+    }
+
+    private static IngestaOpenSky instancia = null;
+
+    private final VueloRealAPI api;
+    private final VueloDAO vueloDAO;
+    private final ScheduledExecutorService programador;
+    private final List<Oyente> oyentes = new CopyOnWriteArrayList<>();
+    // Última pasada guardada: icao24 → vuelo tal como quedó en la base
+    private final Map<String, Vuelo> anterior = new ConcurrentHashMap<>();
+
+    private IngestaOpenSky(VueloRealAPI api, VueloDAO vueloDAO) {
+        this.api = api;
+        this.vueloDAO = vueloDAO;
+        this.programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ingesta-opensky");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Hace una pasada enseguida y luego una cada {@code intervaloMs}.
+     */
+    public static synchronized void iniciar(long intervaloMs) {
+        if (instancia != null) {
+            return;
+        }
+        IngestaOpenSky ingesta = new IngestaOpenSky(new VueloRealAPI(), new VueloDAO());
+        ingesta.programador.scheduleWithFixedDelay(ingesta::ejecutarCicloSeguro, 0, intervaloMs, TimeUnit.MILLISECONDS);
+        instancia = ingesta;
+    }
+
+    /**
+     * @return La ingesta en marcha, o null si no se inició
+     */
+    public static synchronized IngestaOpenSky getInstancia() {
+        return instancia;
+    }
+
+    public static synchronized void detener() {
+        if (instancia == null) {
+            return;
+        }
+        instancia.programador.shutdownNow();
+        instancia = null;
+    }
+
+    public void suscribir(Oyente oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void cancelarSuscripcion(Oyente oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * @return Vista de solo lectura de los vuelos en el aire de la última
+     *         pasada guardada, por icao24
+     */
+    public Map<String, Vuelo> getVuelosEnVivo() {
+        return Collections.unmodifiableMap(anterior);
+    }
+
+    /**
+     * Descarga el feed y guarda en la base lo que cambió desde la pasada anterior.
+     *
+     * @return Vuelos insertados, actualizados y omitidos (sin cambios o
+     *         descartados); fallido si la API no respondió o la base
+     *         rechazó la pasada
+     */
+    public ResultadoIngesta ejecutarCiclo() {
+        long inicio = System.nanoTime();
+        FuenteOpenSky.Instantanea instantanea = api.obtenerInstantanea();
+        if (instantanea == null) {
+            System.err.println("❌ OpenSky: no se pudo descargar el feed");
+            return ResultadoIngesta.fallido(0);
+        }
+        List<LectorEstadosOpenSky.Estado> estados = instantanea.estados();
+        if (instantanea.respaldo()) {
+            System.out.println("⌛ OpenSky: respuesta de respaldo (" + Instant.ofEpochSecond(instantanea.tiempo())
+                    + "), se omite la pasada");
+            return new ResultadoIngesta(0, 0, estados.size(), true);
+        }
+
+        if (anterior.isEmpty()) {
+            anterior.putAll(vueloDAO.obtenerVuelosEnVivo());
+        }
+        Cambios cambios = comparar(elegirUnoPorAeronave(estados), estados.size());
+        int sinCambios = estados.size() - cambios.descartados() - cambios.nuevos().size() - cambios.cambiados().size();
+
+        ResultadoIngesta resultado = new ResultadoIngesta(0, 0, 0, true);
+        if (!cambios.nuevos().isEmpty() || !cambios.cambiados().isEmpty()) {
+            Map<String, Vuelo> porGuardar = new LinkedHashMap<>(cambios.nuevos());
+            porGuardar.putAll(cambios.cambiados());
+            resultado = vueloDAO.guardarVuelosEnVivo(porGuardar);
+        }
+        if (resultado.exitoso() && !cambios.retirados().isEmpty()
+                && vueloDAO.finalizarVuelosEnVivo(cambios.retirados().keySet()) < 0) {
+            resultado = ResultadoIngesta.fallido(resultado.insertados() + resultado.actualizados() + resultado.omitidos());
+        }
+        resultado = new ResultadoIngesta(resultado.insertados(), resultado.actualizados(),
+                resultado.omitidos() + sinCambios + cambios.descartados(), resultado.exitoso());
+
+        if (resultado.exitoso()) {
+            aplicar(cambios);
+        } else {
+            // Parte de lo enviado pudo quedar guardado: la próxima pasada parte de la base
+            anterior.clear();
+        }
+
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        String icono = resultado.exitoso() ? "🔁" : "❌";
+        System.out.println(icono + " OpenSky: " + estados.size() + " estados, " + resultado
+                + ", " + cambios.retirados().size() + " finalizados en " + ms + " ms");
+        return resultado;
+    }
+
+    // El programador deja de repetir la tarea si lanza una excepción
+    private void ejecutarCicloSeguro() {
+        try {
+            ejecutarCiclo();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Clasifica las aeronaves de esta pasada frente a la anterior. Un
+     * indicativo distinto es otro viaje y va con los nuevos, con su propio
+     * precio, asientos y salida (el DAO finaliza el viaje anterior). Los
+     * cambiados son el mismo viaje y conservan el ID, precio, asientos y
+     * salida de la pasada anterior; el DAO los deja luego como queden en la base.
+     */
+    private Cambios comparar(Map<String, LectorEstadosOpenSky.Estado> elegidos, int recibidos) {
+        Map<String, Vuelo> nuevos = new LinkedHashMap<>();
+        Map<String, Vuelo> cambiados = new LinkedHashMap<>();
+        int validos = 0;
+        for (Map.Entry<String, LectorEstadosOpenSky.Estado> e : elegidos.entrySet()) {
+            Vuelo vuelo = api.aVuelo(e.getValue());
+            if (vuelo == null) {
+                continue;
+            }
+            validos++;
+            Vuelo previo = anterior.get(e.getKey());
+            if (previo == null || !Objects.equals(previo.getNumeroVuelo(), vuelo.getNumeroVuelo())) {
+                nuevos.put(e.getKey(), vuelo);
+            } else if (!mismosDatos(previo, vuelo)) {
+                vuelo.setIdVuelo(previo.getIdVuelo());
+                vuelo.setPrecio(previo.getPrecio());
+                vuelo.setAsientosDisponibles(previo.getAsientosDisponibles());
+                vuelo.setFechaSalida(previo.getFechaSalida());
+                cambiados.put(e.getKey(), vuelo);
+            }
+        }
+
+        Map<String, Vuelo> retirados = new LinkedHashMap<>();
+        for (Map.Entry<String, Vuelo> e : anterior.entrySet()) {
+            if (!elegidos.containsKey(e.getKey())) {
+                retirados.put(e.getKey(), e.getValue());
+            }
+        }
+        return new Cambios(nuevos, cambiados, retirados, recibidos - validos);
+    }
+
+    /**
+     * Avanza la pasada anterior con los cambios ya guardados y avisa a los oyentes.
+     */
+    private void aplicar(Cambios cambios) {
+        anterior.putAll(cambios.nuevos());
+        anterior.putAll(cambios.cambiados());
+        anterior.keySet().removeAll(cambios.retirados().keySet());
+        if (cambios.vacio()) {
+            return;
+        }
+        for (Oyente oyente : oyentes) {
+            try {
+                oyente.cambiosAplicados(cambios);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al avisar de los cambios de OpenSky:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return true si los dos vuelos coinciden en lo que se guarda de cada pasada
+     */
+    private static boolean mismosDatos(Vuelo a, Vuelo b) {
+        return Objects.equals(a.getNumeroVuelo(), b.getNumeroVuelo())
+                && Objects.equals(a.getOrigen(), b.getOrigen())
+                && Objects.equals(a.getDestino(), b.getDestino())
+                && Objects.equals(a.getAerolinea().getCodigo(), b.getAerolinea().getCodigo());
+    }
+
+    /**
+     * Un estado por aeronave y, como el indicativo es el número de vuelo,
+     * también uno por indicativo: en ambos casos gana el de contacto más
+     * reciente. Se descartan los que no traen icao24 ni indicativo.
+     *
+     * @return icao24 → estado
+     */
+    private static Map<String, LectorEstadosOpenSky.Estado> elegirUnoPorAeronave(List<LectorEstadosOpenSky.Estado> estados) {
+        Map<String, LectorEstadosOpenSky.Estado> porIcao24 = new HashMap<>();
+        for (LectorEstadosOpenSky.Estado estado : estados) {
+            String icao24 = estado.getIcao24();
+            if (icao24 == null || icao24.isEmpty() || estado.getCallsign() == null || estado.getCallsign().isEmpty()) {
+                continue;
+            }
+            porIcao24.merge(icao24.toLowerCase(), estado, IngestaOpenSky::masReciente);
+        }
+
+        Map<String, LectorEstadosOpenSky.Estado> porIndicativo = new HashMap<>();
+        for (LectorEstadosOpenSky.Estado estado : porIcao24.values()) {
+            porIndicativo.merge(estado.getCallsign(), estado, IngestaOpenSky::masReciente);
+        }
+
+        Map<String, LectorEstadosOpenSky.Estado> elegidos = new LinkedHashMap<>();
+        for (LectorEstadosOpenSky.Estado estado : porIndicativo.values()) {
+            elegidos.put(estado.getIcao24().toLowerCase(), estado);
+        }
+        return elegidos;
+    }
+
+    private static LectorEstadosOpenSky.Estado masReciente(LectorEstadosOpenSky.Estado a, LectorEstadosOpenSky.Estado b) {
+        return b.getUltimoContacto() > a.getUltimoContacto() ? b : a;
+    }
+}
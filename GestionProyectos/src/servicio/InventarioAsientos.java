@@ -0,0 +1,528 @@
+// servicio/InventarioAsientos.java
+package servicio;
+
+import dao.ResultadoReserva;
+import dao.VueloDAO;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inventario de asientos en memoria para vuelos con mucha demanda.
+ *
+ * Decide las reservas con contadores atómicos (CAS) por vuelo, sin pasar por
+ * la fila de Vuelo en SQL Server. Cada cambio se escribe primero en un diario
+ * local ({@link DiarioAsientos}) y los cambios acumulados se vuelcan a la tabla
+ * Vuelo en lote cada cierto tiempo. Si la aplicación cae entre dos volcados,
+ * al iniciar se reaplican desde el diario los cambios que faltan.
+ *
+ * Un descuento para una reserva queda apartado (provisional) hasta que el
+ * llamador lo confirma, cuando la reserva ya está guardada, o lo anula; solo
+ * los confirmados se vuelcan. Si la aplicación cae con apartados sin
+ * resolver, al iniciar se cuentan solo aquellos cuya reserva está en la base
+ * (cada reserva guarda la secuencia de su apartado); los de una retención
+ * que sigue guardada vuelven a quedar apartados. Cada volcado avanza el
+ * punto de control en la misma transacción, así que si la conexión se cae
+ * tras confirmarlo, reenviar el mismo lote no lo aplica dos veces.
+ *
+ * Mientras esté iniciado es la fuente de verdad de los asientos disponibles
+ * de los vuelos que precargó; los vuelos creados después siguen por la base.
+ */
+public class InventarioAsientos {
+
+    /**
+     * Asientos descontados en memoria a la espera de que la reserva se guarde.
+     *
+     * @param resultado OK si se apartaron; si no, por qué (los demás campos no valen)
+     * @param secuencia Entrada del diario; la reserva la guarda para poder reconciliar
+     */
+    public record Apartado(ResultadoReserva resultado, int idVuelo, int cantidad, long secuencia) {
+    }
+
+    private static volatile InventarioAsientos instancia = null;
+
+    private final VueloDAO vueloDAO;
+    private final Path directorio;
+    private final Map<Integer, AtomicInteger> disponibles = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> pendientes = new ConcurrentHashMap<>();
+    private final Map<Long, Apartado> abiertos = new ConcurrentHashMap<>();
+    private final List<Path> segmentosPorBorrar = new ArrayList<>();
+    // Lote cuyo resultado no se conoce (p. ej. se cayó la conexión al confirmar)
+    private Map<Integer, Integer> loteDudoso = null;
+    private long secuenciaDudosa;
+
+    // Lectura: reservas y liberaciones. Escritura: corte de un volcado.
+    private final ReentrantReadWriteLock corte = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService volcador;
+    private DiarioAsientos diario;
+
+    private InventarioAsientos(VueloDAO vueloDAO, Path directorio) {
+        this.vueloDAO = vueloDAO;
+        this.directorio = directorio;
+        this.volcador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventario-asientos-volcado");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Recupera el diario pendiente, precarga los asientos desde la base y
+     * empieza a volcar cambios cada {@code intervaloVolcadoMs}.
+     *
+     * @param directorio Carpeta local donde se guarda el diario
+     * @param intervaloVolcadoMs Cada cuánto se escriben los cambios en Vuelo
+     * @return El inventario compartido, o null si no se pudo iniciar
+     */
+    public static InventarioAsientos iniciar(Path directorio, long intervaloVolcadoMs) {
+        return iniciar(directorio, intervaloVolcadoMs, new VueloDAO());
+    }
+
+    /**
+     * Igual que {@link #iniciar(Path, long)} pero volcando a través del DAO
+     * indicado (por ejemplo, una base simulada en las pruebas de carga).
+     */
+    public static synchronized InventarioAsientos iniciar(Path directorio, long intervaloVolcadoMs,
+                                                         VueloDAO vueloDAO) {
+        if (instancia != null) {
+            return instancia;
+        }
+
+        InventarioAsientos inventario = new InventarioAsientos(vueloDAO, directorio);
+        try {
+            if (!inventario.recuperarYPrecargar()) {
+                return null;
+            }
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo iniciar el inventario de asientos:");
+            e.printStackTrace();
+            return null;
+        }
+
+        inventario.volcador.scheduleWithFixedDelay(inventario::volcar,
+                intervaloVolcadoMs, intervaloVolcadoMs, TimeUnit.MILLISECONDS);
+        instancia = inventario;
+        System.out.println("✅ Inventario de asientos en memoria iniciado: "
+                + inventario.disponibles.size() + " vuelos.");
+        return inventario;
+    }
+
+    /**
+     * @return El inventario compartido, o null si no está iniciado
+     */
+    public static InventarioAsientos getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Vuelca los cambios pendientes, cierra el diario y deja de usar el inventario.
+     */
+    public static synchronized void detener() {
+        InventarioAsientos inventario = instancia;
+        if (inventario == null) {
+            return;
+        }
+        instancia = null;
+        inventario.volcador.shutdown();
+        try {
+            inventario.volcador.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inventario.volcar();
+        try {
+            inventario.diario.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return true si el inventario lleva la cuenta de asientos de este vuelo
+     */
+    public boolean gestiona(int idVuelo) {
+        return disponibles.containsKey(idVuelo);
+    }
+
+    /**
+     * @return Asientos disponibles en memoria, o {@code porDefecto} si el vuelo no se gestiona aquí
+     */
+    public int getDisponibles(int idVuelo, int porDefecto) {
+        AtomicInteger contador = disponibles.get(idVuelo);
+        return contador != null ? contador.get() : porDefecto;
+    }
+
+    /**
+     * Aparta asientos si alcanzan. Devuelve cuando el apartado ya es durable
+     * en el diario; el llamador debe luego {@link #confirmar} o {@link #anular}.
+     *
+     * @return Apartado con resultado OK, AGOTADO, NO_ENCONTRADO (vuelo no
+     *         gestionado) o ERROR si falló el diario
+     */
+    public Apartado reservar(int idVuelo, int cantidad) {
+        AtomicInteger contador = disponibles.get(idVuelo);
+        if (contador == null) {
+            return new Apartado(ResultadoReserva.NO_ENCONTRADO, idVuelo, cantidad, 0);
+        }
+
+        Apartado apartado;
+        corte.readLock().lock();
+        try {
+            int actual;
+            do {
+                actual = contador.get();
+                if (actual < cantidad) {
+                    return new Apartado(ResultadoReserva.AGOTADO, idVuelo, cantidad, 0);
+                }
+            } while (!contador.compareAndSet(actual, actual - cantidad));
+
+            try {
+                long secuencia = diario.agregar(DiarioAsientos.PROVISIONAL, idVuelo, -cantidad, 0);
+                apartado = new Apartado(ResultadoReserva.OK, idVuelo, cantidad, secuencia);
+            } catch (IOException e) {
+                contador.addAndGet(cantidad);
+                System.err.println("❌ Diario de asientos no disponible: " + e.getMessage());
+                return new Apartado(ResultadoReserva.ERROR, idVuelo, cantidad, 0);
+            }
+            abiertos.put(apartado.secuencia(), apartado);
+        } finally {
+            corte.readLock().unlock();
+        }
+
+        try {
+            diario.esperarPersistencia(apartado.secuencia());
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo sincronizar el diario de asientos: " + e.getMessage());
+            anular(apartado);
+            return new Apartado(ResultadoReserva.ERROR, idVuelo, cantidad, 0);
+        }
+        return apartado;
+    }
+
+    /**
+     * Aparta asientos para varias reservas a la vez (un grupo de
+     * {@code ReservaDAO.crearReservas}) y espera un solo fsync para todas.
+     *
+     * @param idsVuelo Vuelo de cada reserva
+     * @param cantidades Asientos de cada reserva, en el mismo orden
+     * @return Un apartado por reserva, en el mismo orden
+     */
+    public Apartado[] reservarTodos(int[] idsVuelo, int[] cantidades) {
+        Apartado[] apartados = new Apartado[idsVuelo.length];
+        long ultima = -1;
+
+        corte.readLock().lock();
+        try {
+            for (int i = 0; i < idsVuelo.length; i++) {
+                int idVuelo = idsVuelo[i];
+                int cantidad = cantidades[i];
+                AtomicInteger contador = disponibles.get(idVuelo);
+                if (contador == null) {
+                    apartados[i] = new Apartado(ResultadoReserva.NO_ENCONTRADO, idVuelo, cantidad, 0);
+                    continue;
+                }
+                int actual;
+                do {
+                    actual = contador.get();
+                } while (actual >= cantidad && !contador.compareAndSet(actual, actual - cantidad));
+                if (actual < cantidad) {
+                    apartados[i] = new Apartado(ResultadoReserva.AGOTADO, idVuelo, cantidad, 0);
+                    continue;
+                }
+                try {
+                    long secuencia = diario.agregar(DiarioAsientos.PROVISIONAL, idVuelo, -cantidad, 0);
+                    apartados[i] = new Apartado(ResultadoReserva.OK, idVuelo, cantidad, secuencia);
+                    abiertos.put(secuencia, apartados[i]);
+                    ultima = secuencia;
+                } catch (IOException e) {
+                    contador.addAndGet(cantidad);
+                    System.err.println("❌ Diario de asientos no disponible: " + e.getMessage());
+                    apartados[i] = new Apartado(ResultadoReserva.ERROR, idVuelo, cantidad, 0);
+                }
+            }
+        } finally {
+            corte.readLock().unlock();
+        }
+
+        if (ultima >= 0) {
+            try {
+                diario.esperarPersistencia(ultima);
+            } catch (IOException e) {
+                System.err.println("❌ No se pudo sincronizar el diario de asientos: " + e.getMessage());
+                for (int i = 0; i < apartados.length; i++) {
+                    if (apartados[i].resultado() == ResultadoReserva.OK) {
+                        anular(apartados[i]);
+                        apartados[i] = new Apartado(ResultadoReserva.ERROR, idsVuelo[i], cantidades[i], 0);
+                    }
+                }
+            }
+        }
+        return apartados;
+    }
+
+    /**
+     * @return El apartado sin resolver con esa secuencia, o null si ya se resolvió
+     */
+    public Apartado getApartado(long secuencia) {
+        return abiertos.get(secuencia);
+    }
+
+    /**
+     * Da por bueno un apartado cuya reserva ya está guardada en la base. No
+     * espera al disco: si la confirmación se pierde en una caída, la reserva
+     * guardada basta para reconciliar.
+     */
+    public void confirmar(Apartado apartado) {
+        resolver(apartado, DiarioAsientos.CONFIRMADA);
+    }
+
+    /**
+     * Devuelve los asientos de un apartado cuya reserva no se guardó.
+     */
+    public void anular(Apartado apartado) {
+        resolver(apartado, DiarioAsientos.ANULADA);
+    }
+
+    /**
+     * Devuelve asientos al vuelo (cancelación, reserva fallida o retención vencida).
+     *
+     * @return true si el cambio quedó registrado
+     */
+    public boolean liberar(int idVuelo, int cantidad) {
+        AtomicInteger contador = disponibles.get(idVuelo);
+        if (contador == null) {
+            return false;
+        }
+
+        long secuencia;
+        corte.readLock().lock();
+        try {
+            try {
+                secuencia = diario.agregar(idVuelo, cantidad);
+            } catch (IOException e) {
+                System.err.println("❌ Diario de asientos no disponible: " + e.getMessage());
+                return false;
+            }
+            contador.addAndGet(cantidad);
+            acumular(idVuelo, cantidad);
+        } finally {
+            corte.readLock().unlock();
+        }
+
+        return esperarDiario(secuencia, idVuelo, cantidad);
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    private void acumular(int idVuelo, int cambio) {
+        pendientes.computeIfAbsent(idVuelo, k -> new AtomicInteger()).addAndGet(cambio);
+    }
+
+    private void resolver(Apartado apartado, int tipo) {
+        if (apartado.resultado() != ResultadoReserva.OK) {
+            return;
+        }
+        corte.readLock().lock();
+        try {
+            if (abiertos.remove(apartado.secuencia()) == null) {
+                return; // Ya resuelto
+            }
+            try {
+                diario.agregar(tipo, apartado.idVuelo(), -apartado.cantidad(), apartado.secuencia());
+            } catch (IOException e) {
+                // Sin diario no hay nuevas reservas; al recuperar decide la base
+                System.err.println("❌ Diario de asientos no disponible: " + e.getMessage());
+            }
+            if (tipo == DiarioAsientos.CONFIRMADA) {
+                acumular(apartado.idVuelo(), -apartado.cantidad());
+            } else {
+                disponibles.get(apartado.idVuelo()).addAndGet(apartado.cantidad());
+            }
+        } finally {
+            corte.readLock().unlock();
+        }
+    }
+
+    /**
+     * Espera el fsync del diario. Si falla, deshace el cambio en memoria
+     * para no confirmar al cliente algo que no es durable.
+     */
+    private boolean esperarDiario(long secuencia, int idVuelo, int cambio) {
+        try {
+            diario.esperarPersistencia(secuencia);
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo sincronizar el diario de asientos: " + e.getMessage());
+            corte.readLock().lock();
+            try {
+                disponibles.get(idVuelo).addAndGet(-cambio);
+                acumular(idVuelo, -cambio);
+            } finally {
+                corte.readLock().unlock();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Aplica a la base lo que quedó en el diario tras una caída y precarga los contadores.
+     */
+    private boolean recuperarYPrecargar() throws IOException {
+        long puntoControl = vueloDAO.obtenerSecuenciaInventario();
+        if (puntoControl < 0) {
+            return false;
+        }
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        Map<Long, int[]> sinResolver = new HashMap<>();
+        List<Path> anteriores = DiarioAsientos.listarSegmentos(directorio);
+        long ultima = DiarioAsientos.recuperar(directorio, puntoControl, deltas, sinResolver);
+
+        Set<Long> guardados = Set.of();
+        Set<Long> retenidos = Set.of();
+        if (!sinResolver.isEmpty()) {
+            // Solo cuentan los apartados cuya reserva llegó a guardarse; los de
+            // retenciones que siguen activas se mantienen apartados
+            guardados = vueloDAO.filtrarSecuenciasGuardadas(sinResolver.keySet());
+            retenidos = vueloDAO.filtrarSecuenciasRetenidas(sinResolver.keySet());
+            if (guardados == null || retenidos == null) {
+                System.err.println("❌ No se pudieron reconciliar los asientos apartados; se conserva el diario para el próximo inicio.");
+                return false;
+            }
+        }
+
+        diario = new DiarioAsientos(directorio, ultima);
+        List<Apartado> reabiertos = new ArrayList<>();
+        if (!sinResolver.isEmpty()) {
+            // Se resuelven en el diario antes de volcar: si se cae tras el
+            // volcado, el próximo inicio no los vuelve a contar
+            for (Map.Entry<Long, int[]> apartado : sinResolver.entrySet()) {
+                int idVuelo = apartado.getValue()[0];
+                int cambio = apartado.getValue()[1];
+                if (guardados.contains(apartado.getKey())) {
+                    diario.agregar(DiarioAsientos.CONFIRMADA, idVuelo, cambio, apartado.getKey());
+                    deltas.merge(idVuelo, cambio, Integer::sum);
+                } else if (retenidos.contains(apartado.getKey())) {
+                    reabiertos.add(new Apartado(ResultadoReserva.OK, idVuelo, -cambio, apartado.getKey()));
+                } else {
+                    diario.agregar(DiarioAsientos.ANULADA, idVuelo, cambio, apartado.getKey());
+                }
+            }
+            diario.conservar(reabiertos);
+            System.out.println("🔁 Apartados sin resolver: " + guardados.size() + " con reserva guardada, "
+                    + reabiertos.size() + " retenidos, "
+                    + (sinResolver.size() - guardados.size() - reabiertos.size()) + " anulados.");
+        }
+
+        deltas.values().removeIf(cambio -> cambio == 0);
+        if (!deltas.isEmpty()) {
+            if (!vueloDAO.aplicarDeltasAsientos(deltas, diario.getUltimaSecuencia())) {
+                System.err.println("❌ No se pudieron reaplicar los cambios del diario; se conserva para el próximo inicio.");
+                diario.close();
+                diario = null;
+                return false;
+            }
+            System.out.println("🔁 Reaplicados desde el diario los cambios de " + deltas.size() + " vuelos.");
+        }
+        for (Path segmento : anteriores) {
+            if (!segmento.equals(diario.getRutaSegmento())) {
+                Files.deleteIfExists(segmento);
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> vuelo : vueloDAO.obtenerAsientosDisponibles().entrySet()) {
+            disponibles.put(vuelo.getKey(), new AtomicInteger(vuelo.getValue()));
+        }
+        for (Apartado apartado : reabiertos) {
+            AtomicInteger contador = disponibles.get(apartado.idVuelo());
+            if (contador != null) {
+                contador.addAndGet(-apartado.cantidad());
+            }
+            abiertos.put(apartado.secuencia(), apartado);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe en la tabla Vuelo, en un solo lote, los cambios acumulados desde
+     * el último volcado. Si la base falla, el lote se reenvía tal cual en el
+     * siguiente volcado (con su misma secuencia, para que no se aplique dos
+     * veces si en realidad llegó a confirmarse) antes de cortar otro.
+     */
+    private void volcar() {
+        if (loteDudoso != null) {
+            if (!vueloDAO.aplicarDeltasAsientos(loteDudoso, secuenciaDudosa)) {
+                return;
+            }
+            loteDudoso = null;
+            borrarSegmentos();
+        }
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        long secuencia;
+        Path cerrado;
+
+        corte.writeLock().lock();
+        try {
+            secuencia = diario.getUltimaSecuencia();
+            for (Map.Entry<Integer, AtomicInteger> pendiente : pendientes.entrySet()) {
+                int cambio = pendiente.getValue().getAndSet(0);
+                if (cambio != 0) {
+                    deltas.put(pendiente.getKey(), cambio);
+                }
+            }
+            cerrado = diario.rotar(abiertos.values());
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo rotar el diario de asientos: " + e.getMessage());
+            devolverPendientes(deltas);
+            return;
+        } finally {
+            corte.writeLock().unlock();
+        }
+
+        if (cerrado != null) {
+            segmentosPorBorrar.add(cerrado);
+        }
+
+        if (!deltas.isEmpty() && !vueloDAO.aplicarDeltasAsientos(deltas, secuencia)) {
+            loteDudoso = deltas;
+            secuenciaDudosa = secuencia;
+            return;
+        }
+        borrarSegmentos();
+    }
+
+    /**
+     * Los cambios ya están en la base: los segmentos cerrados sobran.
+     */
+    private void borrarSegmentos() {
+        for (Path segmento : segmentosPorBorrar) {
+            try {
+                Files.deleteIfExists(segmento);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        segmentosPorBorrar.clear();
+    }
+
+    private void devolverPendientes(Map<Integer, Integer> deltas) {
+        corte.readLock().lock();
+        try {
+            deltas.forEach(this::acumular);
+        } finally {
+            corte.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+// servicio/RetencionAsientos.java
+package servicio;
+
+import dao.ReservaDAO;
+import dao.ResultadoReserva;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import modelo.Reserva;
+import modelo.Usuario;
+import modelo.Vuelo;
+import util.RuedaTemporizadora;
+
+/**
+ * Retenciones temporales de asientos mientras el cliente termina la compra.
+ *
+ * Una retención descuenta los asientos del vuelo durante un tiempo límite.
+ * Antes de que venza se puede confirmar (se crea la reserva) o liberar; si
+ * vence, los asientos vuelven solos a {@code Vuelo.asientos_disponibles}.
+ *
+ * Los vencimientos se programan en una {@link RuedaTemporizadora}, de modo
+ * que cada retención cuesta O(1) al crearse, cancelarse y vencer, sin
+ * consultas periódicas a la tabla de retenciones.
+ *
+ * Cada retención se guarda en RetencionAsiento con su vencimiento, en la
+ * misma transacción que descuenta los asientos. Al crear el servicio se leen
+ * las que quedaron de una ejecución anterior: las vencidas se liberan y las
+ * demás se vuelven a programar, así un reinicio no deja asientos retenidos.
+ */
+public class RetencionAsientos {
+
+    private static final int ACTIVA = 0;
+    private static final int CERRADA = 1;
+
+    private static RetencionAsientos instancia = null;
+
+    private final ReservaDAO reservaDAO;
+    private final RuedaTemporizadora rueda;
+    private final ExecutorService vencimientos;
+    private final Map<Long, Retencion> activas = new ConcurrentHashMap<>();
+
+    public RetencionAsientos(ReservaDAO reservaDAO) {
+        this.reservaDAO = reservaDAO;
+        this.vencimientos = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "retenciones-vencimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        // Ticks de 100 ms y 4096 ranuras: una vuelta cubre casi 7 minutos
+        this.rueda = new RuedaTemporizadora(100, TimeUnit.MILLISECONDS, 4096, vencimientos);
+    }
+
+    /**
+     * @return Servicio de retenciones compartido por toda la aplicación; la
+     *         primera vez retoma las retenciones guardadas (ver {@link #restaurar()})
+     */
+    public static synchronized RetencionAsientos getInstancia() {
+        if (instancia == null) {
+            instancia = new RetencionAsientos(new ReservaDAO());
+            instancia.restaurar();
+        }
+        return instancia;
+    }
+
+    /**
+     * Retoma las retenciones guardadas: libera las vencidas y programa el
+     * vencimiento de las demás.
+     */
+    public void restaurar() {
+        List<ReservaDAO.Retenidos> guardadas = reservaDAO.obtenerRetenciones();
+        if (guardadas == null) {
+            System.err.println("⚠️ No se pudieron retomar las retenciones guardadas.");
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        int liberadas = 0;
+        for (ReservaDAO.Retenidos guardada : guardadas) {
+            if (activas.containsKey(guardada.idRetencion())) {
+                continue;
+            }
+            if (!guardada.vence().isAfter(ahora)) {
+                if (reservaDAO.liberarRetencion(guardada.idRetencion())) {
+                    liberadas++;
+                }
+            } else {
+                programar(new Retencion(guardada), Duration.between(ahora, guardada.vence()));
+            }
+        }
+        if (!guardadas.isEmpty()) {
+            System.out.println("🔁 Retenciones retomadas: " + (guardadas.size() - liberadas) + " activas, "
+                    + liberadas + " vencidas liberadas.");
+        }
+    }
+
+    /**
+     * Retiene asientos de un vuelo durante {@code duracion}.
+     *
+     * @return La retención; si no se pudo retener, su resultado indica por qué
+     */
+    public Retencion retener(int idVuelo, int cantidad, Duration duracion) {
+        Retencion retencion = new Retencion(
+                reservaDAO.retenerAsientos(idVuelo, cantidad, LocalDateTime.now().plus(duracion)));
+        if (retencion.isRetenida()) {
+            programar(retencion, duracion);
+        }
+        return retencion;
+    }
+
+    /**
+     * Convierte la retención en una reserva confirmada del usuario.
+     *
+     * @return OK si se reservó; NO_ENCONTRADO si la retención ya venció o se liberó
+     */
+    public ResultadoReserva confirmar(long idRetencion, Usuario usuario) {
+        Retencion retencion = activas.get(idRetencion);
+        if (retencion == null || !retencion.cerrar()) {
+            return ResultadoReserva.NO_ENCONTRADO;
+        }
+        activas.remove(idRetencion);
+        retencion.temporizador.cancelar();
+
+        Vuelo vuelo = new Vuelo();
+        vuelo.setIdVuelo(retencion.getIdVuelo());
+
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setVuelo(vuelo);
+        reserva.setCantidadAsientos(retencion.getCantidad());
+
+        ResultadoReserva resultado = reservaDAO.confirmarRetencion(idRetencion, reserva);
+        if (resultado != ResultadoReserva.OK) {
+            reservaDAO.liberarRetencion(idRetencion);
+        }
+        return resultado;
+    }
+
+    /**
+     * Libera la retención antes de tiempo y devuelve los asientos.
+     *
+     * @return true si la retención seguía activa
+     */
+    public boolean liberar(long idRetencion) {
+        Retencion retencion = activas.get(idRetencion);
+        if (retencion == null || !retencion.cerrar()) {
+            return false;
+        }
+        activas.remove(idRetencion);
+        retencion.temporizador.cancelar();
+        return reservaDAO.liberarRetencion(idRetencion);
+    }
+
+    /**
+     * @return Número de retenciones activas
+     */
+    public int getRetencionesActivas() {
+        return activas.size();
+    }
+
+    private void programar(Retencion retencion, Duration duracion) {
+        retencion.temporizador = rueda.programar(() -> vencer(retencion),
+                duracion.toMillis(), TimeUnit.MILLISECONDS);
+        activas.put(retencion.getIdRetencion(), retencion);
+        if (retencion.estado.get() != ACTIVA) {
+            activas.remove(retencion.getIdRetencion()); // Venció antes de registrarse
+        }
+    }
+
+    private void vencer(Retencion retencion) {
+        if (!retencion.cerrar()) {
+            return; // Se confirmó o liberó justo antes de vencer
+        }
+        activas.remove(retencion.getIdRetencion());
+        if (reservaDAO.liberarRetencion(retencion.getIdRetencion())) {
+            System.out.println("⌛ Retención " + retencion.getIdRetencion() + " vencida: "
+                    + retencion.getCantidad() + " asientos devueltos al vuelo " + retencion.getIdVuelo());
+        } else {
+            System.err.println("❌ No se pudieron devolver los asientos de la retención " + retencion.getIdRetencion());
+        }
+    }
+
+    /**
+     * Asientos retenidos de un vuelo hasta una fecha límite.
+     */
+    public static final class Retencion {
+        private final long idRetencion;
+        private final int idVuelo;
+        private final int cantidad;
+        private final LocalDateTime vence;
+        private final ResultadoReserva resultado;
+        private final AtomicInteger estado = new AtomicInteger(ACTIVA);
+        private volatile RuedaTemporizadora.Temporizador temporizador;
+
+        private Retencion(ReservaDAO.Retenidos guardada) {
+            this.idRetencion = guardada.idRetencion();
+            this.idVuelo = guardada.idVuelo();
+            this.cantidad = guardada.cantidad();
+            this.vence = guardada.vence();
+            this.resultado = guardada.resultado();
+        }
+
+        /**
+         * Solo uno de confirmar, liberar o vencer puede cerrar la retención.
+         */
+        private boolean cerrar() {
+            return estado.compareAndSet(ACTIVA, CERRADA);
+        }
+
+        public long getIdRetencion() {
+            return idRetencion;
+        }
+
+        public int getIdVuelo() {
+            return idVuelo;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        public LocalDateTime getVence() {
+            return vence;
+        }
+
+        public ResultadoReserva getResultado() {
+            return resultado;
+        }
+
+        public boolean isRetenida() {
+            return resultado == ResultadoReserva.OK;
+        }
+    }
+}
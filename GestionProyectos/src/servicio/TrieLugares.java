@@ -0,0 +1,98 @@
+// servicio/TrieLugares.java
+package servicio;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Árbol de prefijos (trie) sobre nombres de ciudades ya normalizados.
+ *
+ * Resuelve un texto parcial ("bog") a todas las ciudades que empiezan por él
+ * ("bogotá") recorriendo solo el subárbol del prefijo, en lugar de comparar
+ * contra todos los nombres. Las lecturas no se bloquean y pueden convivir
+ * con inserciones de ciudades nuevas.
+ */
+final class TrieLugares {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final Nodo raiz = new Nodo();
+
+    /**
+     * Forma normalizada con la que se guardan y buscan los lugares:
+     * minúsculas, sin tildes ni diéresis y con los espacios colapsados
+     * ("  San   José " → "san jose"), así "bogota" encuentra "Bogotá".
+     *
+     * @return El texto normalizado, o null si queda vacío
+     */
+    static String normalizar(String lugar) {
+        if (lugar == null) {
+            return null;
+        }
+        String normalizado = lugar.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (!esAscii(normalizado)) {
+            normalizado = MARCAS.matcher(Normalizer.normalize(normalizado, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    private static boolean esAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Agrega un lugar ya normalizado. Agregar uno existente no tiene efecto.
+     */
+    void agregar(String lugar) {
+        Nodo actual = raiz;
+        for (int i = 0; i < lugar.length(); i++) {
+            actual = actual.hijos.computeIfAbsent(lugar.charAt(i), c -> new Nodo());
+        }
+        actual.lugar = lugar;
+    }
+
+    /**
+     * @param prefijo Prefijo ya normalizado
+     * @return Lugares que empiezan por el prefijo (vacío si ninguno)
+     */
+    List<String> buscarPrefijo(String prefijo) {
+        List<String> lugares = new ArrayList<>();
+        Nodo actual = raiz;
+        for (int i = 0; i < prefijo.length() && actual != null; i++) {
+            actual = actual.hijos.get(prefijo.charAt(i));
+        }
+        if (actual == null) {
+            return lugares;
+        }
+
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(actual);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            if (nodo.lugar != null) {
+                lugares.add(nodo.lugar);
+            }
+            for (Nodo hijo : nodo.hijos.values()) {
+                pendientes.push(hijo);
+            }
+        }
+        return lugares;
+    }
+
+    private static final class Nodo {
+        private final Map<Character, Nodo> hijos = new ConcurrentHashMap<>(4);
+        private volatile String lugar;
+    }
+}
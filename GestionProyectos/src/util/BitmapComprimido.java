@@ -0,0 +1,566 @@
+// util/BitmapComprimido.java
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de enteros no negativos comprimido al estilo "roaring".
+ *
+ * Los valores se reparten en bloques de 65 536 según sus 16 bits altos. Cada
+ * bloque se guarda como arreglo ordenado mientras tiene pocos valores (hasta
+ * 4096, como mucho 8 KB) y como mapa de bits de 8 KB cuando tiene más, así que
+ * ocupa poco tanto si los valores están dispersos como si están juntos. La
+ * intersección y la unión trabajan bloque a bloque: entre mapas de bits son
+ * operaciones sobre palabras de 64 bits.
+ *
+ * No es seguro para varios hilos; quien lo comparta debe sincronizarlo.
+ */
+public final class BitmapComprimido {
+
+    // Más valores que esto en un bloque ocupan menos como mapa de bits
+    private static final int MAX_ARREGLO = 4096;
+
+    private char[] claves = new char[0];            // 16 bits altos, ordenados
+    private Bloque[] bloques = new Bloque[0];
+    private int tamano = 0;                         // bloques en uso
+
+    public void agregar(int valor) {
+        verificar(valor);
+        char clave = (char) (valor >>> 16);
+        int pos = buscarClave(clave);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertarBloque(pos, clave, new Bloque());
+        }
+        bloques[pos] = bloques[pos].agregar((char) valor);
+    }
+
+    public void quitar(int valor) {
+        if (valor < 0) {
+            return;
+        }
+        int pos = buscarClave((char) (valor >>> 16));
+        if (pos < 0) {
+            return;
+        }
+        bloques[pos] = bloques[pos].quitar((char) valor);
+        if (bloques[pos].cardinalidad() == 0) {
+            quitarBloque(pos);
+        }
+    }
+
+    public boolean contiene(int valor) {
+        if (valor < 0) {
+            return false;
+        }
+        int pos = buscarClave((char) (valor >>> 16));
+        return pos >= 0 && bloques[pos].contiene((char) valor);
+    }
+
+    public int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < tamano; i++) {
+            total += bloques[i].cardinalidad();
+        }
+        return total;
+    }
+
+    public boolean esVacio() {
+        return tamano == 0;
+    }
+
+    public BitmapComprimido copia() {
+        BitmapComprimido copia = new BitmapComprimido();
+        copia.claves = Arrays.copyOf(claves, tamano);
+        copia.bloques = new Bloque[tamano];
+        for (int i = 0; i < tamano; i++) {
+            copia.bloques[i] = bloques[i].copia();
+        }
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    /**
+     * Recorre los valores en orden ascendente.
+     */
+    public void forEach(IntConsumer accion) {
+        for (int i = 0; i < tamano; i++) {
+            bloques[i].forEach(claves[i] << 16, accion);
+        }
+    }
+
+    /**
+     * @return Los valores en orden ascendente
+     */
+    public int[] aArreglo() {
+        int[] valores = new int[cardinalidad()];
+        int[] pos = {0};
+        forEach(v -> valores[pos[0]++] = v);
+        return valores;
+    }
+
+    /**
+     * Deja en este conjunto solo los valores que también están en {@code otro}.
+     * Entre mapas de bits trabaja en sitio, sin reservar memoria.
+     */
+    public void andEn(BitmapComprimido otro) {
+        int quedan = 0;
+        int j = 0;
+        for (int i = 0; i < tamano; i++) {
+            while (j < otro.tamano && otro.claves[j] < claves[i]) {
+                j++;
+            }
+            if (j == otro.tamano || otro.claves[j] != claves[i]) {
+                continue;
+            }
+            Bloque bloque = bloques[i].andEn(otro.bloques[j]);
+            if (bloque.cardinalidad() > 0) {
+                claves[quedan] = claves[i];
+                bloques[quedan++] = bloque;
+            }
+        }
+        Arrays.fill(bloques, quedan, tamano, null);
+        tamano = quedan;
+    }
+
+    /**
+     * Agrega a este conjunto los valores de {@code otro}.
+     * Entre mapas de bits trabaja en sitio, sin reservar memoria.
+     */
+    public void orEn(BitmapComprimido otro) {
+        for (int j = 0; j < otro.tamano; j++) {
+            int pos = buscarClave(otro.claves[j]);
+            if (pos >= 0) {
+                bloques[pos] = bloques[pos].orEn(otro.bloques[j]);
+            } else {
+                insertarBloque(-pos - 1, otro.claves[j], otro.bloques[j].copia());
+            }
+        }
+    }
+
+    /**
+     * @return Valores que están en ambos conjuntos
+     */
+    public static BitmapComprimido and(BitmapComprimido a, BitmapComprimido b) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano && j < b.tamano) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                Bloque bloque = a.bloques[i].and(b.bloques[j]);
+                if (bloque.cardinalidad() > 0) {
+                    resultado.insertarBloque(resultado.tamano, a.claves[i], bloque);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Valores que están en alguno de los dos conjuntos
+     */
+    public static BitmapComprimido or(BitmapComprimido a, BitmapComprimido b) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano || j < b.tamano) {
+            if (j == b.tamano || (i < a.tamano && a.claves[i] < b.claves[j])) {
+                resultado.insertarBloque(resultado.tamano, a.claves[i], a.bloques[i].copia());
+                i++;
+            } else if (i == a.tamano || a.claves[i] > b.claves[j]) {
+                resultado.insertarBloque(resultado.tamano, b.claves[j], b.bloques[j].copia());
+                j++;
+            } else {
+                resultado.insertarBloque(resultado.tamano, a.claves[i], a.bloques[i].or(b.bloques[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Valores de {@code a} que no están en {@code b}
+     */
+    public static BitmapComprimido andNot(BitmapComprimido a, BitmapComprimido b) {
+        BitmapComprimido resultado = new BitmapComprimido();
+        int j = 0;
+        for (int i = 0; i < a.tamano; i++) {
+            while (j < b.tamano && b.claves[j] < a.claves[i]) {
+                j++;
+            }
+            Bloque bloque = j < b.tamano && b.claves[j] == a.claves[i]
+                    ? a.bloques[i].andNot(b.bloques[j]) : a.bloques[i].copia();
+            if (bloque.cardinalidad() > 0) {
+                resultado.insertarBloque(resultado.tamano, a.claves[i], bloque);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Tamaño de la intersección sin construirla (para conteos de facetas).
+     */
+    public static int cardinalidadAnd(BitmapComprimido a, BitmapComprimido b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano && j < b.tamano) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                total += a.bloques[i].cardinalidadAnd(b.bloques[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Bytes aproximados que ocupan los bloques
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (int i = 0; i < tamano; i++) {
+            bytes += bloques[i].bits != null ? 8L * bloques[i].bits.length : 2L * bloques[i].arreglo.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapComprimido[" + cardinalidad() + " valores, " + tamano + " bloques]";
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    private static void verificar(int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Solo se admiten valores no negativos: " + valor);
+        }
+    }
+
+    private int buscarClave(char clave) {
+        return Arrays.binarySearch(claves, 0, tamano, clave);
+    }
+
+    private void insertarBloque(int pos, char clave, Bloque bloque) {
+        if (tamano == claves.length) {
+            int capacidad = Math.max(4, tamano * 2);
+            claves = Arrays.copyOf(claves, capacidad);
+            bloques = Arrays.copyOf(bloques, capacidad);
+        }
+        System.arraycopy(claves, pos, claves, pos + 1, tamano - pos);
+        System.arraycopy(bloques, pos, bloques, pos + 1, tamano - pos);
+        claves[pos] = clave;
+        bloques[pos] = bloque;
+        tamano++;
+    }
+
+    private void quitarBloque(int pos) {
+        System.arraycopy(claves, pos + 1, claves, pos, tamano - pos - 1);
+        System.arraycopy(bloques, pos + 1, bloques, pos, tamano - pos - 1);
+        bloques[--tamano] = null;
+    }
+
+    /**
+     * Valores de un bloque (sus 16 bits bajos): arreglo ordenado si son pocos
+     * ({@code bits == null}) o mapa de bits de 1024 palabras si son muchos.
+     */
+    private static final class Bloque {
+        private char[] arreglo;
+        private long[] bits;
+        private int cardinalidad;
+
+        Bloque() {
+            this.arreglo = new char[4];
+        }
+
+        private Bloque(char[] arreglo, long[] bits, int cardinalidad) {
+            this.arreglo = arreglo;
+            this.bits = bits;
+            this.cardinalidad = cardinalidad;
+        }
+
+        int cardinalidad() {
+            return cardinalidad;
+        }
+
+        boolean contiene(char valor) {
+            if (bits != null) {
+                return (bits[valor >>> 6] & (1L << valor)) != 0;
+            }
+            return Arrays.binarySearch(arreglo, 0, cardinalidad, valor) >= 0;
+        }
+
+        Bloque agregar(char valor) {
+            if (bits != null) {
+                long antes = bits[valor >>> 6];
+                bits[valor >>> 6] = antes | (1L << valor);
+                if (antes != bits[valor >>> 6]) {
+                    cardinalidad++;
+                }
+                return this;
+            }
+            int pos = Arrays.binarySearch(arreglo, 0, cardinalidad, valor);
+            if (pos >= 0) {
+                return this;
+            }
+            if (cardinalidad == MAX_ARREGLO) {
+                Bloque mapa = aMapa();
+                return mapa.agregar(valor);
+            }
+            pos = -pos - 1;
+            if (cardinalidad == arreglo.length) {
+                arreglo = Arrays.copyOf(arreglo, Math.min(arreglo.length * 2, MAX_ARREGLO));
+            }
+            System.arraycopy(arreglo, pos, arreglo, pos + 1, cardinalidad - pos);
+            arreglo[pos] = valor;
+            cardinalidad++;
+            return this;
+        }
+
+        Bloque quitar(char valor) {
+            if (bits != null) {
+                long antes = bits[valor >>> 6];
+                bits[valor >>> 6] = antes & ~(1L << valor);
+                if (antes != bits[valor >>> 6]) {
+                    cardinalidad--;
+                }
+                return cardinalidad <= MAX_ARREGLO ? aArreglo() : this;
+            }
+            int pos = Arrays.binarySearch(arreglo, 0, cardinalidad, valor);
+            if (pos >= 0) {
+                System.arraycopy(arreglo, pos + 1, arreglo, pos, cardinalidad - pos - 1);
+                cardinalidad--;
+            }
+            return this;
+        }
+
+        Bloque and(Bloque otro) {
+            if (bits != null && otro.bits != null) {
+                long[] resultado = new long[1024];
+                int total = 0;
+                for (int k = 0; k < 1024; k++) {
+                    resultado[k] = bits[k] & otro.bits[k];
+                    total += Long.bitCount(resultado[k]);
+                }
+                return new Bloque(null, resultado, total).compactar();
+            }
+            if (bits != null) {
+                return otro.and(this);
+            }
+            char[] resultado = new char[cardinalidad];
+            int total = 0;
+            if (otro.bits != null) {
+                for (int k = 0; k < cardinalidad; k++) {
+                    if (otro.contiene(arreglo[k])) {
+                        resultado[total++] = arreglo[k];
+                    }
+                }
+            } else {
+                int i = 0;
+                int j = 0;
+                while (i < cardinalidad && j < otro.cardinalidad) {
+                    if (arreglo[i] < otro.arreglo[j]) {
+                        i++;
+                    } else if (arreglo[i] > otro.arreglo[j]) {
+                        j++;
+                    } else {
+                        resultado[total++] = arreglo[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new Bloque(resultado, null, total);
+        }
+
+        Bloque andEn(Bloque otro) {
+            if (bits == null || otro.bits == null) {
+                return and(otro);
+            }
+            int total = 0;
+            for (int k = 0; k < 1024; k++) {
+                bits[k] &= otro.bits[k];
+                total += Long.bitCount(bits[k]);
+            }
+            cardinalidad = total;
+            return compactar();
+        }
+
+        Bloque orEn(Bloque otro) {
+            if (bits == null) {
+                return or(otro);
+            }
+            if (otro.bits != null) {
+                int total = 0;
+                for (int k = 0; k < 1024; k++) {
+                    bits[k] |= otro.bits[k];
+                    total += Long.bitCount(bits[k]);
+                }
+                cardinalidad = total;
+            } else {
+                for (int k = 0; k < otro.cardinalidad; k++) {
+                    agregar(otro.arreglo[k]);
+                }
+            }
+            return this;
+        }
+
+        Bloque or(Bloque otro) {
+            if (bits != null || otro.bits != null) {
+                Bloque mapa = bits != null ? copia() : otro.copia();
+                Bloque resto = bits != null ? otro : this;
+                if (resto.bits != null) {
+                    int total = 0;
+                    for (int k = 0; k < 1024; k++) {
+                        mapa.bits[k] |= resto.bits[k];
+                        total += Long.bitCount(mapa.bits[k]);
+                    }
+                    mapa.cardinalidad = total;
+                } else {
+                    for (int k = 0; k < resto.cardinalidad; k++) {
+                        mapa.agregar(resto.arreglo[k]);
+                    }
+                }
+                return mapa;
+            }
+            char[] resultado = new char[cardinalidad + otro.cardinalidad];
+            int total = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinalidad || j < otro.cardinalidad) {
+                if (j == otro.cardinalidad || (i < cardinalidad && arreglo[i] < otro.arreglo[j])) {
+                    resultado[total++] = arreglo[i++];
+                } else if (i == cardinalidad || arreglo[i] > otro.arreglo[j]) {
+                    resultado[total++] = otro.arreglo[j++];
+                } else {
+                    resultado[total++] = arreglo[i];
+                    i++;
+                    j++;
+                }
+            }
+            Bloque union = new Bloque(resultado, null, total);
+            return total > MAX_ARREGLO ? union.aMapa() : union;
+        }
+
+        Bloque andNot(Bloque otro) {
+            if (bits != null) {
+                Bloque resultado = copia();
+                if (otro.bits != null) {
+                    int total = 0;
+                    for (int k = 0; k < 1024; k++) {
+                        resultado.bits[k] &= ~otro.bits[k];
+                        total += Long.bitCount(resultado.bits[k]);
+                    }
+                    resultado.cardinalidad = total;
+                } else {
+                    for (int k = 0; k < otro.cardinalidad; k++) {
+                        char valor = otro.arreglo[k];
+                        if (resultado.contiene(valor)) {
+                            resultado.bits[valor >>> 6] &= ~(1L << valor);
+                            resultado.cardinalidad--;
+                        }
+                    }
+                }
+                return resultado.compactar();
+            }
+            char[] resultado = new char[cardinalidad];
+            int total = 0;
+            for (int k = 0; k < cardinalidad; k++) {
+                if (!otro.contiene(arreglo[k])) {
+                    resultado[total++] = arreglo[k];
+                }
+            }
+            return new Bloque(resultado, null, total);
+        }
+
+        int cardinalidadAnd(Bloque otro) {
+            if (bits != null && otro.bits != null) {
+                int total = 0;
+                for (int k = 0; k < 1024; k++) {
+                    total += Long.bitCount(bits[k] & otro.bits[k]);
+                }
+                return total;
+            }
+            if (bits != null) {
+                return otro.cardinalidadAnd(this);
+            }
+            int total = 0;
+            if (otro.bits != null) {
+                for (int k = 0; k < cardinalidad; k++) {
+                    if (otro.contiene(arreglo[k])) {
+                        total++;
+                    }
+                }
+                return total;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < cardinalidad && j < otro.cardinalidad) {
+                if (arreglo[i] < otro.arreglo[j]) {
+                    i++;
+                } else if (arreglo[i] > otro.arreglo[j]) {
+                    j++;
+                } else {
+                    total++;
+                    i++;
+                    j++;
+                }
+            }
+            return total;
+        }
+
+        void forEach(int base, IntConsumer accion) {
+            if (bits == null) {
+                for (int k = 0; k < cardinalidad; k++) {
+                    accion.accept(base | arreglo[k]);
+                }
+                return;
+            }
+            for (int k = 0; k < 1024; k++) {
+                long palabra = bits[k];
+                while (palabra != 0) {
+                    accion.accept(base | (k << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        Bloque copia() {
+            return bits != null
+                    ? new Bloque(null, bits.clone(), cardinalidad)
+                    : new Bloque(Arrays.copyOf(arreglo, Math.max(cardinalidad, 1)), null, cardinalidad);
+        }
+
+        private Bloque compactar() {
+            return bits != null && cardinalidad <= MAX_ARREGLO ? aArreglo() : this;
+        }
+
+        private Bloque aMapa() {
+            long[] mapa = new long[1024];
+            for (int k = 0; k < cardinalidad; k++) {
+                mapa[arreglo[k] >>> 6] |= 1L << arreglo[k];
+            }
+            return new Bloque(null, mapa, cardinalidad);
+        }
+
+        private Bloque aArreglo() {
+            char[] valores = new char[Math.max(cardinalidad, 1)];
+            int[] pos = {0};
+            forEach(0, v -> valores[pos[0]++] = (char) v);
+            return new Bloque(valores, null, cardinalidad);
+        }
+    }
+}
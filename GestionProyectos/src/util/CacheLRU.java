@@ -0,0 +1,49 @@
+// util/CacheLRU.java
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotada que descarta la entrada usada hace más tiempo (LRU)
+ * cuando se supera la capacidad. Es segura para varios hilos.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public class CacheLRU<K, V> {
+
+    private final Map<K, V> entradas;
+
+    public CacheLRU(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidad);
+        }
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> mayor) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    public synchronized V get(K clave) {
+        return entradas.get(clave);
+    }
+
+    public synchronized void put(K clave, V valor) {
+        entradas.put(clave, valor);
+    }
+
+    public synchronized V remove(K clave) {
+        return entradas.remove(clave);
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    public synchronized void clear() {
+        entradas.clear();
+    }
+}
@@ -12,40 +12,60 @@ package util;
 
 // DatabaseConnection.java
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import javax.sql.DataSource;
 
 public class ConexionBD {
     
-    private static final String URL = "jdbc:sqlserver://JPLAYLAPTOP\\SQLEXPRESS;"
+    // Se puede apuntar a otra instancia con -Dbd.url=jdbc:sqlserver://...
+    private static final String URL = System.getProperty("bd.url", "jdbc:sqlserver://JPLAYLAPTOP\\SQLEXPRESS;"
             + "databaseName=SistemaReservasVuelo;"
             + "integratedSecurity=true;"
             + "encrypt=true;"
-            + "trustServerCertificate=true;";
+            + "trustServerCertificate=true;");
 
-    private static Connection connection = null;
+    // Configuración del pool (se puede ajustar con -Dpool.maximo=20, etc.)
+    private static final int POOL_MINIMO = Integer.getInteger("pool.minimo", 2);
+    private static final int POOL_MAXIMO = Integer.getInteger("pool.maximo", 10);
+    private static final long POOL_ESPERA_MS = Long.getLong("pool.esperaMs", 5_000);
+    private static final long POOL_INACTIVIDAD_MS = Long.getLong("pool.inactividadMs", 300_000);
+    private static final long POOL_FUGA_MS = Long.getLong("pool.fugaMs", 60_000);
+    private static final long POOL_VALIDAR_MS = Long.getLong("pool.validarTrasMs", 30_000);
 
-    public static Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL);
-                System.out.println("✅ Conexión exitosa a: " + URL.split(";")[0]);
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Error de conexión:");
-            e.printStackTrace();
+    private static PoolConexiones pool = null;
+
+    /**
+     * Devuelve el pool compartido, creándolo la primera vez que se usa.
+     */
+    public static synchronized DataSource getDataSource() {
+        if (pool == null) {
+            pool = new PoolConexiones(URL, POOL_MINIMO, POOL_MAXIMO,
+                    POOL_ESPERA_MS, POOL_INACTIVIDAD_MS, POOL_FUGA_MS, POOL_VALIDAR_MS);
         }
-        return connection;
+        return pool;
     }
 
-    public static void closeConnection() {
+    /**
+     * Presta una conexión del pool. Al llamar a {@code close()} sobre ella
+     * se devuelve al pool en lugar de cerrarse.
+     *
+     * @return Conexión prestada (nunca null)
+     * @throws SQLException Si no se pudo obtener una conexión a tiempo
+     */
+    public static Connection getConnection() throws SQLException {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("🔌 Conexión cerrada.");
-            }
+            return getDataSource().getConnection();
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.err.println("❌ Error de conexión: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+            System.out.println("🔌 Conexión cerrada.");
         }
     }
-   }
\ No newline at end of file
+   }
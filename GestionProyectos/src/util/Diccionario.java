@@ -0,0 +1,55 @@
+// util/Diccionario.java
+package util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Asigna a cada texto distinto un código entero consecutivo (0, 1, 2...) para
+ * guardar columnas de texto repetitivo (ciudades, aerolíneas, estados) como
+ * arreglos de enteros.
+ *
+ * Leer un valor por su código no bloquea ni crea objetos; agregar textos
+ * nuevos sí se sincroniza, así que es seguro para varios hilos.
+ */
+public final class Diccionario {
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private volatile String[] valores = new String[16];
+    private volatile int tamano = 0;
+
+    /**
+     * @return El código del texto, asignándole uno nuevo si no lo tenía
+     */
+    public synchronized int codificar(String valor) {
+        Integer codigo = codigos.get(valor);
+        if (codigo != null) {
+            return codigo;
+        }
+        String[] actuales = valores;
+        if (tamano == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[tamano] = valor;
+        valores = actuales;
+        codigos.put(valor, tamano);
+        return tamano++;
+    }
+
+    /**
+     * @return El código del texto, o -1 si no está en el diccionario
+     */
+    public synchronized int codigo(String valor) {
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : -1;
+    }
+
+    public String valor(int codigo) {
+        return valores[codigo];
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,378 @@
+// util/FuenteOpenSky.java
+package util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Estados de OpenSky compartidos por toda la aplicación.
+ *
+ * Un solo HttpClient reutiliza las conexiones, y la última respuesta se
+ * guarda en memoria durante {@code -Dopensky.ttlMs} (10 s por defecto, lo que
+ * tarda OpenSky en publicar otra): dentro de ese plazo pedir los estados no
+ * cuesta nada. Si varios hilos piden a la vez con la respuesta vencida, solo
+ * uno va a la red y los demás esperan su resultado.
+ *
+ * La respuesta se lee de la red según llega, sin juntarla entera en memoria,
+ * y a la vez se copia comprimida a {@code -Dopensky.respaldo}
+ * (opensky-respaldo.json.gz por defecto), que solo reemplaza al anterior si
+ * se leyó completa. Si la API falla o tarda más de
+ * {@code -Dopensky.timeoutMs}, se sirve la última respuesta buena, de memoria
+ * o de ese archivo. Con {@code -Dopensky.offline=true} no se usa la red y el
+ * archivo hace de API para probar sin conexión.
+ */
+public class FuenteOpenSky {
+
+    // Endpoint público que no requiere autenticación
+    private static final String API_URL = "https://opensky-network.org/api/states/all";
+
+    private static final FuenteOpenSky INSTANCIA = new FuenteOpenSky(
+            Duration.ofMillis(Long.getLong("opensky.ttlMs", 10_000)),
+            Duration.ofMillis(Long.getLong("opensky.timeoutMs", 10_000)),
+            Paths.get(System.getProperty("opensky.respaldo", "opensky-respaldo.json.gz")),
+            Boolean.getBoolean("opensky.offline"));
+
+    /**
+     * Estados de una respuesta de OpenSky.
+     *
+     * @param estados Estados, de solo lectura
+     * @param tiempo Segundos Unix en que OpenSky generó la respuesta
+     * @param obtenida Cuándo se leyó (de la red o del respaldo)
+     * @param respaldo true si viene de la última respuesta buena porque la API no respondió
+     */
+    public record Instantanea(List<LectorEstadosOpenSky.Estado> estados, long tiempo, Instant obtenida,
+                              boolean respaldo) {
+
+        Instantanea comoRespaldo() {
+            return new Instantanea(estados, tiempo, Instant.now(), true);
+        }
+    }
+
+    private final HttpClient cliente;
+    private final Duration ttl;
+    private final Duration timeout;
+    private final Path archivoRespaldo;
+    private final boolean offline;
+
+    private Instantanea actual = null;                 // Última servida, vigente durante el TTL
+    private volatile Instantanea ultimaBuena = null;   // Última que llegó de la red (o del archivo)
+    private CompletableFuture<Instantanea> enCurso = null;
+
+    FuenteOpenSky(Duration ttl, Duration timeout, Path archivoRespaldo, boolean offline) {
+        this.ttl = ttl;
+        this.timeout = timeout;
+        this.archivoRespaldo = archivoRespaldo;
+        this.offline = offline;
+        this.cliente = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public static FuenteOpenSky getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Estados de OpenSky: de memoria si la última respuesta no venció; si no,
+     * de la red, o del respaldo si la red falla.
+     *
+     * @return Los estados, o null si la API falló y no hay respaldo
+     */
+    public Instantanea obtener() {
+        CompletableFuture<Instantanea> pendiente;
+        boolean descargaPropia = false;
+        synchronized (this) {
+            if (vigente()) {
+                return actual;
+            }
+            if (enCurso == null) {
+                enCurso = new CompletableFuture<>();
+                descargaPropia = true;
+            }
+            pendiente = enCurso;
+        }
+        if (descargaPropia) {
+            Instantanea resultado = null;
+            try {
+                resultado = offline ? leerRespaldo() : descargarOServirRespaldo();
+            } finally {
+                synchronized (this) {
+                    enCurso = null;
+                    if (resultado != null) {
+                        actual = resultado;
+                    }
+                }
+                pendiente.complete(resultado);
+            }
+        }
+        return pendiente.join();
+    }
+
+    // --- Métodos auxiliares ---
+
+    // Debe llamarse con el monitor
+    private boolean vigente() {
+        return actual != null && (offline || actual.obtenida().plus(ttl).isAfter(Instant.now()));
+    }
+
+    private Instantanea descargarOServirRespaldo() {
+        Instantanea descargada = descargar();
+        if (descargada != null) {
+            return descargada;
+        }
+        // Se sirve durante un TTL para que cada clic no espere otra vez el timeout
+        Instantanea respaldo = ultimaBuena != null ? ultimaBuena : leerRespaldo();
+        if (respaldo == null) {
+            return null;
+        }
+        System.out.println("⌛ OpenSky no responde: usando la respuesta de "
+                + Instant.ofEpochSecond(respaldo.tiempo()));
+        return respaldo.comoRespaldo();
+    }
+
+    /**
+     * Pide los estados a OpenSky y los lee según llegan, copiando a la vez los
+     * bytes comprimidos a un temporal que, si la lectura llega al final,
+     * reemplaza al respaldo.
+     *
+     * @return Los estados, o null si la API falló
+     */
+    private Instantanea descargar() {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(API_URL))
+                .timeout(timeout)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        Path temporal = crearTemporal();
+        try {
+            HttpResponse<InputStream> response = cliente.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                System.err.println("API responded with status: " + response.statusCode());
+                return null;
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding")
+                    .map(valor -> valor.equalsIgnoreCase("gzip")).orElse(false);
+
+            Instantanea instantanea;
+            EntradaCopiada entrada;
+            try (InputStream cuerpo = response.body()) {
+                entrada = new EntradaCopiada(cuerpo, abrirCopia(temporal, gzip));
+                try {
+                    LectorEstadosOpenSky lector = new LectorEstadosOpenSky(
+                            gzip ? new GZIPInputStream(entrada, 64 * 1024) : entrada);
+                    instantanea = leer(lector, false);
+                    // Lo que sigue a los estados (cierre del JSON, cola del gzip) también va al respaldo
+                    entrada.transferTo(OutputStream.nullOutputStream());
+                } finally {
+                    entrada.cerrarCopia();
+                }
+            }
+
+            ultimaBuena = instantanea;
+            if (entrada.copiaCompleta()) {
+                moverAlRespaldo(temporal);
+                temporal = null;
+            } else if (entrada.fallo != null) {
+                System.err.println("❌ No se pudo guardar el respaldo de OpenSky: " + entrada.fallo.getMessage());
+            }
+            return instantanea;
+
+        } catch (IOException e) {
+            System.err.println("Error de conexión con OpenSky API: " + e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            borrar(temporal);
+        }
+    }
+
+    /**
+     * @return La respuesta guardada en el archivo de respaldo, o null si no hay
+     */
+    private Instantanea leerRespaldo() {
+        if (!Files.isRegularFile(archivoRespaldo)) {
+            System.err.println("❌ No hay respaldo de OpenSky en " + archivoRespaldo.toAbsolutePath());
+            return null;
+        }
+        try (LectorEstadosOpenSky lector = new LectorEstadosOpenSky(
+                new GZIPInputStream(Files.newInputStream(archivoRespaldo), 64 * 1024))) {
+            Instantanea instantanea = leer(lector, offline);
+            ultimaBuena = instantanea;
+            return instantanea;
+        } catch (IOException e) {
+            System.err.println("❌ Error al leer el respaldo de OpenSky:");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return Un temporal junto al respaldo, o null si no se pudo crear (se lee igual, sin respaldo)
+     */
+    private Path crearTemporal() {
+        try {
+            Path carpeta = archivoRespaldo.toAbsolutePath().getParent();
+            Files.createDirectories(carpeta);
+            return Files.createTempFile(carpeta, "opensky-", ".tmp");
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo crear el respaldo de OpenSky: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return Dónde copiar la respuesta, comprimida; null si no hay temporal o no se pudo abrir
+     */
+    private static OutputStream abrirCopia(Path temporal, boolean yaComprimida) {
+        if (temporal == null) {
+            return null;
+        }
+        try {
+            OutputStream archivo = Files.newOutputStream(temporal);
+            return yaComprimida ? archivo : new GZIPOutputStream(archivo, 64 * 1024);
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo escribir el respaldo de OpenSky: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Mueve el temporal ya escrito encima del respaldo, para que este nunca
+     * quede a medio escribir.
+     */
+    private void moverAlRespaldo(Path temporal) {
+        try {
+            Files.move(temporal, archivoRespaldo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo guardar el respaldo de OpenSky: " + e.getMessage());
+            borrar(temporal);
+        }
+    }
+
+    private static void borrar(Path temporal) {
+        try {
+            if (temporal != null) Files.deleteIfExists(temporal);
+        } catch (IOException ignorada) {
+            // El temporal se queda; el próximo guardado usa otro nombre
+        }
+    }
+
+    /**
+     * Lee todos los estados.
+     */
+    private static Instantanea leer(LectorEstadosOpenSky lector, boolean respaldo) throws IOException {
+        List<LectorEstadosOpenSky.Estado> estados = new ArrayList<>();
+        LectorEstadosOpenSky.Estado estado = new LectorEstadosOpenSky.Estado();
+        while (lector.siguiente(estado)) {
+            estados.add(estado.copia());
+        }
+        return new Instantanea(Collections.unmodifiableList(estados), lector.getTiempo(), Instant.now(), respaldo);
+    }
+
+    /**
+     * Flujo que copia a {@code copia} todo lo que se lee de él. Si la copia
+     * falla, se deja de copiar pero la lectura sigue: perder el respaldo no
+     * debe hacer fallar la respuesta.
+     */
+    private static final class EntradaCopiada extends FilterInputStream {
+        private final boolean conCopia;
+        private OutputStream copia;
+        private IOException fallo = null;
+
+        EntradaCopiada(InputStream entrada, OutputStream copia) {
+            super(entrada);
+            this.copia = copia;
+            this.conCopia = copia != null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                copiar(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int desde, int largo) throws IOException {
+            int leidos = super.read(b, desde, largo);
+            if (leidos > 0) {
+                copiar(b, desde, leidos);
+            }
+            return leidos;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Saltar dejaría huecos en la copia: se lee y se descarta
+            int leidos = read(new byte[(int) Math.min(Math.max(n, 0), 8192)]);
+            return Math.max(leidos, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Termina la copia (con la cola del gzip si se comprime aquí).
+         */
+        void cerrarCopia() {
+            if (copia == null) {
+                return;
+            }
+            try {
+                copia.close();
+            } catch (IOException e) {
+                if (fallo == null) {
+                    fallo = e;
+                }
+            }
+            copia = null;
+        }
+
+        /**
+         * @return true si, ya cerrada, la copia tiene todo lo leído
+         */
+        boolean copiaCompleta() {
+            return conCopia && copia == null && fallo == null;
+        }
+
+        private void copiar(byte[] b, int desde, int largo) {
+            if (copia == null) {
+                return;
+            }
+            try {
+                copia.write(b, desde, largo);
+            } catch (IOException e) {
+                fallo = e;
+                cerrarCopia();
+            }
+        }
+    }
+}
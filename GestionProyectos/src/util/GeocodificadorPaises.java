@@ -0,0 +1,247 @@
+// util/GeocodificadorPaises.java
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dice en qué país cae una latitud/longitud, con los contornos de
+ * {@code paises.txt} (junto a esta clase), que
+ * herramientas/ConvertidorNaturalEarth.java genera a partir de los límites de
+ * Natural Earth.
+ *
+ * Al cargar, el mundo se divide en celdas de 1° × 1° y cada celda guarda los
+ * polígonos que la tocan. Si ningún borde de un polígono cruza la celda, la
+ * celda entera queda dentro de él y la respuesta es inmediata; solo en las
+ * celdas de frontera o costa se hace la prueba de punto en polígono, y contra
+ * los pocos polígonos de esa celda. Así cada consulta cuesta un par de
+ * microsegundos como mucho.
+ *
+ * Después de cargar nada cambia, así que varios hilos pueden consultar a la
+ * vez sin sincronizar.
+ */
+public final class GeocodificadorPaises {
+
+    private static final String ARCHIVO = "paises.txt";
+    private static final int COLUMNAS = 360;
+    private static final int FILAS = 180;
+
+    // Se carga la primera vez que se usa la clase
+    private static final GeocodificadorPaises INSTANCIA = cargar();
+
+    private final String[] paises;      // País de cada polígono, en el orden del archivo
+    private final int[] inicio;         // Vértices del polígono p: [inicio[p], inicio[p + 1])
+    private final double[] vertices;    // lon, lat, lon, lat...
+    private final int[] inicioCelda;    // Entradas de la celda c: [inicioCelda[c], inicioCelda[c + 1])
+    private final int[] entradas;       // polígono << 1 | 1 si la celda está entera dentro
+
+    /**
+     * Lee los polígonos en el formato de {@code paises.txt}.
+     *
+     * @throws IOException Si no se puede leer o una línea está mal formada
+     */
+    GeocodificadorPaises(BufferedReader lector) throws IOException {
+        List<String> nombres = new ArrayList<>();
+        List<double[]> poligonos = new ArrayList<>();
+        Map<String, String> unicos = new HashMap<>();
+        String linea;
+        int numero = 0;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            int dosPuntos = linea.indexOf(':');
+            if (dosPuntos <= 0) {
+                throw new IOException(ARCHIVO + ":" + numero + ": falta el país");
+            }
+            String[] puntos = linea.substring(dosPuntos + 1).split(",");
+            if (puntos.length < 3) {
+                throw new IOException(ARCHIVO + ":" + numero + ": el polígono necesita al menos 3 puntos");
+            }
+            double[] poligono = new double[puntos.length * 2];
+            for (int i = 0; i < puntos.length; i++) {
+                String[] lonLat = puntos[i].trim().split("\\s+");
+                if (lonLat.length != 2) {
+                    throw new IOException(ARCHIVO + ":" + numero + ": punto mal formado '" + puntos[i].trim() + "'");
+                }
+                try {
+                    poligono[2 * i] = Double.parseDouble(lonLat[0]);
+                    poligono[2 * i + 1] = Double.parseDouble(lonLat[1]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(ARCHIVO + ":" + numero + ": punto mal formado '" + puntos[i].trim() + "'", e);
+                }
+            }
+            String pais = linea.substring(0, dosPuntos).trim();
+            nombres.add(unicos.computeIfAbsent(pais, p -> p));
+            poligonos.add(poligono);
+        }
+
+        paises = nombres.toArray(new String[0]);
+        inicio = new int[poligonos.size() + 1];
+        int total = 0;
+        for (int p = 0; p < poligonos.size(); p++) {
+            inicio[p] = total;
+            total += poligonos.get(p).length / 2;
+        }
+        inicio[poligonos.size()] = total;
+        vertices = new double[total * 2];
+        for (int p = 0; p < poligonos.size(); p++) {
+            System.arraycopy(poligonos.get(p), 0, vertices, inicio[p] * 2, poligonos.get(p).length);
+        }
+
+        int[][] porCelda = new int[COLUMNAS * FILAS][];
+        int[] llenas = new int[COLUMNAS * FILAS];
+        for (int p = 0; p < paises.length; p++) {
+            indexar(p, porCelda, llenas);
+        }
+        inicioCelda = new int[porCelda.length + 1];
+        int entradasTotales = 0;
+        for (int c = 0; c < porCelda.length; c++) {
+            inicioCelda[c] = entradasTotales;
+            entradasTotales += llenas[c];
+        }
+        inicioCelda[porCelda.length] = entradasTotales;
+        entradas = new int[entradasTotales];
+        for (int c = 0; c < porCelda.length; c++) {
+            if (llenas[c] > 0) {
+                System.arraycopy(porCelda[c], 0, entradas, inicioCelda[c], llenas[c]);
+            }
+        }
+    }
+
+    public static GeocodificadorPaises getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * @return El país que contiene el punto, o null si cae en el mar, en la
+     *         Antártida o en un país que no está en el archivo
+     */
+    public String pais(double latitud, double longitud) {
+        if (Double.isNaN(latitud) || Double.isNaN(longitud)) {
+            return null;
+        }
+        if (longitud < -180 || longitud >= 180) {
+            longitud = ((longitud + 180) % 360 + 360) % 360 - 180;
+        }
+        int celda = fila(latitud) * COLUMNAS + columna(longitud);
+        for (int i = inicioCelda[celda]; i < inicioCelda[celda + 1]; i++) {
+            int entrada = entradas[i];
+            int p = entrada >>> 1;
+            if ((entrada & 1) != 0 || contiene(p, longitud, latitud)) {
+                return paises[p];
+            }
+        }
+        return null;
+    }
+
+    // --- Métodos auxiliares ---
+
+    private static GeocodificadorPaises cargar() {
+        InputStream entrada = GeocodificadorPaises.class.getResourceAsStream(ARCHIVO);
+        if (entrada == null) {
+            System.err.println("❌ No se encontró " + ARCHIVO + ": no se podrá ubicar ningún país");
+            return vacio();
+        }
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            return new GeocodificadorPaises(lector);
+        } catch (IOException e) {
+            System.err.println("❌ Error al cargar " + ARCHIVO + ":");
+            e.printStackTrace();
+            return vacio();
+        }
+    }
+
+    private static GeocodificadorPaises vacio() {
+        try {
+            return new GeocodificadorPaises(new BufferedReader(new StringReader("")));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // No ocurre con un texto en memoria
+        }
+    }
+
+    /**
+     * Agrega el polígono {@code p} a las celdas de su rectángulo: como
+     * frontera a las que toca algún borde, y como interior a las demás cuyo
+     * centro queda dentro (si ningún borde entra en la celda, o está toda
+     * dentro o toda fuera).
+     */
+    private void indexar(int p, int[][] porCelda, int[] llenas) {
+        int desde = inicio[p];
+        int hasta = inicio[p + 1];
+        int minCol = COLUMNAS, maxCol = -1, minFila = FILAS, maxFila = -1;
+        for (int v = desde; v < hasta; v++) {
+            minCol = Math.min(minCol, columna(vertices[2 * v]));
+            maxCol = Math.max(maxCol, columna(vertices[2 * v]));
+            minFila = Math.min(minFila, fila(vertices[2 * v + 1]));
+            maxFila = Math.max(maxFila, fila(vertices[2 * v + 1]));
+        }
+        int ancho = maxCol - minCol + 1;
+        boolean[] frontera = new boolean[ancho * (maxFila - minFila + 1)];
+        for (int v = desde, anterior = hasta - 1; v < hasta; anterior = v++) {
+            int c1 = columna(Math.min(vertices[2 * v], vertices[2 * anterior]));
+            int c2 = columna(Math.max(vertices[2 * v], vertices[2 * anterior]));
+            int f1 = fila(Math.min(vertices[2 * v + 1], vertices[2 * anterior + 1]));
+            int f2 = fila(Math.max(vertices[2 * v + 1], vertices[2 * anterior + 1]));
+            for (int f = f1; f <= f2; f++) {
+                for (int c = c1; c <= c2; c++) {
+                    frontera[(f - minFila) * ancho + (c - minCol)] = true;
+                }
+            }
+        }
+        for (int f = minFila; f <= maxFila; f++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                boolean esFrontera = frontera[(f - minFila) * ancho + (c - minCol)];
+                if (esFrontera) {
+                    agregar(porCelda, llenas, f * COLUMNAS + c, p << 1);
+                } else if (contiene(p, c - 180 + 0.5, f - 90 + 0.5)) {
+                    agregar(porCelda, llenas, f * COLUMNAS + c, p << 1 | 1);
+                }
+            }
+        }
+    }
+
+    private static void agregar(int[][] porCelda, int[] llenas, int celda, int entrada) {
+        int[] lista = porCelda[celda];
+        if (lista == null) {
+            lista = porCelda[celda] = new int[2];
+        } else if (llenas[celda] == lista.length) {
+            lista = porCelda[celda] = Arrays.copyOf(lista, lista.length * 2);
+        }
+        lista[llenas[celda]++] = entrada;
+    }
+
+    /**
+     * Prueba par-impar: cuenta cuántos bordes cruza un rayo hacia el este.
+     */
+    private boolean contiene(int p, double lon, double lat) {
+        boolean dentro = false;
+        for (int v = inicio[p], anterior = inicio[p + 1] - 1; v < inicio[p + 1]; anterior = v++) {
+            double x1 = vertices[2 * v], y1 = vertices[2 * v + 1];
+            double x2 = vertices[2 * anterior], y2 = vertices[2 * anterior + 1];
+            if ((y1 > lat) != (y2 > lat) && lon < (x2 - x1) * (lat - y1) / (y2 - y1) + x1) {
+                dentro = !dentro;
+            }
+        }
+        return dentro;
+    }
+
+    private static int columna(double longitud) {
+        return Math.min(COLUMNAS - 1, Math.max(0, (int) Math.floor(longitud + 180)));
+    }
+
+    private static int fila(double latitud) {
+        return Math.min(FILAS - 1, Math.max(0, (int) Math.floor(latitud + 90)));
+    }
+}
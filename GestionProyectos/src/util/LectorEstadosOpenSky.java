@@ -0,0 +1,537 @@
+// util/LectorEstadosOpenSky.java
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector incremental de la respuesta de {@code /api/states/all} de OpenSky.
+ *
+ * En lugar de leer todo el JSON a un String y partirlo, recorre el flujo de
+ * bytes con un búfer fijo y entrega los vectores de estado uno por uno con
+ * {@link #siguiente(Estado)}, que rellena un {@link Estado} reutilizable con
+ * campos primitivos. La memoria usada no depende del tamaño de la respuesta,
+ * y los textos con comas, comillas escapadas o arreglos anidados (el campo
+ * "sensors") se leen correctamente.
+ *
+ * Formato de cada estado (posiciones del arreglo): 0 icao24, 1 callsign,
+ * 2 origin_country, 3 time_position, 4 last_contact, 5 longitude,
+ * 6 latitude, 7 baro_altitude, 8 on_ground, 9 velocity, 10 true_track,
+ * 11 vertical_rate, 12 sensors, 13 geo_altitude, 14 squawk, 15 spi,
+ * 16 position_source. Los valores null quedan como NaN, 0 o null.
+ *
+ * No es seguro para varios hilos.
+ */
+public class LectorEstadosOpenSky implements Closeable {
+
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    // Potencias de 10 exactas en double, para convertir números sin crear Strings
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream entrada;
+    private final byte[] bufer = new byte[TAMANO_BUFER];
+    private int posicion = 0;
+    private int limite = 0;
+    private char[] texto = new char[64];    // textos en curso
+    private int largoTexto = 0;
+    private long tiempo = 0;
+    private boolean enEstados = false;
+    private boolean terminado = false;
+
+    public LectorEstadosOpenSky(InputStream entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Lee el siguiente vector de estado.
+     *
+     * @param estado Se sobrescribe con los datos leídos
+     * @return false cuando ya no hay más estados
+     * @throws IOException Si el flujo falla o el JSON no tiene el formato esperado
+     */
+    public boolean siguiente(Estado estado) throws IOException {
+        if (terminado) {
+            return false;
+        }
+        if (!enEstados && !buscarEstados()) {
+            terminado = true;
+            return false;
+        }
+
+        int c = siguienteNoBlanco();
+        if (c == ',') {
+            c = siguienteNoBlanco();
+        }
+        if (c == ']') {
+            terminado = true;
+            return false;
+        }
+        if (c != '[') {
+            throw error("se esperaba un estado");
+        }
+
+        estado.limpiar();
+        int campo = 0;
+        c = siguienteNoBlanco();
+        if (c == ']') {
+            return true;
+        }
+        posicion--;
+        while (true) {
+            leerCampo(estado, campo++);
+            c = siguienteNoBlanco();
+            if (c == ']') {
+                return true;
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o ']' en un estado");
+            }
+        }
+    }
+
+    /**
+     * @return El campo "time" de la respuesta (segundos desde la época), si
+     *         venía antes de los estados; 0 si no se ha visto
+     */
+    public long getTiempo() {
+        return tiempo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    // --- Estructura ---
+
+    /**
+     * Avanza por el objeto raíz hasta quedar justo después del '[' de "states".
+     *
+     * @return false si el objeto termina sin "states" o con "states": null
+     */
+    private boolean buscarEstados() throws IOException {
+        int c = siguienteNoBlanco();
+        if (c != '{') {
+            throw error("se esperaba un objeto");
+        }
+        while (true) {
+            c = siguienteNoBlanco();
+            if (c == '}') {
+                return false;
+            }
+            if (c == ',') {
+                continue;
+            }
+            if (c != '"') {
+                throw error("se esperaba una clave");
+            }
+            leerTextoCrudo();
+            if (siguienteNoBlanco() != ':') {
+                throw error("se esperaba ':'");
+            }
+            if (textoEs("states")) {
+                c = siguienteNoBlanco();
+                if (c == '[') {
+                    enEstados = true;
+                    return true;
+                }
+                posicion--;
+                saltarValor();
+            } else if (textoEs("time")) {
+                tiempo = (long) leerNumeroONulo(0);
+            } else {
+                saltarValor();
+            }
+        }
+    }
+
+    private void leerCampo(Estado e, int campo) throws IOException {
+        switch (campo) {
+            case 0 -> e.icao24 = leerTextoONulo(false);
+            case 1 -> e.callsign = leerTextoONulo(true);
+            case 2 -> e.paisOrigen = leerTextoONulo(false);
+            case 3 -> e.tiempoPosicion = (long) leerNumeroONulo(0);
+            case 4 -> e.ultimoContacto = (long) leerNumeroONulo(0);
+            case 5 -> e.longitud = leerNumeroONulo(Double.NaN);
+            case 6 -> e.latitud = leerNumeroONulo(Double.NaN);
+            case 7 -> e.altitudBarometrica = leerNumeroONulo(Double.NaN);
+            case 8 -> e.enTierra = leerLogico();
+            case 9 -> e.velocidad = leerNumeroONulo(Double.NaN);
+            case 10 -> e.rumbo = leerNumeroONulo(Double.NaN);
+            case 11 -> e.velocidadVertical = leerNumeroONulo(Double.NaN);
+            case 13 -> e.altitudGeometrica = leerNumeroONulo(Double.NaN);
+            default -> saltarValor();
+        }
+    }
+
+    /**
+     * Salta un valor JSON cualquiera, incluidos objetos y arreglos anidados.
+     */
+    private void saltarValor() throws IOException {
+        int c = siguienteNoBlanco();
+        switch (c) {
+            case '"' -> leerTextoCrudo();
+            case '[', '{' -> {
+                int profundidad = 1;
+                while (profundidad > 0) {
+                    c = leerByte();
+                    if (c == '"') {
+                        leerTextoCrudo();
+                    } else if (c == '[' || c == '{') {
+                        profundidad++;
+                    } else if (c == ']' || c == '}') {
+                        profundidad--;
+                    } else if (c < 0) {
+                        throw error("fin inesperado");
+                    }
+                }
+            }
+            default -> {
+                // Número, true, false o null: hasta el siguiente separador
+                while (c >= 0 && c != ',' && c != ']' && c != '}' && !esBlanco(c)) {
+                    c = leerByte();
+                }
+                if (c >= 0) {
+                    posicion--;
+                }
+            }
+        }
+    }
+
+    // --- Valores ---
+
+    private String leerTextoONulo(boolean recortar) throws IOException {
+        int c = siguienteNoBlanco();
+        if (c != '"') {
+            posicion--;
+            saltarValor();
+            return null;
+        }
+        leerTextoCrudo();
+        int inicio = 0;
+        int fin = largoTexto;
+        if (recortar) {
+            while (inicio < fin && texto[inicio] == ' ') {
+                inicio++;
+            }
+            while (fin > inicio && texto[fin - 1] == ' ') {
+                fin--;
+            }
+        }
+        return new String(texto, inicio, fin - inicio);
+    }
+
+    /**
+     * Lee un texto (ya consumida la comilla inicial) a {@code texto},
+     * resolviendo los escapes. Los bytes se decodifican como UTF-8.
+     */
+    private void leerTextoCrudo() throws IOException {
+        largoTexto = 0;
+        while (true) {
+            int c = leerByte();
+            if (c == '"') {
+                return;
+            }
+            if (c < 0) {
+                throw error("texto sin cerrar");
+            }
+            if (c == '\\') {
+                c = leerByte();
+                switch (c) {
+                    case 'n' -> agregarCaracter('\n');
+                    case 't' -> agregarCaracter('\t');
+                    case 'r' -> agregarCaracter('\r');
+                    case 'b' -> agregarCaracter('\b');
+                    case 'f' -> agregarCaracter('\f');
+                    case 'u' -> {
+                        int valor = 0;
+                        for (int i = 0; i < 4; i++) {
+                            valor = (valor << 4) | Character.digit(leerByte(), 16);
+                        }
+                        agregarCaracter((char) valor);
+                    }
+                    default -> agregarCaracter((char) c);  // \" \\ \/
+                }
+            } else if (c < 0x80) {
+                agregarCaracter((char) c);
+            } else {
+                leerUtf8(c);
+            }
+        }
+    }
+
+    private void leerUtf8(int primero) throws IOException {
+        int extra = primero >= 0xF0 ? 3 : primero >= 0xE0 ? 2 : 1;
+        byte[] bytes = new byte[extra + 1];
+        bytes[0] = (byte) primero;
+        for (int i = 1; i <= extra; i++) {
+            bytes[i] = (byte) leerByte();
+        }
+        for (char ch : new String(bytes, StandardCharsets.UTF_8).toCharArray()) {
+            agregarCaracter(ch);
+        }
+    }
+
+    private double leerNumeroONulo(double siNulo) throws IOException {
+        int c = siguienteNoBlanco();
+        posicion--;
+        if (c == 'n') {
+            saltarValor();
+            return siNulo;
+        }
+        return leerNumero();
+    }
+
+    /**
+     * Convierte un número JSON sin crear Strings. Con hasta 15 dígitos
+     * significativos y exponente pequeño (el caso de OpenSky) el resultado es
+     * exacto; si no, se delega en {@link Double#parseDouble}.
+     */
+    private double leerNumero() throws IOException {
+        int c = siguienteNoBlanco();
+        largoTexto = 0;
+        boolean negativo = c == '-';
+        if (negativo) {
+            agregarCaracter('-');
+            c = leerByte();
+        }
+        long mantisa = 0;
+        int digitos = 0;
+        int exponente = 0;
+        while (c >= '0' && c <= '9') {
+            agregarCaracter((char) c);
+            if (mantisa != 0 || c != '0') {
+                digitos++;
+            }
+            mantisa = mantisa * 10 + (c - '0');
+            c = leerByte();
+        }
+        if (c == '.') {
+            agregarCaracter('.');
+            c = leerByte();
+            while (c >= '0' && c <= '9') {
+                agregarCaracter((char) c);
+                if (mantisa != 0 || c != '0') {
+                    digitos++;
+                }
+                mantisa = mantisa * 10 + (c - '0');
+                exponente--;
+                c = leerByte();
+            }
+        }
+        boolean simple = true;
+        if (c == 'e' || c == 'E') {
+            simple = false;
+            agregarCaracter('e');
+            c = leerByte();
+            while (c == '+' || c == '-' || (c >= '0' && c <= '9')) {
+                agregarCaracter((char) c);
+                c = leerByte();
+            }
+        }
+        if (c >= 0) {
+            posicion--;
+        }
+        if (largoTexto == 0 || (negativo && largoTexto == 1)) {
+            throw error("se esperaba un número");
+        }
+
+        if (simple && digitos <= 15 && -exponente < POTENCIAS_10.length) {
+            double valor = exponente == 0 ? mantisa : mantisa / POTENCIAS_10[-exponente];
+            return negativo ? -valor : valor;
+        }
+        return Double.parseDouble(new String(texto, 0, largoTexto));
+    }
+
+    private boolean leerLogico() throws IOException {
+        int c = siguienteNoBlanco();
+        posicion--;
+        saltarValor();
+        return c == 't';
+    }
+
+    // --- Bytes ---
+
+    private int leerByte() throws IOException {
+        if (posicion == limite) {
+            limite = entrada.read(bufer, 0, bufer.length);
+            posicion = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return bufer[posicion++] & 0xFF;
+    }
+
+    private int siguienteNoBlanco() throws IOException {
+        int c = leerByte();
+        while (esBlanco(c)) {
+            c = leerByte();
+        }
+        if (c < 0) {
+            throw error("fin inesperado");
+        }
+        return c;
+    }
+
+    private static boolean esBlanco(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private void agregarCaracter(char c) {
+        if (largoTexto == texto.length) {
+            char[] mayor = new char[texto.length * 2];
+            System.arraycopy(texto, 0, mayor, 0, largoTexto);
+            texto = mayor;
+        }
+        texto[largoTexto++] = c;
+    }
+
+    private boolean textoEs(String valor) {
+        if (largoTexto != valor.length()) {
+            return false;
+        }
+        for (int i = 0; i < largoTexto; i++) {
+            if (texto[i] != valor.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IOException error(String mensaje) {
+        return new IOException("JSON de OpenSky inválido: " + mensaje);
+    }
+
+    /**
+     * Vector de estado de una aeronave. El lector reutiliza el mismo objeto
+     * en cada llamada; use {@link #copia()} para conservarlo.
+     */
+    public static final class Estado {
+        private String icao24;
+        private String callsign;
+        private String paisOrigen;
+        private long tiempoPosicion;
+        private long ultimoContacto;
+        private double longitud;
+        private double latitud;
+        private double altitudBarometrica;
+        private boolean enTierra;
+        private double velocidad;
+        private double rumbo;
+        private double velocidadVertical;
+        private double altitudGeometrica;
+
+        public Estado() {
+            limpiar();
+        }
+
+        void limpiar() {
+            icao24 = null;
+            callsign = null;
+            paisOrigen = null;
+            tiempoPosicion = 0;
+            ultimoContacto = 0;
+            longitud = Double.NaN;
+            latitud = Double.NaN;
+            altitudBarometrica = Double.NaN;
+            enTierra = false;
+            velocidad = Double.NaN;
+            rumbo = Double.NaN;
+            velocidadVertical = Double.NaN;
+            altitudGeometrica = Double.NaN;
+        }
+
+        public Estado copia() {
+            Estado copia = new Estado();
+            copia.icao24 = icao24;
+            copia.callsign = callsign;
+            copia.paisOrigen = paisOrigen;
+            copia.tiempoPosicion = tiempoPosicion;
+            copia.ultimoContacto = ultimoContacto;
+            copia.longitud = longitud;
+            copia.latitud = latitud;
+            copia.altitudBarometrica = altitudBarometrica;
+            copia.enTierra = enTierra;
+            copia.velocidad = velocidad;
+            copia.rumbo = rumbo;
+            copia.velocidadVertical = velocidadVertical;
+            copia.altitudGeometrica = altitudGeometrica;
+            return copia;
+        }
+
+        /**
+         * @return Dirección ICAO de 24 bits en hexadecimal (identifica la aeronave)
+         */
+        public String getIcao24() {
+            return icao24;
+        }
+
+        /**
+         * @return Indicativo sin espacios de relleno, o null si no lo envía
+         */
+        public String getCallsign() {
+            return callsign;
+        }
+
+        public String getPaisOrigen() {
+            return paisOrigen;
+        }
+
+        /**
+         * @return Segundos desde la época de la última posición, o 0
+         */
+        public long getTiempoPosicion() {
+            return tiempoPosicion;
+        }
+
+        public long getUltimoContacto() {
+            return ultimoContacto;
+        }
+
+        /**
+         * @return Longitud en grados, o NaN si no hay posición
+         */
+        public double getLongitud() {
+            return longitud;
+        }
+
+        public double getLatitud() {
+            return latitud;
+        }
+
+        public double getAltitudBarometrica() {
+            return altitudBarometrica;
+        }
+
+        public boolean isEnTierra() {
+            return enTierra;
+        }
+
+        /**
+         * @return Velocidad sobre el suelo en m/s, o NaN
+         */
+        public double getVelocidad() {
+            return velocidad;
+        }
+
+        public double getRumbo() {
+            return rumbo;
+        }
+
+        public double getVelocidadVertical() {
+            return velocidadVertical;
+        }
+
+        public double getAltitudGeometrica() {
+            return altitudGeometrica;
+        }
+    }
+}
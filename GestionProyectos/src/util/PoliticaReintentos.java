@@ -0,0 +1,106 @@
+// util/PoliticaReintentos.java
+package util;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reintenta operaciones de base de datos que fallan por contención.
+ *
+ * Solo se reintentan los errores transitorios que SQL Server lanza bajo
+ * carga (víctima de interbloqueo, tiempo de espera de bloqueo, conflicto
+ * de versión); cualquier otro error se propaga en el primer intento.
+ * Entre intentos se espera un tiempo aleatorio con crecimiento exponencial
+ * ("full jitter") para que los hilos en conflicto no choquen de nuevo a la vez.
+ */
+public class PoliticaReintentos {
+
+    // Códigos de error de SQL Server que indican un conflicto transitorio
+    private static final int INTERBLOQUEO = 1205;
+    private static final int TIEMPO_BLOQUEO_AGOTADO = 1222;
+    private static final int CONFLICTO_SNAPSHOT = 3960;
+
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+
+    /**
+     * Operación que puede lanzar SQLException.
+     */
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    /**
+     * @param maxIntentos Intentos totales, incluido el primero
+     * @param esperaBaseMs Espera máxima tras el primer fallo
+     * @param esperaMaximaMs Tope de la espera entre intentos
+     */
+    public PoliticaReintentos(int maxIntentos, long esperaBaseMs, long esperaMaximaMs) {
+        if (maxIntentos < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un intento.");
+        }
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Ejecuta la operación, reintentándola si falla con un error transitorio.
+     * La operación debe poder repetirse sin efectos duplicados (su transacción
+     * se revierte completa al fallar).
+     *
+     * @throws SQLException El último error si se agotan los intentos, o el
+     *         primer error no reintentable
+     */
+    public <T> T ejecutar(Operacion<T> operacion) throws SQLException {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.ejecutar();
+            } catch (SQLException e) {
+                if (intento >= maxIntentos || !esReintentable(e)) {
+                    throw e;
+                }
+                System.err.println("🔁 Conflicto de concurrencia (" + describir(e) + "), reintento "
+                        + intento + " de " + (maxIntentos - 1));
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Indica si el error (o alguno encadenado) es un conflicto transitorio.
+     */
+    public static boolean esReintentable(SQLException e) {
+        for (SQLException actual = e; actual != null; actual = actual.getNextException()) {
+            int codigo = actual.getErrorCode();
+            if (codigo == INTERBLOQUEO || codigo == TIEMPO_BLOQUEO_AGOTADO || codigo == CONFLICTO_SNAPSHOT) {
+                return true;
+            }
+            // 40001: fallo de serialización (estándar SQL)
+            if ("40001".equals(actual.getSQLState())) {
+                return true;
+            }
+            if (actual.getCause() instanceof SQLException causa && causa != actual && esReintentable(causa)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void esperar(int intento) throws SQLException {
+        long tope = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento - 1, 20));
+        long espera = ThreadLocalRandom.current().nextLong(tope + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando para reintentar.", ie);
+        }
+    }
+
+    private static String describir(SQLException e) {
+        return "error " + e.getErrorCode() + ", estado " + e.getSQLState();
+    }
+}
@@ -0,0 +1,440 @@
+// util/PoolConexiones.java
+package util;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Pool acotado de conexiones JDBC expuesto como {@link DataSource}.
+ *
+ * Cada conexión física se abre una sola vez y se reutiliza entre operaciones.
+ * Las conexiones entregadas son envoltorios: llamar a {@code close()} las
+ * devuelve al pool en lugar de cerrar la conexión con SQL Server, por lo que
+ * los DAO pueden seguir cerrando la conexión en su bloque {@code finally}.
+ *
+ * Incluye tamaño mínimo/máximo, expulsión de conexiones inactivas,
+ * validación al prestar, tiempo máximo de espera y detección de fugas.
+ * Validar cuesta un viaje al servidor, así que solo se validan las
+ * conexiones que llevan libres más de {@code validarTrasMs}: las que se
+ * acaban de devolver se prestan sin más.
+ */
+public class PoolConexiones implements DataSource {
+
+    private final String url;
+    private final int minimo;
+    private final int maximo;
+    private final long esperaMaximaMs;
+    private final long inactividadMaximaMs;
+    private final long umbralFugaMs;
+    private final long validarTrasMs;
+
+    // LIFO: la conexión devuelta más recientemente es la primera en prestarse
+    private final LinkedBlockingDeque<ConexionFisica> libres = new LinkedBlockingDeque<>();
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    // Quien espera conexión despierta cuando se devuelve una o cuando se descarta
+    // una y queda cupo para abrir otra; el contador evita perder un aviso que
+    // llegue entre mirar y ponerse a esperar
+    private final ReentrantLock cerrojoEspera = new ReentrantLock();
+    private final Condition hayCambios = cerrojoEspera.newCondition();
+    private long cambios = 0;
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado = false;
+    private volatile int loginTimeout = 0;
+
+    /**
+     * @param url URL JDBC de la base de datos
+     * @param minimo Conexiones que se mantienen abiertas aunque estén inactivas
+     * @param maximo Conexiones físicas simultáneas como máximo
+     * @param esperaMaximaMs Tiempo máximo esperando una conexión libre
+     * @param inactividadMaximaMs Tiempo tras el cual una conexión libre sobrante se cierra
+     * @param umbralFugaMs Tiempo prestada tras el cual se avisa de una posible fuga (0 = desactivado)
+     * @param validarTrasMs Tiempo libre a partir del cual una conexión se valida antes de prestarla
+     */
+    public PoolConexiones(String url, int minimo, int maximo, long esperaMaximaMs,
+                          long inactividadMaximaMs, long umbralFugaMs, long validarTrasMs) {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaño de pool inválido: min=" + minimo + ", max=" + maximo);
+        }
+        this.url = url;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.inactividadMaximaMs = inactividadMaximaMs;
+        this.umbralFugaMs = umbralFugaMs;
+        this.validarTrasMs = validarTrasMs;
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexiones-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, Math.min(inactividadMaximaMs, 30_000) / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado.");
+        }
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        while (true) {
+            long visto = cambiosVistos();
+            ConexionFisica fisica = libres.pollFirst();
+
+            if (fisica == null) {
+                fisica = crearSiHayCupo();
+            }
+            if (fisica == null) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    throw new SQLException("⏳ Tiempo de espera agotado: no hay conexiones libres ("
+                            + maximo + " en uso).", "08001");
+                }
+                if (cerrado) {
+                    throw new SQLException("El pool de conexiones está cerrado.");
+                }
+                // Al despertar se vuelve a mirar: puede haber una libre o cupo para abrir otra
+                esperarCambio(visto, restante);
+                continue;
+            }
+            if (!fisica.nueva && System.currentTimeMillis() - fisica.libreDesde >= validarTrasMs
+                    && !esValida(fisica)) {
+                // Validación al prestar: se descarta y se intenta con otra
+                descartar(fisica);
+                continue;
+            }
+
+            fisica.nueva = false;
+            fisica.prestadaDesde = System.currentTimeMillis();
+            fisica.origenPrestamo = umbralFugaMs > 0 ? new Throwable("Conexión prestada aquí") : null;
+            prestadas.add(fisica);
+            return envolver(fisica);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("El pool usa las credenciales de la URL.");
+    }
+
+    /**
+     * Cierra todas las conexiones libres y detiene el mantenimiento.
+     * Las conexiones prestadas se cierran cuando se devuelven.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        cerrojoEspera.lock();
+        try {
+            hayCambios.signalAll();
+        } finally {
+            cerrojoEspera.unlock();
+        }
+        ConexionFisica fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            descartar(fisica);
+        }
+    }
+
+    public int getConexionesTotales() {
+        return total.get();
+    }
+
+    public int getConexionesLibres() {
+        return libres.size();
+    }
+
+    public int getConexionesPrestadas() {
+        return prestadas.size();
+    }
+
+    // --- Métodos privados auxiliares ---
+
+    /**
+     * Abre una conexión física nueva solo si no se ha alcanzado el máximo.
+     */
+    private ConexionFisica crearSiHayCupo() throws SQLException {
+        int actual;
+        do {
+            actual = total.get();
+            if (actual >= maximo) {
+                return null;
+            }
+        } while (!total.compareAndSet(actual, actual + 1));
+
+        try {
+            return abrir();
+        } catch (SQLException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private ConexionFisica abrir() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        System.out.println("✅ Conexión exitosa a: " + url.split(";")[0]
+                + " (" + total.get() + "/" + maximo + " en el pool)");
+        return new ConexionFisica(conn);
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        try {
+            return fisica.conexion.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void descartar(ConexionFisica fisica) {
+        total.decrementAndGet();
+        try {
+            fisica.conexion.close();
+        } catch (SQLException e) {
+            // La conexión ya estaba rota; no hay nada más que hacer
+        }
+        // Quedó cupo: quien espera puede abrir una nueva sin agotar su espera
+        avisarCambio();
+    }
+
+    private long cambiosVistos() {
+        cerrojoEspera.lock();
+        try {
+            return cambios;
+        } finally {
+            cerrojoEspera.unlock();
+        }
+    }
+
+    /**
+     * Espera hasta que se devuelva o se descarte una conexión después de
+     * {@code visto}, o hasta que pasen {@code nanos}.
+     */
+    private void esperarCambio(long visto, long nanos) throws SQLException {
+        cerrojoEspera.lock();
+        try {
+            while (cambios == visto && nanos > 0 && !cerrado) {
+                nanos = hayCambios.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión.", e);
+        } finally {
+            cerrojoEspera.unlock();
+        }
+    }
+
+    private void avisarCambio() {
+        cerrojoEspera.lock();
+        try {
+            cambios++;
+            hayCambios.signalAll();
+        } finally {
+            cerrojoEspera.unlock();
+        }
+    }
+
+    /**
+     * Devuelve la conexión al pool dejando el estado de sesión como al prestarla.
+     */
+    private void devolver(ConexionFisica fisica) {
+        prestadas.remove(fisica);
+        try {
+            Connection conn = fisica.conexion;
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            conn.clearWarnings();
+        } catch (SQLException e) {
+            descartar(fisica);
+            return;
+        }
+
+        if (cerrado) {
+            descartar(fisica);
+            return;
+        }
+        fisica.libreDesde = System.currentTimeMillis();
+        libres.offerFirst(fisica);
+        avisarCambio();
+    }
+
+    /**
+     * Tarea periódica: expulsa conexiones inactivas sobrantes, repone el
+     * mínimo y avisa de conexiones prestadas durante demasiado tiempo.
+     */
+    private void mantener() {
+        long ahora = System.currentTimeMillis();
+
+        Iterator<ConexionFisica> it = libres.descendingIterator();
+        while (it.hasNext() && total.get() > minimo) {
+            ConexionFisica fisica = it.next();
+            if (ahora - fisica.libreDesde >= inactividadMaximaMs && libres.remove(fisica)) {
+                descartar(fisica);
+            }
+        }
+
+        while (!cerrado && total.get() < minimo) {
+            try {
+                ConexionFisica fisica = crearSiHayCupo();
+                if (fisica == null) {
+                    break;
+                }
+                fisica.libreDesde = ahora;
+                libres.offerLast(fisica);
+                avisarCambio();
+            } catch (SQLException e) {
+                System.err.println("❌ No se pudo reponer el mínimo del pool: " + e.getMessage());
+                break;
+            }
+        }
+
+        if (umbralFugaMs > 0) {
+            for (ConexionFisica fisica : prestadas) {
+                if (!fisica.fugaReportada && ahora - fisica.prestadaDesde >= umbralFugaMs) {
+                    fisica.fugaReportada = true;
+                    System.err.println("⚠️ Posible fuga: conexión prestada hace "
+                            + (ahora - fisica.prestadaDesde) + " ms sin devolverse.");
+                    if (fisica.origenPrestamo != null) {
+                        fisica.origenPrestamo.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private Connection envolver(ConexionFisica fisica) {
+        return (Connection) Proxy.newProxyInstance(
+                PoolConexiones.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexionPrestada(fisica));
+    }
+
+    /**
+     * Conexión física junto con los datos que necesita el pool.
+     */
+    private static final class ConexionFisica {
+        final Connection conexion;
+        volatile boolean nueva = true;
+        volatile long libreDesde = System.currentTimeMillis();
+        volatile long prestadaDesde;
+        volatile Throwable origenPrestamo;
+        volatile boolean fugaReportada;
+
+        ConexionFisica(Connection conexion) {
+            this.conexion = conexion;
+        }
+    }
+
+    /**
+     * Envoltorio entregado a los DAO. {@code close()} devuelve la conexión
+     * al pool; cualquier uso posterior falla como con una conexión cerrada.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+        private ConexionFisica fisica;
+
+        ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            switch (nombre) {
+                case "close":
+                    synchronized (this) {
+                        if (fisica != null) {
+                            ConexionFisica f = fisica;
+                            fisica = null;
+                            f.fugaReportada = false;
+                            devolver(f);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return fisica == null || fisica.conexion.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPrestada[" + (fisica == null ? "devuelta" : fisica.conexion) + "]";
+                default:
+                    break;
+            }
+
+            ConexionFisica actual = fisica;
+            if (actual == null) {
+                throw new SQLException("La conexión ya fue devuelta al pool.", "08003");
+            }
+            try {
+                return method.invoke(actual.conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // --- Resto de la interfaz DataSource ---
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Los mensajes del pool se escriben por consola, igual que el resto del sistema
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("No es un envoltorio de " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
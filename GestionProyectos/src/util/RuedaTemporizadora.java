@@ -0,0 +1,235 @@
+// util/RuedaTemporizadora.java
+package util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rueda temporizadora con hash (hashed timing wheel) para programar muchos
+ * vencimientos con coste O(1) por tarea.
+ *
+ * El tiempo avanza en pasos ("ticks") de duración fija. Cada tarea se coloca
+ * en la ranura correspondiente a su vencimiento, junto con cuántas vueltas
+ * completas faltan. En cada tick solo se recorre una ranura, así que el coste
+ * no depende de cuántas tareas haya programadas en total.
+ *
+ * Programar y cancelar se puede hacer desde cualquier hilo: las tareas nuevas
+ * pasan por una cola concurrente y solo el hilo de la rueda toca las ranuras.
+ * Las tareas vencidas se ejecutan en el {@link Executor} indicado para que una
+ * tarea lenta no retrase la rueda.
+ */
+public class RuedaTemporizadora {
+
+    private static final int PENDIENTE = 0;
+    private static final int CANCELADA = 1;
+    private static final int VENCIDA = 2;
+
+    private final long duracionTickNanos;
+    private final Ranura[] ranuras;
+    private final int mascara;
+    private final Executor ejecutor;
+    private final Queue<Temporizador> nuevos = new ConcurrentLinkedQueue<>();
+    private final Queue<Temporizador> cancelados = new ConcurrentLinkedQueue<>();
+    private final Thread hilo;
+    private final long inicio;
+    private volatile boolean detenida = false;
+    private long tick = 0;
+
+    /**
+     * @param duracionTick Duración de cada paso de la rueda
+     * @param unidad Unidad de {@code duracionTick}
+     * @param numRanuras Número de ranuras (se redondea a potencia de dos)
+     * @param ejecutor Dónde se ejecutan las tareas vencidas
+     */
+    public RuedaTemporizadora(long duracionTick, TimeUnit unidad, int numRanuras, Executor ejecutor) {
+        int tamano = Integer.highestOneBit(Math.max(1, numRanuras - 1)) << 1;
+        this.duracionTickNanos = Math.max(1, unidad.toNanos(duracionTick));
+        this.ranuras = new Ranura[tamano];
+        for (int i = 0; i < tamano; i++) {
+            ranuras[i] = new Ranura();
+        }
+        this.mascara = tamano - 1;
+        this.ejecutor = ejecutor;
+        this.inicio = System.nanoTime();
+        this.hilo = new Thread(this::girar, "rueda-temporizadora");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa una tarea para dentro de {@code retraso}.
+     *
+     * @return Temporizador que permite cancelar la tarea
+     */
+    public Temporizador programar(Runnable tarea, long retraso, TimeUnit unidad) {
+        if (detenida) {
+            throw new IllegalStateException("La rueda temporizadora está detenida.");
+        }
+        long vence = System.nanoTime() - inicio + unidad.toNanos(retraso);
+        Temporizador t = new Temporizador(tarea, vence);
+        nuevos.add(t);
+        return t;
+    }
+
+    /**
+     * Detiene la rueda. Las tareas pendientes ya no se ejecutarán.
+     */
+    public void detener() {
+        detenida = true;
+        hilo.interrupt();
+    }
+
+    // --- Hilo de la rueda ---
+
+    private void girar() {
+        while (!detenida) {
+            long siguiente = (tick + 1) * duracionTickNanos;
+            long espera = siguiente - (System.nanoTime() - inicio);
+            if (espera > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } catch (InterruptedException e) {
+                    if (detenida) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            quitarCancelados();
+            colocarNuevos();
+            ranuras[(int) (tick & mascara)].vencer(tick, this);
+            tick++;
+        }
+    }
+
+    private void colocarNuevos() {
+        // Límite por tick para que una avalancha de altas no congele la rueda
+        for (int i = 0; i < 100_000; i++) {
+            Temporizador t = nuevos.poll();
+            if (t == null) {
+                return;
+            }
+            if (t.estado.get() == CANCELADA) {
+                continue;
+            }
+            long tickVence = Math.max(tick, t.venceNanos / duracionTickNanos);
+            t.vueltas = (tickVence - tick) / ranuras.length;
+            ranuras[(int) (tickVence & mascara)].agregar(t);
+        }
+    }
+
+    private void quitarCancelados() {
+        Temporizador t;
+        while ((t = cancelados.poll()) != null) {
+            if (t.ranura != null) {
+                t.ranura.quitar(t);
+            }
+        }
+    }
+
+    private void ejecutar(Temporizador t) {
+        try {
+            ejecutor.execute(t.tarea);
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo ejecutar una tarea vencida: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tarea programada en la rueda.
+     */
+    public final class Temporizador {
+        private final Runnable tarea;
+        private final long venceNanos;
+        private final AtomicInteger estado = new AtomicInteger(PENDIENTE);
+        // Solo los usa el hilo de la rueda
+        private long vueltas;
+        private Ranura ranura;
+        private Temporizador anterior;
+        private Temporizador siguiente;
+
+        private Temporizador(Runnable tarea, long venceNanos) {
+            this.tarea = tarea;
+            this.venceNanos = venceNanos;
+        }
+
+        /**
+         * Cancela la tarea si todavía no venció.
+         *
+         * @return true si se canceló; false si ya había vencido o estaba cancelada
+         */
+        public boolean cancelar() {
+            if (!estado.compareAndSet(PENDIENTE, CANCELADA)) {
+                return false;
+            }
+            cancelados.add(this);
+            return true;
+        }
+
+        public boolean isCancelado() {
+            return estado.get() == CANCELADA;
+        }
+
+        public boolean isVencido() {
+            return estado.get() == VENCIDA;
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada de temporizadores de una ranura.
+     */
+    private static final class Ranura {
+        private Temporizador cabeza;
+        private Temporizador cola;
+
+        void agregar(Temporizador t) {
+            t.ranura = this;
+            if (cabeza == null) {
+                cabeza = cola = t;
+            } else {
+                cola.siguiente = t;
+                t.anterior = cola;
+                cola = t;
+            }
+        }
+
+        void quitar(Temporizador t) {
+            Temporizador siguiente = t.siguiente;
+            if (t.anterior != null) {
+                t.anterior.siguiente = siguiente;
+            }
+            if (t.siguiente != null) {
+                t.siguiente.anterior = t.anterior;
+            }
+            if (t == cabeza) {
+                cabeza = siguiente;
+            }
+            if (t == cola) {
+                cola = t.anterior;
+            }
+            t.anterior = null;
+            t.siguiente = null;
+            t.ranura = null;
+        }
+
+        void vencer(long tick, RuedaTemporizadora rueda) {
+            Temporizador t = cabeza;
+            while (t != null) {
+                Temporizador siguiente = t.siguiente;
+                if (t.vueltas <= 0) {
+                    quitar(t);
+                    if (t.estado.compareAndSet(PENDIENTE, VENCIDA)) {
+                        rueda.ejecutar(t);
+                    }
+                } else {
+                    t.vueltas--;
+                }
+                t = siguiente;
+            }
+        }
+    }
+}
@@ -1,11 +1,6 @@
 // util/VueloRealAPI.java
 package util;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,8 +10,9 @@ import modelo.Aerolinea;
 /**
  * Cliente API para obtener vuelos en tiempo real desde OpenSky Network.
  * 
- * Obtiene datos de vuelos comerciales en vuelo, procesa el JSON manualmente
- * y convierte la información en objetos Vuelo con datos estimados.
+ * Obtiene datos de vuelos comerciales en vuelo (a través de
+ * {@link FuenteOpenSky}, que comparte y respalda las respuestas) y convierte
+ * la información en objetos Vuelo con datos estimados.
  * 
  * Documentación: https://opensky-network.org/apidoc/rest.html
  * 
@@ -24,103 +20,74 @@ import modelo.Aerolinea;
  */
 public class VueloRealAPI {
 
-    // Endpoint público que no requiere autenticación
-    private static final String API_URL = "https://opensky-network.org/api/states/all";
-
     /**
-     * Obtiene una lista de hasta 50 vuelos en tiempo real.
+     * Obtiene una lista de hasta 50 vuelos en tiempo real, los primeros de la
+     * respuesta que {@link FuenteOpenSky} comparte: aunque solo se usen 50, se
+     * lee entera para que quede vigente y respaldada para las demás llamadas.
      * 
      * @return Lista de objetos Vuelo con datos estimados (origen, destino, precio, etc.)
      */
     public List<Vuelo> obtenerVuelosReales() {
         List<Vuelo> vuelos = new ArrayList<>();
-        HttpClient client = HttpClient.newHttpClient();
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_URL))
-                .timeout(java.time.Duration.ofSeconds(15)) 
-                .GET()
-                .build();
-
-        try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                String responseBody = response.body();
-
-                // Extraer el array de estados
-                List<String[]> datosVuelos = extraerDatosVuelos(responseBody);
-
-                int contador = 0;
-                for (String[] campos : datosVuelos) {
-                    if (contador >= 50) break; // Limitar a 50 vuelos para no saturar la interfaz
-
-                    try {
-                        String codigoVuelo = limpiarTexto(campos.length > 1 ? campos[1] : null);
-                        String paisOrigen = limpiarTexto(campos.length > 2 ? campos[2] : null);
-                        long ultimaActualizacion = parseLongSeguro(campos.length > 3 ? campos[3] : "0");
-                        double latitud = parseDoubleSeguro(campos.length > 6 ? campos[6] : "0");
-                        double longitud = parseDoubleSeguro(campos.length > 7 ? campos[7] : "0");
-                        String paisDestino = obtenerPaisDestino(latitud, longitud);
-
-                        // Validar que tenga un código de vuelo válido
-                        if (esCadenaValida(codigoVuelo)) {
-                            Aerolinea aerolinea = crearAerolinea(codigoVuelo);
-                            Vuelo vuelo = crearVuelo(aerolinea, codigoVuelo, paisOrigen, paisDestino,
-                                    ultimaActualizacion, latitud, longitud);
-                            vuelos.add(vuelo);
-                            contador++;
-                        }
-                    } catch (Exception e) {
-                        // Ignorar vuelos con datos corruptos
-                        continue;
-                    }
+        List<LectorEstadosOpenSky.Estado> estados = obtenerEstados();
+        if (estados != null) {
+            for (LectorEstadosOpenSky.Estado estado : estados) {
+                Vuelo vuelo = aVuelo(estado);
+                if (vuelo != null) {
+                    vuelos.add(vuelo);
+                }
+                if (vuelos.size() >= 50) {
+                    break; // Limitar a 50 vuelos para no saturar la interfaz
                 }
-
-                System.out.println("API: " + vuelos.size() + " vuelos en tiempo real procesados.");
-            } else {
-                System.err.println("API responded with status: " + response.statusCode());
             }
-
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Error de conexión con OpenSky API:");
-            e.printStackTrace();
         }
-
+        System.out.println("API: " + vuelos.size() + " vuelos en tiempo real procesados.");
         return vuelos;
     }
 
-    // === Métodos auxiliares ===
-
     /**
-     * Extrae los datos de vuelo del JSON y devuelve una lista de arrays de campos.
+     * Obtiene todos los vectores de estado que publica OpenSky (del orden de
+     * diez mil), sin filtrar.
+     *
+     * @return Los estados, de solo lectura y compartidos con otras llamadas,
+     *         o null si la API no respondió y no hay respaldo
      */
-    private List<String[]> extraerDatosVuelos(String json) {
-        List<String[]> datos = new ArrayList<>();
-        String statesKey = "\"states\":";
-
-        int inicioArray = json.indexOf(statesKey);
-        if (inicioArray == -1) return datos;
-
-        int bracketOpen = json.indexOf('[', inicioArray);
-        int bracketClose = json.lastIndexOf(']');
+    public List<LectorEstadosOpenSky.Estado> obtenerEstados() {
+        FuenteOpenSky.Instantanea instantanea = obtenerInstantanea();
+        return instantanea != null ? instantanea.estados() : null;
+    }
 
-        if (bracketOpen == -1 || bracketClose == -1) return datos;
+    /**
+     * Como {@link #obtenerEstados()}, pero con los datos de la respuesta
+     * (cuándo se generó y si viene del respaldo porque la API no respondió).
+     *
+     * @return La respuesta, o null si la API no respondió y no hay respaldo
+     */
+    public FuenteOpenSky.Instantanea obtenerInstantanea() {
+        return FuenteOpenSky.getInstancia().obtener();
+    }
 
-        String arrayContent = json.substring(bracketOpen + 1, bracketClose).trim();
+    /**
+     * Convierte un vector de estado en un Vuelo con datos estimados.
+     *
+     * @return El vuelo, o null si el estado no trae un indicativo válido
+     */
+    public Vuelo aVuelo(LectorEstadosOpenSky.Estado estado) {
+        String codigoVuelo = estado.getCallsign();
 
-        // Dividir por filas (cada fila es un vuelo)
-        String[] filas = arrayContent.split("\\],\\[");
-        for (String fila : filas) {
-            // Limpiar comillas y espacios
-            fila = fila.replaceAll("\"", "").trim();
-            String[] campos = fila.split(",", -1); // -1 para mantener campos vacíos
-            datos.add(campos);
+        // Validar que tenga un código de vuelo válido
+        if (!esCadenaValida(codigoVuelo)) {
+            return null;
         }
-
-        return datos;
+        double latitud = Double.isNaN(estado.getLatitud()) ? 0 : estado.getLatitud();
+        double longitud = Double.isNaN(estado.getLongitud()) ? 0 : estado.getLongitud();
+        Aerolinea aerolinea = crearAerolinea(codigoVuelo);
+        return crearVuelo(aerolinea, codigoVuelo, limpiarTexto(estado.getPaisOrigen()),
+                obtenerPaisDestino(latitud, longitud), estado.getUltimoContacto(), latitud, longitud);
     }
 
+    // === Métodos auxiliares ===
+
     /**
      * Crea un objeto Aerolinea basado en el código del vuelo.
      */
@@ -159,21 +126,14 @@ public class VueloRealAPI {
     }
 
     /**
-     * Estima el país de destino según la posición geográfica.
+     * Estima el país de destino: el país sobre el que vuela el avión, según
+     * los contornos de {@link GeocodificadorPaises}.
      */
     private String obtenerPaisDestino(double lat, double lon) {
         if (lat == 0 && lon == 0) return "Desconocido";
 
-        if (lat > 35 && lat < 45 && lon > -10 && lon < 5) return "España";
-        if (lat > 24 && lat < 50 && lon > -125 && lon < -65) return "Estados Unidos";
-        if (lat > 4 && lat < 14 && lon > -75 && lon < -66) return "Colombia";
-        if (lat > -35 && lat < 5 && lon > -80 && lon < -65) return "Perú";
-        if (lat > 50 && lon > 5) return "Alemania";
-        if (lat > 55 && lon < 40) return "Rusia";
-        if (lat < -10 && lon > 100) return "Australia";
-        if (lat > 10 && lon > 70) return "India";
-
-        return "Internacional";
+        String pais = GeocodificadorPaises.getInstancia().pais(lat, lon);
+        return pais != null ? pais : "Internacional";
     }
 
     // === Métodos de utilidad ===
@@ -189,22 +149,6 @@ public class VueloRealAPI {
         return s != null && !s.isEmpty() && !"null".equalsIgnoreCase(s) && s.length() >= 3;
     }
 
-    private long parseLongSeguro(String s) {
-        try {
-            return Long.parseLong(s);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
-    private double parseDoubleSeguro(String s) {
-        try {
-            return Double.parseDouble(s);
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
-    }
-
     private String extraerNombreAerolinea(String codigo) {
         if (codigo.startsWith("AV")) return "Avianca";
         if (codigo.startsWith("AA")) return "American Airlines";
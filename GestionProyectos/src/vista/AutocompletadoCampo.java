@@ -0,0 +1,194 @@
+// vista/AutocompletadoCampo.java
+package vista;
+
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.BiFunction;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Sugerencias mientras se escribe en un campo de texto.
+ *
+ * Cada tecla solo reinicia un temporizador; la búsqueda se lanza cuando el
+ * usuario deja de escribir {@link #ESPERA_MS} ms, en segundo plano, y si
+ * llega una tecla nueva la búsqueda anterior se cancela y su resultado se
+ * descarta. Las sugerencias se muestran en una lista bajo el campo, que se
+ * maneja con las flechas, Enter y Escape sin quitarle el foco al campo.
+ */
+public class AutocompletadoCampo {
+    public static final int ESPERA_MS = 150;
+    public static final int MAX_SUGERENCIAS = 8;
+
+    private final JTextField campo;
+    private final BiFunction<String, Integer, List<String>> proveedor;
+    private final Timer espera;
+    private final DefaultListModel<String> modelo = new DefaultListModel<>();
+    private final JList<String> lista = new JList<>(modelo);
+    private final JPopupMenu emergente = new JPopupMenu();
+    private SwingWorker<List<String>, Void> consulta;
+    private boolean eligiendo = false; // Evita buscar de nuevo al escribir la sugerencia elegida
+
+    private AutocompletadoCampo(JTextField campo, BiFunction<String, Integer, List<String>> proveedor) {
+        this.campo = campo;
+        this.proveedor = proveedor;
+
+        espera = new Timer(ESPERA_MS, e -> consultar());
+        espera.setRepeats(false);
+
+        lista.setFocusable(false);
+        lista.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        lista.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                elegir();
+            }
+        });
+        emergente.setFocusable(false);
+        emergente.add(new JScrollPane(lista));
+
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textoCambiado();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textoCambiado();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        campo.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                teclaPulsada(e);
+            }
+        });
+    }
+
+    /**
+     * Agrega sugerencias al campo.
+     *
+     * @param proveedor Recibe el texto escrito y el máximo de sugerencias; se
+     *                  ejecuta fuera del hilo de eventos de Swing
+     */
+    public static AutocompletadoCampo instalar(JTextField campo,
+                                               BiFunction<String, Integer, List<String>> proveedor) {
+        return new AutocompletadoCampo(campo, proveedor);
+    }
+
+    private void textoCambiado() {
+        if (eligiendo) {
+            return;
+        }
+        cancelarConsulta();
+        espera.restart();
+    }
+
+    private void consultar() {
+        String texto = campo.getText().trim();
+        if (texto.isEmpty() || !campo.isShowing()) {
+            emergente.setVisible(false);
+            return;
+        }
+        cancelarConsulta();
+        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<String> doInBackground() {
+                return proveedor.apply(texto, MAX_SUGERENCIAS);
+            }
+
+            @Override
+            protected void done() {
+                // Una consulta superada por otra tecla ya no se muestra
+                if (isCancelled() || consulta != this || !texto.equals(campo.getText().trim())) {
+                    return;
+                }
+                try {
+                    mostrar(get());
+                } catch (Exception e) {
+                    System.err.println("❌ Error al obtener sugerencias:");
+                    e.printStackTrace();
+                }
+            }
+        };
+        consulta = worker;
+        worker.execute();
+    }
+
+    private void mostrar(List<String> sugerencias) {
+        modelo.clear();
+        // Si lo único que se sugiere es lo que ya está escrito, no hay nada que ofrecer
+        if (sugerencias.isEmpty()
+                || (sugerencias.size() == 1 && sugerencias.get(0).equalsIgnoreCase(campo.getText().trim()))) {
+            emergente.setVisible(false);
+            return;
+        }
+        for (String sugerencia : sugerencias) {
+            modelo.addElement(sugerencia);
+        }
+        lista.setVisibleRowCount(Math.min(sugerencias.size(), MAX_SUGERENCIAS));
+        emergente.setPopupSize(Math.max(campo.getWidth(), 180), emergente.getPreferredSize().height);
+        emergente.show(campo, 0, campo.getHeight());
+    }
+
+    private void teclaPulsada(KeyEvent e) {
+        if (!emergente.isVisible()) {
+            return;
+        }
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN -> {
+                lista.setSelectedIndex(Math.min(lista.getSelectedIndex() + 1, modelo.size() - 1));
+                e.consume();
+            }
+            case KeyEvent.VK_UP -> {
+                lista.setSelectedIndex(Math.max(lista.getSelectedIndex() - 1, 0));
+                e.consume();
+            }
+            case KeyEvent.VK_ENTER -> {
+                if (lista.getSelectedIndex() >= 0) {
+                    elegir();
+                    e.consume();
+                }
+            }
+            case KeyEvent.VK_ESCAPE -> {
+                emergente.setVisible(false);
+                e.consume();
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void elegir() {
+        String elegida = lista.getSelectedValue();
+        emergente.setVisible(false);
+        if (elegida == null) {
+            return;
+        }
+        cancelarConsulta();
+        espera.stop();
+        eligiendo = true;
+        try {
+            campo.setText(elegida);
+        } finally {
+            eligiendo = false;
+        }
+    }
+
+    private void cancelarConsulta() {
+        // Sin interrumpir: la primera consulta puede estar cargando el índice desde la base
+        if (consulta != null) {
+            consulta.cancel(false);
+            consulta = null;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+// vista/CalendarioTarifasDialog.java
+package vista;
+
+import dao.VueloDAO;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import javax.swing.*;
+import modelo.TarifaDia;
+
+/**
+ * Calendario de tarifas de una ruta para viajeros con fechas flexibles:
+ * muestra, para cada día de la ventana, el precio más bajo y los asientos
+ * libres. Toda la ventana se obtiene con una sola consulta
+ * ({@link VueloDAO#calendarioTarifas}). Al elegir un día se avisa a quien
+ * abrió el diálogo y se cierra.
+ */
+public class CalendarioTarifasDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] DIAS_SEMANA = {"Lun", "Mar", "Mié", "Jue", "Vie", "Sáb", "Dom"};
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("d MMM yyyy", Locale.forLanguageTag("es"));
+    private static final Color COLOR_MAS_BARATO = new Color(46, 139, 87);
+
+    private final VueloDAO vueloDAO;
+    private final String origen;
+    private final String destino;
+    private final int margenDias;
+    private final Consumer<LocalDate> alElegir;
+
+    private final JPanel panelDias = new JPanel(new GridLayout(0, 7, 4, 4));
+    private final JLabel lblVentana = new JLabel("", SwingConstants.CENTER);
+    private LocalDate centro;
+    private SwingWorker<List<TarifaDia>, Void> carga;
+
+    /**
+     * @param centro Día alrededor del que se muestra el calendario
+     * @param margenDias Días antes y después de {@code centro} (±N)
+     * @param alElegir Recibe el día elegido
+     */
+    public CalendarioTarifasDialog(JFrame parent, VueloDAO vueloDAO, String origen, String destino,
+                                   LocalDate centro, int margenDias, Consumer<LocalDate> alElegir) {
+        super(parent, "📅 Calendario de tarifas", true);
+        this.vueloDAO = vueloDAO;
+        this.origen = origen;
+        this.destino = destino;
+        this.centro = centro;
+        this.margenDias = margenDias;
+        this.alElegir = alElegir;
+
+        setSize(640, 420);
+        setLocationRelativeTo(parent);
+        setLayout(new BorderLayout(8, 8));
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        String ruta = (origen == null ? "Cualquier origen" : origen) + " → "
+                + (destino == null ? "cualquier destino" : destino);
+        JButton btnAnterior = new JButton("◀ Anterior");
+        btnAnterior.addActionListener(e -> mover(-(2 * margenDias + 1)));
+        JButton btnSiguiente = new JButton("Siguiente ▶");
+        btnSiguiente.addActionListener(e -> mover(2 * margenDias + 1));
+
+        JPanel encabezado = new JPanel(new BorderLayout());
+        encabezado.add(new JLabel(ruta, SwingConstants.CENTER), BorderLayout.NORTH);
+        encabezado.add(btnAnterior, BorderLayout.WEST);
+        encabezado.add(lblVentana, BorderLayout.CENTER);
+        encabezado.add(btnSiguiente, BorderLayout.EAST);
+        add(encabezado, BorderLayout.NORTH);
+
+        add(new JScrollPane(panelDias), BorderLayout.CENTER);
+
+        JPanel pie = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton btnCerrar = new JButton("Cerrar");
+        btnCerrar.addActionListener(e -> dispose());
+        pie.add(btnCerrar);
+        add(pie, BorderLayout.SOUTH);
+
+        cargar();
+    }
+
+    @Override
+    public void dispose() {
+        if (carga != null) {
+            carga.cancel(true);
+        }
+        super.dispose();
+    }
+
+    private void mover(int dias) {
+        centro = centro.plusDays(dias);
+        cargar();
+    }
+
+    /**
+     * Pide la ventana actual en segundo plano y la pinta al terminar.
+     */
+    private void cargar() {
+        if (carga != null) {
+            carga.cancel(true);
+        }
+        LocalDate desde = centro.minusDays(margenDias);
+        LocalDate hasta = centro.plusDays(margenDias);
+        lblVentana.setText(desde.format(FORMATO_MES) + " – " + hasta.format(FORMATO_MES));
+        panelDias.removeAll();
+        panelDias.add(new JLabel("⌛ Cargando tarifas...", SwingConstants.CENTER));
+        panelDias.revalidate();
+        panelDias.repaint();
+
+        SwingWorker<List<TarifaDia>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<TarifaDia> doInBackground() {
+                return vueloDAO.calendarioTarifas(origen, destino, desde, hasta);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    pintar(get(), desde);
+                } catch (Exception e) {
+                    System.err.println("❌ Error al mostrar el calendario de tarifas:");
+                    e.printStackTrace();
+                }
+            }
+        };
+        carga = worker;
+        worker.execute();
+    }
+
+    /**
+     * Dibuja la cuadrícula por semanas (lunes a domingo) y resalta el día más barato.
+     */
+    private void pintar(List<TarifaDia> calendario, LocalDate desde) {
+        panelDias.removeAll();
+        for (String dia : DIAS_SEMANA) {
+            panelDias.add(new JLabel(dia, SwingConstants.CENTER));
+        }
+        int huecos = desde.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue();
+        for (int i = 0; i < huecos; i++) {
+            panelDias.add(new JLabel());
+        }
+
+        double masBarato = Double.MAX_VALUE;
+        for (TarifaDia tarifa : calendario) {
+            if (tarifa.hayVuelos()) {
+                masBarato = Math.min(masBarato, tarifa.getPrecioMinimo());
+            }
+        }
+
+        for (TarifaDia tarifa : calendario) {
+            JButton celda = new JButton();
+            if (tarifa.hayVuelos()) {
+                celda.setText("<html><center><b>" + tarifa.getFecha().getDayOfMonth() + "</b><br>"
+                        + String.format("%.2f", tarifa.getPrecioMinimo()) + "<br><small>"
+                        + tarifa.getAsientosDisponibles() + " asientos</small></center></html>");
+                celda.setToolTipText(tarifa.getVuelos() + " vuelos con asientos");
+                if (tarifa.getPrecioMinimo() == masBarato) {
+                    celda.setForeground(COLOR_MAS_BARATO);
+                }
+                celda.addActionListener(e -> {
+                    dispose();
+                    alElegir.accept(tarifa.getFecha());
+                });
+            } else {
+                celda.setText("<html><center><b>" + tarifa.getFecha().getDayOfMonth()
+                        + "</b><br>—</center></html>");
+                celda.setEnabled(false);
+            }
+            panelDias.add(celda);
+        }
+        panelDias.revalidate();
+        panelDias.repaint();
+    }
+}
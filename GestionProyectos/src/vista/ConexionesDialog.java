@@ -0,0 +1,221 @@
+// vista/ConexionesDialog.java
+package vista;
+
+import dao.ReservaDAO;
+import dao.ResultadoReserva;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import modelo.Itinerario;
+import modelo.Reserva;
+import modelo.Usuario;
+import modelo.Vuelo;
+import servicio.BuscadorConexiones;
+
+/**
+ * Itinerarios con escalas entre dos ciudades para un día, buscados con
+ * {@link BuscadorConexiones}. El itinerario elegido se reserva entero con
+ * {@link ReservaDAO#reservarItinerario}: o todos los tramos, o ninguno.
+ */
+public class ConexionesDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static final int LIMITE = 20;
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String[] COLUMNAS = {"Ruta", "Vuelos", "Salida", "Llegada", "Escalas", "Duración", "Precio", "Asientos"};
+
+    private final ReservaDAO reservaDAO;
+    private final int idUsuario;
+    private final String origen;
+    private final String destino;
+    private final LocalDate fecha;
+    private final Runnable alReservar;
+
+    private final JSpinner spinnerPasajeros = new JSpinner(new SpinnerNumberModel(1, 1, 50, 1));
+    private final JComboBox<String> cmbOrden = new JComboBox<>(new String[]{"Más cortos", "Más baratos"});
+    private final DefaultTableModel modelo = new DefaultTableModel(COLUMNAS, 0) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isCellEditable(int fila, int columna) {
+            return false;
+        }
+    };
+    private final JTable tabla = new JTable(modelo);
+    private final JLabel lblEstado = new JLabel(" ");
+    private List<Itinerario> itinerarios = new ArrayList<>();
+    private SwingWorker<List<Itinerario>, Void> carga;
+
+    /**
+     * @param alReservar Se llama tras reservar un itinerario, para refrescar la ventana que abrió el diálogo
+     */
+    public ConexionesDialog(JFrame parent, ReservaDAO reservaDAO, int idUsuario, String origen, String destino,
+                            LocalDate fecha, Runnable alReservar) {
+        super(parent, "🔁 Vuelos con escalas", true);
+        this.reservaDAO = reservaDAO;
+        this.idUsuario = idUsuario;
+        this.origen = origen;
+        this.destino = destino;
+        this.fecha = fecha;
+        this.alReservar = alReservar;
+
+        setSize(900, 420);
+        setLocationRelativeTo(parent);
+        setLayout(new BorderLayout(8, 8));
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        JPanel encabezado = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        encabezado.add(new JLabel(origen + " → " + destino + ", " + fecha + "   Pasajeros:"));
+        encabezado.add(spinnerPasajeros);
+        encabezado.add(cmbOrden);
+        JButton btnBuscar = new JButton("Buscar");
+        btnBuscar.addActionListener(e -> cargar());
+        encabezado.add(btnBuscar);
+        add(encabezado, BorderLayout.NORTH);
+
+        tabla.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        add(new JScrollPane(tabla), BorderLayout.CENTER);
+
+        JPanel pie = new JPanel(new BorderLayout());
+        pie.add(lblEstado, BorderLayout.CENTER);
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton btnReservar = new JButton("Reservar itinerario");
+        btnReservar.addActionListener(e -> reservarSeleccionado());
+        JButton btnCerrar = new JButton("Cerrar");
+        btnCerrar.addActionListener(e -> dispose());
+        botones.add(btnReservar);
+        botones.add(btnCerrar);
+        pie.add(botones, BorderLayout.EAST);
+        add(pie, BorderLayout.SOUTH);
+
+        cargar();
+    }
+
+    @Override
+    public void dispose() {
+        if (carga != null) {
+            carga.cancel(true);
+        }
+        super.dispose();
+    }
+
+    /**
+     * Busca en segundo plano (la primera vez se construye el grafo) y llena la tabla.
+     */
+    private void cargar() {
+        if (carga != null) {
+            carga.cancel(true);
+        }
+        int pasajeros = (Integer) spinnerPasajeros.getValue();
+        BuscadorConexiones.Orden orden = cmbOrden.getSelectedIndex() == 0
+                ? BuscadorConexiones.Orden.DURACION : BuscadorConexiones.Orden.PRECIO;
+        modelo.setRowCount(0);
+        lblEstado.setText("⌛ Buscando itinerarios...");
+
+        SwingWorker<List<Itinerario>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<Itinerario> doInBackground() {
+                return BuscadorConexiones.getInstancia().buscar(origen, destino, fecha, pasajeros, orden, LIMITE);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    mostrar(get());
+                } catch (Exception e) {
+                    lblEstado.setText("❌ Error al buscar itinerarios.");
+                    System.err.println("❌ Error al buscar itinerarios:");
+                    e.printStackTrace();
+                }
+            }
+        };
+        carga = worker;
+        worker.execute();
+    }
+
+    private void mostrar(List<Itinerario> encontrados) {
+        itinerarios = encontrados;
+        modelo.setRowCount(0);
+        for (Itinerario it : encontrados) {
+            StringJoiner numeros = new StringJoiner(", ");
+            for (Vuelo tramo : it.getTramos()) {
+                numeros.add(tramo.getNumeroVuelo());
+            }
+            long minutos = it.getDuracion().toMinutes();
+            modelo.addRow(new Object[]{
+                it.getOrigen() + " → " + it.getDestino(),
+                numeros.toString(),
+                it.getSalida().format(FORMATO_HORA),
+                it.getLlegada().format(FORMATO_HORA),
+                it.getEscalas(),
+                (minutos / 60) + " h " + (minutos % 60) + " min",
+                String.format("%.2f", it.getPrecioTotal()),
+                it.getAsientosDisponibles()
+            });
+        }
+        lblEstado.setText(encontrados.isEmpty() ? "⚠️ No hay itinerarios para esa ruta y fecha."
+                : encontrados.size() + " itinerarios.");
+    }
+
+    private void reservarSeleccionado() {
+        int fila = tabla.getSelectedRow();
+        if (fila == -1) {
+            JOptionPane.showMessageDialog(this, "⚠️ Seleccione un itinerario.");
+            return;
+        }
+        Itinerario itinerario = itinerarios.get(tabla.convertRowIndexToModel(fila));
+        int pasajeros = (Integer) spinnerPasajeros.getValue();
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "¿Reservar " + pasajeros + " asiento(s) en cada tramo de\n" + itinerario + "?",
+                "Confirmar itinerario", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(idUsuario);
+        lblEstado.setText("⌛ Reservando " + itinerario.getTramos().size() + " tramos...");
+
+        new SwingWorker<ResultadoReserva, Void>() {
+            private final List<Reserva> reservas = new ArrayList<>();
+
+            @Override
+            protected ResultadoReserva doInBackground() {
+                return reservaDAO.reservarItinerario(itinerario, usuario, pasajeros, reservas);
+            }
+
+            @Override
+            protected void done() {
+                ResultadoReserva resultado;
+                try {
+                    resultado = get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    resultado = ResultadoReserva.ERROR;
+                }
+                String mensaje = resultado.getMensaje();
+                if (resultado == ResultadoReserva.TRAMOS_SIN_CANCELAR) {
+                    StringJoiner ids = new StringJoiner(", ");
+                    for (Reserva reserva : reservas) {
+                        ids.add(String.valueOf(reserva.getIdReserva()));
+                    }
+                    mensaje += "\nReservas que siguen confirmadas: " + ids;
+                }
+                JOptionPane.showMessageDialog(ConexionesDialog.this, mensaje);
+                if (alReservar != null) {
+                    alReservar.run();
+                }
+                cargar();
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,179 @@
+// vista/FiltrosDialog.java
+package vista;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.swing.*;
+import servicio.IndiceFacetas;
+
+/**
+ * Filtros por aerolínea, estado, escalas, precio y asientos para la búsqueda
+ * escrita en la pantalla de vuelos. Junto a cada opción se muestra cuántos
+ * vuelos quedarían al elegirla ({@link IndiceFacetas#contarFacetas}), y los
+ * conteos se recalculan con cada casilla marcada. Al aplicar se entrega el
+ * filtro a quien abrió el diálogo.
+ */
+public class FiltrosDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static final Map<IndiceFacetas.Atributo, String> TITULOS = new EnumMap<>(Map.of(
+            IndiceFacetas.Atributo.AEROLINEA, "Aerolínea",
+            IndiceFacetas.Atributo.ESTADO, "Estado",
+            IndiceFacetas.Atributo.ESCALAS, "Escalas",
+            IndiceFacetas.Atributo.PRECIO, "Precio",
+            IndiceFacetas.Atributo.ASIENTOS, "Asientos libres"));
+
+    private final String origen;
+    private final String destino;
+    private final LocalDate fecha;
+    private final Consumer<IndiceFacetas.Filtro> alAplicar;
+
+    // Valores marcados por atributo; se conservan al recalcular los conteos
+    private final Map<IndiceFacetas.Atributo, Set<String>> elegidos = new EnumMap<>(IndiceFacetas.Atributo.class);
+    private final JPanel panelFacetas = new JPanel(new GridLayout(1, 0, 8, 8));
+    private final JLabel lblTotal = new JLabel(" ");
+    private SwingWorker<Map<IndiceFacetas.Atributo, Map<String, Integer>>, Void> conteo;
+
+    /**
+     * @param alAplicar Recibe el filtro con la ruta y las facetas elegidas
+     */
+    public FiltrosDialog(JFrame parent, String origen, String destino, LocalDate fecha,
+                         Consumer<IndiceFacetas.Filtro> alAplicar) {
+        super(parent, "🔎 Filtros", true);
+        this.origen = origen;
+        this.destino = destino;
+        this.fecha = fecha;
+        this.alAplicar = alAplicar;
+
+        setSize(900, 380);
+        setLocationRelativeTo(parent);
+        setLayout(new BorderLayout(8, 8));
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        String ruta = (origen == null ? "Cualquier origen" : origen) + " → "
+                + (destino == null ? "cualquier destino" : destino) + (fecha == null ? "" : ", " + fecha);
+        add(new JLabel(ruta, SwingConstants.CENTER), BorderLayout.NORTH);
+        add(new JScrollPane(panelFacetas), BorderLayout.CENTER);
+
+        JPanel pie = new JPanel(new BorderLayout());
+        pie.add(lblTotal, BorderLayout.CENTER);
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton btnQuitar = new JButton("Quitar filtros");
+        btnQuitar.addActionListener(e -> {
+            elegidos.clear();
+            contar();
+        });
+        JButton btnAplicar = new JButton("Aplicar");
+        btnAplicar.addActionListener(e -> {
+            dispose();
+            alAplicar.accept(filtro());
+        });
+        JButton btnCerrar = new JButton("Cerrar");
+        btnCerrar.addActionListener(e -> dispose());
+        botones.add(btnQuitar);
+        botones.add(btnAplicar);
+        botones.add(btnCerrar);
+        pie.add(botones, BorderLayout.EAST);
+        add(pie, BorderLayout.SOUTH);
+
+        contar();
+    }
+
+    @Override
+    public void dispose() {
+        if (conteo != null) {
+            conteo.cancel(true);
+        }
+        super.dispose();
+    }
+
+    private IndiceFacetas.Filtro filtro() {
+        IndiceFacetas.Filtro filtro = new IndiceFacetas.Filtro().enRuta(origen, destino, fecha);
+        for (Map.Entry<IndiceFacetas.Atributo, Set<String>> elegido : elegidos.entrySet()) {
+            if (!elegido.getValue().isEmpty()) {
+                filtro.con(elegido.getKey(), elegido.getValue().toArray(new String[0]));
+            }
+        }
+        return filtro;
+    }
+
+    /**
+     * Recalcula los conteos en segundo plano (la primera vez se construye el índice).
+     */
+    private void contar() {
+        if (conteo != null) {
+            conteo.cancel(true);
+        }
+        IndiceFacetas.Filtro filtro = filtro();
+        lblTotal.setText("⌛ Contando vuelos...");
+
+        SwingWorker<Map<IndiceFacetas.Atributo, Map<String, Integer>>, Void> worker = new SwingWorker<>() {
+            private int total;
+
+            @Override
+            protected Map<IndiceFacetas.Atributo, Map<String, Integer>> doInBackground() {
+                IndiceFacetas indice = IndiceFacetas.getInstancia();
+                total = indice.contar(filtro);
+                return indice.contarFacetas(filtro);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    pintar(get());
+                    lblTotal.setText(total + " vuelos con estos filtros.");
+                } catch (Exception e) {
+                    lblTotal.setText("❌ Error al contar los vuelos.");
+                    System.err.println("❌ Error al contar las facetas:");
+                    e.printStackTrace();
+                }
+            }
+        };
+        conteo = worker;
+        worker.execute();
+    }
+
+    /**
+     * Una columna por atributo con una casilla por valor y su conteo. Los
+     * valores sin vuelos se omiten salvo que estén marcados.
+     */
+    private void pintar(Map<IndiceFacetas.Atributo, Map<String, Integer>> conteos) {
+        panelFacetas.removeAll();
+        for (Map.Entry<IndiceFacetas.Atributo, Map<String, Integer>> faceta : conteos.entrySet()) {
+            IndiceFacetas.Atributo atributo = faceta.getKey();
+            Set<String> marcados = elegidos.computeIfAbsent(atributo, k -> new LinkedHashSet<>());
+            JPanel columna = new JPanel();
+            columna.setLayout(new BoxLayout(columna, BoxLayout.Y_AXIS));
+            columna.setBorder(BorderFactory.createTitledBorder(TITULOS.getOrDefault(atributo, atributo.name())));
+            for (Map.Entry<String, Integer> valor : faceta.getValue().entrySet()) {
+                if (valor.getValue() == 0 && !marcados.contains(valor.getKey())) {
+                    continue;
+                }
+                JCheckBox casilla = new JCheckBox(valor.getKey() + " (" + valor.getValue() + ")",
+                        marcados.contains(valor.getKey()));
+                casilla.addActionListener(e -> {
+                    if (casilla.isSelected()) {
+                        marcados.add(valor.getKey());
+                    } else {
+                        marcados.remove(valor.getKey());
+                    }
+                    contar();
+                });
+                columna.add(casilla);
+            }
+            panelFacetas.add(columna);
+        }
+        panelFacetas.revalidate();
+        panelFacetas.repaint();
+    }
+}
@@ -137,6 +137,7 @@ public class SistemaReservasGUI {
 
         return insertarVueloEnBD(
             idAerolinea,
+            vuelo.getAerolinea().getNombre(),
             vuelo.getNumeroVuelo(),
             vuelo.getOrigen(),
             vuelo.getDestino(),
@@ -328,33 +329,18 @@ public class SistemaReservasGUI {
         return -1;
     }
 
-    private boolean insertarVueloEnBD(int idAerolinea, String numeroVuelo, String origen, String destino,
+    private boolean insertarVueloEnBD(int idAerolinea, String nombreAerolinea, String numeroVuelo, String origen, String destino,
                                       java.time.LocalDateTime fechaSalida, int asientos, double precio) {
-        String sql = "INSERT INTO Vuelo (id_aerolinea, numero_vuelo, origen, destino, " +
-                     "fecha_salida, fecha_llegada, asientos_totales, asientos_disponibles, " +
-                     "precio, escalas, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = ConexionBD.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, idAerolinea);
-            stmt.setString(2, numeroVuelo);
-            stmt.setString(3, origen);
-            stmt.setString(4, destino);
-            stmt.setObject(5, fechaSalida);
-            stmt.setObject(6, fechaSalida.plusHours(2));
-            stmt.setInt(7, asientos);
-            stmt.setInt(8, asientos);
-            stmt.setDouble(9, precio);
-            stmt.setInt(10, 0);
-            stmt.setString(11, "Activo");
-
-            return stmt.executeUpdate() > 0;
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        // Por el DAO, para que el índice de rutas en memoria reciba el vuelo nuevo
+        Vuelo vuelo = new Vuelo();
+        vuelo.setAerolinea(new Aerolinea(idAerolinea, nombreAerolinea, null));
+        vuelo.setNumeroVuelo(numeroVuelo);
+        vuelo.setOrigen(origen);
+        vuelo.setDestino(destino);
+        vuelo.setFechaSalida(fechaSalida);
+        vuelo.setAsientosDisponibles(asientos);
+        vuelo.setPrecio(precio);
+        return vueloDAO.insertarVuelo(vuelo);
     }
 
     // === Getters ===
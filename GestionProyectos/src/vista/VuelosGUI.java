@@ -1,22 +1,35 @@
 
 package vista;
 
+import dao.OrdenVuelos;
 import dao.ReservaDAO;
+import dao.ResultadoReserva;
 import dao.VueloDAO;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
-import modelo.Reserva;
+import modelo.Aerolinea;
 import modelo.Usuario;
 import modelo.Vuelo;
+import servicio.IndiceFacetas;
+import servicio.IndiceLugares;
+import servicio.IngestaOpenSky;
+import servicio.RetencionAsientos;
 import util.VueloRealAPI;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import util.ConexionBD;
 
@@ -32,6 +45,19 @@ public class VuelosGUI extends javax.swing.JFrame {
     private VueloDAO vueloDAO;
     private DefaultTableModel modeloVuelos;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Duration TIEMPO_RETENCION = Duration.ofMinutes(10);
+    private static final int TAMANO_PAGINA = 200;
+    private static final int MARGEN_CALENDARIO = 7; // Días antes y después en el calendario de tarifas
+    private static final int TOP_VUELOS = 20; // Vuelos que muestran los órdenes "los N mejores"
+    private static final OrdenVuelos[] ORDENES = {null, OrdenVuelos.PRECIO, OrdenVuelos.SALIDA, OrdenVuelos.ASIENTOS};
+    private SwingWorker<Integer, List<Vuelo>> cargaVuelos; // Búsqueda en curso, si la hay
+    private javax.swing.JComboBox<String> cmbOrden; // Posición i corresponde a ORDENES[i]
+    private javax.swing.JSpinner spinnerDias; // Días a partir de la fecha que abarca "Todos por salida"
+    private static final int MAX_DIAS_RANGO = 30;
+    private static final int MAX_VUELOS_AIRE = 50; // Filas de la vista de vuelos en el aire
+    private static final String[] ESTADOS_VUELO = {"Activo", "Retrasado", "Cancelado"};
+    private IngestaOpenSky.Oyente oyenteEnVivo; // Vista en el aire que sigue a la ingesta, si está abierta
+    private final Map<String, Integer> filaEnVivo = new HashMap<>(); // icao24 → fila de esa vista
 
     // Nuevo constructor
     public VuelosGUI(int idUsuario, String nombreUsuario) {
@@ -49,6 +75,47 @@ public class VuelosGUI extends javax.swing.JFrame {
         // Conectar el modelo de la tabla
         modeloVuelos = (DefaultTableModel) jTable1.getModel();
 
+        // Sugerencias de lugares mientras se escribe, desde el índice en memoria
+        AutocompletadoCampo.instalar(txtOrigen, (texto, limite) -> IndiceLugares.getInstancia().autocompletar(texto, limite));
+        AutocompletadoCampo.instalar(txtDestino, (texto, limite) -> IndiceLugares.getInstancia().autocompletar(texto, limite));
+
+        // Botón del calendario de tarifas (fuera del código generado del formulario)
+        javax.swing.JButton btnCalendario = new javax.swing.JButton("Calendario de tarifas");
+        btnCalendario.addActionListener(evt -> abrirCalendarioTarifas());
+        jPanel2.add(btnCalendario, new org.netbeans.lib.awtextra.AbsoluteConstraints(700, 547, -1, -1));
+
+        // Itinerarios con escalas para la ruta y fecha escritas
+        javax.swing.JButton btnConEscalas = new javax.swing.JButton("Con escalas");
+        btnConEscalas.addActionListener(evt -> abrirConexiones());
+        jPanel2.add(btnConEscalas, new org.netbeans.lib.awtextra.AbsoluteConstraints(30, 547, 120, -1));
+
+        // Orden de los resultados: todos por salida o solo los N mejores según un criterio
+        cmbOrden = new javax.swing.JComboBox<>(new String[]{
+            "Todos por salida",
+            TOP_VUELOS + " más baratos",
+            TOP_VUELOS + " próximas salidas",
+            TOP_VUELOS + " con más asientos"
+        });
+        cmbOrden.addActionListener(evt -> cargarVuelos());
+        jPanel2.add(cmbOrden, new org.netbeans.lib.awtextra.AbsoluteConstraints(460, 15, 180, -1));
+
+        // Rango de días desde la fecha elegida; con más de uno se busca en el catálogo particionado
+        spinnerDias = new javax.swing.JSpinner(new javax.swing.SpinnerNumberModel(1, 1, MAX_DIAS_RANGO, 1));
+        spinnerDias.setToolTipText("Días a partir de la fecha (solo con \"Todos por salida\")");
+        spinnerDias.addChangeListener(evt -> cargarVuelos());
+        jPanel2.add(new javax.swing.JLabel("Días:"), new org.netbeans.lib.awtextra.AbsoluteConstraints(313, 18, -1, -1));
+        jPanel2.add(spinnerDias, new org.netbeans.lib.awtextra.AbsoluteConstraints(364, 15, 78, -1));
+
+        // Filtros por aerolínea, estado, escalas, precio y asientos, con sus conteos
+        javax.swing.JButton btnFiltros = new javax.swing.JButton("Filtros");
+        btnFiltros.addActionListener(evt -> abrirFiltros());
+        jPanel2.add(btnFiltros, new org.netbeans.lib.awtextra.AbsoluteConstraints(650, 15, 90, -1));
+
+        // Cambio de estado del vuelo seleccionado (retrasado, cancelado...)
+        javax.swing.JButton btnEstado = new javax.swing.JButton("Cambiar estado");
+        btnEstado.addActionListener(evt -> cambiarEstadoSeleccionado());
+        jPanel2.add(btnEstado, new org.netbeans.lib.awtextra.AbsoluteConstraints(745, 15, -1, -1));
+
         // Cargar los vuelos al iniciar
         cargarVuelos();
            setLocationRelativeTo(null);    
@@ -249,29 +316,55 @@ public class VuelosGUI extends javax.swing.JFrame {
             return;
         }
 
-        Usuario usuario = new Usuario();
-        usuario.setIdUsuario(idUsuario);
+        // Retener los asientos mientras el usuario confirma
+        RetencionAsientos retenciones = RetencionAsientos.getInstancia();
+        RetencionAsientos.Retencion retencion = retenciones.retener(idVuelo, cantidad, TIEMPO_RETENCION);
+        if (!retencion.isRetenida()) {
+            JOptionPane.showMessageDialog(this, retencion.getResultado().getMensaje());
+            cargarVuelos();
+            return;
+        }
 
-        Vuelo vuelo = new Vuelo();
-        vuelo.setIdVuelo(idVuelo);
+        int confirm = JOptionPane.showConfirmDialog(
+            this,
+            "🪑 " + cantidad + " asiento(s) retenidos en el vuelo " + numeroVuelo
+                + " hasta las " + retencion.getVence().format(DateTimeFormatter.ofPattern("HH:mm"))
+                + ".\n¿Confirmar la reserva?",
+            "Confirmar reserva",
+            JOptionPane.YES_NO_OPTION
+        );
+        if (confirm != JOptionPane.YES_OPTION) {
+            retenciones.liberar(retencion.getIdRetencion());
+            return;
+        }
 
-        Reserva reserva = new Reserva();
-        reserva.setUsuario(usuario);
-        reserva.setVuelo(vuelo);
-        reserva.setCantidadAsientos(cantidad);
+        Usuario usuario = new Usuario();
+        usuario.setIdUsuario(idUsuario);
 
-        if (reservaDAO.crearReserva(reserva)) {
-            JOptionPane.showMessageDialog(this, "✅ Reserva exitosa.");
-            cargarVuelos(); // Actualizar
+        ResultadoReserva resultado = retenciones.confirmar(retencion.getIdRetencion(), usuario);
+        if (resultado == ResultadoReserva.NO_ENCONTRADO) {
+            JOptionPane.showMessageDialog(this, "⌛ La retención venció. Los asientos se liberaron.");
         } else {
-            JOptionPane.showMessageDialog(this, "❌ Error al reservar.");
+            JOptionPane.showMessageDialog(this, resultado.getMensaje());
         }
+        cargarVuelos(); // Actualizar
     }//GEN-LAST:event_btnHacerReservaActionPerformed
 
     private void btnVuelosAireActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnVuelosAireActionPerformed
-      // 1. Limpiar la tabla
+      // 1. Limpiar la tabla (y detener una búsqueda que siga cargando filas)
+    if (cargaVuelos != null) {
+        cargaVuelos.cancel(true);
+    }
+    dejarDeSeguirEnVivo();
     modeloVuelos.setRowCount(0);
 
+    // Con la ingesta en marcha, la tabla sigue sus cambios en lugar de pedir otra vez el feed
+    IngestaOpenSky ingesta = IngestaOpenSky.getInstancia();
+    if (ingesta != null && !ingesta.getVuelosEnVivo().isEmpty()) {
+        seguirEnVivo(ingesta);
+        return;
+    }
+
     // 2. Crear un SwingWorker
     SwingWorker<List<Vuelo>, Void> worker = new SwingWorker<>() {
         @Override
@@ -380,7 +473,7 @@ public class VuelosGUI extends javax.swing.JFrame {
             return;
         }
 
-        if (insertarVueloEnBD(idAerolinea, numeroVuelo, origen, destino, fechaSalida, asientos, precio)) {
+        if (insertarVueloEnBD(idAerolinea, aerolineaNombre, numeroVuelo, origen, destino, fechaSalida, asientos, precio)) {
             JOptionPane.showMessageDialog(this, "✅ Vuelo agregado a tu sistema.\nYa puedes reservar asientos.");
             cargarVuelos();
         } else {
@@ -415,36 +508,156 @@ public class VuelosGUI extends javax.swing.JFrame {
         return -1;
     }
 
-    private boolean insertarVueloEnBD(int idAerolinea, String numeroVuelo, String origen, String destino,
+    private boolean insertarVueloEnBD(int idAerolinea, String nombreAerolinea, String numeroVuelo, String origen, String destino,
                                       java.time.LocalDateTime fechaSalida, int asientos, double precio) {
-        String sql = "INSERT INTO Vuelo (id_aerolinea, numero_vuelo, origen, destino, " +
-                     "fecha_salida, fecha_llegada, asientos_totales, asientos_disponibles, " +
-                     "precio, escalas, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = ConexionBD.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, idAerolinea);
-            stmt.setString(2, numeroVuelo);
-            stmt.setString(3, origen);
-            stmt.setString(4, destino);
-            stmt.setObject(5, fechaSalida);
-            stmt.setObject(6, fechaSalida.plusHours(2));
-            stmt.setInt(7, asientos);
-            stmt.setInt(8, asientos);
-            stmt.setDouble(9, precio);
-            stmt.setInt(10, 0);
-            stmt.setString(11, "Activo");
-
-            return stmt.executeUpdate() > 0;
+        // Por el DAO, para que el índice de rutas en memoria reciba el vuelo nuevo
+        Vuelo vuelo = new Vuelo();
+        vuelo.setAerolinea(new Aerolinea(idAerolinea, nombreAerolinea, null));
+        vuelo.setNumeroVuelo(numeroVuelo);
+        vuelo.setOrigen(origen);
+        vuelo.setDestino(destino);
+        vuelo.setFechaSalida(fechaSalida);
+        vuelo.setAsientosDisponibles(asientos);
+        vuelo.setPrecio(precio);
+        return vueloDAO.insertarVuelo(vuelo);
+    }
+    
+    /**
+     * @return El lugar conocido más parecido al texto si no es el mismo que
+     *         se escribió, o null si no hay uno mejor
+     */
+    private static String sugerirLugar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String sugerencia = IndiceLugares.getInstancia().mejorCoincidencia(texto);
+        return sugerencia != null && !sugerencia.equalsIgnoreCase(texto) ? sugerencia : null;
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * Abre el calendario de tarifas de la ruta escrita alrededor de la fecha
+     * elegida; al escoger un día, lo pone en el filtro y busca.
+     */
+    private void abrirCalendarioTarifas() {
+        String origen = txtOrigen.getText().trim();
+        String destino = txtDestino.getText().trim();
+        LocalDate fecha = ((java.util.Date) SpinnerFecha.getValue()).toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate();
+
+        new CalendarioTarifasDialog(this, vueloDAO, origen.isEmpty() ? null : origen,
+                destino.isEmpty() ? null : destino, fecha, MARGEN_CALENDARIO, dia -> {
+                    SpinnerFecha.setValue(java.util.Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+                    cargarVuelos();
+                }).setVisible(true);
+    }
+
+    /**
+     * Abre la búsqueda de itinerarios con escalas para la ruta y fecha
+     * escritas; tras reservar uno se refresca la tabla.
+     */
+    private void abrirConexiones() {
+        String origen = txtOrigen.getText().trim();
+        String destino = txtDestino.getText().trim();
+        if (origen.isEmpty() || destino.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "⚠️ Escriba el origen y el destino.");
+            return;
         }
+        LocalDate fecha = ((java.util.Date) SpinnerFecha.getValue()).toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate();
+
+        new ConexionesDialog(this, reservaDAO, idUsuario, origen, destino, fecha, this::cargarVuelos).setVisible(true);
     }
-    
+
+    /**
+     * Abre los filtros por faceta de la búsqueda escrita; al aplicarlos, la
+     * tabla muestra los vuelos que los cumplen.
+     */
+    private void abrirFiltros() {
+        String origen = txtOrigen.getText().trim();
+        String destino = txtDestino.getText().trim();
+        LocalDate fecha = ((java.util.Date) SpinnerFecha.getValue()).toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate();
+
+        new FiltrosDialog(this, origen.isEmpty() ? null : origen, destino.isEmpty() ? null : destino,
+                fecha, this::aplicarFiltros).setVisible(true);
+    }
+
+    private void aplicarFiltros(IndiceFacetas.Filtro filtro) {
+        dejarDeSeguirEnVivo();
+        if (cargaVuelos != null) {
+            cargaVuelos.cancel(true);
+        }
+        modeloVuelos.setRowCount(0);
+
+        SwingWorker<Integer, List<Vuelo>> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() {
+                List<Vuelo> vuelos = IndiceFacetas.getInstancia().buscar(filtro);
+                for (int desde = 0; desde < vuelos.size() && !isCancelled(); desde += TAMANO_PAGINA) {
+                    publish(vuelos.subList(desde, Math.min(desde + TAMANO_PAGINA, vuelos.size())));
+                }
+                return vuelos.size();
+            }
+
+            @Override
+            protected void process(List<List<Vuelo>> paginas) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (List<Vuelo> pagina : paginas) {
+                    for (Vuelo v : pagina) {
+                        modeloVuelos.addRow(filaVuelo(v));
+                    }
+                }
+            }
+        };
+        cargaVuelos = worker;
+        worker.execute();
+    }
+
+    private void cambiarEstadoSeleccionado() {
+        int fila = jTable1.getSelectedRow();
+        if (fila == -1) {
+            JOptionPane.showMessageDialog(this, "⚠️ Seleccione un vuelo.");
+            return;
+        }
+        Object idObj = jTable1.getValueAt(fila, 0);
+        if (!(idObj instanceof Integer) || (Integer) idObj <= 0) {
+            JOptionPane.showMessageDialog(this, "🚫 Este vuelo es solo informativo.\nAgrégalo a tu sistema primero.");
+            return;
+        }
+        int idVuelo = (Integer) idObj;
+        Object estado = JOptionPane.showInputDialog(this, "Nuevo estado del vuelo " + jTable1.getValueAt(fila, 2) + ":",
+                "Cambiar estado", JOptionPane.QUESTION_MESSAGE, null, ESTADOS_VUELO, ESTADOS_VUELO[0]);
+        if (estado == null) {
+            return;
+        }
+
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() {
+                return vueloDAO.actualizarEstado(idVuelo, (String) estado);
+            }
+
+            @Override
+            protected void done() {
+                boolean actualizado;
+                try {
+                    actualizado = get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    actualizado = false;
+                }
+                JOptionPane.showMessageDialog(VuelosGUI.this, actualizado
+                        ? "✅ El vuelo quedó " + estado + "."
+                        : "❌ No se pudo cambiar el estado del vuelo.");
+                cargarVuelos();
+            }
+        }.execute();
+    }
+
  private void cargarVuelos() {
+        dejarDeSeguirEnVivo();
         modeloVuelos.setRowCount(0); // Limpia la tabla
 
         String origen = txtOrigen.getText().trim();
@@ -458,26 +671,202 @@ public class VuelosGUI extends javax.swing.JFrame {
             fecha = LocalDate.now();
         }
 
-        List<Vuelo> vuelos = vueloDAO.buscarVuelos(
-            origen.isEmpty() ? null : origen,
-            destino.isEmpty() ? null : destino,
-            fecha
-        );
-
-        for (Vuelo v : vuelos) {
-            modeloVuelos.addRow(new Object[]{
-                v.getIdVuelo(),
-                v.getAerolinea().getNombre(),
-                v.getNumeroVuelo(),
-                v.getOrigen(),
-                v.getDestino(),
-                v.getFechaSalida().format(formatter),
-                v.getAsientosDisponibles(),
-                String.format("%.2f", v.getPrecio())
-            });
+        // Una búsqueda nueva reemplaza a la que aún se esté cargando
+        if (cargaVuelos != null) {
+            cargaVuelos.cancel(true);
         }
+
+        String filtroOrigen = origen.isEmpty() ? null : origen;
+        String filtroDestino = destino.isEmpty() ? null : destino;
+        LocalDate filtroFecha = fecha;
+        OrdenVuelos orden = ORDENES[cmbOrden.getSelectedIndex()];
+        int dias = (Integer) spinnerDias.getValue();
+
+        // Las páginas se leen en segundo plano y se agregan a la tabla según llegan
+        SwingWorker<Integer, List<Vuelo>> worker = new SwingWorker<>() {
+            private String sugerenciaOrigen;
+            private String sugerenciaDestino;
+
+            @Override
+            protected Integer doInBackground() {
+                int encontrados;
+                if (orden != null) {
+                    // Solo los mejores: no hace falta leer ni ordenar todos los que coinciden
+                    List<Vuelo> mejores = vueloDAO.buscarMejores(filtroOrigen, filtroDestino, filtroFecha, orden, 1, TOP_VUELOS);
+                    publish(mejores);
+                    encontrados = mejores.size();
+                } else if (dias > 1) {
+                    // Varios días: el rango se reparte por día entre los hilos del catálogo
+                    List<Vuelo> vuelos = vueloDAO.buscarVuelosEntre(filtroOrigen, filtroDestino,
+                            filtroFecha, filtroFecha.plusDays(dias - 1));
+                    for (int desde = 0; desde < vuelos.size() && !isCancelled(); desde += TAMANO_PAGINA) {
+                        publish(vuelos.subList(desde, Math.min(desde + TAMANO_PAGINA, vuelos.size())));
+                    }
+                    encontrados = vuelos.size();
+                } else {
+                    encontrados = vueloDAO.recorrerVuelos(filtroOrigen, filtroDestino, filtroFecha, TAMANO_PAGINA, pagina -> {
+                        if (isCancelled()) {
+                            return false;
+                        }
+                        publish(pagina);
+                        return true;
+                    });
+                }
+                // Sin resultados: quizá el lugar se escribió sin tildes o con una errata
+                if (encontrados == 0 && !isCancelled()) {
+                    sugerenciaOrigen = sugerirLugar(filtroOrigen);
+                    sugerenciaDestino = sugerirLugar(filtroDestino);
+                }
+                return encontrados;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || (sugerenciaOrigen == null && sugerenciaDestino == null)) {
+                    return;
+                }
+                String origenSugerido = sugerenciaOrigen != null ? sugerenciaOrigen : origen;
+                String destinoSugerido = sugerenciaDestino != null ? sugerenciaDestino : destino;
+                int opcion = JOptionPane.showConfirmDialog(VuelosGUI.this,
+                        "No se encontraron vuelos. ¿Quisiste decir "
+                                + (origenSugerido.isEmpty() ? destinoSugerido
+                                        : destinoSugerido.isEmpty() ? origenSugerido
+                                        : origenSugerido + " → " + destinoSugerido) + "?",
+                        "Sin resultados", JOptionPane.YES_NO_OPTION);
+                if (opcion == JOptionPane.YES_OPTION) {
+                    txtOrigen.setText(origenSugerido);
+                    txtDestino.setText(destinoSugerido);
+                    cargarVuelos();
+                }
+            }
+
+            @Override
+            protected void process(List<List<Vuelo>> paginas) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (List<Vuelo> pagina : paginas) {
+                    for (Vuelo v : pagina) {
+                        modeloVuelos.addRow(filaVuelo(v));
+                    }
+                }
+            }
+        };
+        cargaVuelos = worker;
+        worker.execute();
     }
  
+    @Override
+    public void dispose() {
+        dejarDeSeguirEnVivo();
+        super.dispose();
+    }
+
+    // === Vuelos en el aire desde la ingesta de OpenSky ===
+
+    /**
+     * Deja la tabla suscrita a la ingesta y la llena con los vuelos en el
+     * aire de la última pasada: cada pasada solo toca las filas que cambiaron.
+     *
+     * Se suscribe antes de leer la pasada para no perder la que se guarde
+     * entretanto; sus cambios llegan después por el hilo de la interfaz y,
+     * si la lectura ya los incluía, se aplican otra vez sin efecto.
+     */
+    private void seguirEnVivo(IngestaOpenSky ingesta) {
+        IngestaOpenSky.Oyente oyente = new IngestaOpenSky.Oyente() {
+            @Override
+            public void cambiosAplicados(IngestaOpenSky.Cambios cambios) {
+                SwingUtilities.invokeLater(() -> {
+                    if (oyenteEnVivo == this) {
+                        aplicarCambiosEnVivo(cambios);
+                    }
+                });
+            }
+        };
+        oyenteEnVivo = oyente;
+        ingesta.suscribir(oyente);
+
+        for (Map.Entry<String, Vuelo> e : ingesta.getVuelosEnVivo().entrySet()) {
+            if (modeloVuelos.getRowCount() >= MAX_VUELOS_AIRE) {
+                break;
+            }
+            filaEnVivo.put(e.getKey(), modeloVuelos.getRowCount());
+            modeloVuelos.addRow(filaVuelo(e.getValue()));
+        }
+    }
+
+    private void aplicarCambiosEnVivo(IngestaOpenSky.Cambios cambios) {
+        // Quitar las aeronaves que aterrizaron, de abajo arriba para no mover las pendientes
+        List<Integer> quitadas = new ArrayList<>();
+        for (String icao24 : cambios.retirados().keySet()) {
+            Integer fila = filaEnVivo.remove(icao24);
+            if (fila != null) {
+                quitadas.add(fila);
+            }
+        }
+        if (!quitadas.isEmpty()) {
+            quitadas.sort(null);
+            for (int i = quitadas.size() - 1; i >= 0; i--) {
+                modeloVuelos.removeRow(quitadas.get(i));
+            }
+            for (Map.Entry<String, Integer> e : filaEnVivo.entrySet()) {
+                int antes = -Collections.binarySearch(quitadas, e.getValue()) - 1;
+                e.setValue(e.getValue() - antes);
+            }
+        }
+
+        for (Map.Entry<String, Vuelo> e : cambios.cambiados().entrySet()) {
+            Integer fila = filaEnVivo.get(e.getKey());
+            if (fila != null) {
+                actualizarFilaEnVivo(fila, e.getValue());
+            }
+        }
+
+        // Un viaje nuevo de una aeronave que ya está en la tabla reemplaza su fila;
+        // los demás ocupan los huecos hasta el máximo de filas
+        for (Map.Entry<String, Vuelo> e : cambios.nuevos().entrySet()) {
+            Integer fila = filaEnVivo.get(e.getKey());
+            if (fila != null) {
+                actualizarFilaEnVivo(fila, e.getValue());
+            } else if (modeloVuelos.getRowCount() < MAX_VUELOS_AIRE) {
+                filaEnVivo.put(e.getKey(), modeloVuelos.getRowCount());
+                modeloVuelos.addRow(filaVuelo(e.getValue()));
+            }
+        }
+    }
+
+    // Solo las celdas que cambiaron
+    private void actualizarFilaEnVivo(int fila, Vuelo vuelo) {
+        Object[] valores = filaVuelo(vuelo);
+        for (int col = 0; col < valores.length; col++) {
+            if (!Objects.equals(modeloVuelos.getValueAt(fila, col), valores[col])) {
+                modeloVuelos.setValueAt(valores[col], fila, col);
+            }
+        }
+    }
+
+    private void dejarDeSeguirEnVivo() {
+        IngestaOpenSky ingesta = IngestaOpenSky.getInstancia();
+        if (oyenteEnVivo != null && ingesta != null) {
+            ingesta.cancelarSuscripcion(oyenteEnVivo);
+        }
+        oyenteEnVivo = null;
+        filaEnVivo.clear();
+    }
+
+    private Object[] filaVuelo(Vuelo v) {
+        return new Object[]{
+            v.getIdVuelo(),
+            v.getAerolinea().getNombre(),
+            v.getNumeroVuelo(),
+            v.getOrigen(),
+            v.getDestino(),
+            v.getFechaSalida().format(formatter),
+            v.getAsientosDisponibles(),
+            String.format("%.2f", v.getPrecio())
+        };
+    }
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JSpinner SpinnerFecha;
     private javax.swing.JButton btnAgregarASistema;